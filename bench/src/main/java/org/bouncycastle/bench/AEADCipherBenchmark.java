@@ -0,0 +1,188 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.AsconAEAD128;
+import org.bouncycastle.crypto.engines.DSTU7624Engine;
+import org.bouncycastle.crypto.engines.ElephantEngine;
+import org.bouncycastle.crypto.engines.GiftCofbEngine;
+import org.bouncycastle.crypto.engines.Grain128AEADEngine;
+import org.bouncycastle.crypto.engines.ISAPEngine;
+import org.bouncycastle.crypto.engines.PhotonBeetleEngine;
+import org.bouncycastle.crypto.engines.RomulusEngine;
+import org.bouncycastle.crypto.engines.SparkleEngine;
+import org.bouncycastle.crypto.engines.XoodyakEngine;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.EAXBlockCipher;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.modes.GCMSIVBlockCipher;
+import org.bouncycastle.crypto.modes.KGCMBlockCipher;
+import org.bouncycastle.crypto.modes.OCBBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-message seal and open cost for the AEAD ciphers in core, including the init() with a new nonce.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AEADCipherBenchmark
+{
+    @Param({"AES-GCM", "AES-CCM", "AES-OCB", "AES-EAX", "AES-GCM-SIV", "ChaCha20-Poly1305", "DSTU7624-KGCM",
+        "Ascon-AEAD128", "ISAP-A-128A", "Elephant160", "GIFT-COFB", "Grain-128AEAD", "PhotonBeetle-AEAD128",
+        "Romulus-M", "Schwaemm128-128", "Xoodyak"})
+    public String algorithm;
+
+    @Param({"16", "64", "256", "1024", "8192", "65536"})
+    public int size;
+
+    private AEADCipher cipher;
+    private ParametersWithIV[] encParams;
+    private ParametersWithIV decParams;
+    private int count;
+    private byte[] aad;
+    private byte[] input;
+    private byte[] ciphertext;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+        throws InvalidCipherTextException
+    {
+        cipher = createCipher(algorithm);
+
+        KeyParameter key = new KeyParameter(BenchUtils.data(getKeySize(algorithm)));
+        int nonceSize = getNonceSize(algorithm);
+
+        // some modes refuse to encrypt twice in a row under the same key and nonce, so alternate between two
+        encParams = new ParametersWithIV[2];
+        for (int i = 0; i < encParams.length; ++i)
+        {
+            byte[] nonce = new byte[nonceSize];
+            nonce[0] = (byte)i;
+            encParams[i] = new ParametersWithIV(key, nonce);
+        }
+        decParams = encParams[0];
+
+        aad = BenchUtils.data(13);
+        input = BenchUtils.data(size);
+        output = new byte[size + 64];
+
+        cipher.init(true, decParams);
+        int len = process(input, output);
+        ciphertext = new byte[len];
+        System.arraycopy(output, 0, ciphertext, 0, len);
+    }
+
+    @Benchmark
+    public byte[] seal()
+        throws InvalidCipherTextException
+    {
+        cipher.init(true, encParams[++count & 1]);
+        process(input, output);
+        return output;
+    }
+
+    @Benchmark
+    public byte[] open()
+        throws InvalidCipherTextException
+    {
+        cipher.init(false, decParams);
+        process(ciphertext, output);
+        return output;
+    }
+
+    private int process(byte[] in, byte[] out)
+        throws InvalidCipherTextException
+    {
+        cipher.processAADBytes(aad, 0, aad.length);
+        int len = cipher.processBytes(in, 0, in.length, out, 0);
+        return len + cipher.doFinal(out, len);
+    }
+
+    static AEADCipher createCipher(String algorithm)
+    {
+        switch (algorithm)
+        {
+        case "AES-GCM":
+            return GCMBlockCipher.newInstance(AESEngine.newInstance());
+        case "AES-CCM":
+            return CCMBlockCipher.newInstance(AESEngine.newInstance());
+        case "AES-OCB":
+            return new OCBBlockCipher(AESEngine.newInstance(), AESEngine.newInstance());
+        case "AES-EAX":
+            return new EAXBlockCipher(AESEngine.newInstance());
+        case "AES-GCM-SIV":
+            return new GCMSIVBlockCipher(AESEngine.newInstance());
+        case "ChaCha20-Poly1305":
+            return new ChaCha20Poly1305();
+        case "DSTU7624-KGCM":
+            return new KGCMBlockCipher(new DSTU7624Engine(128));
+        case "Ascon-AEAD128":
+            return new AsconAEAD128();
+        case "ISAP-A-128A":
+            return new ISAPEngine(ISAPEngine.IsapType.ISAP_A_128A);
+        case "Elephant160":
+            return new ElephantEngine(ElephantEngine.ElephantParameters.elephant160);
+        case "GIFT-COFB":
+            return new GiftCofbEngine();
+        case "Grain-128AEAD":
+            return new Grain128AEADEngine();
+        case "PhotonBeetle-AEAD128":
+            return new PhotonBeetleEngine(PhotonBeetleEngine.PhotonBeetleParameters.pb128);
+        case "Romulus-M":
+            return new RomulusEngine(RomulusEngine.RomulusParameters.RomulusM);
+        case "Schwaemm128-128":
+            return new SparkleEngine(SparkleEngine.SparkleParameters.SCHWAEMM128_128);
+        case "Xoodyak":
+            return new XoodyakEngine();
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+    }
+
+    static int getKeySize(String algorithm)
+    {
+        if ("ChaCha20-Poly1305".equals(algorithm))
+        {
+            return 32;
+        }
+        return 16;
+    }
+
+    static int getNonceSize(String algorithm)
+    {
+        switch (algorithm)
+        {
+        case "AES-GCM":
+        case "AES-CCM":
+        case "AES-OCB":
+        case "AES-GCM-SIV":
+        case "ChaCha20-Poly1305":
+        case "Elephant160":
+        case "Grain-128AEAD":
+            return 12;
+        default:
+            return 16;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.bouncycastle.bench;
+
+import java.util.Random;
+
+/**
+ * Shared helpers for the benchmark states.
+ */
+final class BenchUtils
+{
+    private BenchUtils()
+    {
+    }
+
+    /**
+     * Return deterministic pseudo-random data, so runs are comparable across JVMs.
+     *
+     * @param len the number of bytes required.
+     * @return a byte array of len bytes.
+     */
+    static byte[] data(int len)
+    {
+        byte[] data = new byte[len];
+        new Random(len).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Round len up to a multiple of blockSize.
+     */
+    static int roundUp(int len, int blockSize)
+    {
+        return ((len + blockSize - 1) / blockSize) * blockSize;
+    }
+
+    static IllegalArgumentException unknown(String algorithm)
+    {
+        return new IllegalArgumentException("unknown algorithm: " + algorithm);
+    }
+}
@@ -0,0 +1,185 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.MultiBlockCipher;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ARIAEngine;
+import org.bouncycastle.crypto.engines.BlowfishEngine;
+import org.bouncycastle.crypto.engines.CAST6Engine;
+import org.bouncycastle.crypto.engines.CamelliaEngine;
+import org.bouncycastle.crypto.engines.DESedeEngine;
+import org.bouncycastle.crypto.engines.DSTU7624Engine;
+import org.bouncycastle.crypto.engines.GOST3412_2015Engine;
+import org.bouncycastle.crypto.engines.IDEAEngine;
+import org.bouncycastle.crypto.engines.LEAEngine;
+import org.bouncycastle.crypto.engines.NoekeonEngine;
+import org.bouncycastle.crypto.engines.RC6Engine;
+import org.bouncycastle.crypto.engines.SEEDEngine;
+import org.bouncycastle.crypto.engines.SM4Engine;
+import org.bouncycastle.crypto.engines.SerpentEngine;
+import org.bouncycastle.crypto.engines.Shacal2Engine;
+import org.bouncycastle.crypto.engines.ThreefishEngine;
+import org.bouncycastle.crypto.engines.TwofishEngine;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.modes.SICBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk encryption throughput for the block ciphers in core, raw (ECB) and in the CBC and CTR modes.
+ * <p>
+ * Ciphers implementing {@link MultiBlockCipher} are driven through processBlocks(), everything else
+ * one block at a time, which is how the buffered cipher classes use them.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockCipherBenchmark
+{
+    @Param({"AES", "ARIA", "Camellia", "SM4", "Serpent", "Twofish", "DESede", "Blowfish", "Threefish-256",
+        "LEA", "SEED", "CAST6", "GOST3412-2015", "DSTU7624-128", "RC6", "IDEA", "Noekeon", "Shacal2"})
+    public String algorithm;
+
+    @Param({"ECB", "CBC", "CTR"})
+    public String mode;
+
+    @Param({"16", "64", "256", "1024", "8192", "65536"})
+    public int size;
+
+    private BlockCipher cipher;
+    private MultiBlockCipher multiBlockCipher;
+    private int blockSize;
+    private int blockCount;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        BlockCipher engine = createEngine(algorithm);
+        byte[] key = BenchUtils.data(getKeySize(algorithm));
+
+        CipherParameters params = new KeyParameter(key);
+        if ("CBC".equals(mode))
+        {
+            cipher = CBCBlockCipher.newInstance(engine);
+            params = new ParametersWithIV(params, new byte[engine.getBlockSize()]);
+        }
+        else if ("CTR".equals(mode))
+        {
+            cipher = SICBlockCipher.newInstance(engine);
+            params = new ParametersWithIV(params, new byte[engine.getBlockSize()]);
+        }
+        else if ("ECB".equals(mode))
+        {
+            cipher = engine;
+        }
+        else
+        {
+            throw new IllegalArgumentException("unknown mode: " + mode);
+        }
+
+        cipher.init(true, params);
+
+        multiBlockCipher = (cipher instanceof MultiBlockCipher) ? (MultiBlockCipher)cipher : null;
+        blockSize = cipher.getBlockSize();
+
+        int len = BenchUtils.roundUp(size, blockSize);
+        blockCount = len / blockSize;
+        input = BenchUtils.data(len);
+        output = new byte[len];
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+    {
+        if (multiBlockCipher != null)
+        {
+            multiBlockCipher.processBlocks(input, 0, blockCount, output, 0);
+        }
+        else
+        {
+            for (int i = 0, off = 0; i < blockCount; ++i, off += blockSize)
+            {
+                cipher.processBlock(input, off, output, off);
+            }
+        }
+        return output;
+    }
+
+    static BlockCipher createEngine(String algorithm)
+    {
+        switch (algorithm)
+        {
+        case "AES":
+            return AESEngine.newInstance();
+        case "ARIA":
+            return new ARIAEngine();
+        case "Camellia":
+            return new CamelliaEngine();
+        case "SM4":
+            return new SM4Engine();
+        case "Serpent":
+            return new SerpentEngine();
+        case "Twofish":
+            return new TwofishEngine();
+        case "DESede":
+            return new DESedeEngine();
+        case "Blowfish":
+            return new BlowfishEngine();
+        case "Threefish-256":
+            return new ThreefishEngine(ThreefishEngine.BLOCKSIZE_256);
+        case "LEA":
+            return new LEAEngine();
+        case "SEED":
+            return new SEEDEngine();
+        case "CAST6":
+            return new CAST6Engine();
+        case "GOST3412-2015":
+            return new GOST3412_2015Engine();
+        case "DSTU7624-128":
+            return new DSTU7624Engine(128);
+        case "RC6":
+            return new RC6Engine();
+        case "IDEA":
+            return new IDEAEngine();
+        case "Noekeon":
+            return new NoekeonEngine();
+        case "Shacal2":
+            return new Shacal2Engine();
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+    }
+
+    static int getKeySize(String algorithm)
+    {
+        if ("DESede".equals(algorithm))
+        {
+            return 24;
+        }
+        if ("Threefish-256".equals(algorithm) || "GOST3412-2015".equals(algorithm))
+        {
+            return 32;
+        }
+        return 16;
+    }
+}
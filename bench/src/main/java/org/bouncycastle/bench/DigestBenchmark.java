@@ -0,0 +1,179 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.AsconHash256;
+import org.bouncycastle.crypto.digests.AsconXof128;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake2bpDigest;
+import org.bouncycastle.crypto.digests.Blake2sDigest;
+import org.bouncycastle.crypto.digests.Blake2spDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.DSTU7564Digest;
+import org.bouncycastle.crypto.digests.GOST3411Digest;
+import org.bouncycastle.crypto.digests.GOST3411_2012_256Digest;
+import org.bouncycastle.crypto.digests.GOST3411_2012_512Digest;
+import org.bouncycastle.crypto.digests.ISAPDigest;
+import org.bouncycastle.crypto.digests.Kangaroo;
+import org.bouncycastle.crypto.digests.KeccakDigest;
+import org.bouncycastle.crypto.digests.MD4Digest;
+import org.bouncycastle.crypto.digests.MD5Digest;
+import org.bouncycastle.crypto.digests.ParallelHash;
+import org.bouncycastle.crypto.digests.PhotonBeetleDigest;
+import org.bouncycastle.crypto.digests.RIPEMD160Digest;
+import org.bouncycastle.crypto.digests.RomulusDigest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA224Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.digests.SkeinDigest;
+import org.bouncycastle.crypto.digests.SparkleDigest;
+import org.bouncycastle.crypto.digests.TigerDigest;
+import org.bouncycastle.crypto.digests.TupleHash;
+import org.bouncycastle.crypto.digests.WhirlpoolDigest;
+import org.bouncycastle.crypto.digests.XoodyakDigest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of update() followed by doFinal() for the message digests in core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestBenchmark
+{
+    @Param({"MD4", "MD5", "SHA-1", "SHA-224", "SHA-256", "SHA-384", "SHA-512", "SHA-512/256",
+        "SHA3-256", "SHA3-512", "Keccak-256", "SHAKE128", "SHAKE256", "ParallelHash128", "TupleHash128",
+        "KangarooTwelve", "MarsupilamiFourteen", "BLAKE2b-512", "BLAKE2s-256", "BLAKE2bp", "BLAKE2sp", "BLAKE3",
+        "RIPEMD160", "Tiger", "Whirlpool", "SM3", "Skein-512-512", "GOST3411", "GOST3411-2012-256",
+        "GOST3411-2012-512", "DSTU7564-256", "Ascon-Hash256", "Ascon-XOF128", "ISAP-Hash", "PhotonBeetle-Hash",
+        "Romulus-H", "ESCH256", "Xoodyak-Hash"})
+    public String algorithm;
+
+    @Param({"16", "64", "256", "1024", "8192", "65536"})
+    public int size;
+
+    private Digest digest;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        digest = createDigest(algorithm);
+        input = BenchUtils.data(size);
+        output = new byte[digest.getDigestSize()];
+    }
+
+    @Benchmark
+    public byte[] hash()
+    {
+        digest.update(input, 0, input.length);
+        digest.doFinal(output, 0);
+        return output;
+    }
+
+    static Digest createDigest(String algorithm)
+    {
+        switch (algorithm)
+        {
+        case "MD4":
+            return new MD4Digest();
+        case "MD5":
+            return new MD5Digest();
+        case "SHA-1":
+            return new SHA1Digest();
+        case "SHA-224":
+            return new SHA224Digest();
+        case "SHA-256":
+            return new SHA256Digest();
+        case "SHA-384":
+            return new SHA384Digest();
+        case "SHA-512":
+            return new SHA512Digest();
+        case "SHA-512/256":
+            return new SHA512tDigest(256);
+        case "SHA3-256":
+            return new SHA3Digest(256);
+        case "SHA3-512":
+            return new SHA3Digest(512);
+        case "Keccak-256":
+            return new KeccakDigest(256);
+        case "SHAKE128":
+            return new SHAKEDigest(128);
+        case "SHAKE256":
+            return new SHAKEDigest(256);
+        case "ParallelHash128":
+            return new ParallelHash(128, null, 8192);
+        case "TupleHash128":
+            return new TupleHash(128, null);
+        case "KangarooTwelve":
+            return new Kangaroo.KangarooTwelve();
+        case "MarsupilamiFourteen":
+            return new Kangaroo.MarsupilamiFourteen();
+        case "BLAKE2b-512":
+            return new Blake2bDigest(512);
+        case "BLAKE2s-256":
+            return new Blake2sDigest(256);
+        case "BLAKE2bp":
+            return new Blake2bpDigest(null);
+        case "BLAKE2sp":
+            return new Blake2spDigest(null);
+        case "BLAKE3":
+            return new Blake3Digest();
+        case "RIPEMD160":
+            return new RIPEMD160Digest();
+        case "Tiger":
+            return new TigerDigest();
+        case "Whirlpool":
+            return new WhirlpoolDigest();
+        case "SM3":
+            return new SM3Digest();
+        case "Skein-512-512":
+            return new SkeinDigest(SkeinDigest.SKEIN_512, 512);
+        case "GOST3411":
+            return new GOST3411Digest();
+        case "GOST3411-2012-256":
+            return new GOST3411_2012_256Digest();
+        case "GOST3411-2012-512":
+            return new GOST3411_2012_512Digest();
+        case "DSTU7564-256":
+            return new DSTU7564Digest(256);
+        case "Ascon-Hash256":
+            return new AsconHash256();
+        case "Ascon-XOF128":
+            return new AsconXof128();
+        case "ISAP-Hash":
+            return new ISAPDigest();
+        case "PhotonBeetle-Hash":
+            return new PhotonBeetleDigest();
+        case "Romulus-H":
+            return new RomulusDigest();
+        case "ESCH256":
+            return new SparkleDigest(SparkleDigest.SparkleParameters.ESCH256);
+        case "Xoodyak-Hash":
+            return new XoodyakDigest();
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+    }
+}
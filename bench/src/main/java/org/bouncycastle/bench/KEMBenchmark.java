@@ -0,0 +1,193 @@
+package org.bouncycastle.bench;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.EncapsulatedSecretExtractor;
+import org.bouncycastle.crypto.EncapsulatedSecretGenerator;
+import org.bouncycastle.crypto.KeyGenerationParameters;
+import org.bouncycastle.crypto.SecretWithEncapsulation;
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMExtractor;
+import org.bouncycastle.pqc.crypto.bike.BIKEKEMGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.bike.BIKEParameters;
+import org.bouncycastle.pqc.crypto.bike.BIKEPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKEMExtractor;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKEMGenerator;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.frodo.FrodoParameters;
+import org.bouncycastle.pqc.crypto.frodo.FrodoPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMExtractor;
+import org.bouncycastle.pqc.crypto.hqc.HQCKEMGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.hqc.HQCParameters;
+import org.bouncycastle.pqc.crypto.hqc.HQCPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMExtractor;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMParameters;
+import org.bouncycastle.pqc.crypto.mlkem.MLKEMPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKEMExtractor;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKEMGenerator;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.ntru.NTRUParameters;
+import org.bouncycastle.pqc.crypto.ntru.NTRUPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xwing.XWingKEMExtractor;
+import org.bouncycastle.pqc.crypto.xwing.XWingKEMGenerator;
+import org.bouncycastle.pqc.crypto.xwing.XWingKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xwing.XWingKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xwing.XWingPrivateKeyParameters;
+import org.bouncycastle.util.Arrays;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encapsulation and decapsulation cost for the KEMs in core, against a key pair generated once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KEMBenchmark
+{
+    @Param({"ML-KEM-512", "ML-KEM-768", "ML-KEM-1024", "X-Wing", "HQC-128", "BIKE-128", "FrodoKEM-640-AES",
+        "FrodoKEM-640-SHAKE", "NTRU-HPS-2048-509"})
+    public String algorithm;
+
+    private EncapsulatedSecretGenerator generator;
+    private EncapsulatedSecretExtractor extractor;
+    private AsymmetricKeyParameter publicKey;
+    private byte[] encapsulation;
+
+    @Setup
+    public void setup()
+    {
+        SecureRandom random = new SecureRandom();
+        AsymmetricCipherKeyPairGenerator kpGen;
+        KeyGenerationParameters kpParams;
+
+        switch (algorithm)
+        {
+        case "ML-KEM-512":
+            kpGen = new MLKEMKeyPairGenerator();
+            kpParams = new MLKEMKeyGenerationParameters(random, MLKEMParameters.ml_kem_512);
+            generator = new MLKEMGenerator(random);
+            break;
+        case "ML-KEM-768":
+            kpGen = new MLKEMKeyPairGenerator();
+            kpParams = new MLKEMKeyGenerationParameters(random, MLKEMParameters.ml_kem_768);
+            generator = new MLKEMGenerator(random);
+            break;
+        case "ML-KEM-1024":
+            kpGen = new MLKEMKeyPairGenerator();
+            kpParams = new MLKEMKeyGenerationParameters(random, MLKEMParameters.ml_kem_1024);
+            generator = new MLKEMGenerator(random);
+            break;
+        case "X-Wing":
+            kpGen = new XWingKeyPairGenerator();
+            kpParams = new XWingKeyGenerationParameters(random);
+            generator = new XWingKEMGenerator(random);
+            break;
+        case "HQC-128":
+            kpGen = new HQCKeyPairGenerator();
+            kpParams = new HQCKeyGenerationParameters(random, HQCParameters.hqc128);
+            generator = new HQCKEMGenerator(random);
+            break;
+        case "BIKE-128":
+            kpGen = new BIKEKeyPairGenerator();
+            kpParams = new BIKEKeyGenerationParameters(random, BIKEParameters.bike128);
+            generator = new BIKEKEMGenerator(random);
+            break;
+        case "FrodoKEM-640-AES":
+            kpGen = new FrodoKeyPairGenerator();
+            kpParams = new FrodoKeyGenerationParameters(random, FrodoParameters.frodokem640aes);
+            generator = new FrodoKEMGenerator(random);
+            break;
+        case "FrodoKEM-640-SHAKE":
+            kpGen = new FrodoKeyPairGenerator();
+            kpParams = new FrodoKeyGenerationParameters(random, FrodoParameters.frodokem640shake);
+            generator = new FrodoKEMGenerator(random);
+            break;
+        case "NTRU-HPS-2048-509":
+            kpGen = new NTRUKeyPairGenerator();
+            kpParams = new NTRUKeyGenerationParameters(random, NTRUParameters.ntruhps2048509);
+            generator = new NTRUKEMGenerator(random);
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        kpGen.init(kpParams);
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        publicKey = kp.getPublic();
+        extractor = createExtractor(kp.getPrivate());
+
+        SecretWithEncapsulation secWithEnc = generator.generateEncapsulated(publicKey);
+        encapsulation = secWithEnc.getEncapsulation();
+        if (!Arrays.areEqual(secWithEnc.getSecret(), extractor.extractSecret(encapsulation)))
+        {
+            throw new IllegalStateException(algorithm + " shared secrets do not match");
+        }
+    }
+
+    @Benchmark
+    public SecretWithEncapsulation encapsulate()
+    {
+        return generator.generateEncapsulated(publicKey);
+    }
+
+    @Benchmark
+    public byte[] decapsulate()
+    {
+        return extractor.extractSecret(encapsulation);
+    }
+
+    private static EncapsulatedSecretExtractor createExtractor(AsymmetricKeyParameter privateKey)
+    {
+        if (privateKey instanceof MLKEMPrivateKeyParameters)
+        {
+            return new MLKEMExtractor((MLKEMPrivateKeyParameters)privateKey);
+        }
+        if (privateKey instanceof XWingPrivateKeyParameters)
+        {
+            return new XWingKEMExtractor((XWingPrivateKeyParameters)privateKey);
+        }
+        if (privateKey instanceof HQCPrivateKeyParameters)
+        {
+            return new HQCKEMExtractor((HQCPrivateKeyParameters)privateKey);
+        }
+        if (privateKey instanceof BIKEPrivateKeyParameters)
+        {
+            return new BIKEKEMExtractor((BIKEPrivateKeyParameters)privateKey);
+        }
+        if (privateKey instanceof FrodoPrivateKeyParameters)
+        {
+            return new FrodoKEMExtractor((FrodoPrivateKeyParameters)privateKey);
+        }
+        if (privateKey instanceof NTRUPrivateKeyParameters)
+        {
+            return new NTRUKEMExtractor((NTRUPrivateKeyParameters)privateKey);
+        }
+        throw new IllegalArgumentException("unknown private key type: " + privateKey.getClass().getName());
+    }
+}
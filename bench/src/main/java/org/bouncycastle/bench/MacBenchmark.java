@@ -0,0 +1,167 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.DESedeEngine;
+import org.bouncycastle.crypto.macs.Blake3Mac;
+import org.bouncycastle.crypto.macs.CBCBlockCipherMac;
+import org.bouncycastle.crypto.macs.CMac;
+import org.bouncycastle.crypto.macs.DSTU7564Mac;
+import org.bouncycastle.crypto.macs.GMac;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.KMAC;
+import org.bouncycastle.crypto.macs.Poly1305;
+import org.bouncycastle.crypto.macs.SipHash;
+import org.bouncycastle.crypto.macs.SipHash128;
+import org.bouncycastle.crypto.macs.SkeinMac;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of update() followed by doFinal() for the MACs in core, with the key set up once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacBenchmark
+{
+    @Param({"HMAC-SHA1", "HMAC-SHA256", "HMAC-SHA512", "HMAC-SHA3-256", "AES-CMAC", "AES-GMAC", "DESede-CBCMAC",
+        "Poly1305", "Poly1305-AES", "SipHash-2-4", "SipHash128-2-4", "KMAC128", "KMAC256", "BLAKE3-MAC",
+        "Skein-MAC-512-512", "DSTU7564-MAC-256"})
+    public String algorithm;
+
+    @Param({"16", "64", "256", "1024", "8192", "65536"})
+    public int size;
+
+    private Mac mac;
+    private CipherParameters[] nonceParams;
+    private int count;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        CipherParameters params;
+
+        switch (algorithm)
+        {
+        case "HMAC-SHA1":
+            mac = new HMac(new SHA1Digest());
+            params = key(20);
+            break;
+        case "HMAC-SHA256":
+            mac = new HMac(new SHA256Digest());
+            params = key(32);
+            break;
+        case "HMAC-SHA512":
+            mac = new HMac(new SHA512Digest());
+            params = key(64);
+            break;
+        case "HMAC-SHA3-256":
+            mac = new HMac(new SHA3Digest(256));
+            params = key(32);
+            break;
+        case "AES-CMAC":
+            mac = new CMac(AESEngine.newInstance());
+            params = key(16);
+            break;
+        case "AES-GMAC":
+            mac = new GMac(GCMBlockCipher.newInstance(AESEngine.newInstance()));
+            // GCM will not authenticate twice in a row under the same nonce, so alternate between two
+            KeyParameter gmacKey = key(16);
+            byte[] nonce = new byte[12];
+            nonce[0] = 1;
+            params = new ParametersWithIV(gmacKey, new byte[12]);
+            nonceParams = new CipherParameters[]{ params, new ParametersWithIV(gmacKey, nonce) };
+            break;
+        case "DESede-CBCMAC":
+            mac = new CBCBlockCipherMac(new DESedeEngine());
+            params = key(24);
+            break;
+        case "Poly1305":
+            mac = new Poly1305();
+            params = key(32);
+            break;
+        case "Poly1305-AES":
+            mac = new Poly1305(AESEngine.newInstance());
+            params = new ParametersWithIV(key(32), new byte[16]);
+            break;
+        case "SipHash-2-4":
+            mac = new SipHash();
+            params = key(16);
+            break;
+        case "SipHash128-2-4":
+            mac = new SipHash128();
+            params = key(16);
+            break;
+        case "KMAC128":
+            mac = new KMAC(128, null);
+            params = key(32);
+            break;
+        case "KMAC256":
+            mac = new KMAC(256, null);
+            params = key(32);
+            break;
+        case "BLAKE3-MAC":
+            mac = new Blake3Mac(new Blake3Digest());
+            params = key(32);
+            break;
+        case "Skein-MAC-512-512":
+            mac = new SkeinMac(SkeinMac.SKEIN_512, 512);
+            params = key(64);
+            break;
+        case "DSTU7564-MAC-256":
+            mac = new DSTU7564Mac(256);
+            params = key(32);
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        mac.init(params);
+
+        input = BenchUtils.data(size);
+        output = new byte[mac.getMacSize()];
+    }
+
+    @Benchmark
+    public byte[] mac()
+    {
+        if (nonceParams != null)
+        {
+            mac.init(nonceParams[++count & 1]);
+        }
+        mac.update(input, 0, input.length);
+        mac.doFinal(output, 0);
+        return output;
+    }
+
+    private static KeyParameter key(int keySize)
+    {
+        return new KeyParameter(BenchUtils.data(keySize));
+    }
+}
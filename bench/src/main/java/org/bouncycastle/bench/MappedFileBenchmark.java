@@ -0,0 +1,159 @@
+package org.bouncycastle.bench;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.io.DigestInputStream;
+import org.bouncycastle.crypto.util.MappedFileUtil;
+import org.bouncycastle.util.io.Streams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to hash a multi-GB file, read through a DigestInputStream (stream), through memory-mapped regions (mapped),
+ * and through memory-mapped regions with a ForkJoinPool loading regions ahead and, for BLAKE3, hashing chunks
+ * (mappedParallel).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class MappedFileBenchmark
+{
+    @Param({"SHA-256", "BLAKE3"})
+    public String algorithm;
+
+    @Param({"1073741824", "4294967296"})
+    public long size;
+
+    private File file;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setup()
+        throws IOException
+    {
+        file = File.createTempFile("bcbench", ".dat");
+        file.deleteOnExit();
+
+        byte[] block = BenchUtils.data(1024 * 1024);
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            for (long written = 0; written < size; written += block.length)
+            {
+                out.write(block, 0, (int)Math.min(block.length, size - written));
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        pool.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] stream()
+        throws IOException
+    {
+        Digest digest = createDigest(false);
+        InputStream in = new DigestInputStream(new FileInputStream(file), digest);
+        try
+        {
+            Streams.drain(in);
+        }
+        finally
+        {
+            in.close();
+        }
+        return doFinal(digest);
+    }
+
+    @Benchmark
+    public byte[] mapped()
+        throws IOException
+    {
+        Digest digest = createDigest(false);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            MappedFileUtil.update(digest, raf.getChannel());
+        }
+        finally
+        {
+            raf.close();
+        }
+        return doFinal(digest);
+    }
+
+    @Benchmark
+    public byte[] mappedParallel()
+        throws IOException
+    {
+        Digest digest = createDigest(true);
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            MappedFileUtil.update(digest, raf.getChannel(), 0, size, pool);
+        }
+        finally
+        {
+            raf.close();
+        }
+        return doFinal(digest);
+    }
+
+    private Digest createDigest(boolean parallel)
+    {
+        switch (algorithm)
+        {
+        case "SHA-256":
+            return new SHA256Digest();
+        case "BLAKE3":
+            return parallel
+                ? new Blake3Digest(256, CryptoServicePurpose.ANY, pool, pool.getParallelism())
+                : new Blake3Digest();
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+    }
+
+    private static byte[] doFinal(Digest digest)
+    {
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+}
@@ -0,0 +1,95 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBufferDigest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Messages hashed per second for a batch of short messages, hashed one at a time with the standard digest
+ * (perMessage) and all together with the multi-buffer digest (hashAll).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiBufferDigestBenchmark
+{
+    private static final int MESSAGES = 1024;
+
+    @Param({"SHA-256", "SHA-512"})
+    public String algorithm;
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    private Digest digest;
+    private MultiBufferDigest multiDigest;
+    private byte[][] inputs;
+    private byte[][] outputs;
+
+    @Setup
+    public void setup()
+    {
+        switch (algorithm)
+        {
+        case "SHA-256":
+            digest = new SHA256Digest();
+            multiDigest = new SHA256MultiBufferDigest();
+            break;
+        case "SHA-512":
+            digest = new SHA512Digest();
+            multiDigest = new SHA512MultiBufferDigest();
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        byte[] data = BenchUtils.data(MESSAGES + size);
+        inputs = new byte[MESSAGES][];
+        outputs = new byte[MESSAGES][digest.getDigestSize()];
+        for (int i = 0; i < MESSAGES; ++i)
+        {
+            inputs[i] = new byte[size];
+            System.arraycopy(data, i, inputs[i], 0, size);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] perMessage()
+    {
+        for (int i = 0; i < MESSAGES; ++i)
+        {
+            digest.update(inputs[i], 0, inputs[i].length);
+            digest.doFinal(outputs[i], 0);
+        }
+        return outputs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[][] hashAll()
+    {
+        multiDigest.hashAll(inputs, outputs);
+        return outputs;
+    }
+}
@@ -0,0 +1,219 @@
+package org.bouncycastle.bench;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.bouncycastle.crypto.CryptoException;
+import org.bouncycastle.crypto.KeyGenerationParameters;
+import org.bouncycastle.crypto.Signer;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SM3Digest;
+import org.bouncycastle.crypto.engines.RSABlindedEngine;
+import org.bouncycastle.crypto.generators.ECKeyPairGenerator;
+import org.bouncycastle.crypto.generators.Ed25519KeyPairGenerator;
+import org.bouncycastle.crypto.generators.Ed448KeyPairGenerator;
+import org.bouncycastle.crypto.generators.RSAKeyPairGenerator;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.crypto.params.ECKeyGenerationParameters;
+import org.bouncycastle.crypto.params.Ed25519KeyGenerationParameters;
+import org.bouncycastle.crypto.params.Ed448KeyGenerationParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.crypto.params.RSAKeyGenerationParameters;
+import org.bouncycastle.crypto.signers.DSADigestSigner;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.Ed25519Signer;
+import org.bouncycastle.crypto.signers.Ed448Signer;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+import org.bouncycastle.crypto.signers.PSSSigner;
+import org.bouncycastle.crypto.signers.RSADigestSigner;
+import org.bouncycastle.crypto.signers.SM2Signer;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.falcon.FalconParameters;
+import org.bouncycastle.pqc.crypto.falcon.FalconSigner;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSASigner;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSAParameters;
+import org.bouncycastle.pqc.crypto.slhdsa.SLHDSASigner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Signature generation and verification cost for the signers in core, with the key pair generated once.
+ * <p>
+ * SLH-DSA and Falcon only offer the {@link MessageSigner} API, so they are driven through that rather than
+ * {@link Signer}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignerBenchmark
+{
+    @Param({"Ed25519", "Ed448", "ECDSA-P256-SHA256", "SM2", "RSA-2048-PKCS1-SHA256", "RSA-2048-PSS-SHA256",
+        "ML-DSA-44", "ML-DSA-65", "ML-DSA-87", "SLH-DSA-SHA2-128F", "SLH-DSA-SHAKE-128F", "Falcon-512"})
+    public String algorithm;
+
+    @Param({"32", "1024"})
+    public int size;
+
+    private Signer signer;
+    private Signer verifier;
+    private MessageSigner messageSigner;
+    private MessageSigner messageVerifier;
+    private byte[] message;
+    private byte[] signature;
+
+    @Setup
+    public void setup()
+        throws CryptoException
+    {
+        SecureRandom random = new SecureRandom();
+        AsymmetricCipherKeyPairGenerator kpGen;
+        KeyGenerationParameters kpParams;
+
+        switch (algorithm)
+        {
+        case "Ed25519":
+            kpGen = new Ed25519KeyPairGenerator();
+            kpParams = new Ed25519KeyGenerationParameters(random);
+            signer = new Ed25519Signer();
+            verifier = new Ed25519Signer();
+            break;
+        case "Ed448":
+            kpGen = new Ed448KeyPairGenerator();
+            kpParams = new Ed448KeyGenerationParameters(random);
+            signer = new Ed448Signer(new byte[0]);
+            verifier = new Ed448Signer(new byte[0]);
+            break;
+        case "ECDSA-P256-SHA256":
+            kpGen = new ECKeyPairGenerator();
+            kpParams = new ECKeyGenerationParameters(new ECDomainParameters(ECNamedCurveTable.getByName("P-256")), random);
+            signer = new DSADigestSigner(new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest())), new SHA256Digest());
+            verifier = new DSADigestSigner(new ECDSASigner(), new SHA256Digest());
+            break;
+        case "SM2":
+            kpGen = new ECKeyPairGenerator();
+            kpParams = new ECKeyGenerationParameters(new ECDomainParameters(ECNamedCurveTable.getByName("sm2p256v1")), random);
+            signer = new SM2Signer(new SM3Digest());
+            verifier = new SM2Signer(new SM3Digest());
+            break;
+        case "RSA-2048-PKCS1-SHA256":
+            kpGen = new RSAKeyPairGenerator();
+            kpParams = new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, 2048, 100);
+            signer = new RSADigestSigner(new SHA256Digest());
+            verifier = new RSADigestSigner(new SHA256Digest());
+            break;
+        case "RSA-2048-PSS-SHA256":
+            kpGen = new RSAKeyPairGenerator();
+            kpParams = new RSAKeyGenerationParameters(BigInteger.valueOf(0x10001), random, 2048, 100);
+            signer = new PSSSigner(new RSABlindedEngine(), new SHA256Digest(), 32);
+            verifier = new PSSSigner(new RSABlindedEngine(), new SHA256Digest(), 32);
+            break;
+        case "ML-DSA-44":
+            kpGen = new MLDSAKeyPairGenerator();
+            kpParams = new MLDSAKeyGenerationParameters(random, MLDSAParameters.ml_dsa_44);
+            signer = new MLDSASigner();
+            verifier = new MLDSASigner();
+            break;
+        case "ML-DSA-65":
+            kpGen = new MLDSAKeyPairGenerator();
+            kpParams = new MLDSAKeyGenerationParameters(random, MLDSAParameters.ml_dsa_65);
+            signer = new MLDSASigner();
+            verifier = new MLDSASigner();
+            break;
+        case "ML-DSA-87":
+            kpGen = new MLDSAKeyPairGenerator();
+            kpParams = new MLDSAKeyGenerationParameters(random, MLDSAParameters.ml_dsa_87);
+            signer = new MLDSASigner();
+            verifier = new MLDSASigner();
+            break;
+        case "SLH-DSA-SHA2-128F":
+            kpGen = new SLHDSAKeyPairGenerator();
+            kpParams = new SLHDSAKeyGenerationParameters(random, SLHDSAParameters.sha2_128f);
+            messageSigner = new SLHDSASigner();
+            messageVerifier = new SLHDSASigner();
+            break;
+        case "SLH-DSA-SHAKE-128F":
+            kpGen = new SLHDSAKeyPairGenerator();
+            kpParams = new SLHDSAKeyGenerationParameters(random, SLHDSAParameters.shake_128f);
+            messageSigner = new SLHDSASigner();
+            messageVerifier = new SLHDSASigner();
+            break;
+        case "Falcon-512":
+            kpGen = new FalconKeyPairGenerator();
+            kpParams = new FalconKeyGenerationParameters(random, FalconParameters.falcon_512);
+            messageSigner = new FalconSigner();
+            messageVerifier = new FalconSigner();
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        kpGen.init(kpParams);
+        AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+        message = BenchUtils.data(size);
+
+        if (signer != null)
+        {
+            signer.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+            verifier.init(false, kp.getPublic());
+        }
+        else
+        {
+            messageSigner.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+            messageVerifier.init(false, kp.getPublic());
+        }
+
+        signature = sign();
+        if (!verify())
+        {
+            throw new IllegalStateException(algorithm + " signature failed to verify");
+        }
+    }
+
+    @Benchmark
+    public byte[] sign()
+        throws CryptoException
+    {
+        if (signer != null)
+        {
+            signer.update(message, 0, message.length);
+            return signer.generateSignature();
+        }
+        return messageSigner.generateSignature(message);
+    }
+
+    @Benchmark
+    public boolean verify()
+    {
+        if (verifier != null)
+        {
+            verifier.update(message, 0, message.length);
+            return verifier.verifySignature(signature);
+        }
+        return messageVerifier.verifySignature(message, signature);
+    }
+}
@@ -0,0 +1,110 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.engines.ChaChaEngine;
+import org.bouncycastle.crypto.engines.Grain128Engine;
+import org.bouncycastle.crypto.engines.HC128Engine;
+import org.bouncycastle.crypto.engines.HC256Engine;
+import org.bouncycastle.crypto.engines.RC4Engine;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
+import org.bouncycastle.crypto.engines.XSalsa20Engine;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk encryption throughput for the stream ciphers in core.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamCipherBenchmark
+{
+    @Param({"ChaCha7539", "ChaCha20", "Salsa20", "XSalsa20", "HC128", "HC256", "Grain-128", "RC4"})
+    public String algorithm;
+
+    @Param({"16", "64", "256", "1024", "8192", "65536"})
+    public int size;
+
+    private StreamCipher cipher;
+    private byte[] input;
+    private byte[] output;
+
+    @Setup
+    public void setup()
+    {
+        CipherParameters params;
+
+        switch (algorithm)
+        {
+        case "ChaCha7539":
+            cipher = new ChaCha7539Engine();
+            params = withIV(32, 12);
+            break;
+        case "ChaCha20":
+            cipher = new ChaChaEngine();
+            params = withIV(32, 8);
+            break;
+        case "Salsa20":
+            cipher = new Salsa20Engine();
+            params = withIV(32, 8);
+            break;
+        case "XSalsa20":
+            cipher = new XSalsa20Engine();
+            params = withIV(32, 24);
+            break;
+        case "HC128":
+            cipher = new HC128Engine();
+            params = withIV(16, 16);
+            break;
+        case "HC256":
+            cipher = new HC256Engine();
+            params = withIV(32, 32);
+            break;
+        case "Grain-128":
+            cipher = new Grain128Engine();
+            params = withIV(16, 12);
+            break;
+        case "RC4":
+            cipher = new RC4Engine();
+            params = new KeyParameter(BenchUtils.data(16));
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        cipher.init(true, params);
+
+        input = BenchUtils.data(size);
+        output = new byte[size];
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+    {
+        cipher.processBytes(input, 0, input.length, output, 0);
+        return output;
+    }
+
+    private static CipherParameters withIV(int keySize, int ivSize)
+    {
+        return new ParametersWithIV(new KeyParameter(BenchUtils.data(keySize)), new byte[ivSize]);
+    }
+}
@@ -0,0 +1,90 @@
+package org.bouncycastle.bench;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.Xof;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.Kangaroo;
+import org.bouncycastle.crypto.digests.ParallelHash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the tree hashes for a large input, with the leaves hashed on the calling thread (threads = 1) or on
+ * a ForkJoinPool of the given size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeHashBenchmark
+{
+    @Param({"ParallelHash256", "KangarooTwelve", "BLAKE3"})
+    public String algorithm;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"4194304"})
+    public int size;
+
+    private ForkJoinPool pool;
+    private Xof digest;
+    private byte[] data;
+    private byte[] out;
+
+    @Setup
+    public void setup()
+    {
+        pool = threads == 1 ? null : new ForkJoinPool(threads);
+
+        switch (algorithm)
+        {
+        case "ParallelHash256":
+            digest = new ParallelHash(256, null, 8192, 512, CryptoServicePurpose.ANY, pool, threads);
+            break;
+        case "KangarooTwelve":
+            digest = new Kangaroo.KangarooTwelve(32, CryptoServicePurpose.ANY, pool, threads);
+            break;
+        case "BLAKE3":
+            digest = new Blake3Digest(256, CryptoServicePurpose.ANY, pool, threads);
+            break;
+        default:
+            throw BenchUtils.unknown(algorithm);
+        }
+
+        data = BenchUtils.data(size);
+        out = new byte[digest.getDigestSize()];
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        if (pool != null)
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] hash()
+    {
+        digest.update(data, 0, data.length);
+        digest.doFinal(out, 0);
+        return out;
+    }
+}
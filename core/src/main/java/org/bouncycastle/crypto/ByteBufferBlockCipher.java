@@ -0,0 +1,27 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A block cipher engine that can process blocks held in ByteBuffers, including direct and
+ * memory-mapped buffers, without the data first being copied into an array.
+ *
+ * @see org.bouncycastle.crypto.util.ByteBufferUtil
+ */
+public interface ByteBufferBlockCipher
+    extends BlockCipher
+{
+    /**
+     * Process one block of input from in, writing it to out. The position of each buffer is
+     * advanced by the block size.
+     *
+     * @param in the buffer containing the input block.
+     * @param out the buffer the output block is written to.
+     * @return the number of bytes processed and produced.
+     * @exception DataLengthException if there isn't enough data in in.
+     * @exception OutputLengthException if there isn't enough space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     */
+    public int processBlock(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException, IllegalStateException;
+}
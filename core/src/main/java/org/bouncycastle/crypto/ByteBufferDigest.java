@@ -0,0 +1,21 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message digest that can take its input directly from a ByteBuffer, including direct and
+ * memory-mapped buffers, without the data first being copied into an array.
+ *
+ * @see org.bouncycastle.crypto.util.ByteBufferUtil
+ */
+public interface ByteBufferDigest
+    extends Digest
+{
+    /**
+     * update the message digest with the remaining bytes in a buffer. On return the buffer's
+     * position will be equal to its limit.
+     *
+     * @param in the buffer containing the data to be entered.
+     */
+    public void update(ByteBuffer in);
+}
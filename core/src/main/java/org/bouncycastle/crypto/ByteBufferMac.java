@@ -0,0 +1,23 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A MAC that can take its input directly from a ByteBuffer, including direct and
+ * memory-mapped buffers, without the data first being copied into an array.
+ *
+ * @see org.bouncycastle.crypto.util.ByteBufferUtil
+ */
+public interface ByteBufferMac
+    extends Mac
+{
+    /**
+     * add the remaining bytes in a buffer to the MAC. On return the buffer's position will be
+     * equal to its limit.
+     *
+     * @param in the buffer containing the data to be entered.
+     * @exception IllegalStateException if the MAC is not initialised.
+     */
+    public void update(ByteBuffer in)
+        throws IllegalStateException;
+}
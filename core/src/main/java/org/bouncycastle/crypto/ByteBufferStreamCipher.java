@@ -0,0 +1,27 @@
+package org.bouncycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A stream cipher that can process data held in ByteBuffers, including direct and
+ * memory-mapped buffers, without the data first being copied into an array.
+ *
+ * @see org.bouncycastle.crypto.util.ByteBufferUtil
+ */
+public interface ByteBufferStreamCipher
+    extends StreamCipher
+{
+    /**
+     * process the remaining bytes in in, writing the result to out. On return the position of
+     * in will be equal to its limit, and the position of out will have been advanced by the
+     * number of bytes produced.
+     *
+     * @param in the buffer containing the input data.
+     * @param out the buffer the output data is written to.
+     * @return the number of bytes produced.
+     * @exception DataLengthException if the input would exceed a limit of the cipher.
+     * @exception OutputLengthException if there isn't enough space in out.
+     */
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException;
+}
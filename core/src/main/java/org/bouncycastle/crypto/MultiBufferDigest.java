@@ -0,0 +1,40 @@
+package org.bouncycastle.crypto;
+
+/**
+ * Interface for a message digest that hashes many independent messages together, processing several of them in
+ * lock-step. This suits workloads such as building Merkle trees or fingerprinting certificates, where there are a
+ * great many short messages to hash rather than one long one.
+ */
+public interface MultiBufferDigest
+{
+    /**
+     * return the algorithm name
+     *
+     * @return the algorithm name
+     */
+    String getAlgorithmName();
+
+    /**
+     * return the size, in bytes, of each digest produced.
+     *
+     * @return the size, in bytes, of each digest produced.
+     */
+    int getDigestSize();
+
+    /**
+     * return the number of messages processed in lock-step.
+     *
+     * @return the number of lanes.
+     */
+    int getLaneCount();
+
+    /**
+     * Hash each of the messages in inputs, writing the digest of inputs[i] to the start of outputs[i]. A null
+     * entry in outputs is replaced with a new array of {@link #getDigestSize()} bytes.
+     *
+     * @param inputs the messages to hash.
+     * @param outputs the arrays to write the digests to, at least as many as there are inputs.
+     * @exception OutputLengthException if an entry in outputs is too short for the digest.
+     */
+    void hashAll(byte[][] inputs, byte[][] outputs);
+}
@@ -2,6 +2,7 @@
 
 import java.util.Iterator;
 import java.util.Stack;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -16,6 +17,11 @@
 
 /**
  * Blake3 implementation.
+ * <p>
+ * If an executor is supplied, either on construction or in the {@link Blake3Parameters}, whole chunks are hashed on
+ * it as they arrive and their chaining values merged into the tree in order on the calling thread. The last chunk
+ * is always held back and hashed on the calling thread, so the output is the same as for sequential hashing.
+ * </p>
  */
 public class Blake3Digest
     implements ExtendedDigest, Memoable, Xof
@@ -165,6 +171,23 @@
      */
     private static final byte[] SIGMA = {2, 6, 3, 10, 7, 0, 4, 13, 1, 11, 12, 5, 9, 14, 15, 8};
 
+    /**
+     * Message word indices for each round, for the parallel chunk compression.
+     */
+    private static final byte[] SCHEDULE = new byte[ROUNDS << 4];
+
+    static
+    {
+        for (int i = 0; i < 16; i++)
+        {
+            SCHEDULE[i] = (byte)i;
+        }
+        for (int i = 16; i < SCHEDULE.length; i++)
+        {
+            SCHEDULE[i] = SIGMA[SCHEDULE[i - 16]];
+        }
+    }
+
     /**
      * Blake3 Initialization Vector.
      */
@@ -252,6 +275,31 @@
      */
     private int thePos;
 
+    /**
+     * The executor for hashing chunks in parallel, or null.
+     */
+    private Executor theExecutor;
+
+    /**
+     * The parallelism.
+     */
+    private int theParallelism = 1;
+
+    /**
+     * The chunk pipeline, if hashing chunks in parallel.
+     */
+    private LeafHashPipeline thePipeline;
+
+    /**
+     * The chunk held back from the pipeline.
+     */
+    private byte[] theChunk;
+
+    /**
+     * The # of bytes in the held back chunk.
+     */
+    private int theChunkPos;
+
     // digest purpose
     private final CryptoServicePurpose purpose;
 
@@ -284,8 +332,29 @@ public Blake3Digest(final int pDigestSize)
      */
     public Blake3Digest(final int pDigestSize, CryptoServicePurpose purpose)
     {
+        this(pDigestSize, purpose, null, 1);
+    }
+
+    /**
+     * Constructor for parallel hashing. Chunks are gathered into batches as they are added and each batch is hashed
+     * on the executor, with at most 2 * pParallelism batches outstanding at once.
+     *
+     * @param pDigestSize size of digest (in bits)
+     * @param purpose usage purpose.
+     * @param pExecutor the executor to hash chunks on, null to hash them on the calling thread
+     * @param pParallelism the number of threads the executor is expected to hash chunks on at once
+     */
+    public Blake3Digest(final int pDigestSize, CryptoServicePurpose purpose, final Executor pExecutor,
+                        final int pParallelism)
+    {
+        if (pParallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
         this.purpose = purpose;
         theDigestLen = pDigestSize / 8;
+        theExecutor = pExecutor;
+        theParallelism = pParallelism;
 
         CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, getDigestSize() * 8, purpose));
 
@@ -323,7 +392,7 @@ public int getDigestSize()
     }
 
     /**
-     * Initialise.
+     * Initialise. If the parameters specify an executor it replaces any the digest was constructed with.
      *
      * @param pParams the parameters.
      */
@@ -336,6 +405,13 @@ public void init(final Blake3Parameters pParams)
         /* Reset the digest */
         reset();
 
+        /* Switch executor if requested */
+        if (pParams != null && pParams.getExecutor() != null)
+        {
+            theExecutor = pParams.getExecutor();
+            theParallelism = pParams.getParallelism();
+        }
+
         /* If we have a key  */
         if (myKey != null)
         {
@@ -350,6 +426,7 @@ else if (myContext != null)
             /* Initialise for deriving context */
             initNullKey();
             theMode = DERIVECONTEXT;
+            initPipeline();
 
             /* Derive key from context */
             update(myContext, 0, myContext.length);
@@ -364,6 +441,9 @@ else if (myContext != null)
             initNullKey();
             theMode = 0;
         }
+
+        /* Create the pipeline for the key and mode */
+        initPipeline();
     }
 
     public void update(final byte b)
@@ -374,6 +454,18 @@ public void update(final byte b)
             throw new IllegalStateException(ERR_OUTPUTTING);
         }
 
+        /* If we are hashing in parallel, pass on a full held back chunk and store the byte */
+        if (thePipeline != null)
+        {
+            if (theChunkPos == CHUNKLEN)
+            {
+                thePipeline.update(theChunk, 0, CHUNKLEN);
+                theChunkPos = 0;
+            }
+            theChunk[theChunkPos++] = b;
+            return;
+        }
+
         /* If the buffer is full */
         final int blockLen = theBuffer.length;
         final int remainingLength = blockLen - thePos;
@@ -408,6 +500,34 @@ public void update(final byte[] pMessage,
             throw new IllegalStateException(ERR_OUTPUTTING);
         }
 
+        /* Handle parallel hashing */
+        if (thePipeline != null)
+        {
+            updateParallel(pMessage, pOffset, pLen);
+            return;
+        }
+
+        /* Process the message */
+        updateBlocks(pMessage, pOffset, pLen);
+    }
+
+    /**
+     * Process message data sequentially.
+     *
+     * @param pMessage the message
+     * @param pOffset  the offset of the data in the message
+     * @param pLen     the length of the data
+     */
+    private void updateBlocks(final byte[] pMessage,
+                              final int pOffset,
+                              final int pLen)
+    {
+        /* Ignore null operation */
+        if (pLen == 0)
+        {
+            return;
+        }
+
         /* Process any bytes currently in the buffer */
         int remainingLen = 0; // left bytes of buffer
         if (thePos != 0)
@@ -450,6 +570,45 @@ public void update(final byte[] pMessage,
         thePos += pOffset + len;
     }
 
+    /**
+     * Process message data in parallel. Whole chunks go to the pipeline, but the last chunk is held back as it is
+     * hashed differently if it turns out to be the final one.
+     *
+     * @param pMessage the message
+     * @param pOffset  the offset of the data in the message
+     * @param pLen     the length of the data
+     */
+    private void updateParallel(final byte[] pMessage,
+                                int pOffset,
+                                int pLen)
+    {
+        while (pLen > 0)
+        {
+            /* Pass on the held back chunk, now that there is more data */
+            if (theChunkPos == CHUNKLEN)
+            {
+                thePipeline.update(theChunk, 0, CHUNKLEN);
+                theChunkPos = 0;
+            }
+
+            /* Pass whole chunks straight through, holding back at least one byte */
+            if (theChunkPos == 0 && pLen > CHUNKLEN)
+            {
+                final int myLen = ((pLen - 1) / CHUNKLEN) * CHUNKLEN;
+                thePipeline.update(pMessage, pOffset, myLen);
+                pOffset += myLen;
+                pLen -= myLen;
+            }
+
+            /* Hold back the rest */
+            final int myLen = Math.min(pLen, CHUNKLEN - theChunkPos);
+            System.arraycopy(pMessage, pOffset, theChunk, theChunkPos, myLen);
+            theChunkPos += myLen;
+            pOffset += myLen;
+            pLen -= myLen;
+        }
+    }
+
     public int doFinal(final byte[] pOutput,
                        final int pOutOffset)
     {
@@ -480,6 +639,15 @@ public int doOutput(final byte[] pOut,
         /* If we have not started outputting yet */
         if (!outputting)
         {
+            /* Collect the parallel chunks, then process the held back chunk */
+            if (thePipeline != null)
+            {
+                thePipeline.finish();
+                updateBlocks(theChunk, 0, theChunkPos);
+                Arrays.fill(theChunk, (byte)0);
+                theChunkPos = 0;
+            }
+
             /* Process the buffer */
             compressFinalBlock(thePos);
         }
@@ -535,6 +703,12 @@ public void reset()
         thePos = 0;
         outputting = false;
         Arrays.fill(theBuffer, (byte)0);
+        if (thePipeline != null)
+        {
+            thePipeline.reset();
+            Arrays.fill(theChunk, (byte)0);
+            theChunkPos = 0;
+        }
     }
 
     public void reset(final Memoable pSource)
@@ -568,6 +742,17 @@ public void reset(final Memoable pSource)
         /* Copy buffer */
         System.arraycopy(mySource.theBuffer, 0, theBuffer, 0, theBuffer.length);
         thePos = mySource.thePos;
+
+        /* Copy parallel state */
+        theExecutor = mySource.theExecutor;
+        theParallelism = mySource.theParallelism;
+        initPipeline();
+        if (thePipeline != null)
+        {
+            thePipeline.copyFrom(mySource.thePipeline);
+            System.arraycopy(mySource.theChunk, 0, theChunk, 0, CHUNKLEN);
+            theChunkPos = mySource.theChunkPos;
+        }
     }
 
     public Memoable copy()
@@ -575,6 +760,194 @@ public Memoable copy()
         return new Blake3Digest(this);
     }
 
+    /**
+     * Create the pipeline for the current key and mode, if hashing in parallel.
+     */
+    private void initPipeline()
+    {
+        if (thePipeline != null)
+        {
+            thePipeline.reset();
+        }
+        if (theExecutor == null)
+        {
+            thePipeline = null;
+            theChunk = null;
+            theChunkPos = 0;
+            return;
+        }
+
+        /* The workers use their own copy of the key */
+        final int[] myKey = Arrays.clone(theK);
+        final int myMode = theMode;
+        thePipeline = new LeafHashPipeline(theExecutor, theParallelism, CHUNKLEN, NUMWORDS * Integers.BYTES)
+        {
+            void hashLeaves(final long pFirstLeaf,
+                            final byte[] pData,
+                            final int pLen,
+                            final byte[] pChainingValues)
+            {
+                final int[] myM = new int[NUMWORDS << 1];
+                final int[] myCV = new int[NUMWORDS];
+                for (int i = 0; i * CHUNKLEN < pLen; i++)
+                {
+                    compressChunk(myKey, myMode, pFirstLeaf + i, pData, i * CHUNKLEN, myM, myCV);
+                    Pack.intToLittleEndian(myCV, pChainingValues, i * NUMWORDS * Integers.BYTES);
+                }
+            }
+
+            void absorbChainingValues(final byte[] pChainingValues, final int pOff, final int pLen)
+            {
+                for (int myOff = pOff; myOff < pOff + pLen; myOff += NUMWORDS * Integers.BYTES)
+                {
+                    /* Treat as a completed chunk */
+                    Pack.littleEndianToInt(pChainingValues, myOff, theChaining);
+                    incrementBlockCount();
+                    adjustStack();
+                }
+            }
+        };
+        if (theChunk == null)
+        {
+            theChunk = new byte[CHUNKLEN];
+        }
+        theChunkPos = 0;
+    }
+
+    /**
+     * Compress a whole chunk that is not the last, using only local state.
+     *
+     * @param pKey     the key
+     * @param pMode    the mode flags
+     * @param pCounter the chunk counter
+     * @param pData    the data buffer
+     * @param pOff     the offset of the chunk in the buffer
+     * @param pM       work space for the message words
+     * @param pCV      the chaining value
+     */
+    private static void compressChunk(final int[] pKey,
+                                      final int pMode,
+                                      final long pCounter,
+                                      final byte[] pData,
+                                      final int pOff,
+                                      final int[] pM,
+                                      final int[] pCV)
+    {
+        System.arraycopy(pKey, 0, pCV, 0, NUMWORDS);
+        final int myLast = CHUNKLEN / BLOCKLEN - 1;
+        for (int i = 0; i <= myLast; i++)
+        {
+            Pack.littleEndianToInt(pData, pOff + i * BLOCKLEN, pM);
+            final int myFlags = pMode | (i == 0 ? CHUNKSTART : 0) | (i == myLast ? CHUNKEND : 0);
+            compress(pCV, pM, pCounter, myFlags);
+        }
+    }
+
+    /**
+     * Compress a full block into a chaining value, using only local state.
+     *
+     * @param pCV      the chaining value
+     * @param pM       the message words
+     * @param pCounter the counter
+     * @param pFlags   the flags
+     */
+    private static void compress(final int[] pCV,
+                                 final int[] pM,
+                                 final long pCounter,
+                                 final int pFlags)
+    {
+        int v0 = pCV[0], v1 = pCV[1], v2 = pCV[2], v3 = pCV[3];
+        int v4 = pCV[4], v5 = pCV[5], v6 = pCV[6], v7 = pCV[7];
+        int v8 = IV[0], v9 = IV[1], v10 = IV[2], v11 = IV[3];
+        int v12 = (int)pCounter, v13 = (int)(pCounter >>> Integers.SIZE), v14 = BLOCKLEN, v15 = pFlags;
+
+        for (int s = 0; s < SCHEDULE.length; s += 16)
+        {
+            /* Columns */
+            v0 += v4 + pM[SCHEDULE[s]];
+            v12 = Integers.rotateRight(v12 ^ v0, 16);
+            v8 += v12;
+            v4 = Integers.rotateRight(v4 ^ v8, 12);
+            v0 += v4 + pM[SCHEDULE[s + 1]];
+            v12 = Integers.rotateRight(v12 ^ v0, 8);
+            v8 += v12;
+            v4 = Integers.rotateRight(v4 ^ v8, 7);
+
+            v1 += v5 + pM[SCHEDULE[s + 2]];
+            v13 = Integers.rotateRight(v13 ^ v1, 16);
+            v9 += v13;
+            v5 = Integers.rotateRight(v5 ^ v9, 12);
+            v1 += v5 + pM[SCHEDULE[s + 3]];
+            v13 = Integers.rotateRight(v13 ^ v1, 8);
+            v9 += v13;
+            v5 = Integers.rotateRight(v5 ^ v9, 7);
+
+            v2 += v6 + pM[SCHEDULE[s + 4]];
+            v14 = Integers.rotateRight(v14 ^ v2, 16);
+            v10 += v14;
+            v6 = Integers.rotateRight(v6 ^ v10, 12);
+            v2 += v6 + pM[SCHEDULE[s + 5]];
+            v14 = Integers.rotateRight(v14 ^ v2, 8);
+            v10 += v14;
+            v6 = Integers.rotateRight(v6 ^ v10, 7);
+
+            v3 += v7 + pM[SCHEDULE[s + 6]];
+            v15 = Integers.rotateRight(v15 ^ v3, 16);
+            v11 += v15;
+            v7 = Integers.rotateRight(v7 ^ v11, 12);
+            v3 += v7 + pM[SCHEDULE[s + 7]];
+            v15 = Integers.rotateRight(v15 ^ v3, 8);
+            v11 += v15;
+            v7 = Integers.rotateRight(v7 ^ v11, 7);
+
+            /* Diagonals */
+            v0 += v5 + pM[SCHEDULE[s + 8]];
+            v15 = Integers.rotateRight(v15 ^ v0, 16);
+            v10 += v15;
+            v5 = Integers.rotateRight(v5 ^ v10, 12);
+            v0 += v5 + pM[SCHEDULE[s + 9]];
+            v15 = Integers.rotateRight(v15 ^ v0, 8);
+            v10 += v15;
+            v5 = Integers.rotateRight(v5 ^ v10, 7);
+
+            v1 += v6 + pM[SCHEDULE[s + 10]];
+            v12 = Integers.rotateRight(v12 ^ v1, 16);
+            v11 += v12;
+            v6 = Integers.rotateRight(v6 ^ v11, 12);
+            v1 += v6 + pM[SCHEDULE[s + 11]];
+            v12 = Integers.rotateRight(v12 ^ v1, 8);
+            v11 += v12;
+            v6 = Integers.rotateRight(v6 ^ v11, 7);
+
+            v2 += v7 + pM[SCHEDULE[s + 12]];
+            v13 = Integers.rotateRight(v13 ^ v2, 16);
+            v8 += v13;
+            v7 = Integers.rotateRight(v7 ^ v8, 12);
+            v2 += v7 + pM[SCHEDULE[s + 13]];
+            v13 = Integers.rotateRight(v13 ^ v2, 8);
+            v8 += v13;
+            v7 = Integers.rotateRight(v7 ^ v8, 7);
+
+            v3 += v4 + pM[SCHEDULE[s + 14]];
+            v14 = Integers.rotateRight(v14 ^ v3, 16);
+            v9 += v14;
+            v4 = Integers.rotateRight(v4 ^ v9, 12);
+            v3 += v4 + pM[SCHEDULE[s + 15]];
+            v14 = Integers.rotateRight(v14 ^ v3, 8);
+            v9 += v14;
+            v4 = Integers.rotateRight(v4 ^ v9, 7);
+        }
+
+        pCV[0] = v0 ^ v8;
+        pCV[1] = v1 ^ v9;
+        pCV[2] = v2 ^ v10;
+        pCV[3] = v3 ^ v11;
+        pCV[4] = v4 ^ v12;
+        pCV[5] = v5 ^ v13;
+        pCV[6] = v6 ^ v14;
+        pCV[7] = v7 ^ v15;
+    }
+
     /**
      * Compress next block of the message.
      *
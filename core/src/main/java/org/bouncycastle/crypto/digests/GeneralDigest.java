@@ -1,5 +1,8 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.ByteBufferDigest;
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.ExtendedDigest;
@@ -11,7 +14,7 @@
  * "Handbook of Applied Cryptography", pages 344 - 347.
  */
 public abstract class GeneralDigest
-    implements ExtendedDigest, Memoable
+    implements ExtendedDigest, ByteBufferDigest, Memoable
 {
     private static final int BYTE_LENGTH = 64;
 
@@ -126,6 +129,47 @@ public void update(
         byteCount += len;
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            update(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+            return;
+        }
+
+        //
+        // fill the current word
+        //
+        while (xBufOff != 0 && in.hasRemaining())
+        {
+            update(in.get());
+        }
+
+        //
+        // process whole words, read straight from the buffer (a duplicate is always big-endian).
+        //
+        ByteBuffer buf = in.duplicate();
+        int words = buf.remaining() >>> 2;
+        for (int i = 0; i < words; i++)
+        {
+            processWord(buf.getInt());
+        }
+        byteCount += (long)words << 2;
+
+        //
+        // load in the remainder.
+        //
+        while (buf.hasRemaining())
+        {
+            update(buf.get());
+        }
+
+        in.position(buf.position());
+    }
+
     public void finish()
     {
         long    bitLength = (byteCount << 3);
@@ -170,6 +214,16 @@ public int getByteLength()
     
     protected abstract void processWord(byte[] in, int inOff);
 
+    /**
+     * Process a word read from a ByteBuffer in big-endian order. Digests with big-endian
+     * word order can override this to use the value directly.
+     */
+    protected void processWord(int word)
+    {
+        Pack.intToBigEndian(word, xBuf, 0);
+        processWord(xBuf, 0);
+    }
+
     protected abstract void processLength(long bitLength);
 
     protected abstract void processBlock();
@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.digests;
 
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.*;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Bytes;
@@ -39,6 +41,21 @@ public KangarooTwelve(final int pLength, CryptoServicePurpose purpose)
             super(128, 12, pLength, purpose);
         }
 
+        /**
+         * Constructor for parallel hashing. Leaves are gathered into batches as they are added and each batch is
+         * hashed on the executor, with at most 2 * pParallelism batches outstanding at once.
+         *
+         * @param pLength      the digest length
+         * @param purpose      the purpose the digest is for
+         * @param pExecutor    the executor to hash leaves on, null to hash them on the calling thread
+         * @param pParallelism the number of threads the executor is expected to hash leaves on at once
+         */
+        public KangarooTwelve(final int pLength, CryptoServicePurpose purpose, final Executor pExecutor,
+                  final int pParallelism)
+        {
+            super(128, 12, pLength, purpose, pExecutor, pParallelism);
+        }
+
         public KangarooTwelve(CryptoServicePurpose purpose)
         {
             this(DIGESTLEN, purpose);
@@ -73,6 +90,21 @@ public MarsupilamiFourteen(final int pLength, CryptoServicePurpose purpose)
         {
             super(256, 14, pLength, purpose);
         }
+
+        /**
+         * Constructor for parallel hashing. Leaves are gathered into batches as they are added and each batch is
+         * hashed on the executor, with at most 2 * pParallelism batches outstanding at once.
+         *
+         * @param pLength      the digest length
+         * @param purpose      the purpose the digest is for
+         * @param pExecutor    the executor to hash leaves on, null to hash them on the calling thread
+         * @param pParallelism the number of threads the executor is expected to hash leaves on at once
+         */
+        public MarsupilamiFourteen(final int pLength, CryptoServicePurpose purpose, final Executor pExecutor,
+                  final int pParallelism)
+        {
+            super(256, 14, pLength, purpose, pExecutor, pParallelism);
+        }
         public MarsupilamiFourteen(CryptoServicePurpose purpose)
         {
             this(DIGESTLEN, purpose);
@@ -222,6 +254,11 @@ public KangarooParameters build()
 
         private final CryptoServicePurpose purpose;
 
+        /**
+         * The leaf pipeline, if leaves are hashed in parallel.
+         */
+        private final LeafHashPipeline thePipeline;
+
         /**
          * Constructor.
          *
@@ -234,10 +271,35 @@ public KangarooParameters build()
                      final int pLength,
                      CryptoServicePurpose purpose)
         {
+            this(pStrength, pRounds, pLength, purpose, null, 1);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param pStrength    the strength
+         * @param pRounds      the rounds.
+         * @param pLength      the digest length
+         * @param pExecutor    the executor to hash leaves on, or null
+         * @param pParallelism the number of threads the executor is expected to hash leaves on at once
+         */
+        KangarooBase(final int pStrength,
+                     final int pRounds,
+                     final int pLength,
+                     CryptoServicePurpose purpose,
+                     final Executor pExecutor,
+                     final int pParallelism)
+        {
+            if (pParallelism < 1)
+            {
+                throw new IllegalArgumentException("parallelism must be at least 1");
+            }
+
             /* Create underlying digests */
             theTree = new KangarooSponge(pStrength, pRounds);
             theLeaf = new KangarooSponge(pStrength, pRounds);
             theChainLen = pStrength >> 2;
+            thePipeline = pExecutor == null ? null : createPipeline(pExecutor, pParallelism, pStrength, pRounds);
 
             /* Build personalisation */
             buildPersonal(null);
@@ -263,6 +325,45 @@ private void buildPersonal(final byte[] pPersonal)
             System.arraycopy(myEnc, 0, thePersonal, myLen, myEnc.length);
         }
 
+        /**
+         * Create the pipeline for hashing leaves in parallel.
+         *
+         * @param pExecutor    the executor
+         * @param pParallelism the parallelism
+         * @param pStrength    the strength
+         * @param pRounds      the rounds
+         * @return the pipeline
+         */
+        private LeafHashPipeline createPipeline(final Executor pExecutor,
+                                                final int pParallelism,
+                                                final int pStrength,
+                                                final int pRounds)
+        {
+            return new LeafHashPipeline(pExecutor, pParallelism, BLKSIZE, theChainLen)
+            {
+                void hashLeaves(final long pFirstLeaf,
+                                final byte[] pData,
+                                final int pLen,
+                                final byte[] pChainingValues)
+                {
+                    /* Each leaf is completed as an intermediate node, as in switchLeaf() */
+                    final KangarooSponge myLeaf = new KangarooSponge(pStrength, pRounds);
+                    for (int myOff = 0, myCVOff = 0; myOff < pLen; myOff += BLKSIZE, myCVOff += theChainLen)
+                    {
+                        myLeaf.absorb(pData, myOff, Math.min(BLKSIZE, pLen - myOff));
+                        myLeaf.absorb(INTERMEDIATE, 0, INTERMEDIATE.length);
+                        myLeaf.squeeze(pChainingValues, myCVOff, theChainLen);
+                        myLeaf.initSponge();
+                    }
+                }
+
+                void absorbChainingValues(final byte[] pChainingValues, final int pOff, final int pLen)
+                {
+                    theTree.absorb(pChainingValues, pOff, pLen);
+                }
+            };
+        }
+
         public int getByteLength()
         {
             return theTree.theRateBytes;
@@ -363,6 +464,13 @@ private void processData(final byte[] pIn,
                 throw new IllegalStateException("attempt to absorb while squeezing");
             }
 
+            /* Leaves past the first node go to the pipeline, if there is one */
+            if (thePipeline != null && theCurrNode != 0)
+            {
+                thePipeline.update(pIn, pInOffSet, pLen);
+                return;
+            }
+
             /* Determine current sponge */
             final KangarooSponge mySponge = theCurrNode == 0 ? theTree : theLeaf;
 
@@ -393,6 +501,13 @@ private void processData(final byte[] pIn,
                 if (theProcessed == BLKSIZE)
                 {
                     switchLeaf(true);
+
+                    /* Hand the rest to the pipeline, once past the first node */
+                    if (thePipeline != null)
+                    {
+                        thePipeline.update(pIn, pInOffSet + myProcessed, pLen - myProcessed);
+                        return;
+                    }
                 }
 
                 /* Process next block */
@@ -407,6 +522,10 @@ public void reset()
         {
             theTree.initSponge();
             theLeaf.initSponge();
+            if (thePipeline != null)
+            {
+                thePipeline.reset();
+            }
             theCurrNode = 0;
             theProcessed = 0;
             squeezing = false;
@@ -485,8 +604,15 @@ private void switchSingle()
          */
         private void switchFinal()
         {
-            /* Complete the current leaf */
-            switchLeaf(false);
+            /* Complete the current leaf, or collect the leaves from the pipeline */
+            if (thePipeline != null)
+            {
+                theCurrNode = (int)thePipeline.finish();
+            }
+            else
+            {
+                switchLeaf(false);
+            }
 
             /* Absorb length */
             final byte[] myLength = lengthEncode(theCurrNode);
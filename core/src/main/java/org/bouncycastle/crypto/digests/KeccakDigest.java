@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.bouncycastle.crypto.ByteBufferDigest;
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
@@ -13,7 +17,7 @@
  * Following the naming conventions used in the C source code to enable easy review of the implementation.
  */
 public class KeccakDigest
-    implements ExtendedDigest
+    implements ExtendedDigest, ByteBufferDigest
 {
     private static long[] KeccakRoundConstants = new long[]{ 0x0000000000000001L, 0x0000000000008082L,
         0x800000000000808aL, 0x8000000080008000L, 0x000000000000808bL, 0x0000000080000001L, 0x8000000080008081L,
@@ -86,6 +90,11 @@ public void update(byte[] in, int inOff, int len)
         absorb(in, inOff, len);
     }
 
+    public void update(ByteBuffer in)
+    {
+        absorb(in);
+    }
+
     public int doFinal(byte[] out, int outOff)
     {
         squeeze(out, outOff, fixedOutputLength);
@@ -222,6 +231,62 @@ protected void absorb(byte[] data, int off, int len)
         this.bitsInQueue = remaining << 3;
     }
 
+    protected void absorb(ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            absorb(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+            return;
+        }
+
+        if ((bitsInQueue % 8) != 0)
+        {
+            throw new IllegalStateException("attempt to absorb with odd length queue");
+        }
+        if (squeezing)
+        {
+            throw new IllegalStateException("attempt to absorb while squeezing");
+        }
+
+        int bytesInQueue = bitsInQueue >>> 3;
+        int rateBytes = rate >>> 3;
+
+        int available = rateBytes - bytesInQueue;
+        if (in.remaining() < available)
+        {
+            int len = in.remaining();
+            in.get(dataQueue, bytesInQueue, len);
+            this.bitsInQueue += len << 3;
+            return;
+        }
+
+        if (bytesInQueue > 0)
+        {
+            in.get(dataQueue, bytesInQueue, available);
+            KeccakAbsorb(dataQueue, 0);
+        }
+
+        ByteBuffer buf = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int count = rate >>> 6;
+        while (buf.remaining() >= rateBytes)
+        {
+            for (int i = 0; i < count; ++i)
+            {
+                state[i] ^= buf.getLong();
+            }
+
+            KeccakPermutation();
+        }
+
+        int remaining = buf.remaining();
+        buf.get(dataQueue, 0, remaining);
+        this.bitsInQueue = remaining << 3;
+
+        in.position(buf.position());
+    }
+
     protected void absorbBits(int data, int bits)
     {
         if (bits < 1 || bits > 7)
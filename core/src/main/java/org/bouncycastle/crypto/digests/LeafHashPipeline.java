@@ -0,0 +1,227 @@
+package org.bouncycastle.crypto.digests;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.JoinableTask;
+
+/**
+ * Hashes the leaves of a tree hash on an executor as data arrives, passing the chaining values back in leaf order.
+ * <p>
+ * Leaf data is gathered into batches of whole leaves, and each full batch is handed to the executor. At most
+ * 2 * parallelism batches are outstanding at once; beyond that the oldest batch is joined and its chaining values
+ * passed to {@link #absorbChainingValues(byte[], int, int)}. Joining a batch no worker has started hashes it on the
+ * calling thread, so a busy or rejecting executor only costs parallelism.
+ * </p>
+ * Leaves are hashed in the same way whether or not they are the last, so a batch is handed out as soon as it fills.
+ */
+abstract class LeafHashPipeline
+{
+    private static final int BATCH_SIZE = 32 * 1024;
+
+    private final Executor executor;
+    private final int leafSize;
+    private final int chainLength;
+    private final int batchSize;
+    private final int maxPending;
+    private final LinkedList<Batch> pending = new LinkedList<Batch>();
+
+    private byte[] data;
+    private int dataOff;
+    private long leafCount;
+
+    /**
+     * Base constructor.
+     *
+     * @param executor    the executor to hash batches of leaves on.
+     * @param parallelism the number of batches expected to be hashed at once.
+     * @param leafSize    the size of a leaf in bytes.
+     * @param chainLength the size of a leaf chaining value in bytes.
+     */
+    LeafHashPipeline(Executor executor, int parallelism, int leafSize, int chainLength)
+    {
+        this.executor = executor;
+        this.leafSize = leafSize;
+        this.chainLength = chainLength;
+        this.batchSize = Math.max(1, BATCH_SIZE / leafSize) * leafSize;
+        this.maxPending = 2 * parallelism;
+    }
+
+    /**
+     * Hash the leaves in data, the last of which may be short, writing their chaining values to chainingValues in
+     * order. This is called from the executor's threads, so may only use state local to the call.
+     *
+     * @param firstLeaf      the index of the first leaf in data, counting from zero since the last reset.
+     * @param data           the leaf data.
+     * @param len            the length of the leaf data.
+     * @param chainingValues the array to write the chaining values to.
+     */
+    abstract void hashLeaves(long firstLeaf, byte[] data, int len, byte[] chainingValues);
+
+    /**
+     * Accept the next chaining values, in leaf order. This is called on the thread using the pipeline.
+     *
+     * @param chainingValues array holding the chaining values.
+     * @param off            offset of the first chaining value.
+     * @param len            total length of the chaining values.
+     */
+    abstract void absorbChainingValues(byte[] chainingValues, int off, int len);
+
+    void update(byte[] in, int inOff, int len)
+    {
+        while (len > 0)
+        {
+            if (data == null)
+            {
+                data = new byte[batchSize];
+            }
+
+            int count = Math.min(len, batchSize - dataOff);
+            System.arraycopy(in, inOff, data, dataOff, count);
+            dataOff += count;
+            inOff += count;
+            len -= count;
+
+            if (dataOff == batchSize)
+            {
+                submit();
+            }
+        }
+    }
+
+    /**
+     * Hash any remaining leaf data and absorb all outstanding chaining values, then reset the pipeline.
+     *
+     * @return the total number of leaves hashed.
+     */
+    long finish()
+    {
+        if (dataOff != 0)
+        {
+            submit();
+        }
+
+        while (!pending.isEmpty())
+        {
+            absorb(pending.removeFirst());
+        }
+
+        long count = leafCount;
+        leafCount = 0;
+        return count;
+    }
+
+    /**
+     * Copy the state of another pipeline, which is left unchanged. Outstanding batches are completed first, after
+     * which they can be shared.
+     *
+     * @param other the pipeline to copy.
+     */
+    void copyFrom(LeafHashPipeline other)
+    {
+        reset();
+
+        for (Iterator<Batch> it = other.pending.iterator(); it.hasNext();)
+        {
+            Batch batch = it.next();
+            batch.await();
+            pending.addLast(batch);
+        }
+
+        data = Arrays.clone(other.data);
+        dataOff = other.dataOff;
+        leafCount = other.leafCount;
+    }
+
+    void reset()
+    {
+        for (Iterator<Batch> it = pending.iterator(); it.hasNext();)
+        {
+            it.next().discard();
+        }
+        pending.clear();
+
+        if (data != null)
+        {
+            Arrays.fill(data, (byte)0);
+        }
+        dataOff = 0;
+        leafCount = 0;
+    }
+
+    private void submit()
+    {
+        Batch batch = new Batch(leafCount, data, dataOff);
+        data = null;
+        dataOff = 0;
+
+        leafCount += batch.leaves;
+        pending.addLast(batch);
+
+        batch.fork(executor);
+
+        while (pending.size() > maxPending)
+        {
+            absorb(pending.removeFirst());
+        }
+    }
+
+    private void absorb(Batch batch)
+    {
+        batch.await();
+        absorbChainingValues(batch.chainingValues, 0, batch.chainingValues.length);
+    }
+
+    private final class Batch
+        extends JoinableTask
+    {
+        private final long firstLeaf;
+        private final int leaves;
+        private final byte[] chainingValues;
+
+        private byte[] data;
+        private final int len;
+
+        Batch(long firstLeaf, byte[] data, int len)
+        {
+            this.firstLeaf = firstLeaf;
+            this.data = data;
+            this.len = len;
+            this.leaves = (len + leafSize - 1) / leafSize;
+            this.chainingValues = new byte[leaves * chainLength];
+        }
+
+        protected void compute()
+        {
+            try
+            {
+                hashLeaves(firstLeaf, data, len, chainingValues);
+            }
+            finally
+            {
+                Arrays.fill(data, (byte)0);
+                data = null;
+            }
+        }
+
+        void discard()
+        {
+            if (cancel())
+            {
+                Arrays.fill(data, (byte)0);
+                data = null;
+            }
+        }
+
+        void await()
+        {
+            Throwable failure = join();
+            if (failure != null)
+            {
+                throw new IllegalStateException("leaf hashing failed: " + failure.getMessage(), failure);
+            }
+        }
+    }
+}
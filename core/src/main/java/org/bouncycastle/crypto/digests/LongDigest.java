@@ -1,5 +1,8 @@
 package org.bouncycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.ByteBufferDigest;
 import org.bouncycastle.crypto.CryptoServiceProperties;
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.ExtendedDigest;
@@ -10,7 +13,7 @@
  * Base class for SHA-384 and SHA-512.
  */
 public abstract class LongDigest
-    implements ExtendedDigest, Memoable, EncodableDigest
+    implements ExtendedDigest, ByteBufferDigest, Memoable, EncodableDigest
 {
     private static final int BYTE_LENGTH = 128;
 
@@ -184,6 +187,52 @@ public void update(
         }
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            update(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+            return;
+        }
+
+        //
+        // fill the current word
+        //
+        while ((xBufOff != 0) && in.hasRemaining())
+        {
+            update(in.get());
+        }
+
+        //
+        // process whole words, read straight from the buffer (a duplicate is always big-endian).
+        //
+        ByteBuffer buf = in.duplicate();
+        while (buf.remaining() >= xBuf.length)
+        {
+            W[wOff] = buf.getLong();
+
+            if (++wOff == 16)
+            {
+                processBlock();
+            }
+
+            byteCount1 += xBuf.length;
+        }
+
+        //
+        // load in the remainder.
+        //
+        while (buf.hasRemaining())
+        {
+            update(buf.get());
+        }
+
+        in.position(buf.position());
+    }
+
     public void finish()
     {
         adjustByteCounts();
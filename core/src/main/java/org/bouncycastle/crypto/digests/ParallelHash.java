@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.digests;
 
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.DataLengthException;
@@ -14,6 +16,10 @@
  * <p>
  * From NIST Special Publication 800-185 - SHA-3 Derived Functions:cSHAKE, KMAC, TupleHash and ParallelHash
  * </p>
+ * <p>
+ * If an executor is supplied the blocks are hashed on it as they arrive, with their chaining values combined in
+ * order on the calling thread, so the output is the same as for sequential hashing.
+ * </p>
  */
 public class ParallelHash
     implements Xof, Digest
@@ -34,6 +40,10 @@
 
     private final CryptoServicePurpose purpose;
 
+    private final Executor executor;
+    private final int parallelism;
+    private final LeafHashPipeline pipeline;
+
     /**
      * Base constructor.
      *
@@ -52,11 +62,34 @@ public ParallelHash(int bitLength, byte[] S, int B, int outputSize)
     }
 
     public ParallelHash(int bitLength, byte[] S, int B, int outputSize, CryptoServicePurpose purpose)
+    {
+        this(bitLength, S, B, outputSize, purpose, null, 1);
+    }
+
+    /**
+     * Constructor for parallel hashing. Blocks are gathered into batches as they are added and each batch is hashed
+     * on the executor, with at most 2 * parallelism batches outstanding at once.
+     *
+     * @param bitLength   security strength (bits) of the underlying SHAKE function, 128 or 256.
+     * @param S           the customization string - available for local use.
+     * @param B           the blocksize (in bytes) for hashing.
+     * @param outputSize  the output size (in bits).
+     * @param purpose     the purpose the digest is for.
+     * @param executor    the executor to hash blocks on, null to hash them on the calling thread. A
+     *                    {@link java.util.concurrent.ForkJoinPool} is a suitable executor.
+     * @param parallelism the number of threads the executor is expected to hash blocks on at once.
+     */
+    public ParallelHash(int bitLength, byte[] S, int B, int outputSize, CryptoServicePurpose purpose,
+        Executor executor, int parallelism)
     {
         if (B <= 0)
         {
             throw new IllegalArgumentException("block size should be greater than 0");
         }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
         this.cshake = new CSHAKEDigest(bitLength, N_PARALLEL_HASH, S);
         this.compressor = new CSHAKEDigest(bitLength, new byte[0], new byte[0]);
         this.bitLength = bitLength;
@@ -66,6 +99,9 @@ public ParallelHash(int bitLength, byte[] S, int B, int outputSize, CryptoServic
         this.buffer = new byte[B];
         this.compressorBuffer = new byte[bitLength * 2 / 8];
         this.purpose = purpose;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.pipeline = executor == null ? null : createPipeline();
 
         CryptoServicesRegistrar.checkConstraints(Utils.getDefaultProperties(this, bitLength, purpose));
 
@@ -82,6 +118,13 @@ public ParallelHash(ParallelHash source)
         this.buffer = Arrays.clone(source.buffer);
         this.compressorBuffer = Arrays.clone(source.compressorBuffer);
         this.purpose = source.purpose;
+        this.executor = source.executor;
+        this.parallelism = source.parallelism;
+        this.pipeline = source.pipeline == null ? null : createPipeline();
+        if (pipeline != null)
+        {
+            pipeline.copyFrom(source.pipeline);
+        }
 
         this.firstOutput = source.firstOutput;
         this.nCount = source.nCount;
@@ -108,6 +151,13 @@ public int getDigestSize()
     public void update(byte in)
         throws IllegalStateException
     {
+        if (pipeline != null)
+        {
+            buffer[0] = in;
+            pipeline.update(buffer, 0, 1);
+            return;
+        }
+
         buffer[bufOff++] = in;
         if (bufOff == buffer.length)
         {
@@ -120,6 +170,12 @@ public void update(byte[] in, int inOff, int len)
     {
         len = Math.max(0, len);
 
+        if (pipeline != null)
+        {
+            pipeline.update(in, inOff, len);
+            return;
+        }
+
         //
         // fill the current word
         //
@@ -168,9 +224,35 @@ private void compress(byte[] buf, int offSet, int len)
         nCount++;
     }
 
+    private LeafHashPipeline createPipeline()
+    {
+        return new LeafHashPipeline(executor, parallelism, B, compressorBuffer.length)
+        {
+            void hashLeaves(long firstLeaf, byte[] data, int len, byte[] chainingValues)
+            {
+                CSHAKEDigest leaf = new CSHAKEDigest(bitLength, new byte[0], new byte[0]);
+                int cvLen = compressorBuffer.length;
+                for (int off = 0, cvOff = 0; off < len; off += B, cvOff += cvLen)
+                {
+                    leaf.update(data, off, Math.min(B, len - off));
+                    leaf.doFinal(chainingValues, cvOff, cvLen);
+                }
+            }
+
+            void absorbChainingValues(byte[] chainingValues, int off, int len)
+            {
+                cshake.update(chainingValues, off, len);
+            }
+        };
+    }
+
     private void wrapUp(int outputSize)
     {
-        if (bufOff != 0)
+        if (pipeline != null)
+        {
+            nCount = (int)pipeline.finish();
+        }
+        else if (bufOff != 0)
         {
             compress();
         }
@@ -230,6 +312,11 @@ public void reset()
         byte[] hdr = XofUtils.leftEncode(B);
         cshake.update(hdr, 0, hdr.length);
 
+        if (pipeline != null)
+        {
+            pipeline.reset();
+        }
+
         nCount = 0;
         bufOff = 0;
         firstOutput = true;
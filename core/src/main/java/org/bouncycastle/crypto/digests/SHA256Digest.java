@@ -153,6 +153,17 @@ protected void processWord(
         }
     }
 
+    protected void processWord(
+        int     word)
+    {
+        X[xOff] = word;
+
+        if (++xOff == 16)
+        {
+            processBlock();
+        }
+    }
+
     protected void processLength(
         long    bitLength)
     {
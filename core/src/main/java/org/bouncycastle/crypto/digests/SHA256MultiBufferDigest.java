@@ -0,0 +1,246 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Multi-buffer implementation of SHA-256, hashing up to 32 independent messages in lock-step.
+ * <p>
+ * The working state is kept as a structure of arrays, one array per state word with an element per message, so
+ * each step of the compression function is a short loop over the messages that the JIT can map onto vector
+ * instructions. Messages are sorted by length before being grouped, so the messages in a group finish together.
+ * </p>
+ * Instances are not thread safe.
+ */
+public class SHA256MultiBufferDigest
+    implements MultiBufferDigest
+{
+    private static final int LANES = 32;
+    private static final int BLOCK_SIZE = 64;
+    private static final int DIGEST_LENGTH = 32;
+
+    private static final int[] IV = { 0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c,
+        0x1f83d9ab, 0x5be0cd19 };
+
+    private static final int[] K = SHA256Digest.K;
+
+    private final int[][] W = new int[64][LANES];
+    private final int[][] H = new int[8][LANES];
+    private final int[][] V = new int[8][LANES];
+    private final int[] mask = new int[LANES];
+
+    private final byte[][] tails = new byte[LANES][2 * BLOCK_SIZE];
+    private final int[] index = new int[LANES];
+    private final int[] fullBlocks = new int[LANES];
+    private final int[] totalBlocks = new int[LANES];
+
+    public String getAlgorithmName()
+    {
+        return "SHA-256";
+    }
+
+    public int getDigestSize()
+    {
+        return DIGEST_LENGTH;
+    }
+
+    public int getLaneCount()
+    {
+        return LANES;
+    }
+
+    public void hashAll(byte[][] inputs, byte[][] outputs)
+    {
+        if (outputs.length < inputs.length)
+        {
+            throw new IllegalArgumentException("not enough outputs for inputs");
+        }
+
+        long[] order = new long[inputs.length];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            order[i] = ((long)getBlockCount(inputs[i].length) << 32) | i;
+        }
+        java.util.Arrays.sort(order);
+
+        try
+        {
+            for (int pos = 0; pos < order.length; pos += LANES)
+            {
+                hashGroup(inputs, outputs, order, pos, Math.min(LANES, order.length - pos));
+            }
+        }
+        finally
+        {
+            for (int j = 0; j < LANES; ++j)
+            {
+                Arrays.fill(tails[j], (byte)0);
+            }
+            for (int t = 0; t < 64; ++t)
+            {
+                Arrays.fill(W[t], 0);
+            }
+        }
+    }
+
+    private void hashGroup(byte[][] inputs, byte[][] outputs, long[] order, int pos, int count)
+    {
+        for (int j = 0; j < LANES; ++j)
+        {
+            if (j < count)
+            {
+                int i = (int)order[pos + j];
+                int len = inputs[i].length;
+
+                index[j] = i;
+                fullBlocks[j] = len / BLOCK_SIZE;
+                totalBlocks[j] = getBlockCount(len);
+
+                byte[] tail = tails[j];
+                int tailLen = len - fullBlocks[j] * BLOCK_SIZE;
+                int padLen = (totalBlocks[j] - fullBlocks[j]) * BLOCK_SIZE;
+
+                System.arraycopy(inputs[i], fullBlocks[j] * BLOCK_SIZE, tail, 0, tailLen);
+                tail[tailLen] = (byte)0x80;
+                Arrays.fill(tail, tailLen + 1, padLen - 8, (byte)0);
+                Pack.longToBigEndian((long)len << 3, tail, padLen - 8);
+            }
+            else
+            {
+                index[j] = -1;
+                fullBlocks[j] = 0;
+                totalBlocks[j] = 0;
+            }
+
+            for (int r = 0; r < 8; ++r)
+            {
+                H[r][j] = IV[r];
+            }
+        }
+
+        int blocks = totalBlocks[count - 1];
+        for (int b = 0; b < blocks; ++b)
+        {
+            for (int j = 0; j < LANES; ++j)
+            {
+                if (b < fullBlocks[j])
+                {
+                    loadBlock(j, inputs[index[j]], b * BLOCK_SIZE);
+                }
+                else if (b < totalBlocks[j])
+                {
+                    loadBlock(j, tails[j], (b - fullBlocks[j]) * BLOCK_SIZE);
+                }
+
+                mask[j] = b < totalBlocks[j] ? -1 : 0;
+            }
+
+            processBlocks();
+        }
+
+        for (int j = 0; j < count; ++j)
+        {
+            byte[] out = outputs[index[j]];
+            if (out == null)
+            {
+                out = outputs[index[j]] = new byte[DIGEST_LENGTH];
+            }
+            else if (out.length < DIGEST_LENGTH)
+            {
+                throw new OutputLengthException("output buffer too short");
+            }
+
+            for (int r = 0; r < 8; ++r)
+            {
+                Pack.intToBigEndian(H[r][j], out, r * 4);
+            }
+        }
+    }
+
+    private void loadBlock(int lane, byte[] buf, int off)
+    {
+        for (int t = 0; t < 16; ++t)
+        {
+            W[t][lane] = Pack.bigEndianToInt(buf, off + t * 4);
+        }
+    }
+
+    private void processBlocks()
+    {
+        //
+        // expand 16 word block into 64 word blocks, for every lane at once.
+        //
+        for (int t = 16; t < 64; ++t)
+        {
+            int[] w = W[t], w2 = W[t - 2], w7 = W[t - 7], w15 = W[t - 15], w16 = W[t - 16];
+            for (int j = 0; j < LANES; ++j)
+            {
+                int x2 = w2[j], x15 = w15[j];
+                w[j] = (((x2 >>> 17) | (x2 << 15)) ^ ((x2 >>> 19) | (x2 << 13)) ^ (x2 >>> 10))
+                    + w7[j]
+                    + (((x15 >>> 7) | (x15 << 25)) ^ ((x15 >>> 18) | (x15 << 14)) ^ (x15 >>> 3))
+                    + w16[j];
+            }
+        }
+
+        for (int r = 0; r < 8; ++r)
+        {
+            System.arraycopy(H[r], 0, V[r], 0, LANES);
+        }
+
+        int[] a = V[0], b = V[1], c = V[2], d = V[3], e = V[4], f = V[5], g = V[6], h = V[7];
+
+        for (int t = 0; t < 64; ++t)
+        {
+            int k = K[t];
+            int[] w = W[t];
+
+            /*
+             * The round is split into short loops, each of which C2 will vectorise; as a single loop it does not.
+             */
+            for (int j = 0; j < LANES; ++j)
+            {
+                int ej = e[j];
+                h[j] += ((ej & f[j]) ^ (~ej & g[j])) + k + w[j];
+            }
+
+            for (int j = 0; j < LANES; ++j)
+            {
+                int ej = e[j];
+                int t1 = h[j] + (((ej >>> 6) | (ej << 26)) ^ ((ej >>> 11) | (ej << 21)) ^ ((ej >>> 25) | (ej << 7)));
+                d[j] += t1;
+                h[j] = t1;
+            }
+
+            for (int j = 0; j < LANES; ++j)
+            {
+                int aj = a[j], bj = b[j], cj = c[j];
+                h[j] += (((aj >>> 2) | (aj << 30)) ^ ((aj >>> 13) | (aj << 19)) ^ ((aj >>> 22) | (aj << 10)))
+                    + ((aj & bj) | (cj & (aj ^ bj)));
+            }
+
+            // rename the state words rather than moving them; after 64 rounds each is back in place
+            int[] tmp = h;
+            h = g; g = f; f = e; e = d; d = c; c = b; b = a; a = tmp;
+        }
+
+        //
+        // add the working variables back into the hash, for the lanes with a block in this round.
+        //
+        for (int r = 0; r < 8; ++r)
+        {
+            int[] hr = H[r], vr = V[r];
+            for (int j = 0; j < LANES; ++j)
+            {
+                hr[j] += vr[j] & mask[j];
+            }
+        }
+    }
+
+    private static int getBlockCount(int len)
+    {
+        return (len + 9 + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+}
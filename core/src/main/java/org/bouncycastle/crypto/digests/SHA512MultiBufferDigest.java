@@ -0,0 +1,246 @@
+package org.bouncycastle.crypto.digests;
+
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Pack;
+
+/**
+ * Multi-buffer implementation of SHA-512, hashing up to 32 independent messages in lock-step.
+ * <p>
+ * The working state is kept as a structure of arrays, one array per state word with an element per message, so
+ * each step of the compression function is a short loop over the messages that the JIT can map onto vector
+ * instructions. Messages are sorted by length before being grouped, so the messages in a group finish together.
+ * </p>
+ * Instances are not thread safe.
+ */
+public class SHA512MultiBufferDigest
+    implements MultiBufferDigest
+{
+    private static final int LANES = 32;
+    private static final int BLOCK_SIZE = 128;
+    private static final int DIGEST_LENGTH = 64;
+
+    private static final long[] IV = { 0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL,
+        0xa54ff53a5f1d36f1L, 0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L };
+
+    private static final long[] K = LongDigest.K;
+
+    private final long[][] W = new long[80][LANES];
+    private final long[][] H = new long[8][LANES];
+    private final long[][] V = new long[8][LANES];
+    private final long[] mask = new long[LANES];
+
+    private final byte[][] tails = new byte[LANES][2 * BLOCK_SIZE];
+    private final int[] index = new int[LANES];
+    private final int[] fullBlocks = new int[LANES];
+    private final int[] totalBlocks = new int[LANES];
+
+    public String getAlgorithmName()
+    {
+        return "SHA-512";
+    }
+
+    public int getDigestSize()
+    {
+        return DIGEST_LENGTH;
+    }
+
+    public int getLaneCount()
+    {
+        return LANES;
+    }
+
+    public void hashAll(byte[][] inputs, byte[][] outputs)
+    {
+        if (outputs.length < inputs.length)
+        {
+            throw new IllegalArgumentException("not enough outputs for inputs");
+        }
+
+        long[] order = new long[inputs.length];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            order[i] = ((long)getBlockCount(inputs[i].length) << 32) | i;
+        }
+        java.util.Arrays.sort(order);
+
+        try
+        {
+            for (int pos = 0; pos < order.length; pos += LANES)
+            {
+                hashGroup(inputs, outputs, order, pos, Math.min(LANES, order.length - pos));
+            }
+        }
+        finally
+        {
+            for (int j = 0; j < LANES; ++j)
+            {
+                Arrays.fill(tails[j], (byte)0);
+            }
+            for (int t = 0; t < 80; ++t)
+            {
+                Arrays.fill(W[t], 0L);
+            }
+        }
+    }
+
+    private void hashGroup(byte[][] inputs, byte[][] outputs, long[] order, int pos, int count)
+    {
+        for (int j = 0; j < LANES; ++j)
+        {
+            if (j < count)
+            {
+                int i = (int)order[pos + j];
+                int len = inputs[i].length;
+
+                index[j] = i;
+                fullBlocks[j] = len / BLOCK_SIZE;
+                totalBlocks[j] = getBlockCount(len);
+
+                byte[] tail = tails[j];
+                int tailLen = len - fullBlocks[j] * BLOCK_SIZE;
+                int padLen = (totalBlocks[j] - fullBlocks[j]) * BLOCK_SIZE;
+
+                System.arraycopy(inputs[i], fullBlocks[j] * BLOCK_SIZE, tail, 0, tailLen);
+                tail[tailLen] = (byte)0x80;
+                Arrays.fill(tail, tailLen + 1, padLen - 8, (byte)0);
+                Pack.longToBigEndian((long)len << 3, tail, padLen - 8);
+            }
+            else
+            {
+                index[j] = -1;
+                fullBlocks[j] = 0;
+                totalBlocks[j] = 0;
+            }
+
+            for (int r = 0; r < 8; ++r)
+            {
+                H[r][j] = IV[r];
+            }
+        }
+
+        int blocks = totalBlocks[count - 1];
+        for (int b = 0; b < blocks; ++b)
+        {
+            for (int j = 0; j < LANES; ++j)
+            {
+                if (b < fullBlocks[j])
+                {
+                    loadBlock(j, inputs[index[j]], b * BLOCK_SIZE);
+                }
+                else if (b < totalBlocks[j])
+                {
+                    loadBlock(j, tails[j], (b - fullBlocks[j]) * BLOCK_SIZE);
+                }
+
+                mask[j] = b < totalBlocks[j] ? -1L : 0L;
+            }
+
+            processBlocks();
+        }
+
+        for (int j = 0; j < count; ++j)
+        {
+            byte[] out = outputs[index[j]];
+            if (out == null)
+            {
+                out = outputs[index[j]] = new byte[DIGEST_LENGTH];
+            }
+            else if (out.length < DIGEST_LENGTH)
+            {
+                throw new OutputLengthException("output buffer too short");
+            }
+
+            for (int r = 0; r < 8; ++r)
+            {
+                Pack.longToBigEndian(H[r][j], out, r * 8);
+            }
+        }
+    }
+
+    private void loadBlock(int lane, byte[] buf, int off)
+    {
+        for (int t = 0; t < 16; ++t)
+        {
+            W[t][lane] = Pack.bigEndianToLong(buf, off + t * 8);
+        }
+    }
+
+    private void processBlocks()
+    {
+        //
+        // expand 16 word block into 80 word blocks, for every lane at once.
+        //
+        for (int t = 16; t < 80; ++t)
+        {
+            long[] w = W[t], w2 = W[t - 2], w7 = W[t - 7], w15 = W[t - 15], w16 = W[t - 16];
+            for (int j = 0; j < LANES; ++j)
+            {
+                long x2 = w2[j], x15 = w15[j];
+                w[j] = (((x2 << 45) | (x2 >>> 19)) ^ ((x2 << 3) | (x2 >>> 61)) ^ (x2 >>> 6))
+                    + w7[j]
+                    + (((x15 << 63) | (x15 >>> 1)) ^ ((x15 << 56) | (x15 >>> 8)) ^ (x15 >>> 7))
+                    + w16[j];
+            }
+        }
+
+        for (int r = 0; r < 8; ++r)
+        {
+            System.arraycopy(H[r], 0, V[r], 0, LANES);
+        }
+
+        long[] a = V[0], b = V[1], c = V[2], d = V[3], e = V[4], f = V[5], g = V[6], h = V[7];
+
+        for (int t = 0; t < 80; ++t)
+        {
+            long k = K[t];
+            long[] w = W[t];
+
+            /*
+             * The round is split into short loops, each of which C2 will vectorise; as a single loop it does not.
+             */
+            for (int j = 0; j < LANES; ++j)
+            {
+                long ej = e[j];
+                h[j] += ((ej & f[j]) ^ (~ej & g[j])) + k + w[j];
+            }
+
+            for (int j = 0; j < LANES; ++j)
+            {
+                long ej = e[j];
+                long t1 = h[j] + (((ej << 50) | (ej >>> 14)) ^ ((ej << 46) | (ej >>> 18)) ^ ((ej << 23) | (ej >>> 41)));
+                d[j] += t1;
+                h[j] = t1;
+            }
+
+            for (int j = 0; j < LANES; ++j)
+            {
+                long aj = a[j], bj = b[j], cj = c[j];
+                h[j] += (((aj << 36) | (aj >>> 28)) ^ ((aj << 30) | (aj >>> 34)) ^ ((aj << 25) | (aj >>> 39)))
+                    + ((aj & bj) | (cj & (aj ^ bj)));
+            }
+
+            // rename the state words rather than moving them; after 80 rounds each is back in place
+            long[] tmp = h;
+            h = g; g = f; f = e; e = d; d = c; c = b; b = a; a = tmp;
+        }
+
+        //
+        // add the working variables back into the hash, for the lanes with a block in this round.
+        //
+        for (int r = 0; r < 8; ++r)
+        {
+            long[] hr = H[r], vr = V[r];
+            for (int j = 0; j < LANES; ++j)
+            {
+                hr[j] += vr[j] & mask[j];
+            }
+        }
+    }
+
+    private static int getBlockCount(int len)
+    {
+        return (len + 17 + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+}
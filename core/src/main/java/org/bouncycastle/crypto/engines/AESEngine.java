@@ -1,5 +1,8 @@
 package org.bouncycastle.crypto.engines;
 
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.ByteBufferBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.DataLengthException;
@@ -36,6 +39,7 @@
  */
 public class AESEngine
     extends DefaultMultiBlockCipher
+    implements ByteBufferBlockCipher
 {
     // The S box
     private static final byte[] S = {
@@ -418,6 +422,7 @@ private int[][] generateWorkingKey(byte[] key, boolean forEncryption)
     private boolean     forEncryption;
 
     private byte[]      s;
+    private byte[]      ioBlock;
 
     private static final int BLOCK_SIZE = 16;
 
@@ -512,6 +517,46 @@ public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
         return BLOCK_SIZE;
     }
 
+    public int processBlock(ByteBuffer in, ByteBuffer out)
+    {
+        if (WorkingKey == null)
+        {
+            throw new IllegalStateException("AES engine not initialised");
+        }
+
+        if (in.remaining() < BLOCK_SIZE)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if (out.remaining() < BLOCK_SIZE)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            processBlock(in.array(), in.arrayOffset() + inPos, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + BLOCK_SIZE);
+            out.position(outPos + BLOCK_SIZE);
+            return BLOCK_SIZE;
+        }
+
+        // only the block in hand is ever copied, never the rest of the buffer
+        if (ioBlock == null)
+        {
+            ioBlock = new byte[BLOCK_SIZE];
+        }
+
+        in.get(ioBlock);
+        processBlock(ioBlock, 0, ioBlock, 0);
+        out.put(ioBlock);
+        Arrays.fill(ioBlock, (byte)0);
+
+        return BLOCK_SIZE;
+    }
+
     public void reset()
     {
     }
@@ -1,5 +1,9 @@
 package org.bouncycastle.crypto.engines;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.bouncycastle.crypto.ByteBufferStreamCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.CryptoServicesRegistrar;
 import org.bouncycastle.crypto.DataLengthException;
@@ -17,7 +21,7 @@
  * Implementation of Daniel J. Bernstein's Salsa20 stream cipher, Snuffle 2005
  */
 public class Salsa20Engine
-    implements SkippingStreamCipher
+    implements SkippingStreamCipher, ByteBufferStreamCipher
 {
     public final static int DEFAULT_ROUNDS = 20;
 
@@ -291,6 +295,73 @@ public int processBytes(
         return len;
     }
 
+    public int processBytes(
+        ByteBuffer in,
+        ByteBuffer out)
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException(getAlgorithmName() + " not initialised");
+        }
+
+        int len = in.remaining();
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + len);
+            out.position(outPos + len);
+            return len;
+        }
+
+        if (limitExceeded(len))
+        {
+            throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
+        }
+
+        while (index != 0 && in.hasRemaining())
+        {
+            out.put((byte)(keyStream[index] ^ in.get()));
+            index = (index + 1) & 63;
+
+            if (index == 0)
+            {
+                advanceCounter();
+                generateKeyStream(keyStream);
+            }
+        }
+
+        /*
+         * Whole key stream blocks are applied a word at a time, straight between the buffers.
+         */
+        ByteBuffer src = in.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer dst = out.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        while (src.remaining() >= 64)
+        {
+            for (int i = 0; i < 64; i += 8)
+            {
+                dst.putLong(src.getLong() ^ Pack.littleEndianToLong(keyStream, i));
+            }
+
+            advanceCounter();
+            generateKeyStream(keyStream);
+        }
+
+        while (src.hasRemaining())
+        {
+            dst.put((byte)(keyStream[index++] ^ src.get()));
+        }
+
+        in.position(src.position());
+        out.position(dst.position());
+        return len;
+    }
+
     public long skip(long numberOfBytes)
     {
         if (numberOfBytes >= 0)
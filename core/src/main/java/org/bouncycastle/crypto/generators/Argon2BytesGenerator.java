@@ -1,9 +1,14 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.bouncycastle.crypto.params.Argon2Parameters;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.JoinableTask;
 import org.bouncycastle.util.Longs;
 import org.bouncycastle.util.Pack;
 
@@ -149,6 +154,12 @@ private void reset()
 
     private void fillMemoryBlocks()
     {
+        if (parameters.getExecutor() != null && parameters.getLanes() > 1)
+        {
+            fillMemoryBlocks(parameters.getExecutor());
+            return;
+        }
+
         FillBlock filler = new FillBlock();
         Position position = new Position();
         for (int pass = 0; pass < parameters.getIterations(); ++pass)
@@ -169,6 +180,52 @@ private void fillMemoryBlocks()
         }
     }
 
+    /**
+     * Fill memory with the lanes of each slice running concurrently. Within a slice a lane only references
+     * blocks of its own lane or of completed slices, so the only synchronisation needed is a barrier
+     * between slices.
+     */
+    private void fillMemoryBlocks(Executor executor)
+    {
+        int lanes = parameters.getLanes();
+
+        FillBlock[] fillers = new FillBlock[lanes];
+        for (int lane = 0; lane < lanes; ++lane)
+        {
+            fillers[lane] = new FillBlock();
+        }
+
+        for (int pass = 0; pass < parameters.getIterations(); ++pass)
+        {
+            for (int slice = 0; slice < ARGON2_SYNC_POINTS; ++slice)
+            {
+                List<SegmentTask> tasks = new ArrayList<SegmentTask>(lanes);
+                for (int lane = 0; lane < lanes; ++lane)
+                {
+                    SegmentTask task = new SegmentTask(fillers[lane], new Position(pass, lane, slice));
+                    tasks.add(task);
+                    if (lane > 0)
+                    {
+                        task.fork(executor);
+                    }
+                }
+
+                // the calling thread fills the first lane itself
+                tasks.get(0).run();
+
+                /*
+                 * every lane is joined, even after a failure, as the lanes are still writing to memory that is
+                 * about to be read or cleared.
+                 */
+                Throwable failure = JoinableTask.joinAll(tasks);
+                if (failure != null)
+                {
+                    throw new IllegalStateException("Argon2 lane fill failed: " + failure.getMessage(), failure);
+                }
+            }
+        }
+    }
+
     private void fillSegment(FillBlock filler, Position position)
     {
         Block addressBlock = null, inputBlock = null;
@@ -691,5 +748,30 @@ public Block clear()
         Position()
         {
         }
+
+        Position(int pass, int lane, int slice)
+        {
+            this.pass = pass;
+            this.lane = lane;
+            this.slice = slice;
+        }
+    }
+
+    private class SegmentTask
+        extends JoinableTask
+    {
+        private final FillBlock filler;
+        private final Position position;
+
+        SegmentTask(FillBlock filler, Position position)
+        {
+            this.filler = filler;
+            this.position = position;
+        }
+
+        protected void compute()
+        {
+            fillSegment(filler, position);
+        }
     }
 }
@@ -1,11 +1,17 @@
 package org.bouncycastle.crypto.generators;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.bouncycastle.crypto.PBEParametersGenerator;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.Salsa20Engine;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Integers;
+import org.bouncycastle.util.JoinableTask;
 import org.bouncycastle.util.Pack;
 
 /**
@@ -35,6 +41,32 @@ private SCrypt()
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        return generate(P, S, N, r, p, dkLen, null, 0);
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function, running the p SMix computations concurrently
+     * on the passed in executor.
+     * <p>
+     * Each concurrent SMix computation needs its own 128 * r * N byte scratch buffer, so the number run at once
+     * is limited to memoryLimit / (128 * r * N), with a minimum of one. The calling thread takes part in
+     * the computation, so the key is still produced if the executor has no free threads.
+     * </p>
+     *
+     * @param P     the bytes of the pass phrase.
+     * @param S     the salt to use for this invocation.
+     * @param N     CPU/Memory cost parameter. Must be larger than 1, a power of 2 and less than
+     *              <code>2^(128 * r / 8)</code>.
+     * @param r     the block size, must be &gt;= 1.
+     * @param p     Parallelization parameter. Must be a positive integer less than or equal to
+     *              <code>Integer.MAX_VALUE / (128 * r * 8)</code>.
+     * @param dkLen the length of the key to generate.
+     * @param executor the executor to run SMix computations on, null to run them on the calling thread.
+     * @param memoryLimit the maximum number of bytes of scratch memory to have in use at once, 0 for no limit.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor, long memoryLimit)
     {
         if (P == null)
         {
@@ -67,10 +99,23 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
+        if (memoryLimit < 0)
+        {
+            throw new IllegalArgumentException("Memory limit must be >= 0.");
+        }
+
+        int parallelism = 1;
+        if (executor != null)
+        {
+            long scratchLen = 128L * r * N;
+            parallelism = (memoryLimit == 0) ? p : (int)Math.max(1, Math.min(p, memoryLimit / scratchLen));
+        }
+
+        return MFcrypt(P, S, N, r, p, dkLen, executor, parallelism);
     }
 
-    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor,
+        int parallelism)
     {
         int MFLenBytes = r * 128;
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
@@ -96,10 +141,16 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
             }
 
             int MFLenWords = MFLenBytes >>> 2;
-            for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+            if (parallelism > 1)
             {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, d, r);
+                SMixParallel(B, N, d, r, p, executor, parallelism);
+            }
+            else
+            {
+                for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+                {
+                    SMix(B, BOff, N, d, r);
+                }
             }
 
             Pack.intToLittleEndian(B, bytes, 0);
@@ -121,6 +172,55 @@ private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
         return key.getKey();
     }
 
+    /*
+     * Run the p SMix computations with at most 'parallelism' in progress at once: parallelism - 1 workers are
+     * handed to the executor and the calling thread acts as the last, each taking the next unclaimed block
+     * until none are left. The blocks of B are disjoint, so the only synchronisation needed is the final wait.
+     */
+    private static void SMixParallel(final int[] B, final int N, final int d, final int r, final int p,
+        Executor executor, int parallelism)
+    {
+        final AtomicInteger next = new AtomicInteger();
+
+        List<JoinableTask> workers = new ArrayList<JoinableTask>(parallelism);
+        for (int i = 0; i < parallelism; ++i)
+        {
+            JoinableTask worker = new JoinableTask()
+            {
+                protected void compute()
+                {
+                    SMixBlocks(B, N, d, r, p, next);
+                }
+            };
+            workers.add(worker);
+
+            // the calling thread runs the first worker itself
+            if (i > 0)
+            {
+                worker.fork(executor);
+            }
+        }
+
+        workers.get(0).run();
+
+        Throwable failure = JoinableTask.joinAll(workers);
+        if (failure != null)
+        {
+            throw new IllegalStateException("SMix computation failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static void SMixBlocks(int[] B, int N, int d, int r, int p, AtomicInteger next)
+    {
+        int MFLenWords = r * 32;
+
+        int i;
+        while ((i = next.getAndIncrement()) < p)
+        {
+            SMix(B, i * MFLenWords, N, d, r);
+        }
+    }
+
     private static void SMix(int[] B, int BOff, int N, int d, int r)
     {
         int powN = Integers.numberOfTrailingZeros(N);
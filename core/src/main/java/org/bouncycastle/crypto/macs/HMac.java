@@ -1,12 +1,14 @@
 package org.bouncycastle.crypto.macs;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
+import org.bouncycastle.crypto.ByteBufferMac;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.ExtendedDigest;
-import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
 import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Memoable;
 
@@ -16,7 +18,7 @@
  * H(K XOR opad, H(K XOR ipad, text))
  */
 public class HMac
-    implements Mac
+    implements ByteBufferMac
 {
     private final static byte IPAD = (byte)0x36;
     private final static byte OPAD = (byte)0x5C;
@@ -170,6 +172,12 @@ public void update(
         digest.update(in, inOff, len);
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        ByteBufferUtil.update(digest, in);
+    }
+
     public int doFinal(
         byte[] out,
         int outOff)
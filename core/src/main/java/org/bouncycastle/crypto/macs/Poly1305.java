@@ -1,9 +1,11 @@
 package org.bouncycastle.crypto.macs;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.ByteBufferMac;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
-import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.generators.Poly1305KeyGenerator;
 import org.bouncycastle.crypto.params.KeyParameter;
@@ -23,7 +25,7 @@
  * @see Poly1305KeyGenerator
  */
 public class Poly1305
-    implements Mac
+    implements ByteBufferMac
 {
     private static final int BLOCK_SIZE = 16;
 
@@ -202,6 +204,32 @@ public void update(final byte[] in, final int inOff, final int len)
 
     }
 
+    public void update(ByteBuffer in)
+        throws IllegalStateException
+    {
+        if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            update(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+            return;
+        }
+
+        // the data is read into the current block, as it is from an array
+        while (in.hasRemaining())
+        {
+            if (currentBlockOffset == BLOCK_SIZE)
+            {
+                processBlock();
+                currentBlockOffset = 0;
+            }
+
+            int toCopy = Math.min(in.remaining(), BLOCK_SIZE - currentBlockOffset);
+            in.get(currentBlock, currentBlockOffset, toCopy);
+            currentBlockOffset += toCopy;
+        }
+    }
+
     private void processBlock()
     {
         if (currentBlockOffset < BLOCK_SIZE)
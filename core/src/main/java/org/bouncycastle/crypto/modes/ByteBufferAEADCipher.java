@@ -0,0 +1,43 @@
+package org.bouncycastle.crypto.modes;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+
+/**
+ * An AEAD cipher that can process data held in ByteBuffers, including direct and memory-mapped
+ * buffers, without the data first being copied into an array.
+ *
+ * @see org.bouncycastle.crypto.util.ByteBufferUtil
+ */
+public interface ByteBufferAEADCipher
+    extends AEADCipher
+{
+    /**
+     * process the remaining bytes in in, writing any output to out. On return the position of
+     * in will be equal to its limit, and the position of out will have been advanced by the
+     * number of bytes produced.
+     *
+     * @param in the buffer containing the input data.
+     * @param out the buffer the output data is written to.
+     * @return the number of bytes produced.
+     * @exception DataLengthException if there isn't enough space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     */
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException;
+
+    /**
+     * Finish the operation either appending or verifying the MAC at the end of the data, writing
+     * any remaining output to out. The position of out is advanced by the number of bytes
+     * produced.
+     *
+     * @param out the buffer the output data is written to.
+     * @return the number of bytes produced.
+     * @exception IllegalStateException if the cipher is in an inappropriate state.
+     * @exception InvalidCipherTextException if the MAC fails to match.
+     */
+    public int doFinal(ByteBuffer out)
+        throws IllegalStateException, InvalidCipherTextException;
+}
@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
@@ -10,11 +12,12 @@
 import org.bouncycastle.crypto.params.AEADParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Pack;
 
 public class ChaCha20Poly1305
-    implements AEADCipher
+    implements ByteBufferAEADCipher
 {
     private static final class State
     {
@@ -372,6 +375,97 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer in, ByteBuffer out) throws DataLengthException
+    {
+        checkData();
+
+        int len = in.remaining();
+        int resultLen = getUpdateOutputSize(len);
+        if (out.remaining() < resultLen)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            resultLen = processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + len);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        boolean forEncryption;
+        switch (state)
+        {
+        case State.DEC_DATA:
+            forEncryption = false;
+            break;
+        case State.ENC_DATA:
+            forEncryption = true;
+            break;
+        default:
+            throw new IllegalStateException();
+        }
+
+        /*
+         * The data is buf followed by in. Blocks that start in buf are completed and processed there, the rest go
+         * straight from in to out, leaving anything held back to be added to buf.
+         */
+        int remaining = resultLen;
+        while (bufPos > 0 && remaining > 0)
+        {
+            if (bufPos < BUF_SIZE)
+            {
+                int available = BUF_SIZE - bufPos;
+                in.get(buf, bufPos, available);
+                bufPos += available;
+            }
+
+            if (forEncryption)
+            {
+                processData(buf, 0, BUF_SIZE, buf, 0);
+                poly1305.update(buf, 0, BUF_SIZE);
+            }
+            else
+            {
+                poly1305.update(buf, 0, BUF_SIZE);
+                processData(buf, 0, BUF_SIZE, buf, 0);
+            }
+            out.put(buf, 0, BUF_SIZE);
+
+            System.arraycopy(buf, BUF_SIZE, buf, 0, bufPos -= BUF_SIZE);
+            remaining -= BUF_SIZE;
+        }
+
+        if (remaining > 0)
+        {
+            this.dataCount = incrementCount(dataCount, remaining, DATA_LIMIT);
+
+            ByteBuffer src = in.duplicate();
+            src.limit(src.position() + remaining);
+            if (forEncryption)
+            {
+                ByteBuffer ciphertext = out.duplicate();
+                chacha20.processBytes(src, out);
+                ciphertext.limit(out.position());
+                ByteBufferUtil.update(poly1305, ciphertext);
+            }
+            else
+            {
+                ByteBufferUtil.update(poly1305, src.duplicate());
+                chacha20.processBytes(src, out);
+            }
+            in.position(src.position());
+        }
+
+        int held = in.remaining();
+        in.get(buf, bufPos, held);
+        this.bufPos += held;
+
+        return resultLen;
+    }
+
     public int doFinal(byte[] out, int outOff) throws IllegalStateException, InvalidCipherTextException
     {
         if (null == out)
@@ -449,6 +543,38 @@ public int doFinal(byte[] out, int outOff) throws IllegalStateException, Invalid
         return resultLen;
     }
 
+    public int doFinal(ByteBuffer out) throws IllegalStateException, InvalidCipherTextException
+    {
+        checkData();
+
+        int outputSize = getOutputSize(0);
+        if (out.remaining() < outputSize)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        if (out.hasArray())
+        {
+            int outPos = out.position();
+            int resultLen = doFinal(out.array(), out.arrayOffset() + outPos);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        // at most the last partial block and the tag are left
+        byte[] result = new byte[outputSize];
+        try
+        {
+            int resultLen = doFinal(result, 0);
+            out.put(result, 0, resultLen);
+            return resultLen;
+        }
+        finally
+        {
+            Arrays.clear(result);
+        }
+    }
+
     public byte[] getMac()
     {
         return Arrays.clone(mac);
@@ -1,12 +1,16 @@
 package org.bouncycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.bouncycastle.crypto.BlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.DataLengthException;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.MultiBlockCipher;
 import org.bouncycastle.crypto.OutputLengthException;
 import org.bouncycastle.crypto.modes.gcm.BasicGCMExponentiator;
 import org.bouncycastle.crypto.modes.gcm.GCMExponentiator;
+import org.bouncycastle.crypto.modes.gcm.GCMMultiBlockMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMMultiplier;
 import org.bouncycastle.crypto.modes.gcm.GCMUtil;
 import org.bouncycastle.crypto.modes.gcm.Tables4kGCMMultiplier;
@@ -21,9 +25,11 @@
  * NIST Special Publication 800-38D.
  */
 public class GCMBlockCipher
-    implements GCMModeCipher
+    implements GCMModeCipher, ByteBufferAEADCipher
 {
     private static final int BLOCK_SIZE = 16;
+    // the most blocks of keystream generated (and hashed) at once in processBytes
+    private static final int MULTI_BLOCK_COUNT = 8;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
@@ -52,6 +58,7 @@
     private int         atBlockPos;
     private long        atLength;
     private long        atLengthPre;
+    private byte[]      ctrBlocks, ctrInput;
 
     /**
      * Return a new GCM mode cipher based on the passed in base cipher
@@ -410,9 +417,10 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
 
             while (inOff <= inLimit)
             {
-                encryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                int blockCount = Math.min(MULTI_BLOCK_COUNT, (inLimit - inOff) / BLOCK_SIZE + 1);
+                encryptBlocks(in, inOff, blockCount, out, outOff + resultLen);
+                inOff += blockCount * BLOCK_SIZE;
+                resultLen += blockCount * BLOCK_SIZE;
             }
 
             bufOff = BLOCK_SIZE + inLimit - inOff;
@@ -454,9 +462,10 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
 
             while (inOff <= inLimit)
             {
-                decryptBlock(in, inOff, out, outOff + resultLen);
-                inOff += BLOCK_SIZE;
-                resultLen += BLOCK_SIZE;
+                int blockCount = Math.min(MULTI_BLOCK_COUNT, (inLimit - inOff) / BLOCK_SIZE + 1);
+                decryptBlocks(in, inOff, blockCount, out, outOff + resultLen);
+                inOff += blockCount * BLOCK_SIZE;
+                resultLen += blockCount * BLOCK_SIZE;
             }
 
             bufOff = bufBlock.length + inLimit - inOff;
@@ -466,6 +475,74 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        checkStatus();
+
+        int len = in.remaining();
+        int resultLen = getUpdateOutputSize(len);
+        if (out.remaining() < resultLen)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            resultLen = processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + len);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        /*
+         * The data is bufBlock followed by in. Blocks that start in bufBlock are completed and processed there, the
+         * rest are read from in a batch at a time, leaving anything held back to be added to bufBlock.
+         */
+        int remaining = resultLen;
+        if (bufOff > 0 && remaining > 0)
+        {
+            byte[] block = new byte[BLOCK_SIZE];
+            while (bufOff > 0 && remaining > 0)
+            {
+                if (bufOff < BLOCK_SIZE)
+                {
+                    int available = BLOCK_SIZE - bufOff;
+                    in.get(bufBlock, bufOff, available);
+                    bufOff += available;
+                }
+
+                if (forEncryption)
+                {
+                    encryptBlock(bufBlock, 0, block, 0);
+                }
+                else
+                {
+                    decryptBlock(bufBlock, 0, block, 0);
+                }
+                out.put(block);
+
+                System.arraycopy(bufBlock, BLOCK_SIZE, bufBlock, 0, bufOff -= BLOCK_SIZE);
+                remaining -= BLOCK_SIZE;
+            }
+            Arrays.fill(block, (byte)0);
+        }
+
+        while (remaining > 0)
+        {
+            int blockCount = Math.min(MULTI_BLOCK_COUNT, remaining / BLOCK_SIZE);
+            processBlocks(in, blockCount, out);
+            remaining -= blockCount * BLOCK_SIZE;
+        }
+
+        int held = in.remaining();
+        in.get(bufBlock, bufOff, held);
+        bufOff += held;
+
+        return resultLen;
+    }
+
     public int doFinal(byte[] out, int outOff)
         throws IllegalStateException, InvalidCipherTextException
     {
@@ -586,6 +663,33 @@ public int doFinal(byte[] out, int outOff)
         return resultLen;
     }
 
+    public int doFinal(ByteBuffer out)
+        throws IllegalStateException, InvalidCipherTextException
+    {
+        checkStatus();
+
+        int outputSize = getOutputSize(0);
+        if (out.remaining() < outputSize)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        if (out.hasArray())
+        {
+            int outPos = out.position();
+            int resultLen = doFinal(out.array(), out.arrayOffset() + outPos);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        // at most the last partial block and the tag are left
+        byte[] result = new byte[outputSize];
+        int resultLen = doFinal(result, 0);
+        out.put(result, 0, resultLen);
+        Arrays.fill(result, (byte)0);
+        return resultLen;
+    }
+
     public void reset()
     {
         reset(true);
@@ -615,6 +719,12 @@ private void reset(
             Arrays.fill(bufBlock, (byte)0);
         }
 
+        if (ctrBlocks != null)
+        {
+            Arrays.fill(ctrBlocks, (byte)0);
+            Arrays.fill(ctrInput, (byte)0);
+        }
+
         if (clearMac)
         {
             macBlock = null;
@@ -653,6 +763,28 @@ private void decryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private void decryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        int len = blockCount * BLOCK_SIZE;
+        if ((out.length - outOff) < len)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(blockCount);
+
+        gHASHBlocks(S, buf, bufOff, blockCount);
+        GCMUtil.xor(ctrBlocks, 0, buf, bufOff, len);
+        System.arraycopy(ctrBlocks, 0, out, outOff, len);
+        Arrays.fill(ctrBlocks, (byte)0);
+
+        totalLength += len;
+    }
+
     private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
     {
         if ((out.length - outOff) < BLOCK_SIZE)
@@ -674,6 +806,61 @@ private void encryptBlock(byte[] buf, int bufOff, byte[] out, int outOff)
         totalLength += BLOCK_SIZE;
     }
 
+    private void encryptBlocks(byte[] buf, int bufOff, int blockCount, byte[] out, int outOff)
+    {
+        int len = blockCount * BLOCK_SIZE;
+        if ((out.length - outOff) < len)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(blockCount);
+
+        GCMUtil.xor(ctrBlocks, 0, buf, bufOff, len);
+        gHASHBlocks(S, ctrBlocks, 0, blockCount);
+        System.arraycopy(ctrBlocks, 0, out, outOff, len);
+        Arrays.fill(ctrBlocks, (byte)0);
+
+        totalLength += len;
+    }
+
+    /*
+     * Process blockCount whole blocks read from in, using ctrInput, which is free once the key stream has been
+     * generated, to hold the input.
+     */
+    private void processBlocks(ByteBuffer in, int blockCount, ByteBuffer out)
+    {
+        int len = blockCount * BLOCK_SIZE;
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        getNextCTRBlocks(blockCount);
+
+        in.get(ctrInput, 0, len);
+        if (forEncryption)
+        {
+            GCMUtil.xor(ctrBlocks, 0, ctrInput, 0, len);
+            gHASHBlocks(S, ctrBlocks, 0, blockCount);
+        }
+        else
+        {
+            gHASHBlocks(S, ctrInput, 0, blockCount);
+            GCMUtil.xor(ctrBlocks, 0, ctrInput, 0, len);
+        }
+        out.put(ctrBlocks, 0, len);
+
+        Arrays.fill(ctrInput, (byte)0);
+        Arrays.fill(ctrBlocks, (byte)0);
+
+        totalLength += len;
+    }
+
     private void processPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
         byte[] ctrBlock = new byte[BLOCK_SIZE];
@@ -715,6 +902,20 @@ private void gHASHBlock(byte[] Y, byte[] b, int off)
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int blockCount)
+    {
+        if (multiplier instanceof GCMMultiBlockMultiplier)
+        {
+            ((GCMMultiBlockMultiplier)multiplier).multiplyBlocksH(Y, b, off, blockCount);
+            return;
+        }
+
+        for (int i = 0; i < blockCount; ++i)
+        {
+            gHASHBlock(Y, b, off + i * BLOCK_SIZE);
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
@@ -738,6 +939,48 @@ private void getNextCTRBlock(byte[] block)
         cipher.processBlock(counter, 0, block, 0);
     }
 
+    /*
+     * Fill ctrBlocks with the keystream for the next blockCount counter values, using the cipher's multi-block
+     * processing where it has it.
+     */
+    private void getNextCTRBlocks(int blockCount)
+    {
+        if ((blocksRemaining & 0xFFFFFFFFL) < blockCount)
+        {
+            throw new IllegalStateException("Attempt to process too many blocks");
+        }
+        blocksRemaining -= blockCount;
+
+        if (ctrBlocks == null)
+        {
+            ctrBlocks = new byte[MULTI_BLOCK_COUNT * BLOCK_SIZE];
+            ctrInput = new byte[MULTI_BLOCK_COUNT * BLOCK_SIZE];
+        }
+
+        for (int i = 0; i < blockCount; ++i)
+        {
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, ctrInput, i * BLOCK_SIZE, BLOCK_SIZE);
+        }
+
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(ctrInput, 0, blockCount, ctrBlocks, 0);
+        }
+        else
+        {
+            for (int i = 0; i < blockCount; ++i)
+            {
+                cipher.processBlock(ctrInput, i * BLOCK_SIZE, ctrBlocks, i * BLOCK_SIZE);
+            }
+        }
+    }
+
     private void checkStatus()
     {
         if (!initialised)
@@ -0,0 +1,160 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+import org.bouncycastle.util.Longs;
+import org.bouncycastle.util.Pack;
+
+/**
+ * A multiplier holding the powers H^1..H^n (n being 4 or 8), so that n blocks are hashed as
+ * (X1 ^ Y).H^n ^ X2.H^(n-1) ^ ... ^ Xn.H, with the n products summed unreduced and a single reduction.
+ */
+public class AggregatedGCMMultiplier
+    implements GCMMultiBlockMultiplier
+{
+    private final int aggregation;
+
+    private byte[] H;
+    // for each power: y0, y1, rev(y0), rev(y1), y0 ^ y1, rev(y0) ^ rev(y1)
+    private long[] T;
+
+    /**
+     * Create a multiplier folding 8 blocks per reduction.
+     */
+    public AggregatedGCMMultiplier()
+    {
+        this(8);
+    }
+
+    /**
+     * Create a multiplier folding the given number of blocks per reduction.
+     *
+     * @param aggregation the number of blocks per reduction, 4 or 8.
+     */
+    public AggregatedGCMMultiplier(int aggregation)
+    {
+        if (aggregation != 4 && aggregation != 8)
+        {
+            throw new IllegalArgumentException("aggregation must be 4 or 8");
+        }
+
+        this.aggregation = aggregation;
+    }
+
+    public void init(byte[] H)
+    {
+        if (T == null)
+        {
+            T = new long[aggregation * 6];
+        }
+        else if (0 != GCMUtil.areEqual(this.H, H))
+        {
+            return;
+        }
+
+        this.H = new byte[GCMUtil.SIZE_BYTES];
+        GCMUtil.copy(H, this.H);
+
+        long[] h = GCMUtil.asLongs(this.H);
+        long[] p = GCMUtil.asLongs(this.H);
+
+        for (int i = 0; i < aggregation; ++i)
+        {
+            if (i > 0)
+            {
+                GCMUtil.multiply(p, h);
+            }
+
+            int off = i * 6;
+            long y0 = p[0], y1 = p[1];
+            long y0r = Longs.reverse(y0), y1r = Longs.reverse(y1);
+
+            T[off    ] = y0;
+            T[off + 1] = y1;
+            T[off + 2] = y0r;
+            T[off + 3] = y1r;
+            T[off + 4] = y0 ^ y1;
+            T[off + 5] = y0r ^ y1r;
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        long[] zz = new long[6];
+        accumulate(Pack.bigEndianToLong(x, 0), Pack.bigEndianToLong(x, 8), 0, zz);
+        reduce(zz, x);
+    }
+
+    public void multiplyBlocksH(byte[] x, byte[] buf, int off, int blockCount)
+    {
+        long[] zz = new long[6];
+
+        long s0 = Pack.bigEndianToLong(x, 0);
+        long s1 = Pack.bigEndianToLong(x, 8);
+
+        while (blockCount > 0)
+        {
+            int n = Math.min(blockCount, aggregation);
+
+            // The running state is added to the first block, which is then multiplied by the highest power
+            long x0 = s0 ^ Pack.bigEndianToLong(buf, off);
+            long x1 = s1 ^ Pack.bigEndianToLong(buf, off + 8);
+            accumulate(x0, x1, n - 1, zz);
+
+            for (int i = 1; i < n; ++i)
+            {
+                int pos = off + i * GCMUtil.SIZE_BYTES;
+                accumulate(Pack.bigEndianToLong(buf, pos), Pack.bigEndianToLong(buf, pos + 8), n - 1 - i, zz);
+            }
+
+            reduce(zz, x);
+
+            s0 = Pack.bigEndianToLong(x, 0);
+            s1 = Pack.bigEndianToLong(x, 8);
+
+            off += n * GCMUtil.SIZE_BYTES;
+            blockCount -= n;
+        }
+    }
+
+    /*
+     * "Three-way recursion" as in GCMUtil.multiply, but since the bit reversals, shifts and the reduction are all
+     * linear, the partial products for several blocks are summed here and those steps are done once in reduce.
+     */
+    private void accumulate(long x0, long x1, int power, long[] zz)
+    {
+        int off = power * 6;
+        long x0r = Longs.reverse(x0), x1r = Longs.reverse(x1);
+
+        zz[0] ^= GCMUtil.implMul64(x0r, T[off + 2]);
+        zz[1] ^= GCMUtil.implMul64(x0, T[off]);
+        zz[2] ^= GCMUtil.implMul64(x1r, T[off + 3]);
+        zz[3] ^= GCMUtil.implMul64(x1, T[off + 1]);
+        zz[4] ^= GCMUtil.implMul64(x0r ^ x1r, T[off + 5]);
+        zz[5] ^= GCMUtil.implMul64(x0 ^ x1, T[off + 4]);
+    }
+
+    private static void reduce(long[] zz, byte[] x)
+    {
+        long h0 = Longs.reverse(zz[0]);
+        long h1 = zz[1] << 1;
+        long h2 = Longs.reverse(zz[2]);
+        long h3 = zz[3] << 1;
+        long h4 = Longs.reverse(zz[4]);
+        long h5 = zz[5] << 1;
+
+        long z0 = h0;
+        long z1 = h1 ^ h0 ^ h2 ^ h4;
+        long z2 = h2 ^ h1 ^ h3 ^ h5;
+        long z3 = h3;
+
+        z1 ^= z3 ^ (z3 >>>  1) ^ (z3 >>>  2) ^ (z3 >>>  7);
+        z2 ^=                    (z3 <<  62) ^ (z3 <<  57);
+
+        z0 ^= z2 ^ (z2 >>>  1) ^ (z2 >>>  2) ^ (z2 >>>  7);
+        z1 ^=      (z2 <<  63) ^ (z2 <<  62) ^ (z2 <<  57);
+
+        Pack.longToBigEndian(z0, x, 0);
+        Pack.longToBigEndian(z1, x, 8);
+
+        zz[0] = 0; zz[1] = 0; zz[2] = 0; zz[3] = 0; zz[4] = 0; zz[5] = 0;
+    }
+}
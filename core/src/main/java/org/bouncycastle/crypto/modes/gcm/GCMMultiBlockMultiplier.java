@@ -0,0 +1,18 @@
+package org.bouncycastle.crypto.modes.gcm;
+
+/**
+ * A {@link GCMMultiplier} that can also fold a run of blocks into the hash at once.
+ */
+public interface GCMMultiBlockMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * Update x with blockCount consecutive blocks, i.e. for each block b in turn, x = (x ^ b).H.
+     *
+     * @param x the 16 byte hash state, updated in place.
+     * @param buf the buffer holding the blocks.
+     * @param off the offset of the first block in buf.
+     * @param blockCount the number of 16 byte blocks.
+     */
+    void multiplyBlocksH(byte[] x, byte[] buf, int off, int blockCount);
+}
@@ -507,7 +507,7 @@ public static void xor(long[] x, long[] y, long[] z)
         z[1] = x[1] ^ y[1];
     }
 
-    private static long implMul64(long x, long y)
+    static long implMul64(long x, long y)
     {
         long x0 = x & 0x1111111111111111L;
         long x1 = x & 0x2222222222222222L;
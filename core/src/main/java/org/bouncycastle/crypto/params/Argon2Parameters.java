@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.params;
 
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.CharToByteConverter;
 import org.bouncycastle.crypto.PasswordConverter;
 import org.bouncycastle.util.Arrays;
@@ -33,6 +35,7 @@
         private final int type;
         
         private CharToByteConverter converter = PasswordConverter.UTF8;
+        private Executor executor;
 
         public Builder()
         {
@@ -104,9 +107,23 @@ public Builder withCharToByteConverter(CharToByteConverter converter)
             return this;
         }
 
+        /**
+         * Supply an executor used to fill the lanes of each memory slice concurrently. The calling thread
+         * fills one lane itself and waits for the others to complete before moving on to the next slice.
+         * If no executor is set, or there is only one lane, all lanes are filled on the calling thread.
+         *
+         * @param executor the executor to run lane fills on, null for sequential processing.
+         * @return the current builder.
+         */
+        public Builder withExecutor(Executor executor)
+        {
+            this.executor = executor;
+            return this;
+        }
+
         public Argon2Parameters build()
         {
-            return new Argon2Parameters(type, salt, secret, additional, iterations, memory, lanes, version, converter);
+            return new Argon2Parameters(type, salt, secret, additional, iterations, memory, lanes, version, converter, executor);
         }
 
         public void clear()
@@ -128,6 +145,7 @@ public void clear()
     private final int version;
     private final int type;
     private final CharToByteConverter converter;
+    private final Executor executor;
 
     private Argon2Parameters(
         int type,
@@ -138,7 +156,8 @@ private Argon2Parameters(
         int memory,
         int lanes,
         int version,
-        CharToByteConverter converter)
+        CharToByteConverter converter,
+        Executor executor)
     {
 
         this.salt = Arrays.clone(salt);
@@ -150,6 +169,7 @@ private Argon2Parameters(
         this.version = version;
         this.type = type;
         this.converter = converter;
+        this.executor = executor;
     }
 
     public byte[] getSalt()
@@ -197,6 +217,16 @@ public CharToByteConverter getCharToByteConverter()
         return converter;
     }
 
+    /**
+     * Return the executor lanes are filled on.
+     *
+     * @return the executor, null if lanes are filled sequentially on the calling thread.
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+
     public void clear()
     {
         Arrays.clear(salt);
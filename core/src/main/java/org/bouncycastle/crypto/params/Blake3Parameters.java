@@ -1,5 +1,7 @@
 package org.bouncycastle.crypto.params;
 
+import java.util.concurrent.Executor;
+
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.util.Arrays;
 
@@ -24,6 +26,16 @@
      */
     private byte[] theContext;
 
+    /**
+     * The executor for hashing chunks in parallel.
+     */
+    private Executor theExecutor;
+
+    /**
+     * The parallelism.
+     */
+    private int theParallelism = 1;
+
     /**
      * Create a key parameter.
      * @param pContext the context
@@ -56,6 +68,41 @@ public static Blake3Parameters key(final byte[] pKey)
         return myParams;
     }
 
+    /**
+     * Create a parameter for unkeyed hashing with chunks hashed in parallel.
+     * @param pExecutor the executor to hash chunks on
+     * @param pParallelism the number of threads the executor is expected to hash chunks on at once
+     * @return the parameter
+     */
+    public static Blake3Parameters parallel(final Executor pExecutor, final int pParallelism)
+    {
+        return new Blake3Parameters().withExecutor(pExecutor, pParallelism);
+    }
+
+    /**
+     * Create a copy of these parameters with chunks hashed in parallel.
+     * @param pExecutor the executor to hash chunks on, a {@link java.util.concurrent.ForkJoinPool} is suitable
+     * @param pParallelism the number of threads the executor is expected to hash chunks on at once
+     * @return the parameter
+     */
+    public Blake3Parameters withExecutor(final Executor pExecutor, final int pParallelism)
+    {
+        if (pExecutor == null)
+        {
+            throw new IllegalArgumentException("Invalid executor");
+        }
+        if (pParallelism < 1)
+        {
+            throw new IllegalArgumentException("Invalid parallelism");
+        }
+        final Blake3Parameters myParams = new Blake3Parameters();
+        myParams.theKey = Arrays.clone(theKey);
+        myParams.theContext = Arrays.clone(theContext);
+        myParams.theExecutor = pExecutor;
+        myParams.theParallelism = pParallelism;
+        return myParams;
+    }
+
     /**
      * Obtain the key.
      * @return the key
@@ -81,4 +128,22 @@ public byte[] getContext()
     {
         return Arrays.clone(theContext);
     }
+
+    /**
+     * Obtain the executor.
+     * @return the executor, or null if chunks are to be hashed on the calling thread
+     */
+    public Executor getExecutor()
+    {
+        return theExecutor;
+    }
+
+    /**
+     * Obtain the parallelism.
+     * @return the parallelism
+     */
+    public int getParallelism()
+    {
+        return theParallelism;
+    }
 }
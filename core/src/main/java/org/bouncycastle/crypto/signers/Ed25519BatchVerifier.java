@@ -0,0 +1,112 @@
+package org.bouncycastle.crypto.signers;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.crypto.CryptoServicesRegistrar;
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Verifier for batches of (pure) Ed25519 signatures.
+ * <p>
+ * Signatures are collected with {@link #add(Ed25519PublicKeyParameters, byte[], byte[])} and then checked together
+ * by {@link #verify()}, which combines them into a single multi-scalar multiplication. Where the batch check fails,
+ * each signature is checked individually so the failing entries can be identified.
+ * </p>
+ */
+public class Ed25519BatchVerifier
+{
+    private final SecureRandom random;
+    private final List<byte[]> publicKeys = new ArrayList<byte[]>();
+    private final List<byte[]> messages = new ArrayList<byte[]>();
+    private final List<byte[]> signatures = new ArrayList<byte[]>();
+
+    public Ed25519BatchVerifier()
+    {
+        this(null);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param random source of randomness for the batch combining coefficients, if null a default will be used.
+     */
+    public Ed25519BatchVerifier(SecureRandom random)
+    {
+        this.random = CryptoServicesRegistrar.getSecureRandom(random);
+    }
+
+    /**
+     * Add a signature to the batch.
+     *
+     * @param publicKey the public key the signature should verify under.
+     * @param message the signed message.
+     * @param signature the signature.
+     */
+    public void add(Ed25519PublicKeyParameters publicKey, byte[] message, byte[] signature)
+    {
+        publicKeys.add(publicKey.getEncoded());
+        messages.add(Arrays.clone(message));
+        signatures.add(Arrays.clone(signature));
+    }
+
+    /**
+     * Return the number of signatures in the batch.
+     *
+     * @return the batch size.
+     */
+    public int size()
+    {
+        return signatures.size();
+    }
+
+    /**
+     * Verify the signatures in the batch, then clear it.
+     *
+     * @return an array with one entry per signature, in the order added, true where the signature is valid.
+     */
+    public boolean[] verify()
+    {
+        int count = signatures.size();
+        boolean[] results = new boolean[count];
+
+        byte[][] pks = publicKeys.toArray(new byte[count][]);
+        byte[][] ms = messages.toArray(new byte[count][]);
+        byte[][] sigs = signatures.toArray(new byte[count][]);
+
+        reset();
+
+        boolean allValid = true;
+        for (int i = 0; i < count; ++i)
+        {
+            allValid &= (Ed25519.SIGNATURE_SIZE == sigs[i].length);
+        }
+
+        if (allValid && Ed25519.verifyBatch(random, count, sigs, pks, ms))
+        {
+            Arrays.fill(results, true);
+            return results;
+        }
+
+        for (int i = 0; i < count; ++i)
+        {
+            results[i] = Ed25519.SIGNATURE_SIZE == sigs[i].length
+                && Ed25519.verify(sigs[i], 0, pks[i], 0, ms[i], 0, ms[i].length);
+        }
+
+        return results;
+    }
+
+    /**
+     * Remove all signatures from the batch.
+     */
+    public void reset()
+    {
+        publicKeys.clear();
+        messages.clear();
+        signatures.clear();
+    }
+}
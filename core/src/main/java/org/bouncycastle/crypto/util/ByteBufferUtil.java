@@ -0,0 +1,323 @@
+package org.bouncycastle.crypto.util;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.ByteBufferBlockCipher;
+import org.bouncycastle.crypto.ByteBufferDigest;
+import org.bouncycastle.crypto.ByteBufferMac;
+import org.bouncycastle.crypto.ByteBufferStreamCipher;
+import org.bouncycastle.crypto.DataLengthException;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.ByteBufferAEADCipher;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Utility methods for passing ByteBuffers to the lightweight digest, MAC and cipher interfaces.
+ * <p>
+ * Where the primitive supports ByteBuffers directly (for example, it implements {@link ByteBufferDigest}) the
+ * buffers are handed straight to it. Otherwise array-backed buffers are processed in place through their
+ * backing arrays, and other buffers, such as direct or memory-mapped ones, are processed a chunk at a time through
+ * a small intermediate array, so the data is never copied to the heap in one piece.
+ * </p>
+ * In every case the position of an input buffer is advanced past the data consumed and the position of an output
+ * buffer is advanced past the data produced. Input and output buffers should not share content unless both are
+ * array-backed, in which case the rules for overlapping arrays of the underlying primitive apply.
+ */
+public final class ByteBufferUtil
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private ByteBufferUtil()
+    {
+    }
+
+    /**
+     * Update a digest with the remaining bytes in a buffer.
+     *
+     * @param digest the digest to update.
+     * @param in the buffer containing the data.
+     */
+    public static void update(Digest digest, ByteBuffer in)
+    {
+        if (digest instanceof ByteBufferDigest)
+        {
+            ((ByteBufferDigest)digest).update(in);
+        }
+        else if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            digest.update(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+        }
+        else
+        {
+            byte[] chunk = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), chunk.length);
+                in.get(chunk, 0, len);
+                digest.update(chunk, 0, len);
+            }
+            Arrays.fill(chunk, (byte)0);
+        }
+    }
+
+    /**
+     * Complete a digest calculation, writing the result to a buffer.
+     *
+     * @param digest the digest to complete.
+     * @param out the buffer to write the digest value to.
+     * @return the number of bytes written.
+     */
+    public static int doFinal(Digest digest, ByteBuffer out)
+    {
+        if (out.remaining() < digest.getDigestSize())
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        byte[] result = new byte[digest.getDigestSize()];
+        int len = digest.doFinal(result, 0);
+        out.put(result, 0, len);
+        return len;
+    }
+
+    /**
+     * Update a MAC with the remaining bytes in a buffer.
+     *
+     * @param mac the MAC to update.
+     * @param in the buffer containing the data.
+     */
+    public static void update(Mac mac, ByteBuffer in)
+    {
+        if (mac instanceof ByteBufferMac)
+        {
+            ((ByteBufferMac)mac).update(in);
+        }
+        else if (in.hasArray())
+        {
+            int pos = in.position(), len = in.remaining();
+            mac.update(in.array(), in.arrayOffset() + pos, len);
+            in.position(pos + len);
+        }
+        else
+        {
+            byte[] chunk = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), chunk.length);
+                in.get(chunk, 0, len);
+                mac.update(chunk, 0, len);
+            }
+            Arrays.fill(chunk, (byte)0);
+        }
+    }
+
+    /**
+     * Complete a MAC calculation, writing the result to a buffer.
+     *
+     * @param mac the MAC to complete.
+     * @param out the buffer to write the MAC value to.
+     * @return the number of bytes written.
+     */
+    public static int doFinal(Mac mac, ByteBuffer out)
+    {
+        if (out.remaining() < mac.getMacSize())
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        byte[] result = new byte[mac.getMacSize()];
+        int len = mac.doFinal(result, 0);
+        out.put(result, 0, len);
+        return len;
+    }
+
+    /**
+     * Process one block from a buffer with a block cipher.
+     *
+     * @param cipher the block cipher to use.
+     * @param in the buffer containing the input block.
+     * @param out the buffer to write the output block to.
+     * @return the number of bytes processed and produced.
+     */
+    public static int processBlock(BlockCipher cipher, ByteBuffer in, ByteBuffer out)
+    {
+        if (cipher instanceof ByteBufferBlockCipher)
+        {
+            return ((ByteBufferBlockCipher)cipher).processBlock(in, out);
+        }
+
+        int blockSize = cipher.getBlockSize();
+        if (in.remaining() < blockSize)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+        if (out.remaining() < blockSize)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            cipher.processBlock(in.array(), in.arrayOffset() + inPos, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + blockSize);
+            out.position(outPos + blockSize);
+        }
+        else
+        {
+            byte[] block = new byte[blockSize];
+            in.get(block);
+            cipher.processBlock(block, 0, block, 0);
+            out.put(block);
+            Arrays.fill(block, (byte)0);
+        }
+
+        return blockSize;
+    }
+
+    /**
+     * Process the remaining bytes in a buffer with a stream cipher.
+     *
+     * @param cipher the stream cipher to use.
+     * @param in the buffer containing the input data.
+     * @param out the buffer to write the output data to.
+     * @return the number of bytes produced.
+     */
+    public static int processBytes(StreamCipher cipher, ByteBuffer in, ByteBuffer out)
+    {
+        if (cipher instanceof ByteBufferStreamCipher)
+        {
+            return ((ByteBufferStreamCipher)cipher).processBytes(in, out);
+        }
+
+        int len = in.remaining();
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), outPos = out.position();
+            cipher.processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(), out.arrayOffset() + outPos);
+            in.position(inPos + len);
+            out.position(outPos + len);
+        }
+        else
+        {
+            byte[] chunk = new byte[Math.min(len, CHUNK_SIZE)];
+            while (in.hasRemaining())
+            {
+                int chunkLen = Math.min(in.remaining(), chunk.length);
+                in.get(chunk, 0, chunkLen);
+                cipher.processBytes(chunk, 0, chunkLen, chunk, 0);
+                out.put(chunk, 0, chunkLen);
+            }
+            Arrays.fill(chunk, (byte)0);
+        }
+
+        return len;
+    }
+
+    /**
+     * Process the remaining bytes in a buffer with an AEAD cipher.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the buffer containing the input data.
+     * @param out the buffer to write any output data to.
+     * @return the number of bytes produced.
+     */
+    public static int processBytes(AEADCipher cipher, ByteBuffer in, ByteBuffer out)
+    {
+        if (cipher instanceof ByteBufferAEADCipher)
+        {
+            return ((ByteBufferAEADCipher)cipher).processBytes(in, out);
+        }
+
+        if (out.remaining() < cipher.getUpdateOutputSize(in.remaining()))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            int inPos = in.position(), len = in.remaining(), outPos = out.position();
+            int resultLen = cipher.processBytes(in.array(), in.arrayOffset() + inPos, len, out.array(),
+                out.arrayOffset() + outPos);
+            in.position(inPos + len);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        int chunkSize = Math.min(in.remaining(), CHUNK_SIZE);
+        byte[] inChunk = new byte[chunkSize];
+        byte[] outChunk = new byte[cipher.getUpdateOutputSize(chunkSize)];
+
+        int resultLen = 0;
+        while (in.hasRemaining())
+        {
+            int len = Math.min(in.remaining(), chunkSize);
+            // the output for a chunk can include data the cipher held back from an earlier one, for example
+            // the trailing bytes kept as a possible MAC when decrypting.
+            int outSize = cipher.getUpdateOutputSize(len);
+            if (outChunk.length < outSize)
+            {
+                Arrays.fill(outChunk, (byte)0);
+                outChunk = new byte[outSize];
+            }
+            in.get(inChunk, 0, len);
+            int outLen = cipher.processBytes(inChunk, 0, len, outChunk, 0);
+            out.put(outChunk, 0, outLen);
+            resultLen += outLen;
+        }
+        Arrays.fill(inChunk, (byte)0);
+        Arrays.fill(outChunk, (byte)0);
+
+        return resultLen;
+    }
+
+    /**
+     * Finish an AEAD cipher operation, writing any remaining output to a buffer.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param out the buffer to write the output data to.
+     * @return the number of bytes produced.
+     * @throws InvalidCipherTextException if the MAC fails to match.
+     */
+    public static int doFinal(AEADCipher cipher, ByteBuffer out)
+        throws InvalidCipherTextException
+    {
+        if (cipher instanceof ByteBufferAEADCipher)
+        {
+            return ((ByteBufferAEADCipher)cipher).doFinal(out);
+        }
+
+        int outputSize = cipher.getOutputSize(0);
+        if (out.remaining() < outputSize)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (out.hasArray())
+        {
+            int outPos = out.position();
+            int resultLen = cipher.doFinal(out.array(), out.arrayOffset() + outPos);
+            out.position(outPos + resultLen);
+            return resultLen;
+        }
+
+        byte[] result = new byte[outputSize];
+        int resultLen = cipher.doFinal(result, 0);
+        out.put(result, 0, resultLen);
+        Arrays.fill(result, (byte)0);
+        return resultLen;
+    }
+}
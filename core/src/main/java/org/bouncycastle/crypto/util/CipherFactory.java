@@ -215,6 +215,12 @@ private static AEADBlockCipher createAEADCipher(ASN1ObjectIdentifier algorithm)
 
     private static BufferedBlockCipher createCipher(ASN1ObjectIdentifier algorithm)
         throws IllegalArgumentException
+    {
+        return new PaddedBufferedBlockCipher(createCBCCipher(algorithm), new PKCS7Padding());
+    }
+
+    private static BlockCipher createCBCCipher(ASN1ObjectIdentifier algorithm)
+        throws IllegalArgumentException
     {
         BlockCipher cipher;
 
@@ -245,7 +251,7 @@ else if (MiscObjectIdentifiers.cast5CBC.equals(algorithm))
             throw new IllegalArgumentException("cannot recognise cipher: " + algorithm);
         }
 
-        return new PaddedBufferedBlockCipher(cipher, new PKCS7Padding());
+        return cipher;
     }
 
     /**
@@ -272,4 +278,35 @@ public static CipherOutputStream createOutputStream(OutputStream dOut, Object ci
         throw new IllegalArgumentException("unknown cipher object: " + cipher);
     }
 
+    /**
+     * Create a pool of CBC mode ciphers for a content encryption algorithm, for services that process many short
+     * messages. Ciphers acquired with a key are only initialised when no idle cipher already holds that key, so the
+     * key schedule is reused. The IV for each message should then be set with a {@link ParametersWithIV} carrying a
+     * null key, which leaves the key in place, for example:
+     * <pre>
+     *     BlockCipher cbc = pool.acquire(forEncryption, key);
+     *     BufferedBlockCipher cipher = new PaddedBufferedBlockCipher(cbc, new PKCS7Padding());
+     *     cipher.init(forEncryption, new ParametersWithIV(null, iv));
+     *     ...
+     *     pool.release(cbc, forEncryption, key);
+     * </pre>
+     *
+     * @param algorithm the CBC content encryption algorithm OID.
+     * @return a pool of CBC mode ciphers.
+     * @throws IllegalArgumentException if the algorithm is not a recognised CBC mode cipher.
+     */
+    public static EnginePool<BlockCipher> createCipherPool(final ASN1ObjectIdentifier algorithm)
+        throws IllegalArgumentException
+    {
+        // fail early rather than on first acquire
+        createCBCCipher(algorithm);
+
+        return new EnginePool<BlockCipher>()
+        {
+            protected BlockCipher create()
+            {
+                return createCBCCipher(algorithm);
+            }
+        };
+    }
 }
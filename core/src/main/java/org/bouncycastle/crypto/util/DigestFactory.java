@@ -40,7 +40,7 @@ public Digest createClone(Digest original)
         {
             public Digest createClone(Digest original)
             {
-                return new MD5Digest((MD5Digest)original);
+                return new SHA1Digest((SHA1Digest)original);
             }
         });
         cloneMap.put(createSHA224().getAlgorithmName(), new Cloner()
@@ -251,4 +251,32 @@ public static Digest cloneDigest(Digest hashAlg)
     {
         return ((Cloner)cloneMap.get(hashAlg.getAlgorithmName())).createClone(hashAlg);
     }
+
+    /**
+     * Create a pool of digests of the same type as the passed in prototype. New digests are created by cloning
+     * the prototype and resetting the clone, so the prototype must be a type supported by {@link #cloneDigest(Digest)}.
+     *
+     * @param prototype a digest of the type to be pooled, only used to create new instances.
+     * @return a pool of digests.
+     */
+    public static EnginePool<Digest> createPool(Digest prototype)
+    {
+        final Cloner cloner = (Cloner)cloneMap.get(prototype.getAlgorithmName());
+        if (cloner == null)
+        {
+            throw new IllegalArgumentException("cannot pool digest: " + prototype.getAlgorithmName());
+        }
+
+        // take a private copy so later use of the prototype does not leak into pooled instances
+        final Digest original = cloner.createClone(prototype);
+        original.reset();
+
+        return new EnginePool<Digest>()
+        {
+            protected Digest create()
+            {
+                return cloner.createClone(original);
+            }
+        };
+    }
 }
@@ -0,0 +1,324 @@
+package org.bouncycastle.crypto.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.StreamCipher;
+
+/**
+ * A pool of reusable digest, MAC and cipher instances, for services that would otherwise create and initialise a
+ * new engine for every short message.
+ * <p>
+ * Idle engines are kept in a small number of stripes, chosen by thread, so threads rarely contend for the same
+ * lock. Subclasses supply {@link #create()}; engines are reset when they are released, using {@link #recycle(Object)}.
+ * </p>
+ * <p>
+ * Keyed engines are acquired with {@link #acquire(boolean, CipherParameters)}. An idle engine last initialised with
+ * the same parameters object, compared by identity, and in the same direction is handed out without being
+ * initialised again, so its key schedule is reused. The parameters are only weakly referenced by the pool, but idle
+ * engines do retain their key schedules until they are reinitialised or {@link #clear()} is called, so an engine
+ * released with a key is only ever handed out again by a keyed acquire. Parameters must not be modified once they
+ * have been used with a pool.
+ * </p>
+ * Engines that are not released are simply garbage collected, so a pool never blocks.
+ *
+ * @param <T> the type of engine pooled.
+ */
+public abstract class EnginePool<T>
+{
+    private static final int DEFAULT_MAX_IDLE = 4;
+
+    private final List<Stripe<T>> stripes;
+    private final int maxIdle;
+
+    /**
+     * Create a pool with one stripe per processor and up to 4 idle engines per stripe.
+     */
+    protected EnginePool()
+    {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Create a pool with one stripe per processor.
+     *
+     * @param maxIdle the maximum number of idle engines kept per stripe.
+     */
+    protected EnginePool(int maxIdle)
+    {
+        if (maxIdle < 1)
+        {
+            throw new IllegalArgumentException("maxIdle must be at least 1");
+        }
+
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors())
+        {
+            count <<= 1;
+        }
+
+        this.stripes = new ArrayList<Stripe<T>>(count);
+        for (int i = 0; i != count; i++)
+        {
+            stripes.add(new Stripe<T>(maxIdle));
+        }
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Create a new engine for the pool.
+     *
+     * @return a new engine.
+     */
+    protected abstract T create();
+
+    /**
+     * Initialise an engine with a key. The default handles {@link Mac}, {@link BlockCipher} and {@link StreamCipher}.
+     *
+     * @param engine the engine to initialise.
+     * @param forEncryption true if the engine is to encrypt, ignored for MACs.
+     * @param params the key and other parameters.
+     */
+    protected void init(T engine, boolean forEncryption, CipherParameters params)
+    {
+        if (engine instanceof Mac)
+        {
+            ((Mac)engine).init(params);
+        }
+        else if (engine instanceof BlockCipher)
+        {
+            ((BlockCipher)engine).init(forEncryption, params);
+        }
+        else if (engine instanceof StreamCipher)
+        {
+            ((StreamCipher)engine).init(forEncryption, params);
+        }
+        else
+        {
+            throw new UnsupportedOperationException("engine cannot be initialised by pool: " + engine.getClass().getName());
+        }
+    }
+
+    /**
+     * Return an engine to its starting state, ready for reuse. The default resets {@link Digest}, {@link Mac},
+     * {@link BlockCipher} and {@link StreamCipher} instances, leaving any key in place.
+     *
+     * @param engine the engine being released.
+     */
+    protected void recycle(T engine)
+    {
+        if (engine instanceof Digest)
+        {
+            ((Digest)engine).reset();
+        }
+        else if (engine instanceof Mac)
+        {
+            ((Mac)engine).reset();
+        }
+        else if (engine instanceof BlockCipher)
+        {
+            ((BlockCipher)engine).reset();
+        }
+        else if (engine instanceof StreamCipher)
+        {
+            ((StreamCipher)engine).reset();
+        }
+    }
+
+    /**
+     * Return the maximum number of idle engines kept per stripe.
+     *
+     * @return the per stripe idle limit.
+     */
+    public int getMaxIdle()
+    {
+        return maxIdle;
+    }
+
+    /**
+     * Acquire an engine in its starting state, such as a digest ready for a new message. Engines released with a
+     * key are never returned, as they still hold it.
+     *
+     * @return an engine, pooled or new.
+     */
+    public T acquire()
+    {
+        T engine = stripe().takeUnkeyed();
+
+        return engine != null ? engine : create();
+    }
+
+    /**
+     * Acquire an engine initialised with the passed in parameters.
+     *
+     * @param forEncryption true if the engine is to encrypt, ignored for MACs.
+     * @param params the key and other parameters.
+     * @return an initialised engine, pooled or new.
+     */
+    public T acquire(boolean forEncryption, CipherParameters params)
+    {
+        if (params == null)
+        {
+            throw new IllegalArgumentException("params cannot be null");
+        }
+
+        Stripe<T> stripe = stripe();
+        T engine = stripe.takeMatching(params, forEncryption);
+        if (engine != null)
+        {
+            return engine;
+        }
+
+        engine = stripe.takeAny();
+        if (engine == null)
+        {
+            engine = create();
+        }
+
+        init(engine, forEncryption, params);
+        return engine;
+    }
+
+    /**
+     * Release an engine acquired with {@link #acquire()} back to the pool. The engine must not be used afterwards.
+     *
+     * @param engine the engine to release.
+     */
+    public void release(T engine)
+    {
+        recycle(engine);
+        stripe().put(engine, null, false);
+    }
+
+    /**
+     * Release an engine acquired with {@link #acquire(boolean, CipherParameters)} back to the pool. The engine must
+     * not be used afterwards.
+     *
+     * @param engine the engine to release.
+     * @param forEncryption the direction the engine was acquired for.
+     * @param params the parameters the engine was acquired with.
+     */
+    public void release(T engine, boolean forEncryption, CipherParameters params)
+    {
+        recycle(engine);
+        stripe().put(engine, params, forEncryption);
+    }
+
+    /**
+     * Discard all idle engines, and with them any key schedules they hold.
+     */
+    public void clear()
+    {
+        for (int i = 0; i != stripes.size(); i++)
+        {
+            stripes.get(i).clear();
+        }
+    }
+
+    private Stripe<T> stripe()
+    {
+        long id = Thread.currentThread().getId();
+        return stripes.get((int)(id ^ (id >>> 16)) & (stripes.size() - 1));
+    }
+
+    /**
+     * An idle engine, with the parameters it was last initialised with, if any.
+     */
+    private static final class Idle<T>
+    {
+        final T engine;
+        final WeakReference<CipherParameters> key;
+        final boolean forEncryption;
+
+        Idle(T engine, CipherParameters params, boolean forEncryption)
+        {
+            this.engine = engine;
+            this.key = params == null ? null : new WeakReference<CipherParameters>(params);
+            this.forEncryption = forEncryption;
+        }
+    }
+
+    private static final class Stripe<T>
+    {
+        private final int maxIdle;
+
+        // least recently released first
+        private final List<Idle<T>> idle;
+
+        Stripe(int maxIdle)
+        {
+            this.maxIdle = maxIdle;
+            this.idle = new ArrayList<Idle<T>>(maxIdle);
+        }
+
+        /**
+         * Take the most recently released idle engine last initialised with params in the given direction.
+         */
+        synchronized T takeMatching(CipherParameters params, boolean forEncryption)
+        {
+            for (int i = idle.size() - 1; i >= 0; i--)
+            {
+                Idle<T> entry = idle.get(i);
+                if (entry.key != null && entry.key.get() == params && entry.forEncryption == forEncryption)
+                {
+                    idle.remove(i);
+                    return entry.engine;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Take the most recently released idle engine that was released without a key.
+         */
+        synchronized T takeUnkeyed()
+        {
+            for (int i = idle.size() - 1; i >= 0; i--)
+            {
+                Idle<T> entry = idle.get(i);
+                if (entry.key == null)
+                {
+                    idle.remove(i);
+                    return entry.engine;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Take the most recently released idle engine.
+         */
+        synchronized T takeAny()
+        {
+            if (idle.isEmpty())
+            {
+                return null;
+            }
+
+            return idle.remove(idle.size() - 1).engine;
+        }
+
+        synchronized void put(T engine, CipherParameters params, boolean forEncryption)
+        {
+            if (idle.size() == maxIdle)
+            {
+                // drop the least recently released engine
+                idle.remove(0);
+            }
+
+            idle.add(new Idle<T>(engine, params, forEncryption));
+        }
+
+        synchronized void clear()
+        {
+            idle.clear();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.bouncycastle.crypto.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+
+/**
+ * Utility methods for hashing or MACing the content of a file through memory-mapped regions, rather than reading it
+ * through a stream into a heap buffer.
+ * <p>
+ * The file is mapped read-only a region at a time and each region passed to the digest or MAC with
+ * {@link ByteBufferUtil}, so primitives that accept ByteBuffers directly read straight from the mapping. If an
+ * executor is supplied the next region is mapped and loaded into memory on it while the current one is processed.
+ * </p>
+ * The tree hashes ({@link org.bouncycastle.crypto.digests.ParallelHash}, the
+ * {@link org.bouncycastle.crypto.digests.Kangaroo} digests and {@link org.bouncycastle.crypto.digests.Blake3Digest})
+ * can themselves be constructed with an executor, in which case each region is also hashed in parallel.
+ */
+public final class MappedFileUtil
+{
+    private static final int REGION_SIZE = 32 * 1024 * 1024;
+
+    private MappedFileUtil()
+    {
+    }
+
+    /**
+     * Update a digest with the whole content of a file channel.
+     *
+     * @param digest the digest to update.
+     * @param channel the channel to read.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Digest digest, FileChannel channel)
+        throws IOException
+    {
+        update(digest, channel, 0, channel.size(), null);
+    }
+
+    /**
+     * Update a digest with part of the content of a file channel.
+     *
+     * @param digest the digest to update.
+     * @param channel the channel to read.
+     * @param position the position in the file of the first byte to read.
+     * @param length the number of bytes to read.
+     * @param executor executor to load the next region on, null to load each region as it is processed.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(final Digest digest, FileChannel channel, long position, long length, Executor executor)
+        throws IOException
+    {
+        process(channel, position, length, executor, new RegionProcessor()
+        {
+            public void process(MappedByteBuffer region)
+            {
+                ByteBufferUtil.update(digest, region);
+            }
+        });
+    }
+
+    /**
+     * Update a MAC with the whole content of a file channel.
+     *
+     * @param mac the MAC to update.
+     * @param channel the channel to read.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(Mac mac, FileChannel channel)
+        throws IOException
+    {
+        update(mac, channel, 0, channel.size(), null);
+    }
+
+    /**
+     * Update a MAC with part of the content of a file channel.
+     *
+     * @param mac the MAC to update.
+     * @param channel the channel to read.
+     * @param position the position in the file of the first byte to read.
+     * @param length the number of bytes to read.
+     * @param executor executor to load the next region on, null to load each region as it is processed.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static void update(final Mac mac, FileChannel channel, long position, long length, Executor executor)
+        throws IOException
+    {
+        process(channel, position, length, executor, new RegionProcessor()
+        {
+            public void process(MappedByteBuffer region)
+            {
+                ByteBufferUtil.update(mac, region);
+            }
+        });
+    }
+
+    private static void process(FileChannel channel, long position, long length, Executor executor,
+        RegionProcessor processor)
+        throws IOException
+    {
+        if (position < 0 || length < 0)
+        {
+            throw new IllegalArgumentException("position and length must be non-negative");
+        }
+        if (length > channel.size() - position)
+        {
+            throw new IllegalArgumentException("region extends beyond the end of the channel");
+        }
+
+        long end = position + length;
+        MappedByteBuffer region = map(channel, position, end);
+        while (region != null)
+        {
+            long next = position + region.capacity();
+            MappedByteBuffer nextRegion = map(channel, next, end);
+            if (nextRegion != null && executor != null)
+            {
+                prefetch(executor, nextRegion);
+            }
+
+            processor.process(region);
+
+            position = next;
+            region = nextRegion;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long end)
+        throws IOException
+    {
+        if (position >= end)
+        {
+            return null;
+        }
+
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(end - position, REGION_SIZE));
+    }
+
+    private static void prefetch(Executor executor, final MappedByteBuffer region)
+    {
+        try
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    // load() touches each page without moving the buffer position, so can run alongside the hashing
+                    region.load();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the region will be paged in as it is processed
+        }
+    }
+
+    private interface RegionProcessor
+    {
+        void process(MappedByteBuffer region);
+    }
+}
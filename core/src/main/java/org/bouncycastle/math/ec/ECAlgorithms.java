@@ -1,6 +1,10 @@
 package org.bouncycastle.math.ec;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bouncycastle.math.ec.endo.ECEndomorphism;
 import org.bouncycastle.math.ec.endo.EndoUtil;
@@ -8,9 +12,17 @@
 import org.bouncycastle.math.field.FiniteField;
 import org.bouncycastle.math.field.PolynomialExtensionField;
 import org.bouncycastle.math.raw.Nat;
+import org.bouncycastle.util.JoinableTask;
 
 public class ECAlgorithms
 {
+    /*
+     * The number of points from which the bucket method beats interleaved wNAF in sumOfMultiplies. The wNAF
+     * approach costs roughly bits/(w+1) additions per point plus its precomputation, whereas the bucket method
+     * costs roughly bits/c additions per point plus a per-window overhead that is only amortised over many points.
+     */
+    private static final int PIPPENGER_THRESHOLD = 256;
+
     public static boolean isF2mCurve(ECCurve c)
     {
         return isF2mField(c.getField());
@@ -60,6 +72,11 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
             imported[i] = importPoint(c, ps[i]);
         }
 
+        if (count >= PIPPENGER_THRESHOLD)
+        {
+            return implCheckResult(implSumOfMultipliesPippenger(imported, ks, null, 1));
+        }
+
         ECEndomorphism endomorphism = c.getEndomorphism();
         if (endomorphism instanceof GLVEndomorphism)
         {
@@ -69,6 +86,53 @@ public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
         return implCheckResult(implSumOfMultiplies(imported, ks));
     }
 
+    /**
+     * Compute the sum of the products of the given points and scalars, as for
+     * {@link #sumOfMultiplies(ECPoint[], BigInteger[])}, using the passed in executor to share the work.
+     * <p>
+     * This uses the bucket (Pippenger) method, where each window of the scalars is processed independently, so
+     * the windows are shared out between up to 'parallelism' threads and the results combined at the end. The
+     * calling thread takes part in the computation, so a result is still produced if the executor has no free
+     * threads. A {@link java.util.concurrent.ForkJoinPool} is a suitable executor.
+     * </p>
+     *
+     * @param ps the points.
+     * @param ks the scalars, one per point.
+     * @param executor the executor to run windows on, null to run them all on the calling thread.
+     * @param parallelism the maximum number of threads, including the calling thread, to use at once.
+     * @return the sum of ks[i] * ps[i].
+     */
+    public static ECPoint sumOfMultiplies(ECPoint[] ps, BigInteger[] ks, Executor executor, int parallelism)
+    {
+        if (ps == null || ks == null || ps.length != ks.length || ps.length < 1)
+        {
+            throw new IllegalArgumentException("point and scalar arrays should be non-null, and of equal, non-zero, length");
+        }
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        if (executor == null || parallelism == 1)
+        {
+            return sumOfMultiplies(ps, ks);
+        }
+
+        int count = ps.length;
+
+        ECPoint p = ps[0];
+        ECCurve c = p.getCurve();
+
+        ECPoint[] imported = new ECPoint[count];
+        imported[0] = p;
+        for (int i = 1; i < count; ++i)
+        {
+            imported[i] = importPoint(c, ps[i]);
+        }
+
+        return implCheckResult(implSumOfMultipliesPippenger(imported, ks, executor, parallelism));
+    }
+
     public static ECPoint sumOfTwoMultiplies(ECPoint P, BigInteger a,
         ECPoint Q, BigInteger b)
     {
@@ -541,6 +605,201 @@ private static ECPoint implSumOfMultiplies(boolean[] negs, WNafPreCompInfo[] inf
         return R;
     }
 
+    /*
+     * Pippenger's bucket method. Each scalar is recoded into signed digits of 'width' bits, and for each window
+     * every point is added into the bucket for its digit there; the buckets are then combined with two running
+     * sums to give the window's contribution, sum(d * bucket[d]). The windows are combined by Horner's rule.
+     */
+    static ECPoint implSumOfMultipliesPippenger(ECPoint[] ps, BigInteger[] ks, Executor executor, int parallelism)
+    {
+        int count = ps.length, bits = 0;
+        ECPoint[] points = new ECPoint[count];
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger ki = ks[i];
+            points[i] = ki.signum() < 0 ? ps[i].negate() : ps[i];
+            bits = Math.max(bits, ki.bitLength());
+        }
+
+        ECCurve curve = points[0].getCurve();
+        curve.normalizeAll(points);
+
+        int width = getPippengerWidth(count, bits);
+        int windows = bits / width + 1;
+
+        int[] digits = new int[count * windows];
+        for (int i = 0; i < count; ++i)
+        {
+            int[] n = Nat.fromBigInteger(Math.max(1, bits), ks[i].abs());
+            getSignedWindows(n, width, digits, i * windows, windows);
+        }
+
+        ECPoint[] sums = new ECPoint[windows];
+
+        parallelism = Math.min(parallelism, windows);
+        if (executor == null || parallelism < 2)
+        {
+            for (int w = 0; w < windows; ++w)
+            {
+                sums[w] = implPippengerWindowSum(points, digits, windows, width, w);
+            }
+        }
+        else
+        {
+            implPippengerWindowSumsParallel(points, digits, windows, width, sums, executor, parallelism);
+        }
+
+        ECPoint R = sums[windows - 1];
+        for (int w = windows - 2; w >= 0; --w)
+        {
+            R = R.timesPow2(width).add(sums[w]);
+        }
+
+        return R;
+    }
+
+    private static ECPoint implPippengerWindowSum(ECPoint[] points, int[] digits, int windows, int width, int w)
+    {
+        int count = points.length;
+        ECPoint[] buckets = new ECPoint[1 << (width - 1)];
+        int top = -1;
+
+        for (int i = 0; i < count; ++i)
+        {
+            int digit = digits[i * windows + w];
+            if (digit == 0)
+            {
+                continue;
+            }
+
+            ECPoint p = points[i];
+            if (digit < 0)
+            {
+                p = p.negate();
+                digit = -digit;
+            }
+
+            int index = digit - 1;
+            if (buckets[index] == null)
+            {
+                buckets[index] = p;
+                top = Math.max(top, index);
+            }
+            else
+            {
+                buckets[index] = buckets[index].add(p);
+            }
+        }
+
+        ECPoint infinity = points[0].getCurve().getInfinity();
+        if (top < 0)
+        {
+            return infinity;
+        }
+
+        // total = sum of (index + 1) * buckets[index]
+        ECPoint sum = buckets[top], total = sum;
+        for (int b = top - 1; b >= 0; --b)
+        {
+            if (buckets[b] != null)
+            {
+                sum = sum.add(buckets[b]);
+            }
+            total = total.add(sum);
+        }
+
+        return total;
+    }
+
+    /*
+     * Run the window sums with at most 'parallelism' in progress at once: parallelism - 1 workers are handed to
+     * the executor and the calling thread acts as the last, each taking the next unclaimed window until none are
+     * left. The windows are independent, so the only synchronisation needed is the final wait.
+     */
+    private static void implPippengerWindowSumsParallel(final ECPoint[] points, final int[] digits,
+        final int windows, final int width, final ECPoint[] sums, Executor executor, int parallelism)
+    {
+        final AtomicInteger next = new AtomicInteger();
+
+        List<JoinableTask> workers = new ArrayList<JoinableTask>(parallelism);
+        for (int i = 0; i < parallelism; ++i)
+        {
+            JoinableTask worker = new JoinableTask()
+            {
+                protected void compute()
+                {
+                    implPippengerWindowSums(points, digits, windows, width, sums, next);
+                }
+            };
+            workers.add(worker);
+
+            // the calling thread runs the first worker itself
+            if (i > 0)
+            {
+                worker.fork(executor);
+            }
+        }
+
+        workers.get(0).run();
+
+        Throwable failure = JoinableTask.joinAll(workers);
+        if (failure != null)
+        {
+            throw new IllegalStateException("window computation failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    private static void implPippengerWindowSums(ECPoint[] points, int[] digits, int windows, int width,
+        ECPoint[] sums, AtomicInteger next)
+    {
+        int w;
+        while ((w = next.getAndIncrement()) < windows)
+        {
+            sums[w] = implPippengerWindowSum(points, digits, windows, width, w);
+        }
+    }
+
+    private static int getPippengerWidth(int count, int bits)
+    {
+        // Per window: one addition per point, plus about two per bucket to combine them
+        int best = 2;
+        long bestCost = Long.MAX_VALUE;
+        for (int width = 2; width <= 16; ++width)
+        {
+            long cost = (long)(bits / width + 1) * (count + (1L << width));
+            if (cost < bestCost)
+            {
+                best = width;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /*
+     * Recode n into signed digits in the range (-2^(width-1), 2^(width-1)]. The caller ensures that
+     * windows * width exceeds the bit length of n, so the last window never carries out.
+     */
+    private static void getSignedWindows(int[] n, int width, int[] ws, int wsOff, int windows)
+    {
+        int half = 1 << (width - 1), mask = (1 << width) - 1, carry = 0;
+
+        for (int w = 0; w < windows; ++w)
+        {
+            int bit = w * width, word = bit >>> 5, shift = bit & 31;
+
+            int bits = word < n.length ? n[word] >>> shift : 0;
+            if (shift + width > 32 && word + 1 < n.length)
+            {
+                bits |= n[word + 1] << (32 - shift);
+            }
+
+            int digit = (bits & mask) + carry;
+            carry = digit > half ? 1 : 0;
+            ws[wsOff + w] = digit - (carry << width);
+        }
+    }
+
     private static ECPoint implShamirsTrickFixedPoint(ECPoint p, BigInteger k, ECPoint q, BigInteger l)
     {
         ECCurve c = p.getCurve();
@@ -24,13 +24,28 @@
     private MLDSAPublicKeyParameters pubKey;
     private MLDSAPrivateKeyParameters privKey;
     private SecureRandom random;
+    private PolyVecMatrix aMatrix;
 
     private MLDSAEngine engine;
     private Digest digest;
     private byte[] digestOIDEncoding;
 
+    private final MLDSAMatrixCache matrixCache;
+
     public HashMLDSASigner()
     {
+        this(null);
+    }
+
+    /**
+     * Create a signer which looks up the expanded matrix A for each key in the passed in cache, adding it
+     * if it is not already present. Keys which carry a precomputed matrix do not use the cache.
+     *
+     * @param matrixCache the cache of expanded matrices, may be null.
+     */
+    public HashMLDSASigner(MLDSAMatrixCache matrixCache)
+    {
+        this.matrixCache = matrixCache;
     }
 
     public void init(boolean forSigning, CipherParameters param)
@@ -69,6 +84,7 @@ public void init(boolean forSigning, CipherParameters param)
             engine = parameters.getEngine(random);
 
             engine.initSign(privKey.tr, true, ctx);
+            aMatrix = getMatrix(parameters, privKey.rho, privKey.aMatrix);
         }
         else
         {
@@ -80,6 +96,7 @@ public void init(boolean forSigning, CipherParameters param)
             engine = parameters.getEngine(null);
 
             engine.initVerify(pubKey.rho, pubKey.t1, true, ctx);
+            aMatrix = getMatrix(parameters, pubKey.rho, pubKey.aMatrix);
         }
 
         initDigest(parameters);
@@ -121,14 +138,14 @@ public byte[] generateSignature() throws CryptoException, DataLengthException
         }
         byte[] mu = engine.generateMu(msgDigest);
 
-        return engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd);
+        return engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd, aMatrix);
     }
 
     public boolean verifySignature(byte[] signature)
     {
         SHAKEDigest msgDigest = finishPreHash();
 
-        return engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1);
+        return engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1, aMatrix);
     }
 
     /**
@@ -177,4 +194,15 @@ private static Digest createDigest(MLDSAParameters parameters)
             throw new IllegalArgumentException("unknown parameters type");
         }
     }
+
+    private PolyVecMatrix getMatrix(MLDSAParameters parameters, byte[] rho, PolyVecMatrix keyMatrix)
+    {
+        if (keyMatrix != null || matrixCache == null)
+        {
+            return keyMatrix;
+        }
+
+        return matrixCache.getMatrix(parameters, engine, rho);
+    }
+
 }
@@ -382,13 +382,24 @@ void initVerify(byte[] rho, byte[] encT1, boolean isPreHash, byte[] ctx)
         }
     }
 
-    byte[] signInternal(byte[] msg, int msglen, byte[] rho, byte[] key, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc, byte[] rnd)
+    /**
+     * Return the expanded matrix A for rho, in the NTT domain. The returned matrix is only ever read from,
+     * so it may be shared between threads and signing/verification operations.
+     */
+    PolyVecMatrix expandMatrix(byte[] rho)
+    {
+        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
+        aMatrix.expandMatrix(rho);
+        return aMatrix;
+    }
+
+    byte[] signInternal(byte[] msg, int msglen, byte[] rho, byte[] key, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc, byte[] rnd, PolyVecMatrix aMatrix)
     {
         SHAKEDigest shake256 = new SHAKEDigest(shake256Digest);
 
         shake256.update(msg, 0, msglen);
 
-        return generateSignature(generateMu(shake256), shake256, rho, key, t0Enc, s1Enc, s2Enc, rnd);
+        return generateSignature(generateMu(shake256), shake256, rho, key, t0Enc, s1Enc, s2Enc, rnd, aMatrix);
     }
 
     byte[] generateMu(SHAKEDigest shake256Digest)
@@ -400,7 +411,7 @@ byte[] generateMu(SHAKEDigest shake256Digest)
         return mu;
     }
 
-    byte[] generateSignature(byte[] mu, SHAKEDigest shake256Digest, byte[] rho, byte[] key, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc, byte[] rnd)
+    byte[] generateSignature(byte[] mu, SHAKEDigest shake256Digest, byte[] rho, byte[] key, byte[] t0Enc, byte[] s1Enc, byte[] s2Enc, byte[] rnd, PolyVecMatrix aMatrix)
     {
         byte[] outSig = new byte[CryptoBytes];
         byte[] rhoPrime = new byte[CrhBytes];
@@ -408,7 +419,6 @@ byte[] generateSignature(byte[] mu, SHAKEDigest shake256Digest, byte[] rho, byte
         PolyVecL s1 = new PolyVecL(this), y = new PolyVecL(this), z = new PolyVecL(this);
         PolyVecK t0 = new PolyVecK(this), s2 = new PolyVecK(this), w1 = new PolyVecK(this), w0 = new PolyVecK(this), h = new PolyVecK(this);
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
 
         Packing.unpackSecretKey(t0, s1, s2, t0Enc, s1Enc, s2Enc, this);
 
@@ -418,7 +428,10 @@ byte[] generateSignature(byte[] mu, SHAKEDigest shake256Digest, byte[] rho, byte
         shake256Digest.update(keyMu, 0, SeedBytes + RndBytes + CrhBytes);
         shake256Digest.doFinal(rhoPrime, 0, CrhBytes);
 
-        aMatrix.expandMatrix(rho);
+        if (aMatrix == null)
+        {
+            aMatrix = expandMatrix(rho);
+        }
 
         s1.polyVecNtt();
         s2.polyVecNtt();
@@ -505,27 +518,27 @@ boolean verifyInternalMu(byte[] providedMu)
         return Arrays.constantTimeAreEqual(mu, providedMu);
     }
 
-    boolean verifyInternalMuSignature(byte[] mu, byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1)
+    boolean verifyInternalMuSignature(byte[] mu, byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1, PolyVecMatrix aMatrix)
     {
         byte[] buf = new byte[Math.max(CrhBytes + DilithiumK * DilithiumPolyW1PackedBytes, DilithiumCTilde)];
 
         // Mu
         System.arraycopy(mu, 0, buf, 0, mu.length);
 
-        return doVerifyInternal(buf, sig, siglen, shake256Digest, rho, encT1);
+        return doVerifyInternal(buf, sig, siglen, shake256Digest, rho, encT1, aMatrix);
     }
 
-    boolean verifyInternal(byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1)
+    boolean verifyInternal(byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1, PolyVecMatrix aMatrix)
     {
         byte[] buf = new byte[Math.max(CrhBytes + DilithiumK * DilithiumPolyW1PackedBytes, DilithiumCTilde)];
 
         // Mu
         shake256Digest.doFinal(buf, 0);
 
-        return doVerifyInternal(buf, sig, siglen, shake256Digest, rho, encT1);
+        return doVerifyInternal(buf, sig, siglen, shake256Digest, rho, encT1, aMatrix);
     }
 
-    private boolean doVerifyInternal(byte[] buf, byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1)
+    private boolean doVerifyInternal(byte[] buf, byte[] sig, int siglen, SHAKEDigest shake256Digest, byte[] rho, byte[] encT1, PolyVecMatrix aMatrix)
     {
         if (siglen != CryptoBytes)
         {
@@ -546,7 +559,6 @@ private boolean doVerifyInternal(byte[] buf, byte[] sig, int siglen, SHAKEDigest
         }
 
         Poly cp = new Poly(this);
-        PolyVecMatrix aMatrix = new PolyVecMatrix(this);
         PolyVecK t1 = new PolyVecK(this), w1 = new PolyVecK(this);
 
         t1 = Packing.unpackPublicKey(t1, encT1, this);
@@ -554,7 +566,10 @@ private boolean doVerifyInternal(byte[] buf, byte[] sig, int siglen, SHAKEDigest
         // Matrix-vector multiplication; compute Az - c2^dt1
         cp.challenge(sig, 0, DilithiumCTilde);
 
-        aMatrix.expandMatrix(rho);
+        if (aMatrix == null)
+        {
+            aMatrix = expandMatrix(rho);
+        }
 
         z.polyVecNtt();
         aMatrix.pointwiseMontgomery(w1, z);
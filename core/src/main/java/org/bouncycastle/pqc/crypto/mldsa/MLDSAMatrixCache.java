@@ -0,0 +1,87 @@
+package org.bouncycastle.pqc.crypto.mldsa;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * A bounded, least recently used, cache of expanded ML-DSA public matrices.
+ * <p>
+ * Expanding the matrix A from a key's rho value dominates the cost of verifying an ML-DSA signature. Where the
+ * same keys are used over and over, a cache can be passed to {@link MLDSASigner} or {@link HashMLDSASigner} so
+ * the expansion is only done the first time a key is seen. A cache instance is safe to share between signers
+ * and threads.
+ * </p>
+ */
+public class MLDSAMatrixCache
+{
+    private final int maxSize;
+    private final Map<String, PolyVecMatrix> matrices;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxSize the maximum number of matrices to hold.
+     */
+    public MLDSAMatrixCache(final int maxSize)
+    {
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+
+        this.maxSize = maxSize;
+        this.matrices = Collections.synchronizedMap(new LinkedHashMap<String, PolyVecMatrix>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<String, PolyVecMatrix> eldest)
+            {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * Return the maximum number of matrices the cache will hold.
+     *
+     * @return the cache capacity.
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Return the number of matrices currently held.
+     *
+     * @return the current cache size.
+     */
+    public int size()
+    {
+        return matrices.size();
+    }
+
+    /**
+     * Remove all matrices from the cache.
+     */
+    public void clear()
+    {
+        matrices.clear();
+    }
+
+    PolyVecMatrix getMatrix(MLDSAParameters parameters, MLDSAEngine engine, byte[] rho)
+    {
+        String key = parameters.getName() + ":" + Hex.toHexString(rho);
+
+        PolyVecMatrix aMatrix = matrices.get(key);
+        if (aMatrix == null)
+        {
+            // racing threads may both expand, the results are identical so last one in wins.
+            aMatrix = engine.expandMatrix(rho);
+            matrices.put(key, aMatrix);
+        }
+
+        return aMatrix;
+    }
+}
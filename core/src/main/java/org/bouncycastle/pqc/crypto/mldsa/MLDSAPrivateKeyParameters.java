@@ -21,6 +21,8 @@
 
     private final int prefFormat;
 
+    final PolyVecMatrix aMatrix;
+
     public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] encoding)
     {
         this(params, encoding, null);
@@ -43,6 +45,7 @@ public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] rho, byte[] K, b
         this.t1 = Arrays.clone(t1);
         this.seed = Arrays.clone(seed);
         this.prefFormat = (seed != null) ? BOTH : EXPANDED_KEY;
+        this.aMatrix = null;
     }
 
     public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] encoding, MLDSAPublicKeyParameters pubKey)
@@ -94,9 +97,15 @@ public MLDSAPrivateKeyParameters(MLDSAParameters params, byte[] encoding, MLDSAP
         }
 
         this.prefFormat = (seed != null) ? BOTH : EXPANDED_KEY;
+        this.aMatrix = null;
     }
 
     private MLDSAPrivateKeyParameters(MLDSAPrivateKeyParameters params, int preferredFormat)
+    {
+        this(params, preferredFormat, params.aMatrix);
+    }
+
+    private MLDSAPrivateKeyParameters(MLDSAPrivateKeyParameters params, int preferredFormat, PolyVecMatrix aMatrix)
     {
         super(true, params.getParameters());
 
@@ -109,6 +118,7 @@ private MLDSAPrivateKeyParameters(MLDSAPrivateKeyParameters params, int preferre
         this.t1 = params.t1;
         this.seed = params.seed;
         this.prefFormat = preferredFormat;
+        this.aMatrix = aMatrix;
     }
 
     public MLDSAPrivateKeyParameters getParametersWithFormat(int format)
@@ -120,6 +130,32 @@ public MLDSAPrivateKeyParameters getParametersWithFormat(int format)
         return new MLDSAPrivateKeyParameters(this, format);
     }
 
+    /**
+     * Return a version of this key which carries its expanded matrix A, so signers initialised with it
+     * can skip the matrix expansion on every signature.
+     *
+     * @return a key with a precomputed matrix.
+     */
+    public MLDSAPrivateKeyParameters withPrecomputedMatrix()
+    {
+        if (aMatrix != null)
+        {
+            return this;
+        }
+
+        return new MLDSAPrivateKeyParameters(this, prefFormat, getParameters().getEngine(null).expandMatrix(rho));
+    }
+
+    /**
+     * Return true if this key carries a precomputed matrix A.
+     *
+     * @return true if the matrix is precomputed, false otherwise.
+     */
+    public boolean hasPrecomputedMatrix()
+    {
+        return aMatrix != null;
+    }
+
     public int getPreferredFormat()
     {
         return prefFormat;
@@ -160,6 +196,11 @@ public MLDSAPublicKeyParameters getPublicKeyParameters()
             return null;
         }
         
+        if (aMatrix != null)
+        {
+            return new MLDSAPublicKeyParameters(getParameters(), Arrays.clone(rho), Arrays.clone(t1), aMatrix);
+        }
+
         return new MLDSAPublicKeyParameters(getParameters(), rho, t1);
     }
 
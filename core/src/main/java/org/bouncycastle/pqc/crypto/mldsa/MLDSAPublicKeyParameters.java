@@ -12,6 +12,7 @@ static byte[] getEncoded(byte[] rho, byte[] t1)
 
     final byte[] rho;
     final byte[] t1;
+    final PolyVecMatrix aMatrix;
 
     public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] encoding)
     {
@@ -22,6 +23,7 @@ public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] encoding)
         {
             throw new IllegalArgumentException("encoding too short");
         }
+        this.aMatrix = null;
     }
 
     public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] rho, byte[] t1)
@@ -37,6 +39,41 @@ public MLDSAPublicKeyParameters(MLDSAParameters params, byte[] rho, byte[] t1)
         }
         this.rho = Arrays.clone(rho);
         this.t1 = Arrays.clone(t1);
+        this.aMatrix = null;
+    }
+
+    MLDSAPublicKeyParameters(MLDSAParameters params, byte[] rho, byte[] t1, PolyVecMatrix aMatrix)
+    {
+        super(false, params);
+        this.rho = rho;
+        this.t1 = t1;
+        this.aMatrix = aMatrix;
+    }
+
+    /**
+     * Return a version of this key which carries its expanded matrix A, so signers initialised with it
+     * can skip the matrix expansion on every verification.
+     *
+     * @return a key with a precomputed matrix.
+     */
+    public MLDSAPublicKeyParameters withPrecomputedMatrix()
+    {
+        if (aMatrix != null)
+        {
+            return this;
+        }
+
+        return new MLDSAPublicKeyParameters(getParameters(), rho, t1, getParameters().getEngine(null).expandMatrix(rho));
+    }
+
+    /**
+     * Return true if this key carries a precomputed matrix A.
+     *
+     * @return true if the matrix is precomputed, false otherwise.
+     */
+    public boolean hasPrecomputedMatrix()
+    {
+        return aMatrix != null;
     }
 
     public byte[] getEncoded()
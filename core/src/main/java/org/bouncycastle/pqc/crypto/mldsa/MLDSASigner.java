@@ -18,12 +18,27 @@
     private MLDSAPublicKeyParameters pubKey;
     private MLDSAPrivateKeyParameters privKey;
     private SecureRandom random;
+    private PolyVecMatrix aMatrix;
 
     private MLDSAEngine engine;
     private SHAKEDigest msgDigest;
 
+    private final MLDSAMatrixCache matrixCache;
+
     public MLDSASigner()
     {
+        this(null);
+    }
+
+    /**
+     * Create a signer which looks up the expanded matrix A for each key in the passed in cache, adding it
+     * if it is not already present. Keys which carry a precomputed matrix do not use the cache.
+     *
+     * @param matrixCache the cache of expanded matrices, may be null.
+     */
+    public MLDSASigner(MLDSAMatrixCache matrixCache)
+    {
+        this.matrixCache = matrixCache;
     }
 
     public void init(boolean forSigning, CipherParameters param)
@@ -62,6 +77,7 @@ public void init(boolean forSigning, CipherParameters param)
             engine = parameters.getEngine(random);
 
             engine.initSign(privKey.tr, false, ctx);
+            aMatrix = getMatrix(parameters, privKey.rho, privKey.aMatrix);
         }
         else
         {
@@ -73,6 +89,7 @@ public void init(boolean forSigning, CipherParameters param)
             engine = parameters.getEngine(null);
 
             engine.initVerify(pubKey.rho, pubKey.t1, false, ctx);
+            aMatrix = getMatrix(parameters, pubKey.rho, pubKey.aMatrix);
         }
 
         if (parameters.isPreHash())
@@ -118,7 +135,7 @@ public byte[] generateMuSignature(byte[] mu)
 
         msgDigest.reset();
 
-        byte[] sig = engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd);
+        byte[] sig = engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd, aMatrix);
 
         reset();
 
@@ -135,7 +152,7 @@ public byte[] generateSignature()
         }
 
         byte[] mu = engine.generateMu(msgDigest);
-        byte[] sig = engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd);
+        byte[] sig = engine.generateSignature(mu, msgDigest, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, rnd, aMatrix);
 
         reset();
 
@@ -158,7 +175,7 @@ public boolean verifyMu(byte[] mu)
 
     public boolean verifySignature(byte[] signature)
     {
-        boolean isTrue = engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1);
+        boolean isTrue = engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1, aMatrix);
 
         reset();
 
@@ -174,7 +191,7 @@ public boolean verifyMuSignature(byte[] mu, byte[] signature)
         
         msgDigest.reset();
         
-        boolean isTrue = engine.verifyInternalMuSignature(mu, signature, signature.length, msgDigest, pubKey.rho, pubKey.t1);
+        boolean isTrue = engine.verifyInternalMuSignature(mu, signature, signature.length, msgDigest, pubKey.rho, pubKey.t1, aMatrix);
 
         reset();
 
@@ -192,7 +209,7 @@ protected byte[] internalGenerateSignature(byte[] message, byte[] random)
 
         engine.initSign(privKey.tr, false, null);
 
-        return engine.signInternal(message, message.length, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, random);
+        return engine.signInternal(message, message.length, privKey.rho, privKey.k, privKey.t0, privKey.s1, privKey.s2, random, aMatrix);
     }
 
     protected boolean internalVerifySignature(byte[] message, byte[] signature)
@@ -205,6 +222,17 @@ protected boolean internalVerifySignature(byte[] message, byte[] signature)
 
         msgDigest.update(message, 0, message.length);
 
-        return engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1);
+        return engine.verifyInternal(signature, signature.length, msgDigest, pubKey.rho, pubKey.t1, aMatrix);
     }
+
+    private PolyVecMatrix getMatrix(MLDSAParameters parameters, byte[] rho, PolyVecMatrix keyMatrix)
+    {
+        if (keyMatrix != null || matrixCache == null)
+        {
+            return keyMatrix;
+        }
+
+        return matrixCache.getMatrix(parameters, engine, rho);
+    }
+
 }
@@ -223,7 +223,16 @@ public byte[][] generateKemKeyPairInternal(byte[] d, byte[] z)
         };
     }
 
-    public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
+    /**
+     * Return the expanded matrix for a public key's rho value, for passing to the encryption and decryption
+     * methods.
+     */
+    PolyVec[] expandMatrix(byte[] rho)
+    {
+        return indCpa.generateMatrixTranspose(rho);
+    }
+
+    public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes, PolyVec[] aMatrix)
     {
         byte[] outputCipherText;
 
@@ -239,7 +248,7 @@ public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
         symmetric.hash_g(kr, buf);
 
         // IndCpa Encryption
-        outputCipherText = indCpa.encrypt(publicKeyInput, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, 32, kr.length));
+        outputCipherText = indCpa.encrypt(publicKeyInput, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, 32, kr.length), aMatrix);
 
         byte[] outputSharedSecret = new byte[sessionKeyLength];
 
@@ -251,7 +260,7 @@ public byte[][] kemEncryptInternal(byte[] publicKeyInput, byte[] randBytes)
         return outBuf;
     }
 
-    public byte[] kemDecryptInternal(byte[] secretKey, byte[] cipherText)
+    public byte[] kemDecryptInternal(byte[] secretKey, byte[] cipherText, PolyVec[] aMatrix)
     {
         byte[] buf = new byte[2 * KyberSymBytes],
                 kr = new byte[2 * KyberSymBytes];
@@ -272,7 +281,7 @@ public byte[] kemDecryptInternal(byte[] secretKey, byte[] cipherText)
 
         symmetric.kdf(implicit_rejection, implicit_rejection ); // J(z||c)
 
-        byte[] cmp = indCpa.encrypt(publicKey, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, KyberSymBytes, kr.length));
+        byte[] cmp = indCpa.encrypt(publicKey, Arrays.copyOfRange(buf, 0, KyberSymBytes), Arrays.copyOfRange(kr, KyberSymBytes, kr.length), aMatrix);
 
         boolean fail = !(Arrays.constantTimeAreEqual(cipherText, cmp));
 
@@ -281,7 +290,7 @@ public byte[] kemDecryptInternal(byte[] secretKey, byte[] cipherText)
         return Arrays.copyOfRange(kr, 0, sessionKeyLength);
     }
 
-    public byte[][] kemEncrypt(byte[] publicKeyInput, byte[] randBytes)
+    public byte[][] kemEncrypt(byte[] publicKeyInput, byte[] randBytes, PolyVec[] aMatrix)
     {
         //TODO: do input validation elsewhere?
         // Input validation (6.2 ML-KEM Encaps)
@@ -299,12 +308,12 @@ public byte[][] kemEncrypt(byte[] publicKeyInput, byte[] randBytes)
             throw new IllegalArgumentException("Input validation: Modulus check failed for ml-kem encapsulation");
         }
 
-        return kemEncryptInternal(publicKeyInput, randBytes);
+        return kemEncryptInternal(publicKeyInput, randBytes, aMatrix);
     }
-    public byte[] kemDecrypt(byte[] secretKey, byte[] cipherText)
+    public byte[] kemDecrypt(byte[] secretKey, byte[] cipherText, PolyVec[] aMatrix)
     {
         //TODO: do input validation
-        return kemDecryptInternal(secretKey, cipherText);
+        return kemDecryptInternal(secretKey, cipherText, aMatrix);
     }
 
     private void cmov(byte[] r, byte[] x, int xlen, boolean b)
@@ -21,7 +21,7 @@ public MLKEMExtractor(MLKEMPrivateKeyParameters privateKey)
 
     public byte[] extractSecret(byte[] encapsulation)
     {
-        return engine.kemDecrypt(privateKey.getEncoded(), encapsulation);
+        return engine.kemDecrypt(privateKey.getEncoded(), encapsulation, privateKey.aMatrix);
     }
 
     public int getEncapsulationLength()
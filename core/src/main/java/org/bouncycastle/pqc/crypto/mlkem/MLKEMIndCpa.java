@@ -134,7 +134,24 @@ byte[][] generateKeyPair(byte[] d)
         return new byte[][]{packPublicKey(publicKey, publicSeed), packSecretKey(secretKey)};
     }
 
-    public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
+    /**
+     * Generate the transposed matrix A for the passed in public seed, as used by encrypt(). The result is
+     * only ever read from, so may be shared between threads.
+     */
+    PolyVec[] generateMatrixTranspose(byte[] seed)
+    {
+        PolyVec[] aMatrixTranspose = new PolyVec[kyberK];
+        for (int i = 0; i < kyberK; i++)
+        {
+            aMatrixTranspose[i] = new PolyVec(engine);
+        }
+
+        generateMatrix(aMatrixTranspose, seed, true);
+
+        return aMatrixTranspose;
+    }
+
+    public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins, PolyVec[] aMatrixTranspose)
     {
         int i;
         byte[] seed;
@@ -143,7 +160,6 @@ public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
             publicKeyPolyVec = new PolyVec(engine),
             errorPolyVector = new PolyVec(engine),
             bp = new PolyVec(engine);
-        PolyVec[] aMatrixTranspose = new PolyVec[engine.getKyberK()];
         Poly errorPoly = new Poly(engine),
             v = new Poly(engine),
             k = new Poly(engine);
@@ -168,13 +184,11 @@ public byte[] encrypt(byte[] publicKeyInput, byte[] msg, byte[] coins)
 
         k.fromMsg(msg);
 
-        for (i = 0; i < kyberK; i++)
+        if (aMatrixTranspose == null)
         {
-            aMatrixTranspose[i] = new PolyVec(engine);
+            aMatrixTranspose = generateMatrixTranspose(seed);
         }
 
-        generateMatrix(aMatrixTranspose, seed, true);
-
         // System.out.print("matrix transposed = ");
         // for (i = 0; i < kyberK; i++) {
         //     System.out.print("[");
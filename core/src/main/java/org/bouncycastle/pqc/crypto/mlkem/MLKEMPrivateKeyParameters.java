@@ -18,6 +18,8 @@
 
     private final int prefFormat;
 
+    final PolyVec[] aMatrix;
+
     public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] s, byte[] hpk, byte[] nonce, byte[] t, byte[] rho)
     {
         this(params, s, hpk, nonce, t, rho, null);
@@ -34,6 +36,7 @@ public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] s, byte[] hpk, b
         this.rho = Arrays.clone(rho);
         this.seed = Arrays.clone(seed);
         this.prefFormat = BOTH;
+        this.aMatrix = null;
     }
 
     public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] encoding)
@@ -82,9 +85,15 @@ public MLKEMPrivateKeyParameters(MLKEMParameters params, byte[] encoding, MLKEMP
         }
 
         this.prefFormat = (seed == null) ? EXPANDED_KEY : BOTH;
+        this.aMatrix = null;
     }
 
     private MLKEMPrivateKeyParameters(MLKEMPrivateKeyParameters params, int preferredFormat)
+    {
+        this(params, preferredFormat, params.aMatrix);
+    }
+
+    private MLKEMPrivateKeyParameters(MLKEMPrivateKeyParameters params, int preferredFormat, PolyVec[] aMatrix)
     {
         super(true, params.getParameters());
 
@@ -95,6 +104,7 @@ private MLKEMPrivateKeyParameters(MLKEMPrivateKeyParameters params, int preferre
         this.nonce = params.nonce;
         this.seed = params.seed;
         this.prefFormat = preferredFormat;
+        this.aMatrix = aMatrix;
     }
 
     public MLKEMPrivateKeyParameters getParametersWithFormat(int format)
@@ -106,6 +116,32 @@ public MLKEMPrivateKeyParameters getParametersWithFormat(int format)
         return new MLKEMPrivateKeyParameters(this, format);
     }
 
+    /**
+     * Return a version of this key which carries its expanded matrix A, so decapsulations with it
+     * can skip regenerating the matrix from rho.
+     *
+     * @return a key with a precomputed matrix.
+     */
+    public MLKEMPrivateKeyParameters withPrecomputedMatrix()
+    {
+        if (aMatrix != null)
+        {
+            return this;
+        }
+
+        return new MLKEMPrivateKeyParameters(this, prefFormat, getParameters().getEngine().expandMatrix(rho));
+    }
+
+    /**
+     * Return true if this key carries a precomputed matrix A.
+     *
+     * @return true if the matrix is precomputed, false otherwise.
+     */
+    public boolean hasPrecomputedMatrix()
+    {
+        return aMatrix != null;
+    }
+
     public int getPreferredFormat()
     {
         return prefFormat;
@@ -133,6 +169,11 @@ public byte[] getPublicKey()
 
     public MLKEMPublicKeyParameters getPublicKeyParameters()
     {
+        if (aMatrix != null)
+        {
+            return new MLKEMPublicKeyParameters(getParameters(), Arrays.clone(t), Arrays.clone(rho), aMatrix);
+        }
+
         return new MLKEMPublicKeyParameters(getParameters(), t, rho);
     }
 
@@ -12,12 +12,14 @@ static byte[] getEncoded(byte[] t, byte[] rho)
 
     final byte[] t;
     final byte[] rho;
+    final PolyVec[] aMatrix;
 
     public MLKEMPublicKeyParameters(MLKEMParameters params, byte[] t, byte[] rho)
     {
         super(false, params);
         this.t = Arrays.clone(t);
         this.rho = Arrays.clone(rho);
+        this.aMatrix = null;
     }
 
     public MLKEMPublicKeyParameters(MLKEMParameters params, byte[] encoding)
@@ -25,6 +27,41 @@ public MLKEMPublicKeyParameters(MLKEMParameters params, byte[] encoding)
         super(false, params);
         this.t = Arrays.copyOfRange(encoding, 0, encoding.length - MLKEMEngine.KyberSymBytes);
         this.rho = Arrays.copyOfRange(encoding, encoding.length - MLKEMEngine.KyberSymBytes, encoding.length);
+        this.aMatrix = null;
+    }
+
+    MLKEMPublicKeyParameters(MLKEMParameters params, byte[] t, byte[] rho, PolyVec[] aMatrix)
+    {
+        super(false, params);
+        this.t = t;
+        this.rho = rho;
+        this.aMatrix = aMatrix;
+    }
+
+    /**
+     * Return a version of this key which carries its expanded matrix A, so encapsulations to it
+     * can skip regenerating the matrix from rho.
+     *
+     * @return a key with a precomputed matrix.
+     */
+    public MLKEMPublicKeyParameters withPrecomputedMatrix()
+    {
+        if (aMatrix != null)
+        {
+            return this;
+        }
+
+        return new MLKEMPublicKeyParameters(getParameters(), t, rho, getParameters().getEngine().expandMatrix(rho));
+    }
+
+    /**
+     * Return true if this key carries a precomputed matrix A.
+     *
+     * @return true if the matrix is precomputed, false otherwise.
+     */
+    public boolean hasPrecomputedMatrix()
+    {
+        return aMatrix != null;
     }
 
     public byte[] getEncoded()
@@ -11,8 +11,6 @@
     SLHDSAEngine engine;
     WotsPlus wots;
 
-    final byte[] htPubKey;
-
     public HT(SLHDSAEngine engine, byte[] skSeed, byte[] pkSeed)
     {
         this.skSeed = skSeed;
@@ -20,22 +18,29 @@ public HT(SLHDSAEngine engine, byte[] skSeed, byte[] pkSeed)
 
         this.engine = engine;
         this.wots = new WotsPlus(engine);
+    }
+
+    // Output: the root of the top layer tree, PK.root
+    byte[] htPubKey()
+    {
+        return xmss_PKgen(skSeed, pkSeed, topAdrs());
+    }
 
+    ADRS topAdrs()
+    {
         ADRS adrs = new ADRS();
         adrs.setLayerAddress(engine.D - 1);
         adrs.setTreeAddress(0);
-
-        if (skSeed != null)
-        {
-            htPubKey = xmss_PKgen(skSeed, pkSeed, adrs);
-        }
-        else
-        {
-            htPubKey = null;
-        }
+        return adrs;
     }
 
     byte[] sign(byte[] M, long idx_tree, int idx_leaf)
+    {
+        return sign(M, idx_tree, idx_leaf, null);
+    }
+
+    // as sign() above, but with the top layer auth path taken from topTree if not null
+    byte[] sign(byte[] M, long idx_tree, int idx_leaf, byte[][] topTree)
     {
         // init
         ADRS adrs = new ADRS();
@@ -58,7 +63,14 @@ byte[] sign(byte[] M, long idx_tree, int idx_leaf)
             idx_tree >>>= engine.H_PRIME; // most significant bits of idx_tree;
             adrs.setLayerAddress(j);
             adrs.setTreeAddress(idx_tree);
-            SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs);
+            if (j == engine.D - 1 && topTree != null)
+            {
+                SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs, topTree);
+            }
+            else
+            {
+                SIG_tmp = xmss_sign(root, skSeed, idx_leaf, pkSeed, adrs);
+            }
             SIG_HT[j] = SIG_tmp;
             if (j < engine.D - 1)
             {
@@ -144,6 +156,71 @@ SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAd
         return new SIG_XMSS(sig, AUTH);
     }
 
+    // as xmss_sign() above, but with the authentication path taken from the nodes of the tree
+    SIG_XMSS xmss_sign(byte[] M, byte[] skSeed, int idx, byte[] pkSeed, ADRS paramAdrs, byte[][] tree)
+    {
+        byte[][] AUTH = new byte[engine.H_PRIME][];
+
+        int node = (1 << engine.H_PRIME) + idx;
+        for (int j = 0; j < engine.H_PRIME; j++)
+        {
+            AUTH[j] = tree[(node >>> j) ^ 1];
+        }
+
+        ADRS adrs = new ADRS(paramAdrs);
+        adrs.setTypeAndClear(ADRS.WOTS_HASH);
+        adrs.setKeyPairAddress(idx);
+
+        byte[] sig = wots.sign(M, skSeed, pkSeed, adrs);
+
+        return new SIG_XMSS(sig, AUTH);
+    }
+
+    // Input: Secret seed SK.seed, public seed PK.seed, address ADRS
+    // Output: all nodes of the XMSS tree, the root at index 1, the children of node i at 2i and 2i + 1
+    byte[][] xmss_tree(byte[] skSeed, byte[] pkSeed, ADRS adrs)
+    {
+        byte[][] tree = new byte[2 << engine.H_PRIME][];
+
+        xmss_leaves(skSeed, pkSeed, adrs, tree, 0, 1 << engine.H_PRIME);
+        xmss_nodes(pkSeed, adrs, tree);
+
+        return tree;
+    }
+
+    // compute leaves [from, to) of an XMSS tree, storing them in tree
+    void xmss_leaves(byte[] skSeed, byte[] pkSeed, ADRS adrsParam, byte[][] tree, int from, int to)
+    {
+        ADRS adrs = new ADRS(adrsParam);
+        int leaf0 = 1 << engine.H_PRIME;
+
+        for (int idx = from; idx < to; idx++)
+        {
+            adrs.setTypeAndClear(ADRS.WOTS_HASH);
+            adrs.setKeyPairAddress(idx);
+            tree[leaf0 + idx] = wots.pkGen(skSeed, pkSeed, adrs);
+        }
+    }
+
+    // compute the interior nodes of an XMSS tree from its leaves
+    void xmss_nodes(byte[] pkSeed, ADRS adrsParam, byte[][] tree)
+    {
+        ADRS adrs = new ADRS(adrsParam);
+        adrs.setTypeAndClear(ADRS.TREE);
+
+        for (int height = 1; height <= engine.H_PRIME; height++)
+        {
+            adrs.setTreeHeight(height);
+
+            int first = 1 << (engine.H_PRIME - height);
+            for (int i = 0; i < first; i++)
+            {
+                adrs.setTreeIndex(i);
+                tree[first + i] = engine.H(pkSeed, adrs, tree[2 * (first + i)], tree[2 * (first + i) + 1]);
+            }
+        }
+    }
+
     // Input: Secret seed SK.seed, start index s, target node height z, public seed PK.seed, address ADRS
     // Output: n-byte root node - top node on Stack
     byte[] treehash(byte[] skSeed, int s, int z, byte[] pkSeed, ADRS adrsParam)
@@ -0,0 +1,203 @@
+package org.bouncycastle.pqc.crypto.slhdsa;
+
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Computes SLH-DSA signatures and XMSS trees with the independent parts spread over an executor.
+ * <p>
+ * A signature is built in two rounds. The first computes the K FORS signature elements and the leaves of the XMSS
+ * tree on every hypertree layer, all of which depend only on the message index. The second computes the WOTS+
+ * signature for each layer, the message for a layer being the FORS public key or the root of the tree below it.
+ * </p>
+ * Engines carry digest state, so every task creates its own.
+ */
+class ParallelSigning
+{
+    private final SLHDSAParameters parameters;
+    private final SLHDSAEngine engine;
+    private final byte[] skSeed;
+    private final byte[] pkSeed;
+    private final Executor executor;
+    private final int parallelism;
+
+    ParallelSigning(SLHDSAParameters parameters, SLHDSAEngine engine, byte[] skSeed, byte[] pkSeed, Executor executor,
+        int parallelism)
+    {
+        this.parameters = parameters;
+        this.engine = engine;
+        this.skSeed = skSeed;
+        this.pkSeed = pkSeed;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    // Output: all nodes of the XMSS tree at the given layer and tree address, laid out as by HT.xmss_tree()
+    byte[][] xmss_tree(int layer, long treeAddress)
+    {
+        ParallelTasks tasks = new ParallelTasks(executor);
+        byte[][] tree = submitLeaves(tasks, xmssAdrs(layer, treeAddress), 2 * parallelism);
+        tasks.join();
+
+        new HT(engine, skSeed, pkSeed).xmss_nodes(pkSeed, xmssAdrs(layer, treeAddress), tree);
+
+        return tree;
+    }
+
+    // Output: the FORS signature followed by the HT signature, topTree if not null holding the top layer tree
+    byte[] sign(final byte[] mHash, long idx_tree, int idx_leaf, byte[][] topTree)
+    {
+        final int D = engine.D;
+        final int K = engine.K;
+
+        // the tree address and leaf index signed on each layer
+        final long[] treeAddresses = new long[D];
+        final int[] leaves = new int[D];
+        treeAddresses[0] = idx_tree;
+        leaves[0] = idx_leaf;
+        for (int j = 1; j < D; j++)
+        {
+            leaves[j] = (int)(treeAddresses[j - 1] & ((1 << engine.H_PRIME) - 1));
+            treeAddresses[j] = treeAddresses[j - 1] >>> engine.H_PRIME;
+        }
+
+        ParallelTasks tasks = new ParallelTasks(executor);
+
+        // round one: FORS signature elements and the XMSS trees
+        final int[] idxs = Fors.base2B(mHash, engine.A, K);
+        final SIG_FORS[] sig_fors = new SIG_FORS[K];
+        final ADRS forsAdrs = new ADRS();
+        forsAdrs.setTypeAndClear(ADRS.FORS_TREE);
+        forsAdrs.setTreeAddress(idx_tree);
+        forsAdrs.setKeyPairAddress(idx_leaf);
+
+        int forsChunks = Math.min(K, parallelism);
+        for (int c = 0; c < forsChunks; c++)
+        {
+            final int from = K * c / forsChunks;
+            final int to = K * (c + 1) / forsChunks;
+
+            tasks.submit(new Runnable()
+            {
+                public void run()
+                {
+                    Fors fors = new Fors(newEngine());
+                    for (int i = from; i < to; i++)
+                    {
+                        sig_fors[i] = fors.signTree(i, idxs[i], skSeed, pkSeed, forsAdrs);
+                    }
+                }
+            });
+        }
+
+        byte[][][] trees = new byte[D][][];
+        int layers = (topTree != null) ? D - 1 : D;
+        int chunksPerLayer = (2 * parallelism + layers - 1) / layers;
+        for (int j = 0; j < layers; j++)
+        {
+            trees[j] = submitLeaves(tasks, xmssAdrs(j, treeAddresses[j]), chunksPerLayer);
+        }
+        if (topTree != null)
+        {
+            trees[D - 1] = topTree;
+        }
+
+        tasks.join();
+
+        HT ht = new HT(engine, skSeed, pkSeed);
+        for (int j = 0; j < layers; j++)
+        {
+            ht.xmss_nodes(pkSeed, xmssAdrs(j, treeAddresses[j]), trees[j]);
+        }
+
+        // round two: the WOTS+ signatures
+        final byte[][] msgs = new byte[D][];
+        msgs[0] = new Fors(engine).pkFromSig(sig_fors, mHash, pkSeed, new ADRS(forsAdrs));
+        for (int j = 1; j < D; j++)
+        {
+            msgs[j] = trees[j - 1][1];
+        }
+
+        final byte[][] wotsSigs = new byte[D][];
+        int wotsChunks = Math.min(D, parallelism);
+        for (int c = 0; c < wotsChunks; c++)
+        {
+            final int from = D * c / wotsChunks;
+            final int to = D * (c + 1) / wotsChunks;
+
+            tasks.submit(new Runnable()
+            {
+                public void run()
+                {
+                    WotsPlus wots = new WotsPlus(newEngine());
+                    for (int j = from; j < to; j++)
+                    {
+                        ADRS adrs = xmssAdrs(j, treeAddresses[j]);
+                        adrs.setTypeAndClear(ADRS.WOTS_HASH);
+                        adrs.setKeyPairAddress(leaves[j]);
+                        wotsSigs[j] = wots.sign(msgs[j], skSeed, pkSeed, adrs);
+                    }
+                }
+            });
+        }
+
+        tasks.join();
+
+        byte[][] sigComponents = new byte[K + D][];
+        for (int i = 0; i != K; i++)
+        {
+            sigComponents[i] = Arrays.concatenate(sig_fors[i].sk, Arrays.concatenate(sig_fors[i].authPath));
+        }
+        for (int j = 0; j != D; j++)
+        {
+            byte[][] auth = new byte[engine.H_PRIME][];
+            int node = (1 << engine.H_PRIME) + leaves[j];
+            for (int k = 0; k < engine.H_PRIME; k++)
+            {
+                auth[k] = trees[j][(node >>> k) ^ 1];
+            }
+            sigComponents[K + j] = Arrays.concatenate(wotsSigs[j], Arrays.concatenate(auth));
+        }
+
+        return Arrays.concatenate(sigComponents);
+    }
+
+    private byte[][] submitLeaves(ParallelTasks tasks, final ADRS adrs, int chunks)
+    {
+        final byte[][] tree = new byte[2 << engine.H_PRIME][];
+
+        int leafCount = 1 << engine.H_PRIME;
+        chunks = Math.min(chunks, leafCount);
+        for (int c = 0; c < chunks; c++)
+        {
+            final int from = leafCount * c / chunks;
+            final int to = leafCount * (c + 1) / chunks;
+
+            tasks.submit(new Runnable()
+            {
+                public void run()
+                {
+                    new HT(newEngine(), skSeed, pkSeed).xmss_leaves(skSeed, pkSeed, adrs, tree, from, to);
+                }
+            });
+        }
+
+        return tree;
+    }
+
+    private SLHDSAEngine newEngine()
+    {
+        SLHDSAEngine taskEngine = parameters.getEngine();
+        taskEngine.init(pkSeed);
+        return taskEngine;
+    }
+
+    private static ADRS xmssAdrs(int layer, long treeAddress)
+    {
+        ADRS adrs = new ADRS();
+        adrs.setLayerAddress(layer);
+        adrs.setTreeAddress(treeAddress);
+        return adrs;
+    }
+}
@@ -0,0 +1,52 @@
+package org.bouncycastle.pqc.crypto.slhdsa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.bouncycastle.util.JoinableTask;
+
+/**
+ * A set of independent tasks handed to an executor and then joined. Joining a task no worker has started runs it on
+ * the calling thread, so a busy or rejecting executor only costs parallelism.
+ */
+class ParallelTasks
+{
+    private final Executor executor;
+    private final List<JoinableTask> tasks = new ArrayList<JoinableTask>();
+
+    ParallelTasks(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    void submit(final Runnable runnable)
+    {
+        JoinableTask task = new JoinableTask()
+        {
+            protected void compute()
+            {
+                runnable.run();
+            }
+        };
+        tasks.add(task);
+
+        task.fork(executor);
+    }
+
+    /**
+     * Wait for all submitted tasks to complete.
+     *
+     * @throws IllegalStateException if any task failed.
+     */
+    void join()
+    {
+        Throwable failure = JoinableTask.joinAll(tasks);
+        tasks.clear();
+
+        if (failure != null)
+        {
+            throw new IllegalStateException("parallel SLH-DSA task failed: " + failure.getMessage(), failure);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.bouncycastle.pqc.crypto.slhdsa;
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.KeyGenerationParameters;
 
@@ -8,15 +9,49 @@
     extends KeyGenerationParameters
 {
     private final SLHDSAParameters parameters;
+    private final Executor executor;
+    private final int parallelism;
 
     public SLHDSAKeyGenerationParameters(SecureRandom random, SLHDSAParameters parameters)
+    {
+        this(random, parameters, null, 1);
+    }
+
+    /**
+     * Key generation parameters with an executor to compute the leaves of the top hypertree layer on.
+     *
+     * @param random      source of randomness for the key seeds.
+     * @param parameters  the SLH-DSA parameter set.
+     * @param executor    the executor to compute leaves on, null to compute them on the calling thread.
+     * @param parallelism the number of tasks expected to run at once.
+     */
+    public SLHDSAKeyGenerationParameters(SecureRandom random, SLHDSAParameters parameters, Executor executor,
+        int parallelism)
     {
         super(random, -1);
+
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
         this.parameters = parameters;
+        this.executor = executor;
+        this.parallelism = parallelism;
     }
 
     SLHDSAParameters getParameters()
     {
         return parameters;
     }
+
+    Executor getExecutor()
+    {
+        return executor;
+    }
+
+    int getParallelism()
+    {
+        return parallelism;
+    }
 }
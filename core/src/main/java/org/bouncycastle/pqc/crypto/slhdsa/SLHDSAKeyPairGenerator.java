@@ -1,6 +1,7 @@
 package org.bouncycastle.pqc.crypto.slhdsa;
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPairGenerator;
@@ -11,11 +12,17 @@
 {
     private SecureRandom random;
     private SLHDSAParameters parameters;
+    private Executor executor;
+    private int parallelism;
 
     public void init(KeyGenerationParameters param)
     {
+        SLHDSAKeyGenerationParameters slhdsaParam = (SLHDSAKeyGenerationParameters)param;
+
         random = param.getRandom();
-        parameters = ((SLHDSAKeyGenerationParameters)param).getParameters();
+        parameters = slhdsaParam.getParameters();
+        executor = slhdsaParam.getExecutor();
+        parallelism = slhdsaParam.getParallelism();
     }
 
     public AsymmetricCipherKeyPair internalGenerateKeyPair(byte[] skSeed, byte[] skPrf, byte[] pkSeed)
@@ -40,8 +47,18 @@ private AsymmetricCipherKeyPair implGenerateKeyPair(SLHDSAEngine engine, byte[]
 
         engine.init(pkSeed);
 
-        // TODO
-        PK pk = new PK(pkSeed, new HT(engine, sk.seed, pkSeed).htPubKey);
+        byte[] root;
+        if (executor != null)
+        {
+            root = new ParallelSigning(parameters, engine, sk.seed, pkSeed, executor, parallelism)
+                .xmss_tree(engine.D - 1, 0)[1];
+        }
+        else
+        {
+            root = new HT(engine, sk.seed, pkSeed).htPubKey();
+        }
+
+        PK pk = new PK(pkSeed, root);
 
         return new AsymmetricCipherKeyPair(
             new SLHDSAPublicKeyParameters(parameters, pk),
@@ -1,6 +1,7 @@
 package org.bouncycastle.pqc.crypto.slhdsa;
 
 import java.security.SecureRandom;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.params.ParametersWithContext;
@@ -17,6 +18,11 @@
  * "https://github.com/sphincs/sphincsplus/commit/61cd2695c6f984b4f4d6ed675378ed9a486cbede"
  * for further details.
  * </p>
+ * <p>
+ * Signing can optionally be spread over an executor, in which case the FORS trees and the XMSS trees of each
+ * hypertree layer are computed in parallel. The tree at the top of the hypertree is the same for every signature,
+ * so it can also be cached, for a signer that is used with a long-lived private key.
+ * </p>
  */
 public class SLHDSASigner
     implements MessageSigner
@@ -28,11 +34,51 @@
     private SLHDSAPrivateKeyParameters privKey;
     private SecureRandom random;
 
+    private final Executor executor;
+    private final int parallelism;
+    private final boolean cacheTopLayer;
+
+    private SLHDSAPrivateKeyParameters topTreeKey;
+    private byte[][] topTree;
+
     /**
      * Base constructor.
      */
     public SLHDSASigner()
     {
+        this(null, 1, false);
+    }
+
+    /**
+     * Constructor for a signer that generates signatures using an executor.
+     *
+     * @param executor    the executor to compute trees on.
+     * @param parallelism the number of tasks expected to run at once.
+     */
+    public SLHDSASigner(Executor executor, int parallelism)
+    {
+        this(executor, parallelism, false);
+    }
+
+    /**
+     * Constructor for a signer that generates signatures using an executor, and optionally caches the top tree of
+     * the hypertree. The cache holds 2^(h/d + 1) nodes of n bytes for as long as the signer is initialised with the
+     * same private key.
+     *
+     * @param executor      the executor to compute trees on, null to generate signatures on the calling thread.
+     * @param parallelism   the number of tasks expected to run at once.
+     * @param cacheTopLayer true if the top hypertree layer should be cached between signatures.
+     */
+    public SLHDSASigner(Executor executor, int parallelism, boolean cacheTopLayer)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.cacheTopLayer = cacheTopLayer;
     }
 
     public void init(boolean forSigning, CipherParameters param)
@@ -176,7 +222,7 @@ protected byte[] internalGenerateSignature(byte[] message, byte[] optRand)
         return internalGenerateSignature(privKey, null, message, optRand);
     }
 
-    private static byte[] internalGenerateSignature(SLHDSAPrivateKeyParameters privKey, byte[] msgPrefix, byte[] msg,
+    private byte[] internalGenerateSignature(SLHDSAPrivateKeyParameters privKey, byte[] msgPrefix, byte[] msg,
         byte[] optRand)
     {
         // TODO Check init via privKey != null
@@ -184,13 +230,23 @@ private static byte[] internalGenerateSignature(SLHDSAPrivateKeyParameters privK
         SLHDSAEngine engine = privKey.getParameters().getEngine();
         engine.init(privKey.pk.seed);
 
-        Fors fors = new Fors(engine);
         byte[] R = engine.PRF_msg(privKey.sk.prf, optRand, msgPrefix, msg);
 
         IndexedDigest idxDigest = engine.H_msg(R, privKey.pk.seed, privKey.pk.root, msgPrefix, msg);
         byte[] mHash = idxDigest.digest;
         long idx_tree = idxDigest.idx_tree;
         int idx_leaf = idxDigest.idx_leaf;
+
+        ParallelSigning parallelSigning = (executor == null) ? null : new ParallelSigning(privKey.getParameters(),
+            engine, privKey.sk.seed, privKey.pk.seed, executor, parallelism);
+        byte[][] top = cacheTopLayer ? getTopTree(privKey, engine, parallelSigning) : null;
+
+        if (parallelSigning != null)
+        {
+            return Arrays.concatenate(R, parallelSigning.sign(mHash, idx_tree, idx_leaf, top));
+        }
+
+        Fors fors = new Fors(engine);
         // FORS sign
         ADRS adrs = new ADRS();
         adrs.setTypeAndClear(ADRS.FORS_TREE);
@@ -209,7 +265,7 @@ private static byte[] internalGenerateSignature(SLHDSAPrivateKeyParameters privK
         treeAdrs.setTypeAndClear(ADRS.TREE);
 
         HT ht = new HT(engine, privKey.getSeed(), privKey.getPublicSeed());
-        byte[] SIG_HT = ht.sign(PK_FORS, idx_tree, idx_leaf);
+        byte[] SIG_HT = ht.sign(PK_FORS, idx_tree, idx_leaf, top);
 
         byte[][] sigComponents = new byte[sig_fors.length + 2][];
         sigComponents[0] = R;
@@ -222,4 +278,33 @@ private static byte[] internalGenerateSignature(SLHDSAPrivateKeyParameters privK
 
         return Arrays.concatenate(sigComponents);
     }
+
+    private byte[][] getTopTree(SLHDSAPrivateKeyParameters privKey, SLHDSAEngine engine,
+        ParallelSigning parallelSigning)
+    {
+        if (topTreeKey != privKey)
+        {
+            byte[][] tree;
+            if (parallelSigning != null)
+            {
+                tree = parallelSigning.xmss_tree(engine.D - 1, 0);
+            }
+            else
+            {
+                HT ht = new HT(engine, privKey.sk.seed, privKey.pk.seed);
+                tree = ht.xmss_tree(privKey.sk.seed, privKey.pk.seed, ht.topAdrs());
+            }
+
+            // a mismatch here means every signature made with the key would fail to verify
+            if (!Arrays.areEqual(tree[1], privKey.pk.root))
+            {
+                throw new IllegalStateException("private key does not match its public root");
+            }
+
+            topTree = tree;
+            topTreeKey = privKey;
+        }
+
+        return topTree;
+    }
 }
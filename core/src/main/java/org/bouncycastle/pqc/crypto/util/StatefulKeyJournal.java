@@ -0,0 +1,504 @@
+package org.bouncycastle.pqc.crypto.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
+import org.bouncycastle.pqc.crypto.ExhaustedPrivateKeyException;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSPrivateKeyParameters;
+
+/**
+ * A crash-safe file store for a stateful hash-based private key (XMSS, XMSS^MT, LMS or HSS), which hands out
+ * reserved ranges of signature indices as key shards that can be used independently, for example by different
+ * signer threads.
+ * <p>
+ * The file holds a checkpoint of the key followed by a memory-mapped journal. Rather than rewriting the key, with its
+ * BDS or LMS tree state, every time its index moves, the journal records how far indices have been reserved, and a
+ * record is forced to disk before any index it covers is handed out. Each record reserves at least batchSize
+ * indices, so most reservations need no I/O at all. The traversal state is determined by the index, so when the
+ * file is opened again the checkpointed key is advanced past the last recorded reservation. Indices reserved but
+ * not used before a crash are lost, never reused.
+ * </p>
+ * <p>
+ * When the journal fills, a new checkpoint is written to a temporary file which then replaces the original. The
+ * rename is only durable once the directory holding the file has been synced; this is done where the JVM can open
+ * a directory (Java 7 and later on POSIX systems). Elsewhere a crash just after a checkpoint may leave the directory
+ * pointing at the old file, and indices reserved by the new checkpoint could then be handed out again.
+ * </p>
+ * Once a key has been handed to a journal, only shards returned by {@link #reserve(int)} should be used to sign.
+ */
+public final class StatefulKeyJournal
+{
+    private static final int MAGIC = 0x42434b4a; // "BCKJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int DEFAULT_RECORD_CAPACITY = 4096;
+
+    private final File file;
+    private final int batchSize;
+    private final int recordCapacity;
+
+    private AsymmetricKeyParameter key;
+    private RandomAccessFile raf;
+    private MappedByteBuffer journal;
+    private int recordCount;
+    private long reservedLimit;
+
+    private StatefulKeyJournal(File file, int batchSize, int recordCapacity)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        if (recordCapacity < 1)
+        {
+            throw new IllegalArgumentException("recordCapacity must be at least 1");
+        }
+
+        this.file = file;
+        this.batchSize = batchSize;
+        this.recordCapacity = recordCapacity;
+    }
+
+    /**
+     * Create a new journal file for a private key.
+     *
+     * @param file      the file to create, which must not already exist.
+     * @param key       the private key, which the journal takes ownership of.
+     * @param batchSize the minimum number of indices reserved by each journal record.
+     * @return an open journal.
+     * @throws IOException if the file cannot be written.
+     */
+    public static StatefulKeyJournal create(File file, AsymmetricKeyParameter key, int batchSize)
+        throws IOException
+    {
+        return create(file, key, batchSize, DEFAULT_RECORD_CAPACITY);
+    }
+
+    /**
+     * Create a new journal file for a private key.
+     *
+     * @param file           the file to create, which must not already exist.
+     * @param key            the private key, which the journal takes ownership of.
+     * @param batchSize      the minimum number of indices reserved by each journal record.
+     * @param recordCapacity the number of records the journal holds before a new checkpoint is written.
+     * @return an open journal.
+     * @throws IOException if the file cannot be written.
+     */
+    public static StatefulKeyJournal create(File file, AsymmetricKeyParameter key, int batchSize, int recordCapacity)
+        throws IOException
+    {
+        if (file.exists())
+        {
+            throw new IOException("journal file already exists: " + file);
+        }
+
+        StatefulKeyJournal keyJournal = new StatefulKeyJournal(file, batchSize, recordCapacity);
+
+        keyJournal.key = key;
+        keyJournal.checkpoint(getIndex(key));
+
+        return keyJournal;
+    }
+
+    /**
+     * Open an existing journal file, recovering the key in the state following the last recorded reservation.
+     *
+     * @param file      the journal file.
+     * @param batchSize the minimum number of indices reserved by each new journal record.
+     * @return an open journal.
+     * @throws IOException if the file cannot be read or is corrupt.
+     */
+    public static StatefulKeyJournal open(File file, int batchSize)
+        throws IOException
+    {
+        if (!file.exists())
+        {
+            restoreCheckpoint(file);
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            if (raf.length() < HEADER_SIZE || raf.readInt() != MAGIC)
+            {
+                throw new IOException("not a key journal: " + file);
+            }
+            if (raf.readInt() != VERSION)
+            {
+                throw new IOException("unknown key journal version");
+            }
+
+            int checkpointLength = raf.readInt();
+            int recordCapacity = raf.readInt();
+            if (checkpointLength < 0 || recordCapacity < 1
+                || raf.length() != HEADER_SIZE + checkpointLength + (long)recordCapacity * RECORD_SIZE)
+            {
+                throw new IOException("truncated key journal");
+            }
+
+            byte[] checkpoint = new byte[checkpointLength];
+            raf.readFully(checkpoint);
+
+            StatefulKeyJournal keyJournal = new StatefulKeyJournal(file, batchSize, recordCapacity);
+            keyJournal.key = PrivateKeyFactory.createKey(checkpoint);
+            keyJournal.reservedLimit = getIndex(keyJournal.key);
+            keyJournal.map(raf, checkpointLength);
+            keyJournal.recover();
+            raf = null;
+
+            return keyJournal;
+        }
+        finally
+        {
+            if (raf != null)
+            {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * Reserve the next count indices of the key, returning a shard that can sign count times. The reservation is
+     * durable before this method returns.
+     *
+     * @param count the number of indices to reserve.
+     * @return a private key shard covering the reserved indices.
+     * @throws IOException if the journal cannot be written.
+     * @throws ExhaustedPrivateKeyException if fewer than count indices remain.
+     */
+    public synchronized AsymmetricKeyParameter reserve(int count)
+        throws IOException
+    {
+        checkOpen();
+
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+
+        long remaining = getUsagesRemaining(key);
+        if (count > remaining)
+        {
+            throw new ExhaustedPrivateKeyException("fewer than " + count + " usages remaining");
+        }
+
+        long index = getIndex(key);
+        if (index + count > reservedLimit)
+        {
+            journal(index + Math.min(Math.max(count, batchSize), remaining));
+        }
+
+        return extractKeyShard(key, count);
+    }
+
+    /**
+     * Return the number of indices of the key that have not yet been reserved.
+     *
+     * @return the usages remaining.
+     */
+    public synchronized long getUsagesRemaining()
+    {
+        checkOpen();
+
+        return getUsagesRemaining(key);
+    }
+
+    /**
+     * Close the journal. Reservations already made remain valid.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    public synchronized void close()
+        throws IOException
+    {
+        if (raf != null)
+        {
+            journal.force();
+            raf.close();
+            raf = null;
+            journal = null;
+        }
+    }
+
+    private void checkOpen()
+    {
+        if (raf == null)
+        {
+            throw new IllegalStateException("journal closed");
+        }
+    }
+
+    private void recover()
+        throws IOException
+    {
+        long limit = reservedLimit;
+
+        while (recordCount < recordCapacity)
+        {
+            int pos = recordCount * RECORD_SIZE;
+            long recordLimit = journal.getLong(pos);
+            if (journal.getInt(pos + 8) != recordCount || journal.getInt(pos + 12) != checksum(recordLimit, recordCount)
+                || recordLimit < limit)
+            {
+                // unused, or a record torn by a crash part way through writing it
+                break;
+            }
+
+            limit = recordLimit;
+            recordCount++;
+        }
+
+        // anything up to limit may have been handed out before the journal was last closed
+        for (long skip = limit - getIndex(key); skip > 0; )
+        {
+            int count = (int)Math.min(skip, Integer.MAX_VALUE);
+            extractKeyShard(key, count);
+            skip -= count;
+        }
+        reservedLimit = limit;
+    }
+
+    private void journal(long limit)
+        throws IOException
+    {
+        if (recordCount == recordCapacity)
+        {
+            checkpoint(limit);
+            return;
+        }
+
+        int pos = recordCount * RECORD_SIZE;
+        journal.putLong(pos, limit);
+        journal.putInt(pos + 8, recordCount);
+        journal.putInt(pos + 12, checksum(limit, recordCount));
+        journal.force();
+
+        recordCount++;
+        reservedLimit = limit;
+    }
+
+    /**
+     * Write a new file with a checkpoint of the key and, if limit is past the key's index, a first record reserving
+     * up to limit, then replace the current file with it.
+     */
+    private void checkpoint(long limit)
+        throws IOException
+    {
+        byte[] checkpoint = PrivateKeyInfoFactory.createPrivateKeyInfo(key).getEncoded();
+
+        File tmpFile = new File(file.getPath() + ".tmp");
+        RandomAccessFile tmp = new RandomAccessFile(tmpFile, "rw");
+        try
+        {
+            tmp.setLength(0);
+            tmp.writeInt(MAGIC);
+            tmp.writeInt(VERSION);
+            tmp.writeInt(checkpoint.length);
+            tmp.writeInt(recordCapacity);
+            tmp.write(checkpoint);
+            tmp.setLength(HEADER_SIZE + checkpoint.length + (long)recordCapacity * RECORD_SIZE);
+
+            int records = 0;
+            if (limit > getIndex(key))
+            {
+                tmp.writeLong(limit);
+                tmp.writeInt(0);
+                tmp.writeInt(checksum(limit, 0));
+                records = 1;
+            }
+
+            tmp.getChannel().force(true);
+
+            close();
+
+            if (!tmpFile.renameTo(file))
+            {
+                /*
+                 * some platforms will not rename over an existing file, so the original is moved aside first and
+                 * only removed once the new file is in place. If that is interrupted, open() finishes the job.
+                 */
+                File oldFile = new File(file.getPath() + ".old");
+                oldFile.delete();
+                if (!file.renameTo(oldFile) || !tmpFile.renameTo(file))
+                {
+                    throw new IOException("unable to replace key journal: " + file);
+                }
+                syncDirectory(file);
+                oldFile.delete();
+            }
+            else
+            {
+                syncDirectory(file);
+            }
+
+            map(tmp, checkpoint.length);
+            tmp = null;
+
+            recordCount = records;
+            reservedLimit = Math.max(limit, getIndex(key));
+        }
+        finally
+        {
+            if (tmp != null)
+            {
+                tmp.close();
+            }
+        }
+    }
+
+    private void map(RandomAccessFile file, int checkpointLength)
+        throws IOException
+    {
+        this.raf = file;
+        this.journal = file.getChannel().map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + checkpointLength,
+            (long)recordCapacity * RECORD_SIZE);
+    }
+
+    /**
+     * Complete a checkpoint interrupted after the original file was moved aside but before its replacement, which had
+     * already been written and forced to disk, was renamed into place.
+     */
+    private static void restoreCheckpoint(File file)
+        throws IOException
+    {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        File oldFile = new File(file.getPath() + ".old");
+        if (oldFile.exists() && tmpFile.exists())
+        {
+            if (!tmpFile.renameTo(file))
+            {
+                throw new IOException("unable to restore key journal: " + file);
+            }
+            syncDirectory(file);
+            oldFile.delete();
+        }
+    }
+
+    /**
+     * Force the directory entry for file to disk, so a rename of it survives a crash. This needs FileChannel.open()
+     * from Java 7, which is found by reflection as this class must still load on earlier JVMs. Platforms which can't
+     * open a directory (Windows) are skipped, as there the rename is expected to be durable once it has returned.
+     */
+    private static void syncDirectory(File file)
+        throws IOException
+    {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir == null || File.separatorChar != '/')
+        {
+            return;
+        }
+
+        FileChannel channel;
+        try
+        {
+            Object path = File.class.getMethod("toPath").invoke(dir);
+            Class<?> pathClass = Class.forName("java.nio.file.Path");
+            Class<?> openOptionClass = Class.forName("java.nio.file.OpenOption");
+            Class<?> standardOpenOptionClass = Class.forName("java.nio.file.StandardOpenOption");
+
+            Object options = Array.newInstance(openOptionClass, 1);
+            Array.set(options, 0, standardOpenOptionClass.getField("READ").get(null));
+
+            Method open = FileChannel.class.getMethod("open", new Class<?>[]{ pathClass, options.getClass() });
+            channel = (FileChannel)open.invoke(null, new Object[]{ path, options });
+        }
+        catch (Exception e)
+        {
+            // pre Java 7, or the directory can't be opened
+            return;
+        }
+
+        try
+        {
+            channel.force(true);
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    private static int checksum(long limit, int recordNo)
+    {
+        ByteBuffer record = ByteBuffer.allocate(12);
+        record.putLong(limit).putInt(recordNo);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, 12);
+        return (int)crc.getValue();
+    }
+
+    private static long getIndex(AsymmetricKeyParameter key)
+    {
+        if (key instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)key).getIndex();
+        }
+        else if (key instanceof XMSSPrivateKeyParameters)
+        {
+            return ((XMSSPrivateKeyParameters)key).getIndex();
+        }
+        else if (key instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)key).getIndex();
+        }
+        else if (key instanceof LMSPrivateKeyParameters)
+        {
+            return ((LMSPrivateKeyParameters)key).getIndex();
+        }
+
+        throw new IllegalArgumentException("unsupported key type: " + key.getClass().getName());
+    }
+
+    private static long getUsagesRemaining(AsymmetricKeyParameter key)
+    {
+        if (key instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        else if (key instanceof XMSSPrivateKeyParameters)
+        {
+            return ((XMSSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        else if (key instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+        else
+        {
+            return ((LMSPrivateKeyParameters)key).getUsagesRemaining();
+        }
+    }
+
+    private static AsymmetricKeyParameter extractKeyShard(AsymmetricKeyParameter key, int count)
+    {
+        if (key instanceof XMSSMTPrivateKeyParameters)
+        {
+            return ((XMSSMTPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else if (key instanceof XMSSPrivateKeyParameters)
+        {
+            return ((XMSSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else if (key instanceof HSSPrivateKeyParameters)
+        {
+            return ((HSSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+        else
+        {
+            return ((LMSPrivateKeyParameters)key).extractKeyShard(count);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.bouncycastle.util;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A piece of work which can be handed to an executor and later joined. Joining a task no worker has started runs it
+ * on the joining thread, so a busy or rejecting executor only costs parallelism, and a task is only ever run once.
+ * <p>
+ * Joining waits for the task to complete even if the joining thread is interrupted, as the task may still be using
+ * state the caller is about to read or clear; the interrupt is restored once the task is done.
+ * </p>
+ * This class is intended for use by the implementations of the BC APIs.
+ */
+public abstract class JoinableTask
+    implements Runnable
+{
+    private static final int NEW = 0;
+    private static final int STARTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private Throwable failure;
+
+    /**
+     * Carry out the work of the task. This is called at most once, either by an executor thread or by the first
+     * thread to join the task.
+     *
+     * @throws Exception if the task fails, in which case the exception is returned by {@link #join()}.
+     */
+    protected abstract void compute()
+        throws Exception;
+
+    public final void run()
+    {
+        if (!state.compareAndSet(NEW, STARTED))
+        {
+            return;
+        }
+
+        try
+        {
+            compute();
+        }
+        catch (Throwable e)
+        {
+            failure = e;
+        }
+        finally
+        {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Hand the task to an executor. If the executor rejects it the task is left to be run when it is joined.
+     *
+     * @param executor the executor to run the task on.
+     */
+    public final void fork(Executor executor)
+    {
+        try
+        {
+            executor.execute(this);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the task will be run on the calling thread when it is joined
+        }
+    }
+
+    /**
+     * Stop the task from running if it has not already started.
+     *
+     * @return true if the task was cancelled, false if it has already been run or started.
+     */
+    public final boolean cancel()
+    {
+        if (state.compareAndSet(NEW, CANCELLED))
+        {
+            done.countDown();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Wait for the task to complete, running it on the calling thread if no worker has started it yet.
+     *
+     * @return null if the task completed normally, otherwise the exception it failed with (a CancellationException
+     * if it was cancelled).
+     */
+    public final Throwable join()
+    {
+        run();
+
+        boolean interrupted = false;
+        for (;;)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (state.get() == CANCELLED)
+        {
+            return new CancellationException("task cancelled");
+        }
+
+        return failure;
+    }
+
+    /**
+     * Join all of a list of tasks, including any that follow a failed one.
+     *
+     * @param tasks the tasks to join.
+     * @return null if every task completed normally, otherwise the failure of the first task in the list to fail.
+     */
+    public static Throwable joinAll(List<? extends JoinableTask> tasks)
+    {
+        Throwable failure = null;
+
+        // join in reverse, so the caller picks up the tasks workers are least likely to have started
+        for (int i = tasks.size() - 1; i >= 0; i--)
+        {
+            Throwable e = ((JoinableTask)tasks.get(i)).join();
+            if (e != null)
+            {
+                failure = e;
+            }
+        }
+
+        return failure;
+    }
+}
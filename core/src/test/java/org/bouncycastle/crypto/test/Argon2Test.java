@@ -3,6 +3,8 @@
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
 import org.bouncycastle.crypto.params.Argon2Parameters;
@@ -34,6 +36,7 @@ public void performTest()
 
         testPermutations();
         testVectorsFromInternetDraft();
+        testExecutor();
 
         int version = Argon2Parameters.ARGON2_VERSION_10;
 
@@ -315,6 +318,73 @@ private void testVectorsFromInternetDraft()
 
     }
 
+    private void testExecutor()
+    {
+        byte[] ad = Hex.decode("040404040404040404040404");
+        byte[] secret = Hex.decode("0303030303030303");
+        byte[] salt = Hex.decode("02020202020202020202020202020202");
+        byte[] password = Hex.decode("0101010101010101010101010101010101010101010101010101010101010101");
+
+        int[] types = { Argon2Parameters.ARGON2_d, Argon2Parameters.ARGON2_i, Argon2Parameters.ARGON2_id };
+        String[] expected = {
+            "512b391b6f1162975371d30919734294f868e3be3984f3c1a13a4db9fabe4acb",
+            "c814d9d1dc7f37aa13f0d77f2494bda1c8de6b016dd388d29952a4c4672b6ce8",
+            "0d640df58d78766c08c037a34a8b53c9d01ef0452d75b65eb52520e96b01e659" };
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            for (int i = 0; i != types.length; i++)
+            {
+                Argon2Parameters.Builder builder = new Argon2Parameters.Builder(types[i])
+                    .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                    .withIterations(3)
+                    .withMemoryAsKB(32)
+                    .withParallelism(4)
+                    .withAdditional(ad)
+                    .withSecret(secret)
+                    .withSalt(salt)
+                    .withExecutor(executor);
+
+                Argon2BytesGenerator gen = new Argon2BytesGenerator();
+
+                gen.init(builder.build());
+
+                byte[] result = new byte[32];
+                gen.generateBytes(password, result);
+                isTrue("executor vector " + i + " failed", areEqual(result, Hex.decode(expected[i])));
+
+                // more lanes than threads, and enough memory for the lanes to actually overlap
+                builder = new Argon2Parameters.Builder(types[i])
+                    .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                    .withIterations(2)
+                    .withMemoryPowOfTwo(12)
+                    .withParallelism(8)
+                    .withSalt(salt);
+
+                gen.init(builder.build());
+
+                byte[] sequential = new byte[64];
+                gen.generateBytes(password, sequential);
+
+                gen.init(builder.withExecutor(executor).build());
+
+                byte[] parallel = new byte[64];
+                gen.generateBytes(password, parallel);
+                isTrue("executor output " + i + " does not match sequential", areEqual(sequential, parallel));
+
+                // generator must remain reusable
+                Arrays.clear(parallel);
+                gen.generateBytes(password, parallel);
+                isTrue("executor reuse " + i + " does not match sequential", areEqual(sequential, parallel));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     private static int getJvmVersion()
     {
         String version = System.getProperty("java.specification.version");
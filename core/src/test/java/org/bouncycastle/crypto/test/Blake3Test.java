@@ -1,5 +1,10 @@
 package org.bouncycastle.crypto.test;
 
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.digests.Blake3Digest;
 import org.bouncycastle.crypto.params.Blake3Parameters;
 import org.bouncycastle.util.Arrays;
@@ -28,6 +33,11 @@
      */
     private static final int PARTBREAK = 100;
 
+    /**
+     * The executor for the parallel tests, null for sequential.
+     */
+    private ExecutorService theExecutor;
+
     /**
      * The Blake3 Test key.
      */
@@ -257,6 +267,95 @@ public void performTest()
         runTestCase(TEST16384);
         runTestCase(TEST31744);
         runTestCase(TEST102400);
+
+        /* Repeat with chunks hashed in parallel */
+        theExecutor = Executors.newFixedThreadPool(3);
+        try
+        {
+            runTestCase(TEST0);
+            runTestCase(TEST1024);
+            runTestCase(TEST1025);
+            runTestCase(TEST2048);
+            runTestCase(TEST2049);
+            runTestCase(TEST8193);
+            runTestCase(TEST16384);
+            runTestCase(TEST31744);
+            runTestCase(TEST102400);
+            testParallel();
+        }
+        finally
+        {
+            theExecutor.shutdown();
+            theExecutor = null;
+        }
+    }
+
+    /**
+     * Check parallel hashing against sequential hashing for random data fed in random pieces.
+     */
+    private void testParallel()
+    {
+        final SecureRandom myRandom = new SecureRandom();
+        for (int i = 0; i < 20; i++)
+        {
+            final byte[] myData = new byte[myRandom.nextInt(i < 10 ? 5000 : 500000)];
+            myRandom.nextBytes(myData);
+
+            final Blake3Digest mySequential = new Blake3Digest();
+            final Blake3Digest myParallel = new Blake3Digest(256, CryptoServicePurpose.ANY, theExecutor, 3);
+            if ((i & 1) != 0)
+            {
+                mySequential.init(Blake3Parameters.key(BLAKE3KEY));
+                myParallel.init(Blake3Parameters.key(BLAKE3KEY));
+            }
+
+            final byte[] myExpected = new byte[100];
+            mySequential.update(myData, 0, myData.length);
+            mySequential.doFinal(myExpected, 0, myExpected.length);
+
+            /* Feed in random pieces, taking a copy part way through */
+            Blake3Digest myCopy = null;
+            int myCopyOff = 0;
+            int myOff = 0;
+            while (myOff < myData.length)
+            {
+                final int myLen = Math.min(myData.length - myOff, myRandom.nextInt(3000));
+                if (myLen == 1)
+                {
+                    myParallel.update(myData[myOff]);
+                }
+                else
+                {
+                    myParallel.update(myData, myOff, myLen);
+                }
+                myOff += myLen;
+
+                if (myCopy == null && myOff > myData.length / 2)
+                {
+                    myCopy = (Blake3Digest)myParallel.copy();
+                    myCopyOff = myOff;
+                }
+            }
+
+            final byte[] myOutput = new byte[myExpected.length];
+            myParallel.doFinal(myOutput, 0, myOutput.length);
+            isTrue("parallel mismatch", Arrays.areEqual(myExpected, myOutput));
+
+            /* Complete the copy, and a fresh digest reset from it */
+            if (myCopy != null)
+            {
+                final Blake3Digest myTakeOver = new Blake3Digest();
+                myTakeOver.reset(myCopy);
+
+                myCopy.update(myData, myCopyOff, myData.length - myCopyOff);
+                myCopy.doFinal(myOutput, 0, myOutput.length);
+                isTrue("parallel copy mismatch", Arrays.areEqual(myExpected, myOutput));
+
+                myTakeOver.update(myData, myCopyOff, myData.length - myCopyOff);
+                myTakeOver.doFinal(myOutput, 0, myOutput.length);
+                isTrue("reset from parallel mismatch", Arrays.areEqual(myExpected, myOutput));
+            }
+        }
     }
 
     /**
@@ -280,7 +379,9 @@ private void runTestCase(final TestDef pTest)
     private void testHash(final TestDef pTest)
     {
         /* Create digest */
-        final Blake3Digest myDigest = new Blake3Digest();
+        final Blake3Digest myDigest = theExecutor == null
+            ? new Blake3Digest()
+            : new Blake3Digest(256, CryptoServicePurpose.ANY, theExecutor, 2);
 
         /* Try a fake update */
         myDigest.update(BLAKE3KEY, 0, BLAKE3KEY.length);
@@ -314,7 +415,9 @@ private void testKeyed(final TestDef pTest)
     {
         /* Create digest */
         final Blake3Digest myDigest = new Blake3Digest();
-        final Blake3Parameters myParams = Blake3Parameters.key(BLAKE3KEY);
+        final Blake3Parameters myParams = theExecutor == null
+            ? Blake3Parameters.key(BLAKE3KEY)
+            : Blake3Parameters.key(BLAKE3KEY).withExecutor(theExecutor, 2);
         myDigest.init(myParams);
 
         /* Try a fake update */
@@ -349,7 +452,9 @@ private void testDerived(final TestDef pTest)
     {
         /* Create digest */
         final Blake3Digest myDigest = new Blake3Digest();
-        final Blake3Parameters myParams = Blake3Parameters.context(BLAKE3CTX);
+        final Blake3Parameters myParams = theExecutor == null
+            ? Blake3Parameters.context(BLAKE3CTX)
+            : Blake3Parameters.context(BLAKE3CTX).withExecutor(theExecutor, 2);
         myDigest.init(myParams);
 
         /* Try a fake update */
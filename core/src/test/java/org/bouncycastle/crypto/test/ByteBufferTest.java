@@ -0,0 +1,356 @@
+package org.bouncycastle.crypto.test;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.MD5Digest;
+import org.bouncycastle.crypto.digests.SHA224Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
+import org.bouncycastle.crypto.engines.DESEngine;
+import org.bouncycastle.crypto.engines.RC4Engine;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.Poly1305;
+import org.bouncycastle.crypto.modes.AEADCipher;
+import org.bouncycastle.crypto.modes.CCMBlockCipher;
+import org.bouncycastle.crypto.modes.ChaCha20Poly1305;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.ByteBufferUtil;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the ByteBuffer methods of the lightweight API against the array based ones.
+ */
+public class ByteBufferTest
+    extends SimpleTest
+{
+    private static final int HEAP = 0, HEAP_OFFSET = 1, DIRECT = 2, READ_ONLY = 3;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBuffer";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        for (int i = 0; i < 20; ++i)
+        {
+            testDigest(new SHA256Digest(), new SHA256Digest());
+            testDigest(new SHA224Digest(), new SHA224Digest());
+            testDigest(new MD5Digest(), new MD5Digest());
+            testDigest(new SHA512Digest(), new SHA512Digest());
+            testDigest(new SHA384Digest(), new SHA384Digest());
+            testDigest(new SHA3Digest(256), new SHA3Digest(256));
+            testDigest(new SHAKEDigest(128), new SHAKEDigest(128));
+            testDigest(new Blake2bDigest(), new Blake2bDigest());
+
+            testMac(new HMac(new SHA256Digest()), new HMac(new SHA256Digest()));
+            testMac(new Poly1305(), new Poly1305());
+
+            testBlockCipher(AESEngine.newInstance(), AESEngine.newInstance(), 16);
+            testBlockCipher(new DESEngine(), new DESEngine(), 8);
+
+            testStreamCipher(new ChaCha7539Engine(), new ChaCha7539Engine(), 12);
+            testStreamCipher(new Salsa20Engine(), new Salsa20Engine(), 8);
+            testStreamCipher(new RC4Engine(), new RC4Engine(), 0);
+
+            testAEADCipher(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+                GCMBlockCipher.newInstance(AESEngine.newInstance()), 12);
+            testAEADCipher(new ChaCha20Poly1305(), new ChaCha20Poly1305(), 12);
+            testAEADCipher(CCMBlockCipher.newInstance(AESEngine.newInstance()),
+                CCMBlockCipher.newInstance(AESEngine.newInstance()), 12);
+        }
+
+        testLargeAEADCipher(GCMBlockCipher.newInstance(AESEngine.newInstance()),
+            GCMBlockCipher.newInstance(AESEngine.newInstance()), 12);
+        testLargeAEADCipher(new ChaCha20Poly1305(), new ChaCha20Poly1305(), 12);
+        testLargeAEADCipher(CCMBlockCipher.newInstance(AESEngine.newInstance()),
+            CCMBlockCipher.newInstance(AESEngine.newInstance()), 12);
+    }
+
+    private void testDigest(Digest bufDigest, Digest arrayDigest)
+    {
+        byte[] data = randomData(random.nextInt(1200));
+
+        arrayDigest.update(data, 0, data.length);
+        byte[] expected = new byte[arrayDigest.getDigestSize()];
+        arrayDigest.doFinal(expected, 0);
+
+        int[] splits = randomSplits(data.length);
+        for (int i = 0; i < splits.length - 1; ++i)
+        {
+            int kind = random.nextInt(5);
+            if (kind == 4)
+            {
+                bufDigest.update(data, splits[i], splits[i + 1] - splits[i]);
+            }
+            else
+            {
+                ByteBuffer in = createInput(kind, data, splits[i], splits[i + 1] - splits[i]);
+                ByteBufferUtil.update(bufDigest, in);
+                isTrue(bufDigest.getAlgorithmName() + " input not consumed", !in.hasRemaining());
+            }
+        }
+
+        ByteBuffer out = createOutput(random.nextInt(3), expected.length);
+        isEquals(expected.length, ByteBufferUtil.doFinal(bufDigest, out));
+        isTrue(bufDigest.getAlgorithmName() + " ByteBuffer update failed", areEqual(expected, contents(out)));
+    }
+
+    private void testMac(Mac bufMac, Mac arrayMac)
+    {
+        KeyParameter key = new KeyParameter(randomData(32));
+        byte[] data = randomData(random.nextInt(1200));
+
+        arrayMac.init(key);
+        arrayMac.update(data, 0, data.length);
+        byte[] expected = new byte[arrayMac.getMacSize()];
+        arrayMac.doFinal(expected, 0);
+
+        bufMac.init(key);
+        int[] splits = randomSplits(data.length);
+        for (int i = 0; i < splits.length - 1; ++i)
+        {
+            ByteBufferUtil.update(bufMac, createInput(random.nextInt(4), data, splits[i], splits[i + 1] - splits[i]));
+        }
+
+        ByteBuffer out = createOutput(random.nextInt(3), expected.length);
+        ByteBufferUtil.doFinal(bufMac, out);
+        isTrue(bufMac.getAlgorithmName() + " ByteBuffer update failed", areEqual(expected, contents(out)));
+    }
+
+    private void testBlockCipher(BlockCipher bufCipher, BlockCipher arrayCipher, int blockSize)
+    {
+        KeyParameter key = new KeyParameter(randomData(blockSize == 16 ? 16 : 8));
+        byte[] data = randomData(blockSize * (1 + random.nextInt(8)));
+
+        for (int pass = 0; pass < 2; ++pass)
+        {
+            boolean forEncryption = pass == 0;
+            arrayCipher.init(forEncryption, key);
+            bufCipher.init(forEncryption, key);
+
+            byte[] expected = new byte[data.length];
+            for (int i = 0; i < data.length; i += blockSize)
+            {
+                arrayCipher.processBlock(data, i, expected, i);
+            }
+
+            ByteBuffer in = createInput(random.nextInt(4), data, 0, data.length);
+            ByteBuffer out = createOutput(random.nextInt(3), data.length);
+            while (in.hasRemaining())
+            {
+                isEquals(blockSize, ByteBufferUtil.processBlock(bufCipher, in, out));
+            }
+
+            isTrue(bufCipher.getAlgorithmName() + " ByteBuffer processBlock failed", areEqual(expected, contents(out)));
+        }
+    }
+
+    private void testStreamCipher(StreamCipher bufCipher, StreamCipher arrayCipher, int ivLength)
+    {
+        KeyParameter key = new KeyParameter(randomData(32));
+        byte[] data = randomData(random.nextInt(1200));
+
+        if (ivLength > 0)
+        {
+            ParametersWithIV params = new ParametersWithIV(key, randomData(ivLength));
+            arrayCipher.init(true, params);
+            bufCipher.init(true, params);
+        }
+        else
+        {
+            arrayCipher.init(true, key);
+            bufCipher.init(true, key);
+        }
+
+        byte[] expected = new byte[data.length];
+        arrayCipher.processBytes(data, 0, data.length, expected, 0);
+
+        ByteBuffer out = createOutput(random.nextInt(3), data.length);
+        int[] splits = randomSplits(data.length);
+        for (int i = 0; i < splits.length - 1; ++i)
+        {
+            int len = splits[i + 1] - splits[i];
+            isEquals(len, ByteBufferUtil.processBytes(bufCipher, createInput(random.nextInt(4), data, splits[i], len), out));
+        }
+
+        isTrue(bufCipher.getAlgorithmName() + " ByteBuffer processBytes failed", areEqual(expected, contents(out)));
+    }
+
+    private void testAEADCipher(AEADCipher bufCipher, AEADCipher arrayCipher, int nonceLength)
+        throws InvalidCipherTextException
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(randomData(32)), 128, randomData(nonceLength),
+            randomData(random.nextInt(40)));
+        byte[] data = randomData(random.nextInt(1200));
+
+        arrayCipher.init(true, params);
+        byte[] expected = new byte[arrayCipher.getOutputSize(data.length)];
+        int len = arrayCipher.processBytes(data, 0, data.length, expected, 0);
+        arrayCipher.doFinal(expected, len);
+
+        bufCipher.init(true, params);
+        byte[] ciphertext = process(bufCipher, data, expected.length);
+        isTrue(bufCipher.getAlgorithmName() + " ByteBuffer encryption failed", areEqual(expected, ciphertext));
+
+        bufCipher.init(false, params);
+        byte[] plaintext = process(bufCipher, ciphertext, data.length);
+        isTrue(bufCipher.getAlgorithmName() + " ByteBuffer decryption failed", areEqual(data, plaintext));
+
+        ciphertext[random.nextInt(ciphertext.length)] ^= 1;
+        bufCipher.init(false, params);
+        try
+        {
+            process(bufCipher, ciphertext, data.length);
+            fail(bufCipher.getAlgorithmName() + " tampered ciphertext accepted");
+        }
+        catch (InvalidCipherTextException e)
+        {
+            // expected
+        }
+    }
+
+    /*
+     * direct buffers larger than the chunk size used by ByteBufferUtil, so the cipher is still holding back
+     * possible MAC bytes from one chunk when the next is processed.
+     */
+    private void testLargeAEADCipher(AEADCipher bufCipher, AEADCipher arrayCipher, int nonceLength)
+        throws InvalidCipherTextException
+    {
+        AEADParameters params = new AEADParameters(new KeyParameter(randomData(32)), 128, randomData(nonceLength));
+        byte[] data = randomData(10000);
+
+        arrayCipher.init(true, params);
+        byte[] expected = new byte[arrayCipher.getOutputSize(data.length)];
+        int len = arrayCipher.processBytes(data, 0, data.length, expected, 0);
+        arrayCipher.doFinal(expected, len);
+
+        bufCipher.init(true, params);
+        ByteBuffer out = createOutput(DIRECT, expected.length);
+        len = ByteBufferUtil.processBytes(bufCipher, createInput(DIRECT, data, 0, data.length), out);
+        isEquals(expected.length, len + ByteBufferUtil.doFinal(bufCipher, out));
+        isTrue(bufCipher.getAlgorithmName() + " large ByteBuffer encryption failed", areEqual(expected, contents(out)));
+
+        bufCipher.init(false, params);
+        out = createOutput(DIRECT, data.length);
+        len = ByteBufferUtil.processBytes(bufCipher, createInput(DIRECT, expected, 0, expected.length), out);
+        isEquals(data.length, len + ByteBufferUtil.doFinal(bufCipher, out));
+        isTrue(bufCipher.getAlgorithmName() + " large ByteBuffer decryption failed", areEqual(data, contents(out)));
+    }
+
+    private byte[] process(AEADCipher cipher, byte[] input, int outputLength)
+        throws InvalidCipherTextException
+    {
+        ByteBuffer out = createOutput(random.nextInt(3), outputLength);
+        int total = 0;
+
+        int[] splits = randomSplits(input.length);
+        for (int i = 0; i < splits.length - 1; ++i)
+        {
+            ByteBuffer in = createInput(random.nextInt(4), input, splits[i], splits[i + 1] - splits[i]);
+            total += ByteBufferUtil.processBytes(cipher, in, out);
+            isTrue(!in.hasRemaining());
+        }
+        total += ByteBufferUtil.doFinal(cipher, out);
+
+        isEquals(outputLength, total);
+        return contents(out);
+    }
+
+    private ByteBuffer createInput(int kind, byte[] data, int off, int len)
+    {
+        switch (kind)
+        {
+        case HEAP:
+            return ByteBuffer.wrap(Arrays.copyOfRange(data, off, off + len));
+        case HEAP_OFFSET:
+            return ByteBuffer.wrap(data, off, len).slice();
+        case DIRECT:
+        {
+            ByteBuffer buf = ByteBuffer.allocateDirect(len + 3);
+            buf.position(3);
+            buf.put(data, off, len);
+            buf.position(3);
+            return buf;
+        }
+        case READ_ONLY:
+            return ByteBuffer.wrap(data, off, len).asReadOnlyBuffer();
+        default:
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private ByteBuffer createOutput(int kind, int len)
+    {
+        switch (kind)
+        {
+        case HEAP:
+            return ByteBuffer.allocate(len);
+        case HEAP_OFFSET:
+        {
+            ByteBuffer buf = ByteBuffer.allocate(len + 7);
+            buf.position(7);
+            return buf.slice();
+        }
+        case DIRECT:
+            return ByteBuffer.allocateDirect(len);
+        default:
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private byte[] contents(ByteBuffer out)
+    {
+        isTrue(!out.hasRemaining());
+
+        byte[] result = new byte[out.capacity()];
+        ByteBuffer dup = out.duplicate();
+        dup.flip();
+        dup.get(result);
+        return result;
+    }
+
+    private int[] randomSplits(int length)
+    {
+        int[] splits = new int[2 + random.nextInt(4)];
+        for (int i = 1; i < splits.length - 1; ++i)
+        {
+            splits[i] = random.nextInt(length + 1);
+        }
+        splits[splits.length - 1] = length;
+        java.util.Arrays.sort(splits);
+        return splits;
+    }
+
+    private byte[] randomData(int length)
+    {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new ByteBufferTest());
+    }
+}
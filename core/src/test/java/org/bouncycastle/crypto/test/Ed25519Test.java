@@ -8,6 +8,7 @@
 import org.bouncycastle.crypto.params.Ed25519KeyGenerationParameters;
 import org.bouncycastle.crypto.params.Ed25519PrivateKeyParameters;
 import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.bouncycastle.crypto.signers.Ed25519BatchVerifier;
 import org.bouncycastle.crypto.signers.Ed25519Signer;
 import org.bouncycastle.crypto.signers.Ed25519ctxSigner;
 import org.bouncycastle.crypto.signers.Ed25519phSigner;
@@ -47,6 +48,7 @@ public void performTest()
         }
 
         testRegressionInfiniteLoop();
+        testBatchVerifier();
     }
 
     private void basicSigTest()
@@ -161,6 +163,46 @@ private void testConsistency(int algorithm, byte[] context)
         }
     }
 
+    private void testBatchVerifier()
+        throws Exception
+    {
+        Ed25519KeyPairGenerator kpg = new Ed25519KeyPairGenerator();
+        kpg.init(new Ed25519KeyGenerationParameters(RANDOM));
+
+        Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(RANDOM);
+
+        int count = 20;
+        for (int i = 0; i < count; ++i)
+        {
+            AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+            byte[] msg = new byte[RANDOM.nextInt() & 255];
+            RANDOM.nextBytes(msg);
+
+            Signer signer = new Ed25519Signer();
+            signer.init(true, kp.getPrivate());
+            signer.update(msg, 0, msg.length);
+            byte[] signature = signer.generateSignature();
+
+            if (i % 7 == 3)
+            {
+                signature[i % Ed25519.SIGNATURE_SIZE] ^= 0x10;
+            }
+
+            verifier.add((Ed25519PublicKeyParameters)kp.getPublic(), msg, signature);
+        }
+
+        isTrue("Ed25519 batch size", verifier.size() == count);
+
+        boolean[] results = verifier.verify();
+        for (int i = 0; i < count; ++i)
+        {
+            isTrue("Ed25519 batch result #" + i, results[i] == (i % 7 != 3));
+        }
+
+        isTrue("Ed25519 batch reset", verifier.size() == 0);
+    }
+
     private void testRegressionInfiniteLoop()
         throws Exception
     {
@@ -0,0 +1,270 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.crypto.BlockCipher;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.modes.CBCBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.crypto.util.CipherFactory;
+import org.bouncycastle.crypto.util.DigestFactory;
+import org.bouncycastle.crypto.util.EnginePool;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check engines from an EnginePool give the same results as fresh instances, and that key schedules are reused.
+ */
+public class EnginePoolTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "EnginePool";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testDigestPool();
+        testCipherPool();
+        testMacPool();
+        testIdleLimit();
+        testUnsupported();
+    }
+
+    private void testDigestPool()
+    {
+        byte[] msg = new byte[100];
+        random.nextBytes(msg);
+
+        Digest prototype = DigestFactory.createSHA1();
+        // prototype state must not leak into the pool
+        prototype.update(msg, 0, 10);
+
+        EnginePool<Digest> pool = DigestFactory.createPool(prototype);
+        byte[] expected = hash(DigestFactory.createSHA1(), msg);
+
+        Digest digest = pool.acquire();
+        digest.update(msg, 0, 17);
+        // release part way through a message, the next user must see a reset digest
+        pool.release(digest);
+
+        Digest next = pool.acquire();
+        isTrue("digest not reused", next == digest);
+        isTrue("pooled digest mismatch", Arrays.areEqual(expected, hash(next, msg)));
+
+        Digest other = pool.acquire();
+        isTrue("digest handed out twice", other != next);
+        isTrue("new digest mismatch", Arrays.areEqual(expected, hash(other, msg)));
+        pool.release(next);
+        pool.release(other);
+
+        pool.clear();
+        isTrue("cleared pool reused digest", pool.acquire() != next);
+    }
+
+    private void testCipherPool()
+    {
+        EnginePool<BlockCipher> pool = CipherFactory.createCipherPool(NISTObjectIdentifiers.id_aes128_CBC);
+
+        KeyParameter key1 = new KeyParameter(randomBytes(16));
+        KeyParameter key2 = new KeyParameter(randomBytes(16));
+        byte[] iv = randomBytes(16);
+        byte[] msg = randomBytes(64);
+
+        byte[] expected1 = cbc(CBCBlockCipher.newInstance(AESEngine.newInstance()), true, key1, iv, msg);
+        byte[] expected2 = cbc(CBCBlockCipher.newInstance(AESEngine.newInstance()), true, key2, iv, msg);
+
+        BlockCipher cipher = pool.acquire(true, key1);
+        isTrue("first encryption mismatch", Arrays.areEqual(expected1, cbc(cipher, true, null, iv, msg)));
+        pool.release(cipher, true, key1);
+
+        // same key object and direction, the cipher comes back already keyed
+        BlockCipher keyed = pool.acquire(true, key1);
+        isTrue("keyed cipher not reused", keyed == cipher);
+        isTrue("reused encryption mismatch", Arrays.areEqual(expected1, cbc(keyed, true, null, iv, msg)));
+        pool.release(keyed, true, key1);
+
+        // an equal key in a different object is not matched, so the idle cipher is reinitialised
+        KeyParameter key1Copy = new KeyParameter(key1.getKey());
+        BlockCipher rekeyed = pool.acquire(true, key1Copy);
+        isTrue("idle cipher not reused", rekeyed == cipher);
+        isTrue("rekeyed encryption mismatch", Arrays.areEqual(expected1, cbc(rekeyed, true, null, iv, msg)));
+        pool.release(rekeyed, true, key1Copy);
+
+        // wrong direction for the idle cipher, so it must be reinitialised
+        BlockCipher decryptor = pool.acquire(false, key1Copy);
+        isTrue("decryption mismatch", Arrays.areEqual(msg, cbc(decryptor, false, null, iv, expected1)));
+        pool.release(decryptor, false, key1Copy);
+
+        BlockCipher encryptor1 = pool.acquire(true, key1);
+        BlockCipher encryptor2 = pool.acquire(true, key2);
+        isTrue("encryptors shared", encryptor1 != encryptor2);
+        isTrue("concurrent encryption 1 mismatch", Arrays.areEqual(expected1, cbc(encryptor1, true, null, iv, msg)));
+        isTrue("concurrent encryption 2 mismatch", Arrays.areEqual(expected2, cbc(encryptor2, true, null, iv, msg)));
+        pool.release(encryptor1, true, key1);
+        pool.release(encryptor2, true, key2);
+
+        // an unkeyed acquire never gets a cipher still holding another caller's key
+        BlockCipher unkeyed = pool.acquire();
+        isTrue("keyed cipher handed out unkeyed", unkeyed != encryptor1 && unkeyed != encryptor2);
+
+        // each key now has its own idle cipher
+        isTrue("key 1 cipher not matched", pool.acquire(true, key1) == encryptor1);
+        isTrue("key 2 cipher not matched", pool.acquire(true, key2) == encryptor2);
+    }
+
+    private void testMacPool()
+    {
+        EnginePool<Mac> pool = new EnginePool<Mac>()
+        {
+            protected Mac create()
+            {
+                return new HMac(new SHA256Digest());
+            }
+        };
+
+        KeyParameter key = new KeyParameter(randomBytes(32));
+        byte[] msg = randomBytes(50);
+
+        Mac reference = new HMac(new SHA256Digest());
+        reference.init(key);
+        byte[] expected = mac(reference, msg);
+
+        Mac mac = pool.acquire(false, key);
+        mac.update(msg, 0, 20);
+        pool.release(mac, false, key);
+
+        // the direction is not significant for a MAC, but is still part of the match
+        Mac reused = pool.acquire(false, key);
+        isTrue("mac not reused", reused == mac);
+        isTrue("pooled mac mismatch", Arrays.areEqual(expected, mac(reused, msg)));
+        pool.release(reused, false, key);
+    }
+
+    private void testIdleLimit()
+    {
+        EnginePool<Digest> pool = new EnginePool<Digest>(2)
+        {
+            protected Digest create()
+            {
+                return new SHA256Digest();
+            }
+        };
+
+        Digest d1 = pool.acquire();
+        Digest d2 = pool.acquire();
+        Digest d3 = pool.acquire();
+
+        pool.release(d1);
+        pool.release(d2);
+        pool.release(d3);
+
+        // d1 was dropped to stay within the limit
+        isTrue("wrong engine 1", pool.acquire() == d3);
+        isTrue("wrong engine 2", pool.acquire() == d2);
+        Digest d4 = pool.acquire();
+        isTrue("dropped engine reused", d4 != d1 && d4 != d2 && d4 != d3);
+
+        try
+        {
+            new EnginePool<Digest>(0)
+            {
+                protected Digest create()
+                {
+                    return new SHA256Digest();
+                }
+            };
+            fail("zero idle limit accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("maxIdle must be at least 1", e.getMessage());
+        }
+    }
+
+    private void testUnsupported()
+    {
+        try
+        {
+            DigestFactory.createPool(new Blake3Digest());
+            fail("unsupported digest accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("cannot pool digest: BLAKE3", e.getMessage());
+        }
+
+        try
+        {
+            CipherFactory.createCipherPool(PKCSObjectIdentifiers.rc4);
+            fail("stream cipher accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isTrue(e.getMessage().startsWith("cannot recognise cipher"));
+        }
+
+        EnginePool<Digest> pool = DigestFactory.createPool(DigestFactory.createSHA256());
+        try
+        {
+            pool.acquire(true, new KeyParameter(new byte[16]));
+            fail("digest keyed");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            isTrue(e.getMessage().startsWith("engine cannot be initialised by pool"));
+        }
+    }
+
+    private byte[] randomBytes(int len)
+    {
+        byte[] bytes = new byte[len];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] cbc(BlockCipher cbc, boolean forEncryption, KeyParameter key, byte[] iv, byte[] in)
+    {
+        cbc.init(forEncryption, new ParametersWithIV(key, iv));
+
+        byte[] out = new byte[in.length];
+        for (int i = 0; i < in.length; i += cbc.getBlockSize())
+        {
+            cbc.processBlock(in, i, out, i);
+        }
+        return out;
+    }
+
+    private static byte[] hash(Digest digest, byte[] msg)
+    {
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.update(msg, 0, msg.length);
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    private static byte[] mac(Mac mac, byte[] msg)
+    {
+        byte[] out = new byte[mac.getMacSize()];
+        mac.update(msg, 0, msg.length);
+        mac.doFinal(out, 0);
+        return out;
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new EnginePoolTest());
+    }
+}
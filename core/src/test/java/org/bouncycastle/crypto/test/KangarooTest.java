@@ -1,7 +1,14 @@
 package org.bouncycastle.crypto.test;
 
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.Xof;
 import org.bouncycastle.crypto.digests.Kangaroo.KangarooParameters;
 import org.bouncycastle.crypto.digests.Kangaroo.KangarooTwelve;
+import org.bouncycastle.crypto.digests.Kangaroo.MarsupilamiFourteen;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
@@ -35,6 +42,82 @@ public void performTest()
         throws Exception
     {
         new Kangaroo12Test().checkDigests(this);
+        testParallel();
+    }
+
+    /**
+     * Check that hashing leaves in parallel gives the same results as hashing them sequentially.
+     */
+    private void testParallel()
+    {
+        final SecureRandom myRandom = new SecureRandom();
+        final ExecutorService myExecutor = Executors.newFixedThreadPool(3);
+        try
+        {
+            final int[] myLengths = { 0, 8191, 8192, 8193, 16384, 16385, 40000, 8192 * 37 + 5, 1000000 };
+            for (int i = 0; i < myLengths.length; i++)
+            {
+                final byte[] myMsg = new byte[myLengths[i]];
+                myRandom.nextBytes(myMsg);
+
+                final byte[] myPers = new byte[myRandom.nextInt(3) * 5000];
+                myRandom.nextBytes(myPers);
+                final KangarooParameters myParams = new KangarooParameters.Builder()
+                        .setPersonalisation(myPers)
+                        .build();
+
+                final KangarooTwelve myK12 = new KangarooTwelve();
+                final KangarooTwelve myParallelK12 = new KangarooTwelve(32, CryptoServicePurpose.ANY, myExecutor, 3);
+                myK12.init(myParams);
+                myParallelK12.init(myParams);
+                checkParallel(myK12, myParallelK12, myMsg, myRandom);
+
+                final MarsupilamiFourteen myM14 = new MarsupilamiFourteen();
+                final MarsupilamiFourteen myParallelM14 = new MarsupilamiFourteen(32, CryptoServicePurpose.ANY,
+                    myExecutor, 3);
+                myM14.init(myParams);
+                myParallelM14.init(myParams);
+                checkParallel(myM14, myParallelM14, myMsg, myRandom);
+            }
+        }
+        finally
+        {
+            myExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Compare a sequential and a parallel digest.
+     * @param pSequential the sequential digest
+     * @param pParallel the parallel digest
+     * @param pMsg the message
+     * @param pRandom the random source for splitting the message
+     */
+    private void checkParallel(final Xof pSequential,
+                               final Xof pParallel,
+                               final byte[] pMsg,
+                               final SecureRandom pRandom)
+    {
+        pSequential.update(pMsg, 0, pMsg.length);
+        final byte[] myExpected = new byte[100];
+        pSequential.doFinal(myExpected, 0, myExpected.length);
+
+        /* Feed the parallel digest in random pieces */
+        for (int myPass = 0; myPass < 2; myPass++)
+        {
+            int myOff = 0;
+            while (myOff < pMsg.length)
+            {
+                final int myLen = Math.min(pMsg.length - myOff, pRandom.nextInt(20000));
+                pParallel.update(pMsg, myOff, myLen);
+                myOff += myLen;
+            }
+
+            final byte[] myOutput = new byte[myExpected.length];
+            pParallel.doFinal(myOutput, 0, myOutput.length);
+            isTrue("Parallel mismatch " + pParallel.getAlgorithmName() + " " + pMsg.length,
+                Arrays.areEqual(myExpected, myOutput));
+        }
     }
 
     /**
@@ -0,0 +1,158 @@
+package org.bouncycastle.crypto.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.util.MappedFileUtil;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check hashing and MACing a file through MappedFileUtil against hashing its content from an array.
+ */
+public class MappedFileUtilTest
+    extends SimpleTest
+{
+    // large enough to span more than one mapped region
+    private static final int FILE_SIZE = 33 * 1024 * 1024 + 123;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MappedFileUtil";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        byte[] data = new byte[FILE_SIZE];
+        random.nextBytes(data);
+
+        File file = File.createTempFile("bcmap", ".dat");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            FileOutputStream fOut = new FileOutputStream(file);
+            fOut.write(data);
+            fOut.close();
+
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try
+            {
+                FileChannel channel = raf.getChannel();
+
+                testDigest(new SHA256Digest(), new SHA256Digest(), channel, data, executor);
+                testDigest(new Blake2bDigest(), new Blake2bDigest(), channel, data, executor);
+                testDigest(new Blake3Digest(256, CryptoServicePurpose.ANY, executor, 2), new Blake3Digest(),
+                    channel, data, executor);
+                testMac(new HMac(new SHA256Digest()), new HMac(new SHA256Digest()), channel, data, executor);
+
+                testBadRegion(channel);
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    private void testDigest(Digest fileDigest, Digest arrayDigest, FileChannel channel, byte[] data,
+        ExecutorService executor)
+        throws Exception
+    {
+        MappedFileUtil.update(fileDigest, channel);
+        isTrue(fileDigest.getAlgorithmName() + " whole file mismatch",
+            Arrays.areEqual(hash(arrayDigest, data, 0, data.length), doFinal(fileDigest)));
+
+        int[][] ranges = { { 0, 0 }, { 17, 1000 }, { data.length - 5, 5 },
+            { random.nextInt(1000), data.length - 2000 } };
+        for (int i = 0; i < ranges.length; ++i)
+        {
+            int off = ranges[i][0], len = ranges[i][1];
+
+            MappedFileUtil.update(fileDigest, channel, off, len, (i & 1) == 0 ? null : executor);
+            isTrue(fileDigest.getAlgorithmName() + " range mismatch",
+                Arrays.areEqual(hash(arrayDigest, data, off, len), doFinal(fileDigest)));
+        }
+    }
+
+    private void testMac(Mac fileMac, Mac arrayMac, FileChannel channel, byte[] data, ExecutorService executor)
+        throws Exception
+    {
+        KeyParameter key = new KeyParameter(new byte[32]);
+        random.nextBytes(key.getKey());
+
+        arrayMac.init(key);
+        arrayMac.update(data, 0, data.length);
+        byte[] expected = new byte[arrayMac.getMacSize()];
+        arrayMac.doFinal(expected, 0);
+
+        fileMac.init(key);
+        MappedFileUtil.update(fileMac, channel, 0, data.length, executor);
+        byte[] result = new byte[fileMac.getMacSize()];
+        fileMac.doFinal(result, 0);
+
+        isTrue(fileMac.getAlgorithmName() + " mismatch", Arrays.areEqual(expected, result));
+    }
+
+    private void testBadRegion(FileChannel channel)
+        throws Exception
+    {
+        try
+        {
+            MappedFileUtil.update(new SHA256Digest(), channel, 1, channel.size(), null);
+            fail("region past end of file accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("region extends beyond the end of the channel", e.getMessage());
+        }
+
+        try
+        {
+            MappedFileUtil.update(new SHA256Digest(), channel, -1, 1, null);
+            fail("negative position accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isEquals("position and length must be non-negative", e.getMessage());
+        }
+    }
+
+    private static byte[] hash(Digest digest, byte[] data, int off, int len)
+    {
+        digest.update(data, off, len);
+        return doFinal(digest);
+    }
+
+    private static byte[] doFinal(Digest digest)
+    {
+        byte[] result = new byte[digest.getDigestSize()];
+        digest.doFinal(result, 0);
+        return result;
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new MappedFileUtilTest());
+    }
+}
@@ -0,0 +1,145 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.MultiBufferDigest;
+import org.bouncycastle.crypto.OutputLengthException;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA256MultiBufferDigest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512MultiBufferDigest;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the multi-buffer digests against the standard implementations.
+ */
+public class MultiBufferDigestTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBufferDigest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        testKnownAnswer(new SHA256MultiBufferDigest(),
+            "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        testKnownAnswer(new SHA512MultiBufferDigest(),
+            "ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a"
+            + "2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f");
+
+        testAgainstDigest(new SHA256MultiBufferDigest(), new SHA256Digest(),
+            new int[]{ 0, 1, 55, 56, 63, 64, 65, 119, 120, 128, 1000 });
+        testAgainstDigest(new SHA512MultiBufferDigest(), new SHA512Digest(),
+            new int[]{ 0, 1, 111, 112, 127, 128, 129, 239, 240, 256, 1000 });
+
+        testOutputs(new SHA256MultiBufferDigest());
+        testOutputs(new SHA512MultiBufferDigest());
+    }
+
+    private void testKnownAnswer(MultiBufferDigest digest, String expected)
+    {
+        byte[][] outputs = new byte[1][];
+        digest.hashAll(new byte[][]{ Hex.decode("616263") }, outputs);
+
+        isTrue(digest.getAlgorithmName() + " failed known answer", areEqual(Hex.decode(expected), outputs[0]));
+    }
+
+    private void testAgainstDigest(MultiBufferDigest multiDigest, Digest digest, int[] lengths)
+    {
+        isEquals(digest.getAlgorithmName(), multiDigest.getAlgorithmName());
+        isEquals(digest.getDigestSize(), multiDigest.getDigestSize());
+
+        // the boundary lengths, in sizes that leave the last group both full and partly empty
+        for (int count = 1; count <= 3 * multiDigest.getLaneCount(); count += 7)
+        {
+            byte[][] inputs = new byte[count][];
+            for (int i = 0; i < count; ++i)
+            {
+                inputs[i] = randomData(lengths[random.nextInt(lengths.length)]);
+            }
+            check(multiDigest, digest, inputs);
+        }
+
+        // random lengths, so each group mixes messages of different block counts
+        byte[][] inputs = new byte[200][];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            inputs[i] = randomData(random.nextInt(600));
+        }
+        check(multiDigest, digest, inputs);
+
+        // the instance can be reused
+        check(multiDigest, digest, inputs);
+    }
+
+    private void check(MultiBufferDigest multiDigest, Digest digest, byte[][] inputs)
+    {
+        byte[][] outputs = new byte[inputs.length][multiDigest.getDigestSize()];
+        multiDigest.hashAll(inputs, outputs);
+
+        byte[] expected = new byte[digest.getDigestSize()];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            digest.update(inputs[i], 0, inputs[i].length);
+            digest.doFinal(expected, 0);
+
+            if (!Arrays.areEqual(expected, outputs[i]))
+            {
+                fail(multiDigest.getAlgorithmName() + " mismatch for message " + i + " of length " + inputs[i].length);
+            }
+        }
+    }
+
+    private void testOutputs(MultiBufferDigest digest)
+    {
+        digest.hashAll(new byte[0][], new byte[0][]);
+
+        byte[][] outputs = new byte[3][];
+        outputs[1] = new byte[digest.getDigestSize() + 5];
+        digest.hashAll(new byte[][]{ new byte[10], new byte[10], new byte[10] }, outputs);
+
+        isTrue(outputs[0] != null && outputs[0].length == digest.getDigestSize());
+        isTrue(Arrays.areEqual(outputs[0], Arrays.copyOf(outputs[1], digest.getDigestSize())));
+        isTrue(Arrays.areEqual(outputs[0], outputs[2]));
+
+        try
+        {
+            digest.hashAll(new byte[][]{ new byte[10] }, new byte[][]{ new byte[digest.getDigestSize() - 1] });
+            fail("short output not detected");
+        }
+        catch (OutputLengthException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            digest.hashAll(new byte[2][10], new byte[1][]);
+            fail("missing outputs not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private byte[] randomData(int length)
+    {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new MultiBufferDigestTest());
+    }
+}
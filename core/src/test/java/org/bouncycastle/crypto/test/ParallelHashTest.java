@@ -1,6 +1,11 @@
 package org.bouncycastle.crypto.test;
 
 
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.CryptoServicePurpose;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.ParallelHash;
 import org.bouncycastle.util.Arrays;
@@ -120,6 +125,92 @@ public void performTest()
 
         testEmpty();
         testClone();
+        testParallel();
+    }
+
+    private void testParallel()
+    {
+        SecureRandom random = new SecureRandom();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            int[] blockSizes = { 1, 12, 1000, 8192, 40000 };
+            for (int i = 0; i != blockSizes.length; i++)
+            {
+                int B = blockSizes[i];
+                byte[] S = Strings.toByteArray("Parallel Data");
+                byte[] data = new byte[random.nextInt(300000)];
+                random.nextBytes(data);
+
+                ParallelHash sequential = new ParallelHash(256, S, B);
+                ParallelHash parallel = new ParallelHash(256, S, B, 512, CryptoServicePurpose.ANY, executor, 3);
+
+                sequential.update(data, 0, data.length);
+                byte[] expected = new byte[sequential.getDigestSize()];
+                sequential.doFinal(expected, 0);
+
+                // feed the parallel digest in random pieces, cloning it part way through
+                ParallelHash copy = null;
+                int off = 0;
+                while (off < data.length)
+                {
+                    int len = Math.min(data.length - off, random.nextInt(3 * B + 1));
+                    if (len == 1)
+                    {
+                        parallel.update(data[off]);
+                    }
+                    else
+                    {
+                        parallel.update(data, off, len);
+                    }
+                    off += len;
+
+                    if (copy == null && off > data.length / 2)
+                    {
+                        copy = new ParallelHash(parallel);
+                        copy.update(data, off, data.length - off);
+                    }
+                }
+
+                byte[] res = new byte[parallel.getDigestSize()];
+                parallel.doFinal(res, 0);
+                isTrue("parallel mismatch B = " + B, Arrays.areEqual(expected, res));
+
+                if (copy != null)
+                {
+                    copy.doFinal(res, 0);
+                    isTrue("parallel clone mismatch B = " + B, Arrays.areEqual(expected, res));
+                }
+
+                // the digest is reset by doFinal
+                parallel.update(data, 0, data.length);
+                parallel.doFinal(res, 0);
+                isTrue("parallel reuse mismatch B = " + B, Arrays.areEqual(expected, res));
+            }
+
+            // an executor that rejects work still gives the right answer, hashing on the calling thread
+            ExecutorService stopped = Executors.newSingleThreadExecutor();
+            stopped.shutdown();
+
+            byte[] data = new byte[100000];
+            random.nextBytes(data);
+
+            ParallelHash sequential = new ParallelHash(128, null, 100);
+            ParallelHash parallel = new ParallelHash(128, null, 100, 256, CryptoServicePurpose.ANY, stopped, 2);
+
+            sequential.update(data, 0, data.length);
+            parallel.update(data, 0, data.length);
+
+            byte[] expected = new byte[64];
+            byte[] res = new byte[64];
+            sequential.doOutput(expected, 0, expected.length);
+            parallel.doOutput(res, 0, res.length);
+            isTrue("rejected parallel mismatch", Arrays.areEqual(expected, res));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
     }
 
     private void testEmpty()
@@ -112,6 +112,10 @@
             new CMacTest(),
             new EAXTest(),
             new GCMTest(),
+            new ByteBufferTest(),
+            new MultiBufferDigestTest(),
+            new MappedFileUtilTest(),
+            new EnginePoolTest(),
             new GMacTest(),
             new HCFamilyTest(),
             new HCFamilyVecTest(),
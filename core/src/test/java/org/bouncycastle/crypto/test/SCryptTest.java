@@ -4,6 +4,10 @@
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bouncycastle.crypto.generators.SCrypt;
 import org.bouncycastle.test.TestResourceFinder;
@@ -45,6 +49,16 @@ public void testParameters()
         checkIllegal("Parallelisation parameter must be < 65535 for r = 4", new byte[0], new byte[0], 2, 32, 65536, 1);
 
         checkIllegal("Len parameter must be > 1", new byte[0], new byte[0], 2, 1, 1, 0);
+
+        try
+        {
+            SCrypt.generate(new byte[0], new byte[0], 2, 1, 1, 1, null, -1);
+            fail("Memory limit must be >= 0");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
     }
 
 
@@ -166,6 +180,28 @@ private void checkIllegal(String msg, byte[] pass, byte[] salt, int N, int r, in
     public void testVectors()
         throws Exception
     {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            testVectors(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void testVectors(Executor executor)
+        throws Exception
+    {
+        Executor rejecting = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        };
+
         BufferedReader br = new BufferedReader(new InputStreamReader(
             TestResourceFinder.findTestResource("crypto", "SCryptTestVectors.txt")));
 
@@ -211,6 +247,16 @@ public void testVectors()
                 {
                     fail("Result does not match expected value in test case " + count);
                 }
+
+                result = SCrypt.generate(P, S, N, r, p, dkLen, executor, 0);
+                isTrue("parallel result does not match in test case " + count, areEqual(expected, result));
+
+                // room for two scratch buffers only
+                result = SCrypt.generate(P, S, N, r, p, dkLen, executor, 2L * 128 * r * N);
+                isTrue("limited result does not match in test case " + count, areEqual(expected, result));
+
+                result = SCrypt.generate(P, S, N, r, p, dkLen, rejecting, 0);
+                isTrue("rejected result does not match in test case " + count, areEqual(expected, result));
             }
         }
 
@@ -79,6 +79,50 @@ public void testEd25519Consistency()
         }
     }
     
+//    @Test
+    public void testEd25519BatchVerify()
+    {
+        int[] counts = new int[]{ 1, 2, 7, 33, 150 };
+        for (int c = 0; c < counts.length; ++c)
+        {
+            int count = counts[c];
+            byte[][] sigs = new byte[count][];
+            byte[][] pks = new byte[count][];
+            byte[][] ms = new byte[count][];
+
+            byte[] sk = new byte[Ed25519.SECRET_KEY_SIZE];
+            for (int i = 0; i < count; ++i)
+            {
+                Ed25519.generatePrivateKey(RANDOM, sk);
+
+                pks[i] = new byte[Ed25519.PUBLIC_KEY_SIZE];
+                Ed25519.generatePublicKey(sk, 0, pks[i], 0);
+
+                ms[i] = new byte[RANDOM.nextInt() & 255];
+                RANDOM.nextBytes(ms[i]);
+
+                sigs[i] = new byte[Ed25519.SIGNATURE_SIZE];
+                Ed25519.sign(sk, 0, ms[i], 0, ms[i].length, sigs[i], 0);
+            }
+
+            assertTrue("Ed25519 batch verify (" + count + ")", Ed25519.verifyBatch(RANDOM, count, sigs, pks, ms));
+
+            int bad = RANDOM.nextInt(count);
+            sigs[bad][Ed25519.SIGNATURE_SIZE - 1] ^= 0x01;
+
+            assertFalse("Ed25519 batch verification failure (" + count + ")",
+                Ed25519.verifyBatch(RANDOM, count, sigs, pks, ms));
+
+            sigs[bad][Ed25519.SIGNATURE_SIZE - 1] ^= 0x01;
+            pks[bad] = pks[(bad + 1) % count];
+
+            assertEquals("Ed25519 batch verification wrong key (" + count + ")", count == 1,
+                Ed25519.verifyBatch(RANDOM, count, sigs, pks, ms));
+        }
+
+        assertTrue(Ed25519.verifyBatch(RANDOM, 0, new byte[0][], new byte[0][], new byte[0][]));
+    }
+
 //    @Test
     public void testEd25519ctxConsistency()
     {
@@ -672,6 +716,46 @@ public void testTamingVector_11()
             "a5bb704786be79fc476f91d3f3f89b03984d8068dcf1bb7dfc6637b45450ac04");
     }
 
+    public void testTamingBatch()
+    {
+        // NOTE: Vectors 2 to 5 are accepted individually, and so must be as a batch (with cofactor clearing)
+        String[][] vectors = new String[][]{
+            { "aebf3f2601a0c8c5d39cc7d8911642f740b78168218da8471772b35f9d35b9ab",
+              "f7badec5b8abeaf699583992219b7b223f1df3fbbea919844e3f7c554a43dd43",
+              "c7176a703d4dd84fba3c0b760d10670f2a2053fa2c39ccc64ec7fd7792ac03fa" +
+              "8c4bd45aecaca5b24fb97bc10ac27ac8751a7dfe1baff8b953ec9f5833ca260e" },
+            { "9bd9f44f4dcc75bd531b56b2cd280b0bb38fc1cd6d1230e14861d861de092e79",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "9046a64750444938de19f227bb80485e92b83fdb4b6506c160484c016cc1852f" +
+              "87909e14428a7a1d62e9f22f3d3ad7802db02eb2e688b6c52fcd6648a98bd009" },
+            { "e47d62c63f830dc7a6851a0b1f33ae4bb2f507fb6cffec4011eaccd55b53f56c",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "160a1cb0dc9c0258cd0a7d23e94d8fa878bcb1925f2c64246b2dee1796bed512" +
+              "5ec6bc982a269b723e0668e540911a9a6a58921d6925e434ab10aa7940551a09" },
+            { "e47d62c63f830dc7a6851a0b1f33ae4bb2f507fb6cffec4011eaccd55b53f56c",
+              "cdb267ce40c5cd45306fa5d2f29731459387dbf9eb933b7bd5aed9a765b88d4d",
+              "21122a84e0b5fca4052f5b1235c80a537878b38f3142356b2c2384ebad4668b7" +
+              "e40bc836dac0f71076f9abe3a53f9c03c1ceeeddb658d0030494ace586687405" },
+        };
+
+        int count = vectors.length;
+        byte[][] ms = new byte[count][];
+        byte[][] pks = new byte[count][];
+        byte[][] sigs = new byte[count][];
+
+        for (int i = 0; i < count; ++i)
+        {
+            ms[i] = Hex.decodeStrict(vectors[i][0]);
+            pks[i] = Hex.decodeStrict(vectors[i][1]);
+            sigs[i] = Hex.decodeStrict(vectors[i][2]);
+        }
+
+        for (int trial = 0; trial < 16; ++trial)
+        {
+            assertTrue(Ed25519.verifyBatch(RANDOM, count, sigs, pks, ms));
+        }
+    }
+
     private static void implTamingVector(int number, boolean expected, String msgHex, String pubHex, String sigHex)
     {
         boolean actual = implTamingVector(msgHex, pubHex, sigHex);
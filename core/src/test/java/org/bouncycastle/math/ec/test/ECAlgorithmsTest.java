@@ -7,6 +7,8 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.Test;
 import junit.framework.TestCase;
@@ -43,6 +45,36 @@ public void testSumOfMultipliesComplete()
         }
     }
 
+    public void testSumOfMultipliesLarge()
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        assertNotNull(x9);
+        doTestSumOfMultipliesLarge(x9, null);
+
+        x9 = CustomNamedCurves.getByName("sect233k1");
+        assertNotNull(x9);
+        doTestSumOfMultipliesLarge(x9, null);
+    }
+
+    public void testSumOfMultipliesParallel()
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+            assertNotNull(x9);
+            doTestSumOfMultipliesLarge(x9, executor);
+
+            x9 = CustomNamedCurves.getByName("secp256k1");
+            assertNotNull(x9);
+            doTestSumOfMultipliesLarge(x9, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public void testSumOfTwoMultiplies()
     {
         X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
@@ -86,6 +118,41 @@ private void doTestSumOfMultiplies(X9ECParameters x9)
         }
     }
 
+    private void doTestSumOfMultipliesLarge(X9ECParameters x9, ExecutorService executor)
+    {
+        // enough points to use the bucket method, with some negative and zero scalars
+        int count = 300;
+
+        ECPoint[] points = new ECPoint[count];
+        BigInteger[] scalars = new BigInteger[count];
+
+        ECPoint u = x9.getCurve().getInfinity();
+        for (int i = 0; i < count; ++i)
+        {
+            points[i] = getRandomPoint(x9);
+            scalars[i] = getRandomScalar(x9);
+            if (i % 5 == 0)
+            {
+                scalars[i] = scalars[i].negate();
+            }
+            else if (i % 37 == 0)
+            {
+                scalars[i] = BigInteger.valueOf(0);
+            }
+
+            u = u.add(points[i].multiply(scalars[i]));
+        }
+
+        ECPoint v = executor == null
+            ? ECAlgorithms.sumOfMultiplies(points, scalars)
+            : ECAlgorithms.sumOfMultiplies(points, scalars, executor, 4);
+
+        ECPoint[] results = new ECPoint[]{ u, v };
+        x9.getCurve().normalizeAll(results);
+
+        assertPointsEqual("ECAlgorithms.sumOfMultiplies is incorrect", results[0], results[1]);
+    }
+
     private void doTestSumOfTwoMultiplies(X9ECParameters x9)
     {
         ECPoint p = getRandomPoint(x9);
@@ -52,6 +52,7 @@ public static Test suite()
         suite.addTestSuite(AllTests.SimpleTestTest.class);
         suite.addTestSuite(SLHDSATest.class);
         suite.addTestSuite(MayoTest.class);
+        suite.addTestSuite(StatefulKeyJournalTest.class);
 
         return new BCTestSetup(suite);
     }
@@ -13,6 +13,7 @@
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyGenerationParameters;
 import org.bouncycastle.pqc.crypto.mldsa.MLDSAKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.mldsa.MLDSAMatrixCache;
 import org.bouncycastle.pqc.crypto.mldsa.MLDSAParameters;
 import org.bouncycastle.pqc.crypto.mldsa.MLDSAPrivateKeyParameters;
 import org.bouncycastle.pqc.crypto.mldsa.MLDSAPublicKeyParameters;
@@ -91,6 +92,73 @@ public void testConsistency() throws Exception
         }
     }
 
+    public void testPrecomputedMatrix() throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+
+        MLDSAKeyPairGenerator kpg = new MLDSAKeyPairGenerator();
+        MLDSAMatrixCache cache = new MLDSAMatrixCache(2);
+
+        for (int idx = 0; idx != PARAMETER_SETS.length; idx++)
+        {
+            MLDSAParameters parameters = PARAMETER_SETS[idx];
+            kpg.init(new MLDSAKeyGenerationParameters(random, parameters));
+
+            AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+            MLDSAPrivateKeyParameters privKey = (MLDSAPrivateKeyParameters)kp.getPrivate();
+            MLDSAPublicKeyParameters pubKey = (MLDSAPublicKeyParameters)kp.getPublic();
+
+            MLDSAPrivateKeyParameters precompPrivKey = privKey.withPrecomputedMatrix();
+            MLDSAPublicKeyParameters precompPubKey = pubKey.withPrecomputedMatrix();
+
+            assertFalse(privKey.hasPrecomputedMatrix());
+            assertTrue(precompPrivKey.hasPrecomputedMatrix());
+            assertTrue(precompPubKey.hasPrecomputedMatrix());
+            assertTrue(precompPrivKey.getPublicKeyParameters().hasPrecomputedMatrix());
+            assertTrue(Arrays.areEqual(pubKey.getEncoded(), precompPubKey.getEncoded()));
+            assertTrue(Arrays.areEqual(privKey.getEncoded(), precompPrivKey.getEncoded()));
+
+            byte[] msg = new byte[64];
+            random.nextBytes(msg);
+
+            // deterministic signing, so all three routes must produce the same signature.
+            MLDSASigner signer = new MLDSASigner();
+            signer.init(true, privKey);
+            signer.update(msg, 0, msg.length);
+            byte[] signature = signer.generateSignature();
+
+            signer.init(true, precompPrivKey);
+            signer.update(msg, 0, msg.length);
+            assertTrue(Arrays.areEqual(signature, signer.generateSignature()));
+
+            MLDSASigner cachedSigner = new MLDSASigner(cache);
+            for (int i = 0; i < 2; ++i)
+            {
+                cachedSigner.init(true, privKey);
+                cachedSigner.update(msg, 0, msg.length);
+                assertTrue(Arrays.areEqual(signature, cachedSigner.generateSignature()));
+
+                cachedSigner.init(false, pubKey);
+                cachedSigner.update(msg, 0, msg.length);
+                assertTrue(cachedSigner.verifySignature(signature));
+            }
+
+            signer.init(false, precompPubKey);
+            signer.update(msg, 0, msg.length);
+            assertTrue(signer.verifySignature(signature));
+
+            signature[signature.length - 1] ^= 1;
+            signer.init(false, precompPubKey);
+            signer.update(msg, 0, msg.length);
+            assertFalse(signer.verifySignature(signature));
+
+            assertEquals(Math.min(idx + 1, cache.getMaxSize()), cache.size());
+        }
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
     public void testKeyGen()
         throws IOException
     {
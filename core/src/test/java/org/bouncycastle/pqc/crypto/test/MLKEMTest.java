@@ -492,6 +492,55 @@ public void testMLKEM()
         assertTrue(Arrays.areEqual(Hex.decode(expectedSharedSecret), decryptedSharedSecret));
     }
 
+    public void testPrecomputedMatrix()
+    {
+        SecureRandom random = new SecureRandom();
+        MLKEMParameters[] parameterSets = { MLKEMParameters.ml_kem_512, MLKEMParameters.ml_kem_768, MLKEMParameters.ml_kem_1024 };
+
+        for (int i = 0; i != parameterSets.length; i++)
+        {
+            MLKEMKeyPairGenerator keyGen = new MLKEMKeyPairGenerator();
+            keyGen.init(new MLKEMKeyGenerationParameters(random, parameterSets[i]));
+
+            AsymmetricCipherKeyPair keyPair = keyGen.generateKeyPair();
+            MLKEMPublicKeyParameters pubKey = (MLKEMPublicKeyParameters)keyPair.getPublic();
+            MLKEMPrivateKeyParameters privKey = (MLKEMPrivateKeyParameters)keyPair.getPrivate();
+
+            MLKEMPublicKeyParameters precompPubKey = pubKey.withPrecomputedMatrix();
+            MLKEMPrivateKeyParameters precompPrivKey = privKey.withPrecomputedMatrix();
+
+            assertFalse(pubKey.hasPrecomputedMatrix());
+            assertTrue(precompPubKey.hasPrecomputedMatrix());
+            assertTrue(precompPrivKey.hasPrecomputedMatrix());
+            assertTrue(precompPrivKey.getPublicKeyParameters().hasPrecomputedMatrix());
+            assertTrue(Arrays.areEqual(pubKey.getEncoded(), precompPubKey.getEncoded()));
+            assertTrue(Arrays.areEqual(privKey.getEncoded(), precompPrivKey.getEncoded()));
+
+            MLKEMGenerator kemGen = new MLKEMGenerator(random);
+            MLKEMExtractor kemExtract = new MLKEMExtractor(privKey);
+            MLKEMExtractor precompKemExtract = new MLKEMExtractor(precompPrivKey);
+
+            for (int j = 0; j != 10; j++)
+            {
+                byte[] m = new byte[32];
+                random.nextBytes(m);
+
+                SecretWithEncapsulation secretEncap = kemGen.internalGenerateEncapsulated(pubKey, m);
+                SecretWithEncapsulation precompSecretEncap = kemGen.internalGenerateEncapsulated(precompPubKey, m);
+
+                assertTrue(Arrays.areEqual(secretEncap.getSecret(), precompSecretEncap.getSecret()));
+                assertTrue(Arrays.areEqual(secretEncap.getEncapsulation(), precompSecretEncap.getEncapsulation()));
+
+                byte[] encapsulation = precompSecretEncap.getEncapsulation();
+                assertTrue(Arrays.areEqual(secretEncap.getSecret(), precompKemExtract.extractSecret(encapsulation)));
+
+                // implicit rejection must also agree
+                encapsulation[0] ^= 1;
+                assertTrue(Arrays.areEqual(kemExtract.extractSecret(encapsulation), precompKemExtract.extractSecret(encapsulation)));
+            }
+        }
+    }
+
     public void testRNG()
     {
         String temp = "061550234D158C5EC95595FE04EF7A25767F2E24CC2BC479D09D86DC9ABCFDE7056A8C266F9EF97ED08541DBD2E1FFA1";
@@ -7,6 +7,8 @@
 import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import junit.framework.TestCase;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
@@ -24,6 +26,7 @@
 import org.bouncycastle.test.TestResourceFinder;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.FixedSecureRandom;
 
 public class SLHDSATest
     extends TestCase
@@ -98,6 +101,91 @@ public void testConsistency()
         }
     }
 
+    public void testParallel()
+    {
+        SecureRandom random = new SecureRandom();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+
+        try
+        {
+            SLHDSAParameters[] parameterSets = { SLHDSAParameters.sha2_128f, SLHDSAParameters.shake_192f,
+                SLHDSAParameters.sha2_256f };
+
+            for (int idx = 0; idx != parameterSets.length; idx++)
+            {
+                SLHDSAParameters parameters = parameterSets[idx];
+
+                byte[] seed = new byte[96];
+                random.nextBytes(seed);
+
+                SLHDSAKeyPairGenerator kpg = new SLHDSAKeyPairGenerator();
+                kpg.init(new SLHDSAKeyGenerationParameters(new FixedSecureRandom(seed), parameters));
+                AsymmetricCipherKeyPair kp = kpg.generateKeyPair();
+
+                kpg.init(new SLHDSAKeyGenerationParameters(new FixedSecureRandom(seed), parameters, executor, 4));
+                AsymmetricCipherKeyPair parallelKp = kpg.generateKeyPair();
+                assertTrue(Arrays.areEqual(((SLHDSAPublicKeyParameters)kp.getPublic()).getEncoded(),
+                    ((SLHDSAPublicKeyParameters)parallelKp.getPublic()).getEncoded()));
+
+                byte[] msg = new byte[random.nextInt(257)];
+                random.nextBytes(msg);
+
+                // without a SecureRandom signing is deterministic, so every signer must agree
+                SLHDSASigner signer = new SLHDSASigner();
+                signer.init(true, kp.getPrivate());
+                byte[] expected = signer.generateSignature(msg);
+
+                SLHDSASigner[] signers = { new SLHDSASigner(executor, 4), new SLHDSASigner(null, 1, true),
+                    new SLHDSASigner(executor, 2, true), new SLHDSASigner(shutDown, 2, true) };
+                for (int i = 0; i != signers.length; i++)
+                {
+                    signers[i].init(true, kp.getPrivate());
+                    assertTrue(Arrays.areEqual(expected, signers[i].generateSignature(msg)));
+                    // a second signature reuses any cached top layer
+                    assertTrue(Arrays.areEqual(expected, signers[i].generateSignature(msg)));
+                }
+
+                signer.init(false, kp.getPublic());
+                assertTrue(signer.verifySignature(msg, expected));
+
+                // a randomized parallel signature must verify too
+                SLHDSASigner parallelSigner = new SLHDSASigner(executor, 4, true);
+                parallelSigner.init(true, new ParametersWithRandom(kp.getPrivate(), random));
+                assertTrue(signer.verifySignature(msg, parallelSigner.generateSignature(msg)));
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public void testTopLayerCacheKeyMismatch()
+    {
+        SLHDSAKeyPairGenerator kpg = new SLHDSAKeyPairGenerator();
+        kpg.init(new SLHDSAKeyGenerationParameters(new SecureRandom(), SLHDSAParameters.sha2_128f));
+        SLHDSAPrivateKeyParameters privKey = (SLHDSAPrivateKeyParameters)kpg.generateKeyPair().getPrivate();
+
+        byte[] root = privKey.getRoot();
+        root[0] ^= 1;
+        SLHDSAPrivateKeyParameters badKey = new SLHDSAPrivateKeyParameters(SLHDSAParameters.sha2_128f,
+            privKey.getSeed(), privKey.getPrf(), privKey.getPublicSeed(), root);
+
+        SLHDSASigner signer = new SLHDSASigner(null, 1, true);
+        signer.init(true, badKey);
+        try
+        {
+            signer.generateSignature(new byte[10]);
+            fail("no exception");
+        }
+        catch (IllegalStateException e)
+        {
+            assertEquals("private key does not match its public root", e.getMessage());
+        }
+    }
+
     public void testKeyGenSingleFile() throws IOException
     {
         InputStream src = TestResourceFinder.findTestResource("pqc/crypto/slhdsa/", "SLH-DSA-keyGen.txt");
@@ -0,0 +1,296 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.pqc.crypto.ExhaustedPrivateKeyException;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.lms.HSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.lms.HSSSigner;
+import org.bouncycastle.pqc.crypto.lms.LMOtsParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSParameters;
+import org.bouncycastle.pqc.crypto.lms.LMSigParameters;
+import org.bouncycastle.pqc.crypto.util.StatefulKeyJournal;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.xmss.XMSSMTSigner;
+import org.bouncycastle.util.Strings;
+
+public class StatefulKeyJournalTest
+    extends TestCase
+{
+    private static final byte[] msg = Strings.toByteArray("Hello, world!");
+
+    private File file;
+
+    public void setUp()
+        throws Exception
+    {
+        file = File.createTempFile("bckj", ".jnl");
+        file.delete();
+    }
+
+    public void tearDown()
+    {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+        new File(file.getPath() + ".old").delete();
+    }
+
+    public void testXMSSMTReserveAndRecover()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateXMSSMT();
+
+        StatefulKeyJournal journal = StatefulKeyJournal.create(file, kp.getPrivate(), 10);
+        assertEquals(64, journal.getUsagesRemaining());
+
+        XMSSMTPrivateKeyParameters shard1 = (XMSSMTPrivateKeyParameters)journal.reserve(3);
+        XMSSMTPrivateKeyParameters shard2 = (XMSSMTPrivateKeyParameters)journal.reserve(4);
+        assertEquals(0, shard1.getIndex());
+        assertEquals(3, shard1.getUsagesRemaining());
+        assertEquals(3, shard2.getIndex());
+        assertEquals(57, journal.getUsagesRemaining());
+
+        signAndVerify(shard2, kp);
+
+        // reopening without closing, as after a crash, skips the rest of the reserved batch
+        journal = StatefulKeyJournal.open(file, 10);
+        assertEquals(54, journal.getUsagesRemaining());
+
+        XMSSMTPrivateKeyParameters shard3 = (XMSSMTPrivateKeyParameters)journal.reserve(15);
+        assertEquals(10, shard3.getIndex());
+        signAndVerify(shard3, kp);
+        journal.close();
+
+        journal = StatefulKeyJournal.open(file, 10);
+        assertEquals(39, journal.getUsagesRemaining());
+
+        try
+        {
+            journal.reserve(40);
+            fail("no exception");
+        }
+        catch (ExhaustedPrivateKeyException e)
+        {
+            assertEquals("fewer than 40 usages remaining", e.getMessage());
+        }
+
+        // the last batch is cut short by the end of the key
+        XMSSMTPrivateKeyParameters last = (XMSSMTPrivateKeyParameters)journal.reserve(39);
+        assertEquals(25, last.getIndex());
+        assertEquals(0, journal.getUsagesRemaining());
+        journal.close();
+
+        journal = StatefulKeyJournal.open(file, 10);
+        assertEquals(0, journal.getUsagesRemaining());
+        journal.close();
+    }
+
+    public void testTornRecord()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateXMSSMT();
+
+        StatefulKeyJournal journal = StatefulKeyJournal.create(file, kp.getPrivate(), 5);
+        journal.reserve(1);
+        journal.reserve(5);
+        journal.close();
+
+        // damage the second record, as if the crash came before it reached the disk
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        long secondRecord = raf.length() - 4096 * 16 + 16;
+        raf.seek(secondRecord);
+        raf.writeLong(12345);
+        raf.close();
+
+        journal = StatefulKeyJournal.open(file, 5);
+        assertEquals(59, journal.getUsagesRemaining());
+
+        // the damaged record is overwritten by the next reservation
+        assertEquals(5, ((XMSSMTPrivateKeyParameters)journal.reserve(1)).getIndex());
+        journal.close();
+
+        journal = StatefulKeyJournal.open(file, 5);
+        assertEquals(54, journal.getUsagesRemaining());
+        journal.close();
+    }
+
+    public void testCheckpoint()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateHSS();
+
+        StatefulKeyJournal journal = StatefulKeyJournal.create(file, kp.getPrivate(), 1, 2);
+        long total = journal.getUsagesRemaining();
+
+        for (int i = 0; i != 7; i++)
+        {
+            HSSPrivateKeyParameters shard = (HSSPrivateKeyParameters)journal.reserve(1);
+            assertEquals(i, shard.getIndex());
+        }
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+
+        HSSPrivateKeyParameters shard = (HSSPrivateKeyParameters)journal.reserve(2);
+        signAndVerify(shard, kp);
+
+        journal = StatefulKeyJournal.open(file, 1);
+        assertEquals(total - 9, journal.getUsagesRemaining());
+        shard = (HSSPrivateKeyParameters)journal.reserve(1);
+        assertEquals(9, shard.getIndex());
+        signAndVerify(shard, kp);
+        journal.close();
+    }
+
+    public void testInterruptedReplacement()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateXMSSMT();
+
+        StatefulKeyJournal journal = StatefulKeyJournal.create(file, kp.getPrivate(), 5);
+        journal.reserve(7);
+        journal.close();
+
+        // as if a crash came between moving the original aside and renaming the new checkpoint into place
+        File tmpFile = new File(file.getPath() + ".tmp");
+        File oldFile = new File(file.getPath() + ".old");
+        assertTrue(file.renameTo(tmpFile));
+        assertTrue(oldFile.createNewFile());
+
+        journal = StatefulKeyJournal.open(file, 5);
+        assertEquals(57, journal.getUsagesRemaining());
+        assertFalse(tmpFile.exists());
+        assertFalse(oldFile.exists());
+        journal.close();
+    }
+
+    public void testConcurrentReservations()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateXMSSMT();
+
+        final StatefulKeyJournal journal = StatefulKeyJournal.create(file, kp.getPrivate(), 8);
+        final List<Long> indices = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i != 4; i++)
+                        {
+                            XMSSMTPrivateKeyParameters shard = (XMSSMTPrivateKeyParameters)journal.reserve(3);
+                            for (int j = 0; j != 3; j++)
+                            {
+                                indices.add(Long.valueOf(shard.getIndex() + j));
+                            }
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+        journal.close();
+
+        assertTrue(failures.isEmpty());
+
+        // every index handed out exactly once
+        Collections.sort(indices);
+        assertEquals(48, indices.size());
+        for (int i = 0; i != indices.size(); i++)
+        {
+            assertEquals(i, indices.get(i).longValue());
+        }
+    }
+
+    public void testBadFiles()
+        throws Exception
+    {
+        AsymmetricCipherKeyPair kp = generateXMSSMT();
+
+        StatefulKeyJournal.create(file, kp.getPrivate(), 1).close();
+        try
+        {
+            StatefulKeyJournal.create(file, kp.getPrivate(), 1);
+            fail("no exception");
+        }
+        catch (java.io.IOException e)
+        {
+            assertTrue(e.getMessage().startsWith("journal file already exists"));
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 1);
+        raf.close();
+        try
+        {
+            StatefulKeyJournal.open(file, 1);
+            fail("no exception");
+        }
+        catch (java.io.IOException e)
+        {
+            assertEquals("truncated key journal", e.getMessage());
+        }
+    }
+
+    private static AsymmetricCipherKeyPair generateXMSSMT()
+    {
+        XMSSMTKeyPairGenerator kpGen = new XMSSMTKeyPairGenerator();
+        kpGen.init(new XMSSMTKeyGenerationParameters(new XMSSMTParameters(6, 2, new SHA256Digest()),
+            new SecureRandom()));
+        return kpGen.generateKeyPair();
+    }
+
+    private static AsymmetricCipherKeyPair generateHSS()
+    {
+        HSSKeyPairGenerator kpGen = new HSSKeyPairGenerator();
+        kpGen.init(new HSSKeyGenerationParameters(new LMSParameters[]{
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4),
+            new LMSParameters(LMSigParameters.lms_sha256_n32_h5, LMOtsParameters.sha256_n32_w4)
+        }, new SecureRandom()));
+        return kpGen.generateKeyPair();
+    }
+
+    private static void signAndVerify(XMSSMTPrivateKeyParameters shard, AsymmetricCipherKeyPair kp)
+    {
+        XMSSMTSigner signer = new XMSSMTSigner();
+        signer.init(true, shard);
+        byte[] sig = signer.generateSignature(msg);
+
+        signer.init(false, kp.getPublic());
+        assertTrue(signer.verifySignature(msg, sig));
+    }
+
+    private static void signAndVerify(HSSPrivateKeyParameters shard, AsymmetricCipherKeyPair kp)
+    {
+        HSSSigner signer = new HSSSigner();
+        signer.init(true, shard);
+        byte[] sig = signer.generateSignature(msg);
+
+        signer.init(false, kp.getPublic());
+        assertTrue(signer.verifySignature(msg, sig));
+    }
+}
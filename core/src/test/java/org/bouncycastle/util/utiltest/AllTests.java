@@ -19,6 +19,7 @@ public static Test suite()
         suite.addTestSuite(IPTest.class);
         suite.addTestSuite(BigIntegersTest.class);
         suite.addTestSuite(ArraysTest.class);
+        suite.addTestSuite(JoinableTaskTest.class);
         return new BCTestSetup(suite);
     }
 
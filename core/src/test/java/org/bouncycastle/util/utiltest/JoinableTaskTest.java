@@ -0,0 +1,171 @@
+package org.bouncycastle.util.utiltest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.util.JoinableTask;
+
+import junit.framework.TestCase;
+
+public class JoinableTaskTest
+    extends TestCase
+{
+    public void testRejectedTaskRunsOnJoin()
+    {
+        CountingTask task = new CountingTask(null);
+        task.fork(new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        assertEquals(0, task.runs.get());
+        assertNull(task.join());
+        assertEquals(1, task.runs.get());
+        assertEquals(Thread.currentThread(), task.thread);
+
+        // joining again does not run it again
+        assertNull(task.join());
+        assertEquals(1, task.runs.get());
+    }
+
+    public void testFailureAndCancel()
+    {
+        RuntimeException failure = new IllegalArgumentException("failed");
+        CountingTask task = new CountingTask(failure);
+        assertSame(failure, task.join());
+
+        task = new CountingTask(null);
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        assertTrue(task.join() instanceof CancellationException);
+        assertEquals(0, task.runs.get());
+    }
+
+    public void testJoinAllWaitsForEveryTask()
+        throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger completed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            List<JoinableTask> tasks = new ArrayList<JoinableTask>();
+
+            // a slow task on the executor, after which one fails on the calling thread
+            JoinableTask slow = new JoinableTask()
+            {
+                protected void compute()
+                    throws Exception
+                {
+                    release.await();
+                    completed.incrementAndGet();
+                }
+            };
+            tasks.add(slow);
+            slow.fork(executor);
+
+            final IllegalStateException failure = new IllegalStateException("failed");
+            tasks.add(new JoinableTask()
+            {
+                protected void compute()
+                {
+                    release.countDown();
+                    throw failure;
+                }
+            });
+
+            assertSame(failure, JoinableTask.joinAll(tasks));
+            assertEquals(1, completed.get());
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testInterruptDeferred()
+        throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            JoinableTask task = new JoinableTask()
+            {
+                protected void compute()
+                    throws Exception
+                {
+                    started.countDown();
+                    release.await();
+                }
+            };
+            task.fork(executor);
+            started.await();
+
+            Thread.currentThread().interrupt();
+            new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Thread.sleep(100);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        // ignore
+                    }
+                    release.countDown();
+                }
+            }.start();
+
+            assertNull(task.join());
+            assertEquals(0, release.getCount());
+            assertTrue(Thread.interrupted());
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static class CountingTask
+        extends JoinableTask
+    {
+        final AtomicInteger runs = new AtomicInteger();
+        final RuntimeException failure;
+
+        volatile Thread thread;
+
+        CountingTask(RuntimeException failure)
+        {
+            this.failure = failure;
+        }
+
+        protected void compute()
+        {
+            runs.incrementAndGet();
+            thread = Thread.currentThread();
+            if (failure != null)
+            {
+                throw failure;
+            }
+        }
+    }
+}
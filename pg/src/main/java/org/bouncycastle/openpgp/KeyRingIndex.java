@@ -0,0 +1,288 @@
+package org.bouncycastle.openpgp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bouncycastle.bcpg.KeyIdentifier;
+import org.bouncycastle.util.Longs;
+import org.bouncycastle.util.Strings;
+
+/**
+ * Lookup tables for a public key ring collection, mapping key IDs to the rings holding them, signer key IDs to the
+ * keys carrying their signatures, and user IDs and email addresses to rings.
+ * <p>
+ * An index is not changed once built, with() and without() return updated copies which share the unaffected lists
+ * with the original.
+ * </p>
+ */
+class KeyRingIndex
+{
+    private final Map<Long, List<PGPPublicKeyRing>> ringsByKeyID;
+    private final Map<Long, List<PGPPublicKey>> keysBySigner;
+    private final Map<String, List<PGPPublicKeyRing>> ringsByUserID;
+    private final Map<String, List<PGPPublicKeyRing>> ringsByLowerCaseUserID;
+    private final Map<String, List<PGPPublicKeyRing>> ringsByEmail;
+
+    // true if the lists in the maps are shared with another index, so need copying before change
+    private final boolean shared;
+
+    private KeyRingIndex()
+    {
+        this.ringsByKeyID = new HashMap<Long, List<PGPPublicKeyRing>>();
+        this.keysBySigner = new HashMap<Long, List<PGPPublicKey>>();
+        this.ringsByUserID = new HashMap<String, List<PGPPublicKeyRing>>();
+        this.ringsByLowerCaseUserID = new HashMap<String, List<PGPPublicKeyRing>>();
+        this.ringsByEmail = new HashMap<String, List<PGPPublicKeyRing>>();
+        this.shared = false;
+    }
+
+    private KeyRingIndex(KeyRingIndex other)
+    {
+        this.ringsByKeyID = new HashMap<Long, List<PGPPublicKeyRing>>(other.ringsByKeyID);
+        this.keysBySigner = new HashMap<Long, List<PGPPublicKey>>(other.keysBySigner);
+        this.ringsByUserID = new HashMap<String, List<PGPPublicKeyRing>>(other.ringsByUserID);
+        this.ringsByLowerCaseUserID = new HashMap<String, List<PGPPublicKeyRing>>(other.ringsByLowerCaseUserID);
+        this.ringsByEmail = new HashMap<String, List<PGPPublicKeyRing>>(other.ringsByEmail);
+        this.shared = true;
+    }
+
+    static KeyRingIndex build(Iterator<PGPPublicKeyRing> rings)
+    {
+        KeyRingIndex index = new KeyRingIndex();
+
+        while (rings.hasNext())
+        {
+            index.add(rings.next());
+        }
+
+        return index;
+    }
+
+    KeyRingIndex with(PGPPublicKeyRing ring)
+    {
+        KeyRingIndex index = new KeyRingIndex(this);
+
+        index.add(ring);
+
+        return index;
+    }
+
+    KeyRingIndex without(PGPPublicKeyRing ring)
+    {
+        KeyRingIndex index = new KeyRingIndex(this);
+
+        index.remove(ring);
+
+        return index;
+    }
+
+    /**
+     * Return the rings containing a key with the passed in key ID.
+     */
+    List<PGPPublicKeyRing> getRings(long keyID)
+    {
+        return get(ringsByKeyID, Longs.valueOf(keyID));
+    }
+
+    /**
+     * Return the keys carrying a signature naming keyID as its issuer, either by key ID or by a fingerprint from
+     * which keyID is derived. Callers need to check the signatures for an exact match.
+     */
+    List<PGPPublicKey> getSignedKeys(long keyID)
+    {
+        return get(keysBySigner, Longs.valueOf(keyID));
+    }
+
+    List<PGPPublicKeyRing> getRingsByUserID(String userID, boolean ignoreCase)
+    {
+        if (ignoreCase)
+        {
+            return get(ringsByLowerCaseUserID, Strings.toLowerCase(userID));
+        }
+
+        return get(ringsByUserID, userID);
+    }
+
+    List<PGPPublicKeyRing> getRingsByEmail(String email)
+    {
+        return get(ringsByEmail, Strings.toLowerCase(email.trim()));
+    }
+
+    /**
+     * Return the email address in a user ID, either the part in angle brackets or the whole ID if it looks like a
+     * bare address, in lower case. Null if there isn't one.
+     */
+    static String getEmail(String userID)
+    {
+        String email;
+
+        int start = userID.lastIndexOf('<');
+        int end = userID.lastIndexOf('>');
+        if (start >= 0 && end > start)
+        {
+            email = userID.substring(start + 1, end).trim();
+        }
+        else
+        {
+            email = userID.trim();
+            if (email.indexOf(' ') >= 0)
+            {
+                return null;
+            }
+        }
+
+        if (email.indexOf('@') <= 0)
+        {
+            return null;
+        }
+
+        return Strings.toLowerCase(email);
+    }
+
+    private void add(PGPPublicKeyRing ring)
+    {
+        for (Iterator<PGPPublicKey> keyIt = ring.getPublicKeys(); keyIt.hasNext();)
+        {
+            PGPPublicKey key = keyIt.next();
+
+            put(ringsByKeyID, Longs.valueOf(key.getKeyID()), ring);
+
+            for (Iterator<Long> signerIt = getSigners(key).iterator(); signerIt.hasNext();)
+            {
+                put(keysBySigner, signerIt.next(), key);
+            }
+        }
+
+        // a ring is listed once for each user ID, as a linear search would find it, but only once for an address
+        Set<String> emails = new HashSet<String>();
+        for (Iterator<String> idIt = ring.getPublicKey().getUserIDs(); idIt.hasNext();)
+        {
+            String userID = idIt.next();
+
+            put(ringsByUserID, userID, ring);
+            put(ringsByLowerCaseUserID, Strings.toLowerCase(userID), ring);
+
+            String email = getEmail(userID);
+            if (email != null && emails.add(email))
+            {
+                put(ringsByEmail, email, ring);
+            }
+        }
+    }
+
+    private void remove(PGPPublicKeyRing ring)
+    {
+        for (Iterator<PGPPublicKey> keyIt = ring.getPublicKeys(); keyIt.hasNext();)
+        {
+            PGPPublicKey key = keyIt.next();
+
+            remove(ringsByKeyID, Longs.valueOf(key.getKeyID()), ring);
+
+            for (Iterator<Long> signerIt = getSigners(key).iterator(); signerIt.hasNext();)
+            {
+                remove(keysBySigner, signerIt.next(), key);
+            }
+        }
+
+        for (Iterator<String> idIt = ring.getPublicKey().getUserIDs(); idIt.hasNext();)
+        {
+            String userID = idIt.next();
+
+            remove(ringsByUserID, userID, ring);
+            remove(ringsByLowerCaseUserID, Strings.toLowerCase(userID), ring);
+
+            String email = getEmail(userID);
+            if (email != null)
+            {
+                remove(ringsByEmail, email, ring);
+            }
+        }
+    }
+
+    private static Set<Long> getSigners(PGPPublicKey key)
+    {
+        Set<Long> signers = new HashSet<Long>();
+
+        for (Iterator<PGPSignature> sigIt = key.getSignatures(); sigIt.hasNext();)
+        {
+            PGPSignature sig = sigIt.next();
+
+            if (sig.getKeyID() != 0)
+            {
+                signers.add(Longs.valueOf(sig.getKeyID()));
+            }
+
+            for (Iterator<KeyIdentifier> idIt = sig.getKeyIdentifiers().iterator(); idIt.hasNext();)
+            {
+                long keyID = idIt.next().getKeyId();
+                if (keyID != 0)
+                {
+                    signers.add(Longs.valueOf(keyID));
+                }
+            }
+        }
+
+        return signers;
+    }
+
+    private <K, V> void put(Map<K, List<V>> map, K key, V value)
+    {
+        List<V> list = map.get(key);
+        if (list == null)
+        {
+            list = new ArrayList<V>(1);
+        }
+        else if (shared)
+        {
+            list = new ArrayList<V>(list);
+        }
+
+        list.add(value);
+        map.put(key, list);
+    }
+
+    private static <K, V> void remove(Map<K, List<V>> map, K key, V value)
+    {
+        List<V> list = map.get(key);
+        if (list == null)
+        {
+            return;
+        }
+
+        // always a copy, the list may be in use by another index
+        List<V> kept = new ArrayList<V>(list.size());
+        for (int i = 0; i != list.size(); i++)
+        {
+            if (list.get(i) != value)
+            {
+                kept.add(list.get(i));
+            }
+        }
+
+        if (kept.isEmpty())
+        {
+            map.remove(key);
+        }
+        else
+        {
+            map.put(key, kept);
+        }
+    }
+
+    private static <K, V> List<V> get(Map<K, List<V>> map, K key)
+    {
+        List<V> list = map.get(key);
+        if (list == null)
+        {
+            return Collections.emptyList();
+        }
+
+        return Collections.unmodifiableList(list);
+    }
+}
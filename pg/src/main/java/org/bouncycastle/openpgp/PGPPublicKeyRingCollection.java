@@ -8,11 +8,13 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.bcpg.KeyIdentifier;
 import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
 import org.bouncycastle.util.Iterable;
 import org.bouncycastle.util.Longs;
@@ -21,6 +23,12 @@
 /**
  * Often a PGP key ring file is made up of a succession of master/sub-key key rings.
  * If you want to read an entire public key file in one hit this is the class for you.
+ * <p>
+ * Lookups by key ID, fingerprint, signer and exact user ID or email address use an index which is built the first
+ * time one of them is made, so a collection which is only iterated over never pays for it. Collections returned by
+ * addPublicKeyRing() and removePublicKeyRing() update the index of the collection they were made from, if it has one,
+ * rather than building their own.
+ * </p>
  */
 public class PGPPublicKeyRingCollection
     implements Iterable<PGPPublicKeyRing>
@@ -28,12 +36,16 @@
     private Map<Long, PGPPublicKeyRing> pubRings = new HashMap<Long, PGPPublicKeyRing>();
     private List<Long> order = new ArrayList<Long>();
 
+    private volatile KeyRingIndex index;
+
     private PGPPublicKeyRingCollection(
         Map<Long, PGPPublicKeyRing> pubRings,
-        List<Long> order)
+        List<Long> order,
+        KeyRingIndex index)
     {
         this.pubRings = pubRings;
         this.order = order;
+        this.index = index;
     }
 
     public PGPPublicKeyRingCollection(
@@ -154,6 +166,11 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
         boolean matchPartial,
         boolean ignoreCase)
     {
+        if (!matchPartial)
+        {
+            return getIndex().getRingsByUserID(userID, ignoreCase).iterator();
+        }
+
         Iterator<PGPPublicKeyRing> it = this.getKeyRings();
         List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>();
 
@@ -175,19 +192,9 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
                     next = Strings.toLowerCase(next);
                 }
 
-                if (matchPartial)
-                {
-                    if (next.indexOf(userID) >= 0)
-                    {
-                        rings.add(pubRing);
-                    }
-                }
-                else
+                if (next.indexOf(userID) >= 0)
                 {
-                    if (next.equals(userID))
-                    {
-                        rings.add(pubRing);
-                    }
+                    rings.add(pubRing);
                 }
             }
         }
@@ -195,6 +202,20 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
         return rings.iterator();
     }
 
+    /**
+     * Return an iterator of the key rings with a user ID for the passed in email address. The address is either
+     * the part of a user ID in angle brackets, or the whole user ID if it is a bare address, and is compared
+     * ignoring case.
+     *
+     * @param email the email address to be matched.
+     * @return an iterator (possibly empty) of key rings which matched.
+     */
+    public Iterator<PGPPublicKeyRing> getKeyRingsByEmail(
+        String email)
+    {
+        return getIndex().getRingsByEmail(email).iterator();
+    }
+
     /**
      * Return the PGP public key associated with the given key id.
      *
@@ -204,7 +225,7 @@ public Iterator<PGPPublicKeyRing> getKeyRings(
     public PGPPublicKey getPublicKey(
         long keyID)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = getIndex().getRings(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -236,7 +257,7 @@ public PGPPublicKeyRing getPublicKeyRing(
             return (PGPPublicKeyRing)pubRings.get(id);
         }
 
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = getIndex().getRings(keyID).iterator();
 
         while (it.hasNext())
         {
@@ -261,7 +282,7 @@ public PGPPublicKeyRing getPublicKeyRing(
     public PGPPublicKey getPublicKey(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = getCandidateRings(fingerprint);
 
         while (it.hasNext())
         {
@@ -286,7 +307,7 @@ public PGPPublicKey getPublicKey(
     public PGPPublicKeyRing getPublicKeyRing(
         byte[] fingerprint)
     {
-        Iterator<PGPPublicKeyRing> it = this.getKeyRings();
+        Iterator<PGPPublicKeyRing> it = getCandidateRings(fingerprint);
 
         while (it.hasNext())
         {
@@ -312,13 +333,69 @@ public Iterator<PGPPublicKey> getKeysWithSignaturesBy(long keyID)
     {
         List<PGPPublicKey> keysWithSigs = new ArrayList<PGPPublicKey>();
 
-        for (Iterator<PGPPublicKeyRing> it = this.iterator(); it.hasNext(); )
+        if (keyID == 0)
+        {
+            // signatures without an issuer are not indexed
+            for (Iterator<PGPPublicKeyRing> it = this.iterator(); it.hasNext(); )
+            {
+                PGPPublicKeyRing k = it.next();
+
+                for (Iterator<PGPPublicKey> keyIt = k.getKeysWithSignaturesBy(keyID); keyIt.hasNext(); )
+                {
+                    keysWithSigs.add(keyIt.next());
+                }
+            }
+
+            return keysWithSigs.iterator();
+        }
+
+        for (Iterator<PGPPublicKey> it = getIndex().getSignedKeys(keyID).iterator(); it.hasNext(); )
+        {
+            PGPPublicKey k = it.next();
+
+            if (k.getSignaturesForKeyID(keyID).hasNext())
+            {
+                keysWithSigs.add(k);
+            }
+        }
+
+        return keysWithSigs.iterator();
+    }
+
+    /**
+     * Return any keys carrying a signature issued by the key represented by identifier, matched by fingerprint
+     * where the signature carries one, by key ID otherwise.
+     *
+     * @param identifier the key identifier to be matched against.
+     * @return an iterator (possibly empty) of PGPPublicKey objects carrying signatures from identifier.
+     */
+    public Iterator<PGPPublicKey> getKeysWithSignaturesBy(KeyIdentifier identifier)
+    {
+        List<PGPPublicKey> keysWithSigs = new ArrayList<PGPPublicKey>();
+
+        if (identifier.isWildcard() || identifier.getKeyId() == 0)
         {
-            PGPPublicKeyRing k = (PGPPublicKeyRing)it.next();
+            for (Iterator<PGPPublicKeyRing> it = this.iterator(); it.hasNext(); )
+            {
+                PGPPublicKeyRing k = it.next();
 
-            for (Iterator<PGPPublicKey> keyIt = k.getKeysWithSignaturesBy(keyID); keyIt.hasNext(); )
+                for (Iterator<PGPPublicKey> keyIt = k.getKeysWithSignaturesBy(identifier); keyIt.hasNext(); )
+                {
+                    keysWithSigs.add(keyIt.next());
+                }
+            }
+
+            return keysWithSigs.iterator();
+        }
+
+        // any match by fingerprint is also a match on the key ID derived from it
+        for (Iterator<PGPPublicKey> it = getIndex().getSignedKeys(identifier.getKeyId()).iterator(); it.hasNext(); )
+        {
+            PGPPublicKey k = it.next();
+
+            if (k.getSignaturesForKey(identifier).hasNext())
             {
-                keysWithSigs.add(keyIt.next());
+                keysWithSigs.add(k);
             }
         }
 
@@ -398,7 +475,10 @@ public static PGPPublicKeyRingCollection addPublicKeyRing(
         newPubRings.put(key, publicKeyRing);
         newOrder.add(key);
 
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        KeyRingIndex index = ringCollection.index;
+
+        return new PGPPublicKeyRingCollection(newPubRings, newOrder,
+            (index != null) ? index.with(publicKeyRing) : null);
     }
 
     /**
@@ -424,7 +504,7 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
         Map<Long, PGPPublicKeyRing> newPubRings = new HashMap<Long, PGPPublicKeyRing>(ringCollection.pubRings);
         List<Long> newOrder = new ArrayList<Long>(ringCollection.order);
 
-        newPubRings.remove(key);
+        PGPPublicKeyRing removed = newPubRings.remove(key);
 
         for (int i = 0; i < newOrder.size(); i++)
         {
@@ -437,7 +517,10 @@ public static PGPPublicKeyRingCollection removePublicKeyRing(
             }
         }
 
-        return new PGPPublicKeyRingCollection(newPubRings, newOrder);
+        KeyRingIndex index = ringCollection.index;
+
+        return new PGPPublicKeyRingCollection(newPubRings, newOrder,
+            (index != null) ? index.without(removed) : null);
     }
 
     /**
@@ -447,4 +530,48 @@ public Iterator<PGPPublicKeyRing> iterator()
     {
         return new KeyRingIterator<PGPPublicKeyRing>(order, pubRings);
     }
+
+    private Iterator<PGPPublicKeyRing> getCandidateRings(byte[] fingerprint)
+    {
+        long keyID = new KeyIdentifier(fingerprint).getKeyId();
+
+        // fingerprints which do not give a key ID (v3 keys) have to be searched for
+        if (keyID == 0)
+        {
+            return this.getKeyRings();
+        }
+
+        return getIndex().getRings(keyID).iterator();
+    }
+
+    private KeyRingIndex getIndex()
+    {
+        KeyRingIndex index = this.index;
+        if (index == null)
+        {
+            synchronized (this)
+            {
+                index = this.index;
+                if (index == null)
+                {
+                    // a ring ID can appear more than once in order, the map holds the last ring read for it
+                    List<PGPPublicKeyRing> rings = new ArrayList<PGPPublicKeyRing>(pubRings.size());
+                    HashSet<Long> seen = new HashSet<Long>();
+                    for (Iterator<Long> it = order.iterator(); it.hasNext();)
+                    {
+                        Long id = it.next();
+                        if (seen.add(id))
+                        {
+                            rings.add(pubRings.get(id));
+                        }
+                    }
+
+                    index = KeyRingIndex.build(rings.iterator());
+                    this.index = index;
+                }
+            }
+        }
+
+        return index;
+    }
 }
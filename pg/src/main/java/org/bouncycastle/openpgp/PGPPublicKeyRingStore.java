@@ -0,0 +1,589 @@
+package org.bouncycastle.openpgp;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.bouncycastle.bcpg.BCPGInputStream;
+import org.bouncycastle.bcpg.KeyIdentifier;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.bcpg.PublicKeyPacket;
+import org.bouncycastle.bcpg.UnsupportedPacketVersionException;
+import org.bouncycastle.openpgp.operator.KeyFingerPrintCalculator;
+import org.bouncycastle.util.Integers;
+import org.bouncycastle.util.Iterable;
+import org.bouncycastle.util.Longs;
+
+/**
+ * A read-only store of the public key rings in a binary key ring file, for files which are too large to hold
+ * in memory as a {@link PGPPublicKeyRingCollection}.
+ * <p>
+ * The file is memory mapped and scanned once when the store is created, parsing only the key packets, to build
+ * an index of key IDs to the location of the key ring containing them. Key rings are parsed from the mapped file
+ * when they are asked for, with the most recently used ones kept in a cache of limited size. The file is assumed
+ * not to change while the store is in use.
+ * </p>
+ */
+public class PGPPublicKeyRingStore
+    implements Iterable<PGPPublicKeyRing>
+{
+    private static final int DEFAULT_CACHE_SIZE = 256;
+
+    // largest region a single MappedByteBuffer can cover, in practice
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final KeyFingerPrintCalculator fingerPrintCalculator;
+    private final MappedByteBuffer[] segments;
+    private final long fileLength;
+
+    private long[] ringOffsets = new long[64];
+    private int[] ringLengths = new int[64];
+    private int ringCount = 0;
+
+    // ring numbers by key ID, usually only one
+    private final Map<Long, int[]> ringsByKeyID = new HashMap<Long, int[]>();
+
+    private final Map<Integer, PGPPublicKeyRing> cache;
+
+    /**
+     * Create a store for the passed in key ring file with the default cache size.
+     *
+     * @param keyRingFile a file of binary (not armored) public key rings.
+     * @param fingerPrintCalculator calculator for key fingerprints.
+     * @throws IOException if the file cannot be read, or is not a sequence of packets.
+     * @throws PGPException if the file contains something other than public key rings.
+     */
+    public PGPPublicKeyRingStore(
+        File keyRingFile,
+        KeyFingerPrintCalculator fingerPrintCalculator)
+        throws IOException, PGPException
+    {
+        this(keyRingFile, fingerPrintCalculator, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create a store for the passed in key ring file.
+     *
+     * @param keyRingFile a file of binary (not armored) public key rings.
+     * @param fingerPrintCalculator calculator for key fingerprints.
+     * @param cacheSize the maximum number of parsed key rings to keep.
+     * @throws IOException if the file cannot be read, or is not a sequence of packets.
+     * @throws PGPException if the file contains something other than public key rings.
+     */
+    public PGPPublicKeyRingStore(
+        File keyRingFile,
+        KeyFingerPrintCalculator fingerPrintCalculator,
+        final int cacheSize)
+        throws IOException, PGPException
+    {
+        if (cacheSize < 0)
+        {
+            throw new IllegalArgumentException("cacheSize cannot be negative");
+        }
+
+        this.fingerPrintCalculator = fingerPrintCalculator;
+        this.cache = new LinkedHashMap<Integer, PGPPublicKeyRing>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<Integer, PGPPublicKeyRing> eldest)
+            {
+                return size() > cacheSize;
+            }
+        };
+
+        // the mappings stay valid once the file is closed
+        RandomAccessFile raf = new RandomAccessFile(keyRingFile, "r");
+        try
+        {
+            FileChannel channel = raf.getChannel();
+
+            this.fileLength = channel.size();
+            this.segments = new MappedByteBuffer[(int)((fileLength + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            for (int i = 0; i != segments.length; i++)
+            {
+                long start = i * SEGMENT_SIZE;
+
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, fileLength - start));
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        scan();
+    }
+
+    /**
+     * Return the number of rings in this store.
+     *
+     * @return size of the store.
+     */
+    public int size()
+    {
+        return ringCount;
+    }
+
+    /**
+     * Return true if a key matching the passed in key ID is present, false otherwise.
+     *
+     * @param keyID key ID to look for.
+     * @return true if keyID present, false otherwise.
+     */
+    public boolean contains(long keyID)
+    {
+        return ringsByKeyID.containsKey(Longs.valueOf(keyID));
+    }
+
+    /**
+     * Return the PGP public key associated with the given key id.
+     *
+     * @param keyID the ID of the public key to return.
+     * @return the PGP public key, null if not present.
+     * @throws PGPException if the key ring holding the key cannot be parsed.
+     */
+    public PGPPublicKey getPublicKey(
+        long keyID)
+        throws PGPException
+    {
+        PGPPublicKeyRing ring = getPublicKeyRing(keyID);
+
+        return (ring != null) ? ring.getPublicKey(keyID) : null;
+    }
+
+    /**
+     * Return the public key ring which contains the key referred to by keyID.
+     *
+     * @param keyID key ID to match against
+     * @return the public key ring, null if not present.
+     * @throws PGPException if the key ring cannot be parsed.
+     */
+    public PGPPublicKeyRing getPublicKeyRing(
+        long keyID)
+        throws PGPException
+    {
+        int[] ringNos = ringsByKeyID.get(Longs.valueOf(keyID));
+        if (ringNos == null)
+        {
+            return null;
+        }
+
+        for (int i = 0; i != ringNos.length; i++)
+        {
+            PGPPublicKeyRing ring = getRing(ringNos[i]);
+
+            if (ring.getPublicKey(keyID) != null)
+            {
+                return ring;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return the PGP public key associated with the given key fingerprint.
+     *
+     * @param fingerprint the public key fingerprint to match against.
+     * @return the PGP public key matching fingerprint, null if not present.
+     * @throws PGPException if a key ring cannot be parsed.
+     */
+    public PGPPublicKey getPublicKey(
+        byte[] fingerprint)
+        throws PGPException
+    {
+        PGPPublicKeyRing ring = getPublicKeyRing(fingerprint);
+
+        return (ring != null) ? ring.getPublicKey(fingerprint) : null;
+    }
+
+    /**
+     * Return the PGP public key ring which contains the key associated with the given key fingerprint.
+     * <p>
+     * Fingerprints of version 3 keys do not contain the key ID, so looking them up means parsing every ring
+     * in the store.
+     * </p>
+     *
+     * @param fingerprint the public key fingerprint to match against.
+     * @return the PGP public key ring containing the PGP public key matching fingerprint, null if not present.
+     * @throws PGPException if a key ring cannot be parsed.
+     */
+    public PGPPublicKeyRing getPublicKeyRing(
+        byte[] fingerprint)
+        throws PGPException
+    {
+        long keyID = new KeyIdentifier(fingerprint).getKeyId();
+
+        if (keyID != 0)
+        {
+            int[] ringNos = ringsByKeyID.get(Longs.valueOf(keyID));
+            if (ringNos != null)
+            {
+                for (int i = 0; i != ringNos.length; i++)
+                {
+                    PGPPublicKeyRing ring = getRing(ringNos[i]);
+
+                    if (ring.getPublicKey(fingerprint) != null)
+                    {
+                        return ring;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        for (int ringNo = 0; ringNo != ringCount; ringNo++)
+        {
+            PGPPublicKeyRing ring = readRing(ringNo);
+
+            if (ring.getPublicKey(fingerprint) != null)
+            {
+                return ring;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Return an iterator over the key rings in the store, in file order. Rings are parsed as the iterator reaches
+     * them and are not added to the cache. A ring which cannot be parsed will cause a
+     * PGPRuntimeOperationException.
+     *
+     * @return an iterator of the key rings in the store.
+     */
+    public Iterator<PGPPublicKeyRing> getKeyRings()
+    {
+        return new Iterator<PGPPublicKeyRing>()
+        {
+            private int ringNo = 0;
+
+            public boolean hasNext()
+            {
+                return ringNo < ringCount;
+            }
+
+            public PGPPublicKeyRing next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+
+                try
+                {
+                    return readRing(ringNo++);
+                }
+                catch (PGPException e)
+                {
+                    throw new PGPRuntimeOperationException(e.getMessage(), e);
+                }
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException("remove not available");
+            }
+        };
+    }
+
+    /**
+     * Support method for Iterable where available.
+     */
+    public Iterator<PGPPublicKeyRing> iterator()
+    {
+        return getKeyRings();
+    }
+
+    private PGPPublicKeyRing getRing(int ringNo)
+        throws PGPException
+    {
+        return getRing(ringNo, true);
+    }
+
+    private PGPPublicKeyRing readRing(int ringNo)
+        throws PGPException
+    {
+        return getRing(ringNo, false);
+    }
+
+    private PGPPublicKeyRing getRing(int ringNo, boolean addToCache)
+        throws PGPException
+    {
+        Integer key = Integers.valueOf(ringNo);
+
+        synchronized (cache)
+        {
+            PGPPublicKeyRing ring = cache.get(key);
+            if (ring != null)
+            {
+                return ring;
+            }
+        }
+
+        PGPPublicKeyRing ring;
+        try
+        {
+            ring = new PGPPublicKeyRing(read(ringOffsets[ringNo], ringLengths[ringNo]), fingerPrintCalculator);
+        }
+        catch (IOException e)
+        {
+            throw new PGPException("unable to parse key ring at offset " + ringOffsets[ringNo] + ": " + e.getMessage(), e);
+        }
+
+        if (addToCache)
+        {
+            synchronized (cache)
+            {
+                // another thread may have got there first, keep the instance it cached
+                PGPPublicKeyRing cached = cache.get(key);
+                if (cached != null)
+                {
+                    return cached;
+                }
+
+                cache.put(key, ring);
+            }
+        }
+
+        return ring;
+    }
+
+    /**
+     * Walk the packet headers in the file, recording where each key ring starts and ends and the key IDs of
+     * the keys in it.
+     */
+    private void scan()
+        throws IOException, PGPException
+    {
+        long ringStart = -1;
+        long[] ringKeyIDs = new long[4];
+        int ringKeyCount = 0;
+
+        long pos = 0;
+        while (pos < fileLength)
+        {
+            long packetStart = pos;
+            int hdr = byteAt(pos++);
+
+            if ((hdr & 0x80) == 0)
+            {
+                throw new IOException("invalid header encountered at offset " + packetStart
+                    + (packetStart == 0 ? " (armored key rings are not supported)" : ""));
+            }
+
+            int tag;
+            long bodyLen;
+
+            if ((hdr & 0x40) != 0)
+            {
+                tag = hdr & 0x3f;
+
+                int l = byteAt(pos++);
+                if (l < 192)
+                {
+                    bodyLen = l;
+                }
+                else if (l <= 223)
+                {
+                    bodyLen = ((l - 192) << 8) + byteAt(pos++) + 192;
+                }
+                else if (l == 255)
+                {
+                    bodyLen = ((long)byteAt(pos) << 24) | (byteAt(pos + 1) << 16) | (byteAt(pos + 2) << 8) | byteAt(pos + 3);
+                    pos += 4;
+                }
+                else
+                {
+                    // only data packets can have partial lengths
+                    throw new IOException("partial body length found in key ring at offset " + packetStart);
+                }
+            }
+            else
+            {
+                tag = (hdr & 0x3f) >> 2;
+
+                switch (hdr & 0x3)
+                {
+                case 0:
+                    bodyLen = byteAt(pos++);
+                    break;
+                case 1:
+                    bodyLen = (byteAt(pos) << 8) | byteAt(pos + 1);
+                    pos += 2;
+                    break;
+                case 2:
+                    bodyLen = ((long)byteAt(pos) << 24) | (byteAt(pos + 1) << 16) | (byteAt(pos + 2) << 8) | byteAt(pos + 3);
+                    pos += 4;
+                    break;
+                default:
+                    throw new IOException("indeterminate length found in key ring at offset " + packetStart);
+                }
+            }
+
+            long packetEnd = pos + bodyLen;
+            if (packetEnd > fileLength)
+            {
+                throw new IOException("truncated packet found at offset " + packetStart);
+            }
+
+            switch (tag)
+            {
+            case PacketTags.PUBLIC_KEY:
+            case PacketTags.PUBLIC_SUBKEY:
+                if (tag == PacketTags.PUBLIC_KEY)
+                {
+                    if (ringStart >= 0)
+                    {
+                        addRing(ringStart, packetStart, ringKeyIDs, ringKeyCount);
+                    }
+                    ringStart = packetStart;
+                    ringKeyCount = 0;
+                }
+                else if (ringStart < 0)
+                {
+                    throw new PGPException("public subkey found where public key ring expected at offset " + packetStart);
+                }
+
+                PGPPublicKey key = readKey(packetStart, packetEnd, tag == PacketTags.PUBLIC_KEY);
+                if (key != null)
+                {
+                    if (ringKeyCount == ringKeyIDs.length)
+                    {
+                        long[] tmp = new long[ringKeyCount * 2];
+                        System.arraycopy(ringKeyIDs, 0, tmp, 0, ringKeyCount);
+                        ringKeyIDs = tmp;
+                    }
+                    ringKeyIDs[ringKeyCount++] = key.getKeyID();
+                }
+                break;
+            case PacketTags.SIGNATURE:
+            case PacketTags.TRUST:
+            case PacketTags.USER_ID:
+            case PacketTags.USER_ATTRIBUTE:
+                if (ringStart < 0)
+                {
+                    throw new PGPException("packet tag " + tag + " found where public key ring expected at offset " + packetStart);
+                }
+                break;
+            case PacketTags.MARKER:
+            case PacketTags.PADDING:
+                // Marker packets must be ignored
+                break;
+            default:
+                throw new PGPException("packet tag " + tag + " found where public key ring expected at offset " + packetStart);
+            }
+
+            pos = packetEnd;
+        }
+
+        if (ringStart >= 0)
+        {
+            addRing(ringStart, fileLength, ringKeyIDs, ringKeyCount);
+        }
+    }
+
+    private PGPPublicKey readKey(long start, long end, boolean isMasterKey)
+        throws IOException, PGPException
+    {
+        try
+        {
+            BCPGInputStream pIn = BCPGInputStream.wrap(new ByteArrayInputStream(read(start, (int)(end - start))));
+
+            return new PGPPublicKey((PublicKeyPacket)pIn.readPacket(), fingerPrintCalculator);
+        }
+        catch (UnsupportedPacketVersionException e)
+        {
+            // unrecognizable subkeys are ignored when the ring is parsed, so are not indexed either
+            if (isMasterKey)
+            {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private void addRing(long start, long end, long[] keyIDs, int keyCount)
+        throws IOException
+    {
+        if (end - start > Integer.MAX_VALUE)
+        {
+            throw new IOException("key ring at offset " + start + " too large");
+        }
+
+        if (ringCount == ringOffsets.length)
+        {
+            long[] offsets = new long[ringCount * 2];
+            System.arraycopy(ringOffsets, 0, offsets, 0, ringCount);
+            ringOffsets = offsets;
+
+            int[] lengths = new int[ringCount * 2];
+            System.arraycopy(ringLengths, 0, lengths, 0, ringCount);
+            ringLengths = lengths;
+        }
+
+        int ringNo = ringCount++;
+
+        ringOffsets[ringNo] = start;
+        ringLengths[ringNo] = (int)(end - start);
+
+        for (int i = 0; i != keyCount; i++)
+        {
+            Long keyID = Longs.valueOf(keyIDs[i]);
+            int[] ringNos = ringsByKeyID.get(keyID);
+
+            if (ringNos == null)
+            {
+                ringsByKeyID.put(keyID, new int[]{ ringNo });
+            }
+            else if (ringNos[ringNos.length - 1] != ringNo)
+            {
+                int[] tmp = new int[ringNos.length + 1];
+                System.arraycopy(ringNos, 0, tmp, 0, ringNos.length);
+                tmp[ringNos.length] = ringNo;
+                ringsByKeyID.put(keyID, tmp);
+            }
+        }
+    }
+
+    private int byteAt(long pos)
+        throws IOException
+    {
+        if (pos >= fileLength)
+        {
+            throw new IOException("unexpected end of key ring file");
+        }
+
+        return segments[(int)(pos / SEGMENT_SIZE)].get((int)(pos % SEGMENT_SIZE)) & 0xff;
+    }
+
+    private byte[] read(long offset, int length)
+    {
+        byte[] data = new byte[length];
+
+        int off = 0;
+        while (off < length)
+        {
+            // a duplicate so concurrent readers do not share a position
+            ByteBuffer segment = segments[(int)(offset / SEGMENT_SIZE)].duplicate();
+            segment.position((int)(offset % SEGMENT_SIZE));
+
+            int count = Math.min(length - off, segment.remaining());
+            segment.get(data, off, count);
+
+            off += count;
+            offset += count;
+        }
+
+        return data;
+    }
+}
@@ -19,6 +19,7 @@
 import org.bouncycastle.bcpg.BCPGInputStream;
 import org.bouncycastle.bcpg.CompressionAlgorithmTags;
 import org.bouncycastle.bcpg.HashAlgorithmTags;
+import org.bouncycastle.bcpg.KeyIdentifier;
 import org.bouncycastle.bcpg.Packet;
 import org.bouncycastle.bcpg.PublicKeyAlgorithmTags;
 import org.bouncycastle.bcpg.PublicSubkeyPacket;
@@ -43,6 +44,7 @@
 import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureGenerator;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketGenerator;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
 import org.bouncycastle.openpgp.PGPUtil;
@@ -3560,6 +3562,7 @@ public void performTest()
             testKeyRingWithMarker();
             testKeyRingGeneratorDirectKeySignedPrimaryKey();
             testSubKeyCreation();
+            testCollectionIndex();
         }
         catch (PGPException e)
         {
@@ -3575,6 +3578,101 @@ public void performTest()
         }
     }
 
+    private void testCollectionIndex()
+        throws Exception
+    {
+        KeyPairGenerator rsaKpg = KeyPairGenerator.getInstance("RSA", "BC");
+
+        rsaKpg.initialize(1024);
+
+        PGPPublicKeyRing alice = generateRing(rsaKpg, "Alice <Alice@Example.org>");
+        PGPPublicKeyRing carol = generateRing(rsaKpg, "carol@example.org");
+
+        PGPKeyPair bobKp = new JcaPGPKeyPair(PGPPublicKey.RSA_GENERAL, rsaKpg.generateKeyPair(), new Date());
+        PGPPublicKeyRing bob = generateRing(bobKp, "Bob <bob@example.org>");
+
+        // Bob certifies Alice's user ID
+        PGPSignatureGenerator sGen = new PGPSignatureGenerator(
+            new JcaPGPContentSignerBuilder(PublicKeyAlgorithmTags.RSA_GENERAL, HashAlgorithmTags.SHA256).setProvider("BC"), bobKp.getPublicKey());
+        sGen.init(PGPSignature.CASUAL_CERTIFICATION, bobKp.getPrivateKey());
+        PGPSignature cert = sGen.generateCertification("Alice <Alice@Example.org>", alice.getPublicKey());
+        alice = PGPPublicKeyRing.insertPublicKey(alice,
+            PGPPublicKey.addCertification(alice.getPublicKey(), "Alice <Alice@Example.org>", cert));
+
+        PGPPublicKeyRingCollection col = new PGPPublicKeyRingCollection(java.util.Arrays.asList(
+            new PGPPublicKeyRing[]{ alice, bob, carol }));
+
+        long bobID = bob.getPublicKey().getKeyID();
+
+        // Bob's self signature and his certification of Alice
+        isEquals(2, count(col.getKeysWithSignaturesBy(bobID)));
+        isEquals(2, count(col.getKeysWithSignaturesBy(bob.getPublicKey().getKeyIdentifier())));
+        isEquals(2, count(col.getKeysWithSignaturesBy(new KeyIdentifier(bobID))));
+        isEquals(0, count(col.getKeysWithSignaturesBy(bobID + 1)));
+
+        isTrue(col.getKeyRings("Alice <Alice@Example.org>").next() == alice);
+        isTrue(!col.getKeyRings("alice <alice@example.org>").hasNext());
+        isTrue(col.getKeyRings("alice <alice@example.org>", false, true).next() == alice);
+        isEquals(2, count(col.getKeyRings("example.org", true)));
+        isEquals(3, count(col.getKeyRings("EXAMPLE.ORG", true, true)));
+
+        isTrue(col.getKeyRingsByEmail("alice@example.org").next() == alice);
+        isTrue(col.getKeyRingsByEmail("Carol@Example.org").next() == carol);
+        isTrue(!col.getKeyRingsByEmail("dave@example.org").hasNext());
+
+        isTrue(col.getPublicKeyRing(carol.getPublicKey().getFingerprint()) == carol);
+        isTrue(col.getPublicKey(bob.getPublicKey().getFingerprint()) == bob.getPublicKey());
+        isTrue(col.contains(alice.getPublicKey().getKeyID()));
+
+        // the index built for col is carried over into the new collections
+        PGPPublicKeyRingCollection removed = PGPPublicKeyRingCollection.removePublicKeyRing(col, bob);
+        isEquals(1, count(removed.getKeysWithSignaturesBy(bobID)));
+        isTrue(!removed.getKeyRingsByEmail("bob@example.org").hasNext());
+        isTrue(removed.getPublicKey(bobID) == null);
+        isTrue(!removed.contains(bobID));
+
+        removed = PGPPublicKeyRingCollection.removePublicKeyRing(removed, alice);
+        isEquals(0, count(removed.getKeysWithSignaturesBy(bobID)));
+        isTrue(!removed.getKeyRings("Alice <Alice@Example.org>").hasNext());
+
+        PGPPublicKeyRingCollection added = PGPPublicKeyRingCollection.addPublicKeyRing(removed, bob);
+        isEquals(1, count(added.getKeysWithSignaturesBy(bobID)));
+        isTrue(added.getKeyRingsByEmail("BOB@example.org").next() == bob);
+        isTrue(added.getPublicKeyRing(bobID) == bob);
+
+        // and the original is unchanged
+        isEquals(2, count(col.getKeysWithSignaturesBy(bobID)));
+        isTrue(col.getKeyRingsByEmail("bob@example.org").next() == bob);
+    }
+
+    private PGPPublicKeyRing generateRing(KeyPairGenerator kpg, String userID)
+        throws Exception
+    {
+        return generateRing(new JcaPGPKeyPair(PGPPublicKey.RSA_GENERAL, kpg.generateKeyPair(), new Date()), userID);
+    }
+
+    private PGPPublicKeyRing generateRing(PGPKeyPair keyPair, String userID)
+        throws Exception
+    {
+        PGPDigestCalculator sha1Calc = new JcaPGPDigestCalculatorProviderBuilder().build().get(HashAlgorithmTags.SHA1);
+        PGPKeyRingGenerator keyRingGen = new PGPKeyRingGenerator(PGPSignature.POSITIVE_CERTIFICATION, keyPair,
+            userID, sha1Calc, null, null, new JcaPGPContentSignerBuilder(PGPPublicKey.RSA_SIGN, HashAlgorithmTags.SHA256), null);
+
+        return keyRingGen.generatePublicKeyRing();
+    }
+
+    private static int count(Iterator it)
+    {
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            count++;
+        }
+
+        return count;
+    }
+
     private void testSubKeyCreation()
         throws Exception
     {
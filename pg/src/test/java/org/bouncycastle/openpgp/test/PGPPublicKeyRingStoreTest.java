@@ -0,0 +1,230 @@
+package org.bouncycastle.openpgp.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Security;
+import java.util.Iterator;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPPublicKeyRingStore;
+import org.bouncycastle.openpgp.PGPUtil;
+import org.bouncycastle.openpgp.operator.jcajce.JcaKeyFingerprintCalculator;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.io.Streams;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class PGPPublicKeyRingStoreTest
+    extends SimpleTest
+{
+    public void performTest()
+        throws Exception
+    {
+        testAgainstCollection(readAll(PGPUtil.getDecoderStream(this.getClass().getResourceAsStream("bigpub.asc"))));
+        testAgainstCollection(readAll(this.getClass().getResourceAsStream("rsa-pubring.gpg")));
+        testAgainstCollection(multiRingData());
+        testCache();
+        testInvalidFiles();
+    }
+
+    private void testAgainstCollection(byte[] data)
+        throws Exception
+    {
+        File file = writeTempFile(data);
+        try
+        {
+            PGPPublicKeyRingCollection collection = new PGPPublicKeyRingCollection(data, new JcaKeyFingerprintCalculator());
+            PGPPublicKeyRingStore store = new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator());
+
+            isEquals(collection.size(), store.size());
+
+            Iterator<PGPPublicKeyRing> storeIt = store.iterator();
+            for (Iterator<PGPPublicKeyRing> it = collection.iterator(); it.hasNext(); )
+            {
+                PGPPublicKeyRing ring = (PGPPublicKeyRing)it.next();
+
+                isTrue(Arrays.areEqual(ring.getEncoded(), ((PGPPublicKeyRing)storeIt.next()).getEncoded()));
+
+                for (Iterator<PGPPublicKey> keyIt = ring.getPublicKeys(); keyIt.hasNext(); )
+                {
+                    PGPPublicKey key = (PGPPublicKey)keyIt.next();
+
+                    isTrue(store.contains(key.getKeyID()));
+                    isTrue(Arrays.areEqual(key.getEncoded(), store.getPublicKey(key.getKeyID()).getEncoded()));
+                    isTrue(Arrays.areEqual(key.getEncoded(), store.getPublicKey(key.getFingerprint()).getEncoded()));
+                    isEquals(ring.getPublicKey().getKeyID(), store.getPublicKeyRing(key.getKeyID()).getPublicKey().getKeyID());
+                    isEquals(ring.getPublicKey().getKeyID(), store.getPublicKeyRing(key.getFingerprint()).getPublicKey().getKeyID());
+                }
+            }
+            isTrue(!storeIt.hasNext());
+
+            isTrue(!store.contains(0x1234567890abcdefL));
+            isTrue(store.getPublicKey(0x1234567890abcdefL) == null);
+            isTrue(store.getPublicKeyRing(new byte[20]) == null);
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private void testCache()
+        throws Exception
+    {
+        byte[] data = multiRingData();
+        File file = writeTempFile(data);
+        try
+        {
+            PGPPublicKeyRingCollection collection = new PGPPublicKeyRingCollection(data, new JcaKeyFingerprintCalculator());
+            Iterator<PGPPublicKeyRing> it = collection.iterator();
+            long keyID1 = ((PGPPublicKeyRing)it.next()).getPublicKey().getKeyID();
+            long keyID2 = ((PGPPublicKeyRing)it.next()).getPublicKey().getKeyID();
+
+            PGPPublicKeyRingStore store = new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator(), 1);
+
+            PGPPublicKeyRing ring1 = store.getPublicKeyRing(keyID1);
+            isTrue(ring1 == store.getPublicKeyRing(keyID1));
+
+            // iterating does not disturb the cache
+            for (Iterator<PGPPublicKeyRing> storeIt = store.getKeyRings(); storeIt.hasNext(); )
+            {
+                storeIt.next();
+            }
+            isTrue(ring1 == store.getPublicKeyRing(keyID1));
+
+            // only the most recently used ring is kept
+            store.getPublicKeyRing(keyID2);
+            isTrue(ring1 != store.getPublicKeyRing(keyID1));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private void testInvalidFiles()
+        throws Exception
+    {
+        byte[] armored = readAll(this.getClass().getResourceAsStream("bigpub.asc"));
+        File file = writeTempFile(armored);
+        try
+        {
+            new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator());
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            isEquals("invalid header encountered at offset 0 (armored key rings are not supported)", e.getMessage());
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        byte[] data = readAll(PGPUtil.getDecoderStream(this.getClass().getResourceAsStream("bigpub.asc")));
+        file = writeTempFile(Arrays.copyOfRange(data, 0, data.length - 10));
+        try
+        {
+            new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator());
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            isTrue(e.getMessage().startsWith("truncated packet found at offset "));
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        // a literal data packet
+        file = writeTempFile(new byte[]{ (byte)0xcb, 0x06, 'b', 0x00, 0x00, 0x00, 0x00, 0x00 });
+        try
+        {
+            new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator());
+            fail("no exception");
+        }
+        catch (PGPException e)
+        {
+            isEquals("packet tag 11 found where public key ring expected at offset 0", e.getMessage());
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        file = writeTempFile(new byte[0]);
+        try
+        {
+            PGPPublicKeyRingStore store = new PGPPublicKeyRingStore(file, new JcaKeyFingerprintCalculator());
+
+            isEquals(0, store.size());
+            isTrue(!store.iterator().hasNext());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    private byte[] multiRingData()
+        throws IOException
+    {
+        byte[] marker = new byte[]{ (byte)0xa8, 0x03, 'P', 'G', 'P' };
+
+        return Arrays.concatenate(marker,
+            readAll(PGPUtil.getDecoderStream(this.getClass().getResourceAsStream("bigpub.asc"))),
+            marker,
+            readAll(this.getClass().getResourceAsStream("rsa-pubring.gpg")));
+    }
+
+    private static byte[] readAll(InputStream in)
+        throws IOException
+    {
+        try
+        {
+            return Streams.readAll(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static File writeTempFile(byte[] data)
+        throws IOException
+    {
+        File file = File.createTempFile("bcpg", ".gpg");
+        file.deleteOnExit();
+
+        FileOutputStream fOut = new FileOutputStream(file);
+        try
+        {
+            fOut.write(data);
+        }
+        finally
+        {
+            fOut.close();
+        }
+
+        return file;
+    }
+
+    public String getName()
+    {
+        return "PGPPublicKeyRingStoreTest";
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new PGPPublicKeyRingStoreTest());
+    }
+}
@@ -32,6 +32,7 @@
         new PGPECDHTest(),
         new PGPECMessageTest(),
         new PGPParsingTest(),
+        new PGPPublicKeyRingStoreTest(),
         new PGPEdDSATest(),
         new PGPPublicKeyMergeTest(),
         new SExprTest(),
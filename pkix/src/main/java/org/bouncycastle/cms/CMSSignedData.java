@@ -12,6 +12,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.bouncycastle.asn1.ASN1Encodable;
 import org.bouncycastle.asn1.ASN1EncodableVector;
@@ -461,6 +462,42 @@ public boolean verifySignatures(SignerInformationVerifierProvider verifierProvid
         return true;
     }
 
+    /**
+     * Verify all the SignerInformation objects and optionally their associated counter signatures attached
+     * to this CMS SignedData object, running the signature checks on the passed in executor. Signers sharing a
+     * digest algorithm share a single digest of the content.
+     *
+     * @param verifierProvider        a provider of SignerInformationVerifier objects.
+     * @param ignoreCounterSignatures if true don't check counter signatures. If false check counter signatures as well.
+     * @param executor                the executor to verify signatures on, null to use the calling thread.
+     * @return true if all verify, false otherwise.
+     * @throws CMSException if an exception occurs during the verification process.
+     * @see SignerInformationStore#verify(SignerInformationVerifierProvider, boolean, java.util.concurrent.Executor)
+     */
+    public boolean verifySignatures(SignerInformationVerifierProvider verifierProvider, boolean ignoreCounterSignatures, Executor executor)
+        throws CMSException
+    {
+        List<SignerVerificationResult> results = this.getSignerInfos().verify(verifierProvider, ignoreCounterSignatures,
+            executor);
+
+        // results are in the order verifySignatures(verifierProvider, ignoreCounterSignatures) checks them in
+        for (Iterator<SignerVerificationResult> it = results.iterator(); it.hasNext(); )
+        {
+            SignerVerificationResult result = it.next();
+
+            if (result.getException() != null)
+            {
+                throw result.getException();
+            }
+            if (!result.isVerified())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private boolean verifyCounterSignature(SignerInformation counterSigner, SignerInformationVerifierProvider verifierProvider)
         throws OperatorCreationException, CMSException
     {
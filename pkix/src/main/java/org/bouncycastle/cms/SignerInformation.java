@@ -344,8 +344,7 @@ private boolean doVerify(
         // TODO[cms] For pure signature algorithms, restrict digest algorithm to permitted set
 
         String encName = CMSSignedHelper.INSTANCE.getEncryptionAlgName(this.getEncryptionAlgOID());
-        AlgorithmIdentifier realDigestAlgorithm = signedAttributeSet != null ?
-            info.getDigestAlgorithm() : translateBrokenRSAPkcs7(encryptionAlgorithm, info.getDigestAlgorithm());
+        AlgorithmIdentifier realDigestAlgorithm = getContentDigestAlgorithm();
         ContentVerifier contentVerifier;
 
         try
@@ -470,6 +469,37 @@ else if (signedAttributeSet != null)
         }
     }
 
+    /**
+     * Return the digest algorithm the content is actually digested with.
+     */
+    AlgorithmIdentifier getContentDigestAlgorithm()
+    {
+        return signedAttributeSet != null ?
+            info.getDigestAlgorithm() : translateBrokenRSAPkcs7(encryptionAlgorithm, info.getDigestAlgorithm());
+    }
+
+    /**
+     * Return true if verifying this signer means digesting its content, and the digest could be calculated
+     * separately from the signature, as the signature only covers the signed attributes.
+     */
+    boolean requiresContentDigest()
+    {
+        return resultDigest == null && content != null && signedAttributeSet != null;
+    }
+
+    CMSProcessable getSignedContent()
+    {
+        return content;
+    }
+
+    /**
+     * Provide a digest of the content calculated elsewhere, so it is not recalculated on verification.
+     */
+    void setContentDigest(byte[] digest)
+    {
+        this.resultDigest = Arrays.clone(digest);
+    }
+
     /**
      * RFC 3852 11.1 Check the content-type attribute is correct
      *
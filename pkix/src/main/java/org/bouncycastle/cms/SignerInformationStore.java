@@ -1,13 +1,23 @@
 package org.bouncycastle.cms;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.util.Iterable;
+import org.bouncycastle.util.JoinableTask;
+import org.bouncycastle.util.io.TeeOutputStream;
 
 public class SignerInformationStore
     implements Iterable<SignerInformation>
@@ -138,4 +148,222 @@ public Iterator<SignerInformation> iterator()
     {
         return getSigners().iterator();
     }
+
+    /**
+     * Verify all the signers in the store, and optionally their counter signatures, returning a result for each
+     * rather than stopping at the first failure.
+     * <p>
+     * Where signers with signed attributes share the same content, the content is read once on the calling thread,
+     * calculating a digest for each distinct digest algorithm in the same pass. The signatures, and the checks
+     * SignerInformation.verify() makes against any certificate associated with a verifier, are then run as separate
+     * tasks on the passed in executor. A task the executor rejects, or has not started by the time the results are
+     * collected, is run on the calling thread. The verifier provider is only called from the calling thread.
+     * </p>
+     *
+     * @param verifierProvider a provider of SignerInformationVerifier objects.
+     * @param ignoreCounterSignatures if true don't check counter signatures. If false check counter signatures as well.
+     * @param executor the executor to verify signatures on, null to verify them all on the calling thread.
+     * @return a result for each signer in getSigners() order, each followed by the results for its counter
+     * signatures, depth first, if they are being checked.
+     */
+    public List<SignerVerificationResult> verify(
+        SignerInformationVerifierProvider verifierProvider,
+        boolean ignoreCounterSignatures,
+        Executor executor)
+    {
+        List<VerifyTask> tasks = new ArrayList<VerifyTask>();
+
+        for (Iterator<SignerInformation> it = getSigners().iterator(); it.hasNext(); )
+        {
+            addVerifyTasks(tasks, it.next(), verifierProvider, ignoreCounterSignatures);
+        }
+
+        calculateContentDigests(tasks);
+
+        if (executor != null)
+        {
+            for (int i = 0; i != tasks.size(); i++)
+            {
+                VerifyTask task = tasks.get(i);
+
+                if (task.exception == null)
+                {
+                    task.fork(executor);
+                }
+            }
+        }
+
+        // verification problems are recorded in the results, so only an Error can come back from the tasks
+        Throwable failure = JoinableTask.joinAll(tasks);
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+
+        List<SignerVerificationResult> resultList = new ArrayList<SignerVerificationResult>(tasks.size());
+        for (int i = 0; i != tasks.size(); i++)
+        {
+            resultList.add(tasks.get(i).getResult());
+        }
+
+        return resultList;
+    }
+
+    private static void addVerifyTasks(List<VerifyTask> tasks, SignerInformation signer,
+        SignerInformationVerifierProvider verifierProvider, boolean ignoreCounterSignatures)
+    {
+        tasks.add(new VerifyTask(signer, verifierProvider));
+
+        if (!ignoreCounterSignatures)
+        {
+            for (Iterator<SignerInformation> it = signer.getCounterSignatures().getSigners().iterator(); it.hasNext(); )
+            {
+                addVerifyTasks(tasks, it.next(), verifierProvider, false);
+            }
+        }
+    }
+
+    /**
+     * Digest the content shared by signers in a single pass for each piece of content, handing the results to the
+     * signers so verification only needs to deal with the signed attributes. Signers whose digest cannot be
+     * calculated here are left to calculate it themselves, so any error is reported the usual way.
+     */
+    private static void calculateContentDigests(List<VerifyTask> tasks)
+    {
+        Map<CMSProcessable, Map<AlgorithmIdentifier, List<VerifyTask>>> byContent =
+            new IdentityHashMap<CMSProcessable, Map<AlgorithmIdentifier, List<VerifyTask>>>();
+
+        for (int i = 0; i != tasks.size(); i++)
+        {
+            VerifyTask task = tasks.get(i);
+
+            if (task.verifier == null || !task.signer.requiresContentDigest())
+            {
+                continue;
+            }
+
+            CMSProcessable content = task.signer.getSignedContent();
+            Map<AlgorithmIdentifier, List<VerifyTask>> byAlgorithm = byContent.get(content);
+            if (byAlgorithm == null)
+            {
+                byAlgorithm = new LinkedHashMap<AlgorithmIdentifier, List<VerifyTask>>();
+                byContent.put(content, byAlgorithm);
+            }
+
+            AlgorithmIdentifier digestAlgorithm = task.signer.getContentDigestAlgorithm();
+            List<VerifyTask> algTasks = byAlgorithm.get(digestAlgorithm);
+            if (algTasks == null)
+            {
+                algTasks = new ArrayList<VerifyTask>();
+                byAlgorithm.put(digestAlgorithm, algTasks);
+            }
+            algTasks.add(task);
+        }
+
+        for (Iterator<Map.Entry<CMSProcessable, Map<AlgorithmIdentifier, List<VerifyTask>>>> it = byContent.entrySet().iterator(); it.hasNext(); )
+        {
+            Map.Entry<CMSProcessable, Map<AlgorithmIdentifier, List<VerifyTask>>> entry = it.next();
+
+            Map<DigestCalculator, List<VerifyTask>> calculators = new LinkedHashMap<DigestCalculator, List<VerifyTask>>();
+            OutputStream digOut = null;
+
+            for (Iterator<Map.Entry<AlgorithmIdentifier, List<VerifyTask>>> algIt = entry.getValue().entrySet().iterator(); algIt.hasNext(); )
+            {
+                Map.Entry<AlgorithmIdentifier, List<VerifyTask>> algEntry = algIt.next();
+                List<VerifyTask> algTasks = algEntry.getValue();
+
+                try
+                {
+                    DigestCalculator calc = algTasks.get(0).verifier.getDigestCalculator(algEntry.getKey());
+
+                    calculators.put(calc, algTasks);
+                    digOut = (digOut == null) ? calc.getOutputStream() : new TeeOutputStream(digOut, calc.getOutputStream());
+                }
+                catch (OperatorCreationException e)
+                {
+                    // left to the signers' own verification
+                }
+            }
+
+            if (digOut == null)
+            {
+                continue;
+            }
+
+            try
+            {
+                entry.getKey().write(digOut);
+
+                digOut.close();
+            }
+            catch (Exception e)
+            {
+                // left to the signers' own verification, which will read the content again and report the problem
+                continue;
+            }
+
+            for (Iterator<Map.Entry<DigestCalculator, List<VerifyTask>>> calcIt = calculators.entrySet().iterator(); calcIt.hasNext(); )
+            {
+                Map.Entry<DigestCalculator, List<VerifyTask>> calcEntry = calcIt.next();
+                byte[] digest = calcEntry.getKey().getDigest();
+
+                for (Iterator<VerifyTask> taskIt = calcEntry.getValue().iterator(); taskIt.hasNext(); )
+                {
+                    taskIt.next().signer.setContentDigest(digest);
+                }
+            }
+        }
+    }
+
+    private static final class VerifyTask
+        extends JoinableTask
+    {
+        private final SignerInformation signer;
+
+        private SignerInformationVerifier verifier;
+        private boolean verified;
+        private CMSException exception;
+
+        VerifyTask(SignerInformation signer, SignerInformationVerifierProvider verifierProvider)
+        {
+            this.signer = signer;
+
+            try
+            {
+                this.verifier = verifierProvider.get(signer.getSID());
+                if (verifier == null)
+                {
+                    exception = new CMSException("no verifier available for signer");
+                }
+            }
+            catch (OperatorCreationException e)
+            {
+                exception = new CMSException("failure in verifier provider: " + e.getMessage(), e);
+            }
+        }
+
+        protected void compute()
+        {
+            try
+            {
+                if (exception == null)
+                {
+                    verified = signer.verify(verifier);
+                }
+            }
+            catch (CMSException e)
+            {
+                exception = e;
+            }
+            catch (RuntimeException e)
+            {
+                exception = new CMSException("exception verifying signer: " + e.getMessage(), e);
+            }
+        }
+
+        SignerVerificationResult getResult()
+        {
+            return new SignerVerificationResult(signer, verified, exception);
+        }
+    }
 }
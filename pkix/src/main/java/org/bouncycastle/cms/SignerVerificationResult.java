@@ -0,0 +1,50 @@
+package org.bouncycastle.cms;
+
+/**
+ * The outcome of verifying a single SignerInformation as part of
+ * {@link SignerInformationStore#verify(SignerInformationVerifierProvider, boolean, java.util.concurrent.Executor)}.
+ */
+public class SignerVerificationResult
+{
+    private final SignerInformation signer;
+    private final boolean verified;
+    private final CMSException exception;
+
+    SignerVerificationResult(SignerInformation signer, boolean verified, CMSException exception)
+    {
+        this.signer = signer;
+        this.verified = verified;
+        this.exception = exception;
+    }
+
+    /**
+     * Return the signer, or counter signer, the result is for.
+     *
+     * @return the signer verified.
+     */
+    public SignerInformation getSigner()
+    {
+        return signer;
+    }
+
+    /**
+     * Return whether the signature verified.
+     *
+     * @return true if the signature verified, false if it did not or could not be checked.
+     */
+    public boolean isVerified()
+    {
+        return verified;
+    }
+
+    /**
+     * Return the exception which stopped the signature being checked, if there was one. This is the exception
+     * SignerInformation.verify() would have thrown, or a failure to find a verifier for the signer.
+     *
+     * @return the exception thrown during verification, null if verification completed.
+     */
+    public CMSException getException()
+    {
+        return exception;
+    }
+}
@@ -45,6 +45,7 @@
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXExtendedParameters;
@@ -622,7 +623,7 @@ private Set<CRL> downloadCRLs(X500Principal issuer, Date currentDate, ASN1Primit
                         {
                             url = new URI(((ASN1String)name.getName()).getString());
 
-                            PKIXCRLStore store = CrlCache.getCrl(certFact, validationDate, url);
+                            PKIXCRLStore store = PKIXCRLCache.getDefault().getCrl(certFact, validationDate, url);
 
                             if (store != null)
                             {
@@ -45,6 +45,7 @@
 import org.bouncycastle.cert.ocsp.RevokedStatus;
 import org.bouncycastle.cert.ocsp.jcajce.JcaBasicOCSPRespBuilder;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.provider.OcspCache;
 import org.bouncycastle.openssl.PEMParser;
 import org.bouncycastle.operator.DigestCalculatorProvider;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
@@ -242,8 +243,13 @@ public void performTest()
         ocspResponder.setDaemon(true);
         ocspResponder.start();
 
+        // a response to a request with a nonce is not cached
+        int cached = OcspCache.size();
+
         cpv.validate(certPath, param);
 
+        isEquals(cached, OcspCache.size());
+
         // faulty OCSP responder certificate
         ocsp = OCSPTestUtil.makeCertificate(ocspKp, "CN=OCSP", caKp, ca, KeyPurposeId.id_kp_codeSigning);
 
@@ -299,6 +305,15 @@ public void performTest()
 
         cpv.validate(certPath, param);
 
+        // the responder only answers once, so a second validation must be served from the cache
+        long hits = OcspCache.getHitCount();
+        long misses = OcspCache.getMissCount();
+
+        cpv.validate(certPath, param);
+
+        isEquals(hits + 1, OcspCache.getHitCount());
+        isEquals(misses, OcspCache.getMissCount());
+
         // EE Only, CA using responder URL
         ca = OCSPTestUtil.makeCertificateWithOCSP(caKp, "CN=CA", rootKp, root, true, "http://localhost:" + TEST_OCSP_RESPONDER_PORT + "/");
         ee = OCSPTestUtil.makeCertificate(eeKp, "CN=EE", caKp, ca, false);
@@ -577,11 +592,13 @@ public void encode(OutputStream outputStream)
         implements Runnable
     {
         private final byte[] resp;
-        private final int portNo;
+        private final ServerSocket ss;
 
         OCSPResponderTask(int portNo, byte[] resp)
+            throws IOException
         {
-            this.portNo = portNo;
+            // bind here, so the port is open before the validation that follows starting the thread
+            this.ss = new ServerSocket(portNo);
             this.resp = resp;
         }
 
@@ -589,7 +606,6 @@ public void run()
         {
             try
             {
-                ServerSocket ss = new ServerSocket(portNo);
                 Socket s = ss.accept();
 
                 InputStream sIn = s.getInputStream();
@@ -5364,6 +5364,88 @@ private void testIndirect2()
         }
     }
 
+    private void testLargeIndirect()
+        throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12", BC);
+
+        ByteArrayInputStream input = new ByteArrayInputStream(testCAp12);
+
+        keyStore.load(input, "test".toCharArray());
+
+        X509Certificate certificate = (X509Certificate)keyStore.getCertificate("ca");
+        PrivateKey privateKey = (PrivateKey)keyStore.getKey("ca", null);
+
+        X500Name crlIssuer = X500Name.getInstance(certificate.getSubjectX500Principal().getEncoded());
+        X500Name caName = X500Name.getInstance(certificate.getIssuerX500Principal().getEncoded());
+        X500Name otherName = new X500Name("CN=Other CA");
+        BigInteger base = BigInteger.valueOf(1000000);
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(crlIssuer, new Date());
+
+        builder.addExtension(Extension.issuingDistributionPoint, true, new IssuingDistributionPoint(null, true, false));
+
+        for (int i = 0; i != 1000; i++)
+        {
+            builder.addCRLEntry(base.add(BigInteger.valueOf(i)), new Date(), CRLReason.keyCompromise);
+        }
+
+        // the same serial number appears under two different issuers, the second one is the real issuer.
+        ExtensionsGenerator extGen = new ExtensionsGenerator();
+
+        extGen.addExtension(Extension.certificateIssuer, true, new GeneralNames(new GeneralName(otherName)));
+
+        builder.addCRLEntry(certificate.getSerialNumber(), new Date(), extGen.generate());
+
+        for (int i = 1000; i != 1500; i++)
+        {
+            builder.addCRLEntry(base.add(BigInteger.valueOf(i)), new Date(), CRLReason.keyCompromise);
+        }
+
+        extGen = new ExtensionsGenerator();
+
+        extGen.addExtension(Extension.certificateIssuer, true, new GeneralNames(new GeneralName(caName)));
+
+        builder.addCRLEntry(certificate.getSerialNumber(), new Date(), extGen.generate());
+
+        for (int i = 1500; i != 2000; i++)
+        {
+            builder.addCRLEntry(base.add(BigInteger.valueOf(i)), new Date(), CRLReason.keyCompromise);
+        }
+
+        JcaContentSignerBuilder contentSignerBuilder = new JcaContentSignerBuilder("SHA256WithRSAEncryption");
+
+        contentSignerBuilder.setProvider(BC);
+
+        X509CRLHolder cRLHolder = builder.build(contentSignerBuilder.build(privateKey));
+
+        CertificateFactory fac = CertificateFactory.getInstance("X.509", BC);
+
+        X509CRL crl = (X509CRL)fac.generateCRL(new ByteArrayInputStream(cRLHolder.getEncoded()));
+
+        isEquals(2002, crl.getRevokedCertificates().size());
+
+        if (!crl.isRevoked(certificate))
+        {
+            fail("certificate should be revoked");
+        }
+
+        X509CRLEntry crlEntry = crl.getRevokedCertificate(certificate.getSerialNumber());
+        isEquals(new X500Principal(otherName.getEncoded()), crlEntry.getCertificateIssuer());
+
+        crlEntry = crl.getRevokedCertificate(base.add(BigInteger.valueOf(500)));
+        isTrue(crlEntry.getCertificateIssuer() == null);
+
+        crlEntry = crl.getRevokedCertificate(base.add(BigInteger.valueOf(1200)));
+        isEquals(new X500Principal(otherName.getEncoded()), crlEntry.getCertificateIssuer());
+
+        crlEntry = crl.getRevokedCertificate(base.add(BigInteger.valueOf(1999)));
+        isEquals(new X500Principal(caName.getEncoded()), crlEntry.getCertificateIssuer());
+
+        isTrue(crl.getRevokedCertificate(base.add(BigInteger.valueOf(2000))) == null);
+        isTrue(crl.getRevokedCertificate(BigInteger.ONE) == null);
+    }
+
     // issuing distribution point must be set for an indirect CRL to be recognised
     private void testMalformedIndirect()
         throws Exception
@@ -5626,6 +5708,7 @@ public void performTest()
         testDirect();
         testIndirect();
         testIndirect2();
+        testLargeIndirect();
         testMalformedIndirect();
 
         checkCertificate(1, cert1);
@@ -24,6 +24,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 import junit.framework.Test;
@@ -92,6 +95,7 @@
 import org.bouncycastle.cms.SignerInformationStore;
 import org.bouncycastle.cms.SignerInformationVerifier;
 import org.bouncycastle.cms.SignerInformationVerifierProvider;
+import org.bouncycastle.cms.SignerVerificationResult;
 import org.bouncycastle.cms.bc.BcRSASignerInfoVerifierBuilder;
 import org.bouncycastle.cms.jcajce.JcaSignerId;
 import org.bouncycastle.cms.jcajce.JcaSignerInfoGeneratorBuilder;
@@ -2283,6 +2287,162 @@ else if (_origCert.getSerialNumber().equals(signerId.getSerialNumber()))
         assertTrue(s.verifySignatures(vProv, false));
     }
 
+    public void testParallelVerification()
+        throws Exception
+    {
+        List                certList = new ArrayList();
+        final byte[]        data = "Hello World!".getBytes();
+
+        certList.add(_signCert);
+        certList.add(_origCert);
+
+        CMSSignedDataGenerator gen = new CMSSignedDataGenerator();
+        DigestCalculatorProvider digProvider = new JcaDigestCalculatorProviderBuilder().setProvider(BC).build();
+
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digProvider).build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digProvider).build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digProvider).build(
+            new JcaContentSignerBuilder("SHA384withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+
+        gen.addCertificates(new JcaCertStore(certList));
+
+        CMSSignedData s = gen.generate(new CMSProcessableByteArray(data), false);
+
+        // counter sign the first signer
+        List signers = new ArrayList(s.getSignerInfos().getSigners());
+        SignerInformation origSigner = (SignerInformation)signers.get(0);
+
+        gen = new CMSSignedDataGenerator();
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digProvider).build(
+            new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+
+        signers.set(0, SignerInformation.addCounterSigners(origSigner, gen.generateCounterSigners(origSigner)));
+
+        byte[] encoded = CMSSignedData.replaceSigners(s, new SignerInformationStore(signers)).getEncoded();
+
+        SignerInformationVerifierProvider vProv = new SignerInformationVerifierProvider()
+        {
+            public SignerInformationVerifier get(SignerId signerId)
+                throws OperatorCreationException
+            {
+                if (_signCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                {
+                    return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_signCert);
+                }
+                else if (_origCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                {
+                    return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_origCert);
+                }
+                else
+                {
+                    throw new OperatorCreationException("no signerID matched");
+                }
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            final AtomicInteger reads = new AtomicInteger();
+            CMSTypedData content = new CMSProcessableByteArray(data)
+            {
+                public void write(OutputStream zOut)
+                    throws IOException, CMSException
+                {
+                    reads.incrementAndGet();
+                    super.write(zOut);
+                }
+            };
+
+            s = new CMSSignedData(content, encoded);
+
+            List results = s.getSignerInfos().verify(vProv, false, executor);
+
+            // three signers and a counter signature, with the content read once for both digest algorithms
+            assertEquals(4, results.size());
+            assertEquals(1, reads.get());
+            int counterSignatures = 0;
+            for (int i = 0; i != results.size(); i++)
+            {
+                SignerVerificationResult result = (SignerVerificationResult)results.get(i);
+
+                assertTrue(result.isVerified());
+                assertNull(result.getException());
+                if (result.getSigner().isCounterSignature())
+                {
+                    // follows the signer it counter signs
+                    assertFalse(((SignerVerificationResult)results.get(i - 1)).getSigner().isCounterSignature());
+                    counterSignatures++;
+                }
+            }
+            assertEquals(1, counterSignatures);
+
+            assertTrue(new CMSSignedData(content, encoded).verifySignatures(vProv, false, executor));
+            assertTrue(new CMSSignedData(content, encoded).verifySignatures(vProv, true, null));
+
+            // the wrong content fails the message digest check for every signer, but not the counter signature
+            s = new CMSSignedData(new CMSProcessableByteArray("Hello World?".getBytes()), encoded);
+
+            results = s.getSignerInfos().verify(vProv, false, executor);
+            assertEquals(4, results.size());
+            for (int i = 0; i != results.size(); i++)
+            {
+                SignerVerificationResult result = (SignerVerificationResult)results.get(i);
+
+                assertEquals(result.getSigner().isCounterSignature(), result.isVerified());
+                assertEquals(!result.getSigner().isCounterSignature(), result.getException() != null);
+            }
+
+            try
+            {
+                s.verifySignatures(vProv, false, executor);
+                fail("no exception");
+            }
+            catch (CMSException e)
+            {
+                assertEquals("message-digest attribute value does not match calculated value", e.getMessage());
+            }
+
+            // a verifier provider failure is reported against the signer it happened for
+            vProv = new SignerInformationVerifierProvider()
+            {
+                public SignerInformationVerifier get(SignerId signerId)
+                    throws OperatorCreationException
+                {
+                    if (_signCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                    {
+                        return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_signCert);
+                    }
+
+                    throw new OperatorCreationException("no signerID matched");
+                }
+            };
+
+            results = new CMSSignedData(content, encoded).getSignerInfos().verify(vProv, true, executor);
+            assertEquals(3, results.size());
+            for (int i = 0; i != results.size(); i++)
+            {
+                SignerVerificationResult result = (SignerVerificationResult)results.get(i);
+
+                if (_signCert.getSerialNumber().equals(result.getSigner().getSID().getSerialNumber()))
+                {
+                    assertTrue(result.isVerified());
+                }
+                else
+                {
+                    assertFalse(result.isVerified());
+                    assertEquals("failure in verifier provider: no signerID matched", result.getException().getMessage());
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public void testAddDigestAlgorithm()
         throws Exception
     {
@@ -0,0 +1,91 @@
+package org.bouncycastle.jcajce;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.Map;
+
+import javax.naming.Context;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+
+/**
+ * Fetcher for CRLs published over LDAP, or anything URLConnection can read (http, https, ftp).
+ */
+class DefaultPKIXCRLFetcher
+    implements PKIXCRLFetcher
+{
+    private static final int DEFAULT_TIMEOUT = 15000;
+
+    public Collection<? extends CRL> fetchCRLs(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        if (distributionPoint.getScheme().equals("ldap"))
+        {
+            return getCrlsFromLDAP(certFact, distributionPoint);
+        }
+        else
+        {
+            // http, https, ftp
+            return getCrls(certFact, distributionPoint);
+        }
+    }
+
+    private static Collection<? extends CRL> getCrlsFromLDAP(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        Map<String, String> env = new Hashtable<String, String>();
+
+        env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.ldap.LdapCtxFactory");
+        env.put(Context.PROVIDER_URL, distributionPoint.toString());
+
+        byte[] val = null;
+        try
+        {
+            DirContext ctx = new InitialDirContext((Hashtable)env);
+            Attributes avals = ctx.getAttributes("");
+            Attribute aval = avals.get("certificateRevocationList;binary");
+            val = (byte[])aval.get();
+        }
+        catch (NamingException e)
+        {
+            throw new CRLException("issue connecting to: " + distributionPoint.toString(), e);
+        }
+
+        if ((val == null) || (val.length == 0))
+        {
+            throw new CRLException("no CRL returned from: " + distributionPoint);
+        }
+        else
+        {
+            return certFact.generateCRLs(new ByteArrayInputStream(val));
+        }
+    }
+
+    private static Collection<? extends CRL> getCrls(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        URLConnection urlConnection = distributionPoint.toURL().openConnection();
+
+        urlConnection.setConnectTimeout(DEFAULT_TIMEOUT);
+        urlConnection.setReadTimeout(DEFAULT_TIMEOUT);
+
+        InputStream crlIn = urlConnection.getInputStream();
+
+        Collection<? extends CRL> crls = certFact.generateCRLs(crlIn);
+
+        crlIn.close();
+
+        return crls;
+    }
+}
@@ -0,0 +1,446 @@
+package org.bouncycastle.jcajce;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bouncycastle.jcajce.util.CacheUtils;
+import org.bouncycastle.util.Iterable;
+import org.bouncycastle.util.JoinableTask;
+import org.bouncycastle.util.Properties;
+import org.bouncycastle.util.Selector;
+
+/**
+ * A cache of the CRLs found at distribution points, safe for use by many validating threads at once.
+ * <p>
+ * Only one fetch for a distribution point is in progress at any time, other callers needing it wait for that fetch
+ * rather than start their own, and callers using other distribution points are not held up at all. Once the last
+ * quarter of the validity period of a CRL is reached a replacement is fetched in the background, the current CRL
+ * being returned until it is no longer valid for the date of the validation. CRLs without a nextUpdate are
+ * refetched in the background after an hour.
+ * </p>
+ * <p>
+ * The instance returned by {@link #getDefault()} is shared by the provider's CertPathValidator and the PKIX
+ * revocation checker. It holds the CRLs of up to 256 distribution points, which can be changed with the
+ * "org.bouncycastle.crl.cache_size" property, discarding those used least recently first.
+ * </p>
+ */
+public class PKIXCRLCache
+{
+    private static final long DEFAULT_MAX_AGE = 60 * 60 * 1000L;
+    private static final long RETRY_INTERVAL = 60 * 1000L;
+    private static final int MAX_REFRESH_THREADS = 2;
+
+    private static PKIXCRLCache defaultCache;
+
+    /**
+     * Return the cache shared by the provider's revocation checking, which fetches CRLs over LDAP, HTTP, HTTPS and FTP.
+     *
+     * @return the default CRL cache.
+     */
+    public static synchronized PKIXCRLCache getDefault()
+    {
+        if (defaultCache == null)
+        {
+            defaultCache = new PKIXCRLCache(new DefaultPKIXCRLFetcher(), createRefresher(),
+                Properties.asInteger("org.bouncycastle.crl.cache_size", 256));
+        }
+
+        return defaultCache;
+    }
+
+    private final ConcurrentMap<URI, Entry> entries = new ConcurrentHashMap<URI, Entry>();
+    private final Object evictionLock = new Object();
+
+    private final PKIXCRLFetcher fetcher;
+    private final Executor refresher;
+    private final int maxEntries;
+
+    /**
+     * Create a cache using its own daemon threads for background refreshes.
+     *
+     * @param fetcher the source of CRLs for a distribution point.
+     * @param maxEntries the maximum number of distribution points to hold CRLs for.
+     */
+    public PKIXCRLCache(PKIXCRLFetcher fetcher, int maxEntries)
+    {
+        this(fetcher, createRefresher(), maxEntries);
+    }
+
+    /**
+     * Create a cache using the passed in executor for background refreshes.
+     *
+     * @param fetcher the source of CRLs for a distribution point.
+     * @param refresher the executor to run background refreshes on.
+     * @param maxEntries the maximum number of distribution points to hold CRLs for.
+     */
+    public PKIXCRLCache(PKIXCRLFetcher fetcher, Executor refresher, int maxEntries)
+    {
+        if (fetcher == null)
+        {
+            throw new NullPointerException("fetcher cannot be null");
+        }
+        if (refresher == null)
+        {
+            throw new NullPointerException("refresher cannot be null");
+        }
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+
+        this.fetcher = fetcher;
+        this.refresher = refresher;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Return a store of the CRLs at a distribution point, fetching them if none are held, or those held have a
+     * nextUpdate before validDate.
+     *
+     * @param certFact the certificate factory to parse fetched CRLs with.
+     * @param validDate the date the CRLs need to be valid for.
+     * @param distributionPoint the location of the CRLs.
+     * @return a store of the CRLs.
+     * @throws IOException if the distribution point cannot be read.
+     * @throws CRLException if the distribution point does not contain valid CRLs.
+     */
+    public PKIXCRLStore<CRL> getCrl(CertificateFactory certFact, Date validDate, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        long now = System.currentTimeMillis();
+
+        Entry entry = entries.get(distributionPoint);
+        if (entry == null)
+        {
+            Entry created = new Entry(now);
+
+            entry = entries.putIfAbsent(distributionPoint, created);
+            if (entry == null)
+            {
+                entry = created;
+                if (entries.size() > maxEntries)
+                {
+                    evict(created);
+                }
+            }
+        }
+        entry.lastAccess = now;
+
+        Snapshot snapshot = entry.snapshot;
+        if (snapshot != null && snapshot.isCurrent(validDate))
+        {
+            if (now >= snapshot.refreshAt)
+            {
+                refresh(entry, snapshot, certFact, distributionPoint);
+            }
+
+            return snapshot.store;
+        }
+
+        return load(entry, certFact, distributionPoint).store;
+    }
+
+    /**
+     * Discard all the CRLs held.
+     */
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    private Snapshot load(Entry entry, CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException
+    {
+        Load load;
+
+        synchronized (entry)
+        {
+            load = entry.inFlight;
+            if (load == null)
+            {
+                load = new Load(entry, certFact, distributionPoint);
+                entry.inFlight = load;
+            }
+        }
+
+        Throwable failure = load.join();
+
+        if (failure instanceof IOException)
+        {
+            throw (IOException)failure;
+        }
+        if (failure instanceof CRLException)
+        {
+            throw (CRLException)failure;
+        }
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        if (failure != null)
+        {
+            throw new IllegalStateException("CRL fetch failed: " + failure.getMessage(), failure);
+        }
+
+        return load.snapshot;
+    }
+
+    private void refresh(final Entry entry, final Snapshot current, final CertificateFactory certFact,
+        final URI distributionPoint)
+    {
+        if (!entry.refreshing.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        try
+        {
+            refresher.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        // the caller may still be using its factory, so the refresh gets one of its own
+                        load(entry, CertificateFactory.getInstance(certFact.getType(), certFact.getProvider()),
+                            distributionPoint);
+                    }
+                    catch (Exception e)
+                    {
+                        // keep returning the current CRLs while they are valid, and try again in a while
+                        current.refreshAt = System.currentTimeMillis() + RETRY_INTERVAL;
+                    }
+                    finally
+                    {
+                        entry.refreshing.set(false);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // no refresh thread free, a later call will try again
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void evict(Entry added)
+    {
+        synchronized (evictionLock)
+        {
+            if (entries.size() <= maxEntries)
+            {
+                return;
+            }
+
+            // trim to 7/8 of the limit, so we are not back here on the next new distribution point, never removing
+            // the entry that has just been added, as its access time may match older ones
+            CacheUtils.evictLeastRecentlyUsed(entries, maxEntries - maxEntries / 8, added);
+        }
+    }
+
+    private static Snapshot createSnapshot(Collection<? extends CRL> crls, Snapshot previous)
+    {
+        Date thisUpdate = null;
+        Date nextUpdate = null;
+        for (Iterator<? extends CRL> it = crls.iterator(); it.hasNext();)
+        {
+            CRL crl = it.next();
+            if (crl instanceof X509CRL)
+            {
+                X509CRL x509Crl = (X509CRL)crl;
+
+                if (thisUpdate == null || x509Crl.getThisUpdate().after(thisUpdate))
+                {
+                    thisUpdate = x509Crl.getThisUpdate();
+                }
+                if (x509Crl.getNextUpdate() != null && (nextUpdate == null || x509Crl.getNextUpdate().before(nextUpdate)))
+                {
+                    nextUpdate = x509Crl.getNextUpdate();
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        long refreshAt;
+        if (nextUpdate != null)
+        {
+            long start = (thisUpdate != null) ? thisUpdate.getTime() : now;
+            long validity = nextUpdate.getTime() - start;
+
+            refreshAt = start + validity - validity / 4;
+        }
+        else
+        {
+            refreshAt = now + DEFAULT_MAX_AGE;
+        }
+
+        // the publisher has nothing newer than last time, so wait a while rather than fetch again on every call
+        if (previous != null && previous.thisUpdate != null
+            && (thisUpdate == null || !thisUpdate.after(previous.thisUpdate)))
+        {
+            refreshAt = Math.max(refreshAt, now + RETRY_INTERVAL);
+        }
+
+        return new Snapshot(new LocalCRLStore(crls), thisUpdate, nextUpdate, refreshAt);
+    }
+
+    private static Executor createRefresher()
+    {
+        return CacheUtils.createRefresher("BC CRL refresh", MAX_REFRESH_THREADS);
+    }
+
+    private static final class Entry
+        implements CacheUtils.AccessedEntry
+    {
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        volatile Snapshot snapshot;
+        volatile long lastAccess;
+
+        Load inFlight;
+
+        Entry(long lastAccess)
+        {
+            this.lastAccess = lastAccess;
+        }
+
+        public long getLastAccess()
+        {
+            return lastAccess;
+        }
+    }
+
+    /**
+     * The CRLs from one fetch of a distribution point.
+     */
+    private static final class Snapshot
+    {
+        final PKIXCRLStore<CRL> store;
+        final Date thisUpdate;
+        final Date nextUpdate;
+
+        volatile long refreshAt;
+
+        Snapshot(PKIXCRLStore<CRL> store, Date thisUpdate, Date nextUpdate, long refreshAt)
+        {
+            this.store = store;
+            this.thisUpdate = thisUpdate;
+            this.nextUpdate = nextUpdate;
+            this.refreshAt = refreshAt;
+        }
+
+        boolean isCurrent(Date validDate)
+        {
+            return nextUpdate == null || !nextUpdate.before(validDate);
+        }
+    }
+
+    /**
+     * A fetch in progress, which other callers needing the same distribution point join.
+     */
+    private final class Load
+        extends JoinableTask
+    {
+        private final Entry entry;
+        private final CertificateFactory certFact;
+        private final URI distributionPoint;
+
+        private Snapshot snapshot;
+
+        Load(Entry entry, CertificateFactory certFact, URI distributionPoint)
+        {
+            this.entry = entry;
+            this.certFact = certFact;
+            this.distributionPoint = distributionPoint;
+        }
+
+        protected void compute()
+            throws IOException, CRLException
+        {
+            try
+            {
+                snapshot = createSnapshot(fetcher.fetchCRLs(certFact, distributionPoint), entry.snapshot);
+                entry.snapshot = snapshot;
+            }
+            finally
+            {
+                synchronized (entry)
+                {
+                    entry.inFlight = null;
+                }
+            }
+        }
+    }
+
+    private static class LocalCRLStore
+        implements PKIXCRLStore<CRL>, Iterable<CRL>
+    {
+        private Collection<CRL> _local;
+
+        /**
+         * Basic constructor.
+         *
+         * @param collection - initial contents for the store, this is copied.
+         */
+        public LocalCRLStore(
+            Collection<? extends CRL> collection)
+        {
+            _local = new ArrayList<CRL>(collection);
+        }
+
+        /**
+         * Return the matches in the collection for the passed in selector.
+         *
+         * @param selector the selector to match against.
+         * @return a possibly empty collection of matching objects.
+         */
+        public Collection<CRL> getMatches(Selector<CRL> selector)
+        {
+            if (selector == null)
+            {
+                return new ArrayList<CRL>(_local);
+            }
+            else
+            {
+                List<CRL> col = new ArrayList<CRL>();
+                Iterator<CRL> iter = _local.iterator();
+
+                while (iter.hasNext())
+                {
+                    CRL obj = iter.next();
+
+                    if (selector.match(obj))
+                    {
+                        col.add(obj);
+                    }
+                }
+
+                return col;
+            }
+        }
+
+        public Iterator<CRL> iterator()
+        {
+            return getMatches(null).iterator();
+        }
+    }
+}
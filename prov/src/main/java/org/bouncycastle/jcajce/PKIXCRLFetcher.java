@@ -0,0 +1,26 @@
+package org.bouncycastle.jcajce;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.util.Collection;
+
+/**
+ * Source of the CRLs published at a distribution point, as used by a {@link PKIXCRLCache}.
+ */
+public interface PKIXCRLFetcher
+{
+    /**
+     * Fetch the CRLs currently published at the passed in distribution point.
+     *
+     * @param certFact the certificate factory to parse the CRLs with.
+     * @param distributionPoint the location of the CRLs.
+     * @return the CRLs found at the distribution point.
+     * @throws IOException if the distribution point cannot be read.
+     * @throws CRLException if the distribution point does not contain valid CRLs.
+     */
+    Collection<? extends CRL> fetchCRLs(CertificateFactory certFact, URI distributionPoint)
+        throws IOException, CRLException;
+}
@@ -0,0 +1,212 @@
+package org.bouncycastle.jcajce.provider.asymmetric.x509;
+
+import java.math.BigInteger;
+
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.TBSCertList;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Serial number index over the revoked certificate entries of a CRL, built once so that repeated
+ * revocation checks against a large CRL are O(log n) rather than a scan of every entry.
+ * <p>
+ * Entries are kept in CRL order and located through a sorted table of (serial hash, entry position)
+ * pairs. For indirect CRLs the certificate issuer in force at each position is tracked as a list of
+ * runs, one for each entry carrying a certificate issuer extension.
+ * </p>
+ */
+class X509CRLEntryIndex
+{
+    private final ASN1Encodable[] entries;
+    private final long[] keys;
+    private final boolean isIndirect;
+    private final X500Name crlIssuer;
+    private final int[] issuerRunStarts;
+    private final X500Name[] issuerRunNames;
+
+    private X509CRLEntryIndex(ASN1Encodable[] entries, long[] keys, boolean isIndirect, X500Name crlIssuer,
+        int[] issuerRunStarts, X500Name[] issuerRunNames)
+    {
+        this.entries = entries;
+        this.keys = keys;
+        this.isIndirect = isIndirect;
+        this.crlIssuer = crlIssuer;
+        this.issuerRunStarts = issuerRunStarts;
+        this.issuerRunNames = issuerRunNames;
+    }
+
+    static X509CRLEntryIndex build(TBSCertList tbsCertList, boolean isIndirect)
+    {
+        TBSCertList.CRLEntry[] crlEntries = tbsCertList.getRevokedCertificates();
+        int count = crlEntries.length;
+
+        ASN1Encodable[] entries = new ASN1Encodable[count];
+        long[] keys = new long[count];
+
+        int runCount = 1;
+        int[] runStarts = new int[]{ 0 };
+        X500Name[] runNames = new X500Name[]{ null };
+
+        for (int i = 0; i != count; i++)
+        {
+            TBSCertList.CRLEntry entry = crlEntries[i];
+
+            entries[i] = entry.toASN1Primitive();
+            keys[i] = key(entry.getUserCertificate().getValue().hashCode(), i);
+
+            if (isIndirect && entry.hasExtensions())
+            {
+                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+
+                if (currentCaName != null)
+                {
+                    if (runStarts[runCount - 1] != i)
+                    {
+                        if (runCount == runStarts.length)
+                        {
+                            runStarts = Arrays.copyOf(runStarts, runCount * 2);
+                            runNames = copyOf(runNames, runCount * 2);
+                        }
+                        runStarts[runCount++] = i;
+                    }
+                    runNames[runCount - 1] = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+                }
+            }
+        }
+
+        java.util.Arrays.sort(keys);
+
+        return new X509CRLEntryIndex(entries, keys, isIndirect, tbsCertList.getIssuer(),
+            Arrays.copyOf(runStarts, runCount), copyOf(runNames, runCount));
+    }
+
+    /**
+     * Return the first entry, in CRL order, for the passed in serial number.
+     *
+     * @param serialNumber the serial number to look for.
+     * @return the matching entry, null if there is none.
+     */
+    X509CRLEntryObject getRevokedCertificate(BigInteger serialNumber)
+    {
+        int pos = findFirst(serialNumber);
+        if (pos < 0)
+        {
+            return null;
+        }
+
+        int entryPos = keyPosition(keys[pos]);
+        TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(entries[entryPos]);
+
+        // the entry resolves its own certificate issuer extension, it needs the one in force before it.
+        X500Name previousCertificateIssuer = (isIndirect && entryPos > 0) ? issuerRunNames[findRun(entryPos - 1)] : null;
+
+        return new X509CRLEntryObject(entry, isIndirect, previousCertificateIssuer);
+    }
+
+    /**
+     * Return true if there is at least one entry for the passed in serial number.
+     *
+     * @param serialNumber the serial number to look for.
+     * @return true if the serial number is listed, false otherwise.
+     */
+    boolean contains(BigInteger serialNumber)
+    {
+        return findFirst(serialNumber) >= 0;
+    }
+
+    /**
+     * Return true if an entry exists for the serial number which applies to certificates from the
+     * passed in issuer.
+     *
+     * @param serialNumber the certificate serial number.
+     * @param issuer the certificate issuer.
+     * @return true if the certificate is revoked by this CRL, false otherwise.
+     */
+    boolean isRevoked(BigInteger serialNumber, X500Name issuer)
+    {
+        int hash = serialNumber.hashCode();
+
+        for (int pos = findFirst(serialNumber); pos >= 0 && pos < keys.length && keyHash(keys[pos]) == hash; pos++)
+        {
+            int entryPos = keyPosition(keys[pos]);
+
+            if (!hasSerialNumber(entryPos, serialNumber))
+            {
+                continue;
+            }
+
+            X500Name caName = isIndirect ? issuerRunNames[findRun(entryPos)] : null;
+
+            if (issuer.equals(caName == null ? crlIssuer : caName))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Return the index into keys of the first entry with the passed in serial number, -1 if there isn't one.
+     * Positions are the low order part of each key, so the first key matching is also the first in CRL order.
+     */
+    private int findFirst(BigInteger serialNumber)
+    {
+        int hash = serialNumber.hashCode();
+        int pos = java.util.Arrays.binarySearch(keys, key(hash, 0));
+        if (pos < 0)
+        {
+            pos = -(pos + 1);
+        }
+
+        for (; pos < keys.length && keyHash(keys[pos]) == hash; pos++)
+        {
+            if (hasSerialNumber(keyPosition(keys[pos]), serialNumber))
+            {
+                return pos;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean hasSerialNumber(int entryPos, BigInteger serialNumber)
+    {
+        return TBSCertList.CRLEntry.getInstance(entries[entryPos]).getUserCertificate().hasValue(serialNumber);
+    }
+
+    /**
+     * Return the index of the issuer run the entry at entryPos falls in.
+     */
+    private int findRun(int entryPos)
+    {
+        int run = java.util.Arrays.binarySearch(issuerRunStarts, entryPos);
+
+        return run >= 0 ? run : -(run + 1) - 1;
+    }
+
+    private static long key(int hash, int entryPos)
+    {
+        return ((long)hash << 32) | (entryPos & 0xFFFFFFFFL);
+    }
+
+    private static int keyHash(long key)
+    {
+        return (int)(key >> 32);
+    }
+
+    private static int keyPosition(long key)
+    {
+        return (int)key;
+    }
+
+    private static X500Name[] copyOf(X500Name[] names, int newLength)
+    {
+        X500Name[] tmp = new X500Name[newLength];
+        System.arraycopy(names, 0, tmp, 0, Math.min(names.length, newLength));
+        return tmp;
+    }
+}
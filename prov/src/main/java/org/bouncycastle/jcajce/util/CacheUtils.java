@@ -0,0 +1,125 @@
+package org.bouncycastle.jcajce.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support for the revocation caches in the provider, which refresh entries in the background and evict those used
+ * least recently once they grow past their limit.
+ * <p>
+ * This class is intended for use by the implementations of the BC APIs.
+ * </p>
+ */
+public class CacheUtils
+{
+    /**
+     * A cache entry which records when it was last used.
+     */
+    public interface AccessedEntry
+    {
+        long getLastAccess();
+    }
+
+    private CacheUtils()
+    {
+    }
+
+    /**
+     * Create an executor for background refreshes. It runs at most maxThreads refreshes at once and rejects any
+     * more rather than queueing them. Its threads are daemon threads and exit after a minute idle.
+     *
+     * @param threadName the name to give the executor's threads.
+     * @param maxThreads the maximum number of refreshes to run at once.
+     * @return a refresh executor.
+     */
+    public static Executor createRefresher(final String threadName, int maxThreads)
+    {
+        return new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Remove the least recently used entries from a map until it holds no more than target entries. Entries that
+     * have been replaced concurrently are left alone.
+     * <p>
+     * Access times are read once, before sorting, as other threads may update them while the sort is in progress.
+     * </p>
+     *
+     * @param map the map to trim.
+     * @param target the number of entries to trim the map to.
+     * @param exclude an entry which is never removed, null if there is none.
+     * @return the number of entries removed.
+     */
+    public static <K, V extends AccessedEntry> int evictLeastRecentlyUsed(ConcurrentMap<K, V> map, int target,
+        V exclude)
+    {
+        List<Candidate<K, V>> all = new ArrayList<Candidate<K, V>>(map.size());
+        for (Iterator<Map.Entry<K, V>> it = map.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<K, V> e = it.next();
+
+            all.add(new Candidate<K, V>(e.getValue().getLastAccess(), e.getKey(), e.getValue()));
+        }
+
+        int count = all.size() - target;
+        if (count <= 0)
+        {
+            return 0;
+        }
+
+        Collections.sort(all);
+
+        int removed = 0;
+        for (int i = 0; i < all.size() && removed < count; i++)
+        {
+            Candidate<K, V> c = all.get(i);
+
+            if (c.value != exclude && map.remove(c.key, c.value))
+            {
+                removed++;
+            }
+        }
+
+        return removed;
+    }
+
+    /**
+     * A map entry with its access time as it was when eviction started.
+     */
+    private static final class Candidate<K, V>
+        implements Comparable<Candidate<K, V>>
+    {
+        final long lastAccess;
+        final K key;
+        final V value;
+
+        Candidate(long lastAccess, K key, V value)
+        {
+            this.lastAccess = lastAccess;
+            this.key = key;
+            this.value = value;
+        }
+
+        public int compareTo(Candidate<K, V> other)
+        {
+            return (lastAccess < other.lastAccess) ? -1 : ((lastAccess == other.lastAccess) ? 0 : 1);
+        }
+    }
+}
@@ -65,6 +65,7 @@
 import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.internal.asn1.isismtt.ISISMTTObjectIdentifiers;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXCertRevocationCheckerParameters;
@@ -665,7 +666,7 @@ static List<PKIXCRLStore> getAdditionalStoresFromCRLDistributionPoint(
                             try
                             {
                                 URI distributionPoint = new URI(((ASN1String)name.getName()).getString());
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validDate, distributionPoint);
+                                PKIXCRLStore store = PKIXCRLCache.getDefault().getCrl(certFact, validDate, distributionPoint);
                                 if (store != null)
                                 {
                                     stores.add(store);
@@ -1004,7 +1005,7 @@ protected static Set getDeltaCRLs(Date validityDate,
                         {
                             try
                             {
-                                PKIXCRLStore store = CrlCache.getCrl(certFact, validityDate,
+                                PKIXCRLStore store = PKIXCRLCache.getDefault().getCrl(certFact, validityDate,
                                     new URI(((ASN1String)name.getName()).getString()));
                                 if (store != null)
                                 {
@@ -3,7 +3,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.WeakReference;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -12,12 +11,16 @@
 import java.security.cert.Extension;
 import java.security.cert.X509Certificate;
 import java.text.ParseException;
-import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1GeneralizedTime;
@@ -39,17 +42,108 @@
 import org.bouncycastle.asn1.ocsp.TBSRequest;
 import org.bouncycastle.asn1.x509.Extensions;
 import org.bouncycastle.jcajce.PKIXCertRevocationCheckerParameters;
+import org.bouncycastle.jcajce.util.CacheUtils;
 import org.bouncycastle.jcajce.util.JcaJceHelper;
 import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.JoinableTask;
+import org.bouncycastle.util.Properties;
 import org.bouncycastle.util.io.Streams;
 
-class OcspCache
+/**
+ * Process wide cache of validated OCSP responses, keyed by responder and CertID.
+ * <p>
+ * An entry is served until the nextUpdate of its response, or for an hour if the responder gave none. A hit in the
+ * last quarter of the validity period of a response triggers a fetch of a fresh one in the background, so entries
+ * in regular use are replaced before they expire. Concurrent misses for the same certificate at the same responder
+ * share a single request. Requests carrying a nonce always go to the responder, and their responses are not cached.
+ * The cache holds at most 1024 entries by default, the limit can be changed with the
+ * "org.bouncycastle.ocsp.cache_size" property. Entries that have not been used for longest are evicted first.
+ * </p>
+ */
+public final class OcspCache
 {
     private static final int DEFAULT_TIMEOUT = 15000;
     private static final int DEFAULT_MAX_RESPONSE_SIZE = 32 * 1024;
+    private static final long DEFAULT_MAX_AGE = 60 * 60 * 1000L;
+    private static final long MIN_REFRESH_INTERVAL = 60 * 1000L;
+    private static final int MAX_REFRESH_THREADS = 2;
 
-    private static Map<URI, WeakReference<Map<CertID, OCSPResponse>>> cache
-        = Collections.synchronizedMap(new WeakHashMap<URI, WeakReference<Map<CertID, OCSPResponse>>>());
+    private static final int maxEntries = Math.max(1, Properties.asInteger("org.bouncycastle.ocsp.cache_size", 1024));
+
+    private static final ConcurrentMap<Key, Entry> cache = new ConcurrentHashMap<Key, Entry>();
+    private static final ConcurrentMap<Key, Fetch> inFlight = new ConcurrentHashMap<Key, Fetch>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong refreshes = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private static final Object evictionLock = new Object();
+
+    private static Executor refresher;
+
+    private OcspCache()
+    {
+    }
+
+    /**
+     * Return the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    public static long getHitCount()
+    {
+        return hits.get();
+    }
+
+    /**
+     * Return the number of lookups that required a request to a responder, including those that shared a request
+     * already in progress.
+     *
+     * @return the miss count.
+     */
+    public static long getMissCount()
+    {
+        return misses.get();
+    }
+
+    /**
+     * Return the number of entries replaced by a background refresh.
+     *
+     * @return the refresh count.
+     */
+    public static long getRefreshCount()
+    {
+        return refreshes.get();
+    }
+
+    /**
+     * Return the number of entries removed to keep the cache within its size limit.
+     *
+     * @return the eviction count.
+     */
+    public static long getEvictionCount()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * Return the number of responses currently cached.
+     *
+     * @return the cache size.
+     */
+    public static int size()
+    {
+        return cache.size();
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    public static void clear()
+    {
+        cache.clear();
+    }
 
     static OCSPResponse getOcspResponse(
         CertID certID, PKIXCertRevocationCheckerParameters parameters,
@@ -57,38 +151,175 @@ static OCSPResponse getOcspResponse(
         JcaJceHelper helper)
         throws CertPathValidatorException
     {
-        Map<CertID, OCSPResponse> responseMap = null;
+        Lookup lookup = new Lookup(certID, parameters, ocspResponder, responderCert, ocspExtensions, helper);
 
-        WeakReference<Map<CertID, OCSPResponse>> markerRef = cache.get(ocspResponder);
-        if (markerRef != null)
+        // a nonce ties the response to a single request, so it is neither answered from nor added to the cache
+        if (lookup.nonce != null)
         {
-            responseMap = markerRef.get();
+            misses.incrementAndGet();
+            return fetch(lookup).response;
         }
 
-        if (responseMap != null)
+        Key key = new Key(ocspResponder, certID);
+        Date validDate = parameters.getValidDate();
+
+        Entry entry = cache.get(key);
+        if (entry != null)
         {
-            OCSPResponse response = responseMap.get(certID);
-            if (response != null)
+            long now = System.currentTimeMillis();
+            if (now < entry.expiry && isCurrent(entry.nextUpdate, validDate))
             {
-                BasicOCSPResponse basicResp = BasicOCSPResponse.getInstance(
-                    ASN1OctetString.getInstance(response.getResponseBytes().getResponse()).getOctets());
-
-                boolean matchFound = isCertIDFoundAndCurrent(basicResp, parameters.getValidDate(), certID);
-                if (matchFound)
+                hits.incrementAndGet();
+                entry.lastAccess = now;
+                if (now >= entry.refreshAt)
                 {
-                    return response;
+                    scheduleRefresh(key, entry, lookup);
                 }
-                else
+                return entry.response;
+            }
+
+            cache.remove(key, entry);
+        }
+
+        misses.incrementAndGet();
+
+        Fetch fetch = new Fetch(key, lookup);
+        Fetch existing = inFlight.putIfAbsent(key, fetch);
+        if (existing != null)
+        {
+            // share the request already in progress
+            fetch = existing;
+        }
+
+        Throwable failure;
+        try
+        {
+            failure = fetch.join();
+        }
+        finally
+        {
+            inFlight.remove(key, fetch);
+        }
+
+        if (failure instanceof CertPathValidatorException)
+        {
+            throw new CertPathValidatorException(failure.getMessage(), failure.getCause(),
+                parameters.getCertPath(), parameters.getIndex());
+        }
+        if (failure instanceof RuntimeException)
+        {
+            throw (RuntimeException)failure;
+        }
+        if (failure instanceof Error)
+        {
+            throw (Error)failure;
+        }
+        if (failure != null)
+        {
+            throw new IllegalStateException("OCSP request failed: " + failure.getMessage(), failure);
+        }
+
+        // the request may have been made for another caller, with a different validity date
+        entry = fetch.entry;
+        if (!isCurrent(entry.nextUpdate, validDate))
+        {
+            throw new CertPathValidatorException(
+                "OCSP response failed to validate", null, parameters.getCertPath(), parameters.getIndex());
+        }
+
+        return entry.response;
+    }
+
+    private static Entry store(Key key, Entry entry)
+    {
+        cache.put(key, entry);
+
+        if (cache.size() > maxEntries)
+        {
+            evict();
+        }
+
+        return entry;
+    }
+
+    private static void evict()
+    {
+        synchronized (evictionLock)
+        {
+            if (cache.size() <= maxEntries)
+            {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<Key, Entry>> it = cache.entrySet().iterator(); it.hasNext();)
+            {
+                if (now >= it.next().getValue().expiry)
                 {
-                    responseMap.remove(certID);
+                    it.remove();
                 }
             }
+
+            // trim to 7/8 of the limit, so we are not back here on the next insert
+            evictions.addAndGet(CacheUtils.evictLeastRecentlyUsed(cache, maxEntries - maxEntries / 8, null));
+        }
+    }
+
+    private static void scheduleRefresh(final Key key, final Entry entry, final Lookup lookup)
+    {
+        if (!entry.refreshing.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        try
+        {
+            getRefresher().execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        if (cache.replace(key, entry, fetch(lookup)))
+                        {
+                            refreshes.incrementAndGet();
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        // the current entry stays usable until it expires, try again in a while
+                        entry.refreshAt = System.currentTimeMillis() + MIN_REFRESH_INTERVAL;
+                        entry.refreshing.set(false);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // all refresh threads are busy, a later hit will try again
+            entry.refreshing.set(false);
+        }
+    }
+
+    private static synchronized Executor getRefresher()
+    {
+        if (refresher == null)
+        {
+            refresher = CacheUtils.createRefresher("BC OCSP refresh", MAX_REFRESH_THREADS);
         }
 
+        return refresher;
+    }
+
+    private static Entry fetch(Lookup lookup)
+        throws CertPathValidatorException
+    {
+        PKIXCertRevocationCheckerParameters parameters = lookup.parameters;
+
         URL ocspUrl;
         try
         {
-            ocspUrl = ocspResponder.toURL();
+            ocspUrl = lookup.ocspResponder.toURL();
         }
         catch (MalformedURLException e)
         {
@@ -101,33 +332,14 @@ static OCSPResponse getOcspResponse(
         //
         ASN1EncodableVector requests = new ASN1EncodableVector();
 
-        requests.add(new Request(certID, null));
-
-        List exts = ocspExtensions;
-        ASN1EncodableVector requestExtensions = new ASN1EncodableVector();
-
-        byte[] nonce = null;
-        for (int i = 0; i != exts.size(); i++)
-        {
-            Extension ext = (Extension)exts.get(i);
-
-            ASN1ObjectIdentifier oid = new ASN1ObjectIdentifier(ext.getId());
-            ASN1OctetString value = new DEROctetString(ext.getValue());
-
-            if (OCSPObjectIdentifiers.id_pkix_ocsp_nonce.equals(oid))
-            {
-                nonce = Arrays.clone(value.getOctets());
-            }
-
-            requestExtensions.add(new org.bouncycastle.asn1.x509.Extension(oid, ext.isCritical(), value));
-        }
+        requests.add(new Request(lookup.certID, null));
 
         // TODO: configure originator
         TBSRequest tbsReq;
-        if (requestExtensions.size() != 0)
+        if (lookup.requestExtensions.size() != 0)
         {
             tbsReq = new TBSRequest(null, new DERSequence(requests),
-                Extensions.getInstance(new DERSequence(requestExtensions)));
+                Extensions.getInstance(new DERSequence(lookup.requestExtensions)));
         }
         else
         {
@@ -154,6 +366,7 @@ static OCSPResponse getOcspResponse(
             reqOut.write(request);
             reqOut.flush();
 
+            long fetchTime = System.currentTimeMillis();
             InputStream reqIn = ocspCon.getInputStream();
             int contentLength = ocspCon.getContentLength();
             if (contentLength < 0)
@@ -165,41 +378,27 @@ static OCSPResponse getOcspResponse(
 
             if (OCSPResponseStatus.SUCCESSFUL == response.getResponseStatus().getIntValue())
             {
-                boolean validated = false;
+                SingleResponse singleResp = null;
                 ResponseBytes respBytes = ResponseBytes.getInstance(response.getResponseBytes());
 
                 if (respBytes.getResponseType().equals(OCSPObjectIdentifiers.id_pkix_ocsp_basic))
                 {
                     BasicOCSPResponse basicResp = BasicOCSPResponse.getInstance(respBytes.getResponse().getOctets());
 
-                    validated = ProvOcspRevocationChecker.validatedOcspResponse(basicResp, parameters, nonce, responderCert, helper)
-                                && isCertIDFoundAndCurrent(basicResp, parameters.getValidDate(), certID);
+                    if (ProvOcspRevocationChecker.validatedOcspResponse(basicResp, parameters, lookup.nonce, lookup.responderCert, lookup.helper))
+                    {
+                        singleResp = findSingleResponse(basicResp, lookup.certID);
+                    }
                 }
 
-                if (!validated)
+                Entry entry = (singleResp != null) ? createEntry(response, singleResp, fetchTime) : null;
+                if (entry == null || !isCurrent(entry.nextUpdate, parameters.getValidDate()))
                 {
                     throw new CertPathValidatorException(
                         "OCSP response failed to validate", null, parameters.getCertPath(), parameters.getIndex());
                 }
 
-                markerRef = cache.get(ocspResponder);
-                if (markerRef != null)
-                {
-                    responseMap = markerRef.get();
-                }
-
-                if (responseMap != null)
-                {
-                    responseMap.put(certID, response);
-                }
-                else
-                {
-                    responseMap = new HashMap<CertID, OCSPResponse>();
-                    responseMap.put(certID, response);
-                    cache.put(ocspResponder, new WeakReference<Map<CertID, OCSPResponse>>(responseMap));
-                }
-
-                return response;
+                return entry;
             }
             else
             {
@@ -215,7 +414,41 @@ static OCSPResponse getOcspResponse(
         }
     }
 
-    private static boolean isCertIDFoundAndCurrent(BasicOCSPResponse basicResp, Date validDate, CertID certID)
+    private static Entry createEntry(OCSPResponse response, SingleResponse singleResp, long fetchTime)
+    {
+        Date thisUpdate;
+        Date nextUpdate;
+        try
+        {
+            thisUpdate = singleResp.getThisUpdate().getDate();
+            ASN1GeneralizedTime nextUp = singleResp.getNextUpdate();
+            nextUpdate = (nextUp != null) ? nextUp.getDate() : null;
+        }
+        catch (ParseException e)
+        {
+            // this should never happen, but...
+            return null;
+        }
+
+        long expiry, refreshAt;
+        if (nextUpdate != null)
+        {
+            expiry = nextUpdate.getTime();
+
+            long validity = expiry - thisUpdate.getTime();
+            refreshAt = Math.max(thisUpdate.getTime() + validity - validity / 4, fetchTime + MIN_REFRESH_INTERVAL);
+        }
+        else
+        {
+            // no nextUpdate means newer information is always available, so keep it briefly and don't prefetch
+            expiry = fetchTime + DEFAULT_MAX_AGE;
+            refreshAt = Long.MAX_VALUE;
+        }
+
+        return new Entry(response, nextUpdate, expiry, refreshAt, fetchTime);
+    }
+
+    private static SingleResponse findSingleResponse(BasicOCSPResponse basicResp, CertID certID)
     {
         ResponseData responseData = ResponseData.getInstance(basicResp.getTbsResponseData());
         ASN1Sequence s = responseData.getResponses();
@@ -226,24 +459,138 @@ private static boolean isCertIDFoundAndCurrent(BasicOCSPResponse basicResp, Date
 
             if (certID.equals(resp.getCertID()))
             {
-                ASN1GeneralizedTime nextUp = resp.getNextUpdate();
-                try
-                {
-                    if (nextUp != null && validDate.after(nextUp.getDate()))
-                    {
-                        return false;
-                    }
-                }
-                catch (ParseException e)
+                return resp;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isCurrent(Date nextUpdate, Date validDate)
+    {
+        return nextUpdate == null || !validDate.after(nextUpdate);
+    }
+
+    private static final class Key
+    {
+        private final URI ocspResponder;
+        private final CertID certID;
+
+        Key(URI ocspResponder, CertID certID)
+        {
+            this.ocspResponder = ocspResponder;
+            this.certID = certID;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+
+            Key other = (Key)o;
+
+            return ocspResponder.equals(other.ocspResponder) && certID.equals(other.certID);
+        }
+
+        public int hashCode()
+        {
+            return ocspResponder.hashCode() * 31 + certID.hashCode();
+        }
+    }
+
+    private static final class Entry
+        implements CacheUtils.AccessedEntry
+    {
+        final OCSPResponse response;
+        final Date nextUpdate;
+        final long expiry;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        volatile long refreshAt;
+        volatile long lastAccess;
+
+        Entry(OCSPResponse response, Date nextUpdate, long expiry, long refreshAt, long lastAccess)
+        {
+            this.response = response;
+            this.nextUpdate = nextUpdate;
+            this.expiry = expiry;
+            this.refreshAt = refreshAt;
+            this.lastAccess = lastAccess;
+        }
+
+        public long getLastAccess()
+        {
+            return lastAccess;
+        }
+    }
+
+    /**
+     * Everything needed to make a request, kept with a hit so the entry can be refreshed in the background.
+     */
+    private static final class Lookup
+    {
+        final CertID certID;
+        final PKIXCertRevocationCheckerParameters parameters;
+        final URI ocspResponder;
+        final X509Certificate responderCert;
+        final JcaJceHelper helper;
+        final ASN1EncodableVector requestExtensions = new ASN1EncodableVector();
+
+        byte[] nonce;
+
+        Lookup(CertID certID, PKIXCertRevocationCheckerParameters parameters, URI ocspResponder,
+            X509Certificate responderCert, List<Extension> ocspExtensions, JcaJceHelper helper)
+        {
+            this.certID = certID;
+            this.parameters = parameters;
+            this.ocspResponder = ocspResponder;
+            this.responderCert = responderCert;
+            this.helper = helper;
+
+            for (int i = 0; i != ocspExtensions.size(); i++)
+            {
+                Extension ext = ocspExtensions.get(i);
+
+                ASN1ObjectIdentifier oid = new ASN1ObjectIdentifier(ext.getId());
+                ASN1OctetString value = new DEROctetString(ext.getValue());
+
+                if (OCSPObjectIdentifiers.id_pkix_ocsp_nonce.equals(oid))
                 {
-                    // this should never happen, but...
-                    return false;
+                    nonce = Arrays.clone(value.getOctets());
                 }
 
-                return true;
+                requestExtensions.add(new org.bouncycastle.asn1.x509.Extension(oid, ext.isCritical(), value));
             }
         }
+    }
+
+    /**
+     * A request in progress, which other callers missing on the same key join rather than repeat.
+     */
+    private static final class Fetch
+        extends JoinableTask
+    {
+        private final Key key;
+        private final Lookup lookup;
+
+        private Entry entry;
 
-        return false;
+        Fetch(Key key, Lookup lookup)
+        {
+            this.key = key;
+            this.lookup = lookup;
+        }
+
+        protected void compute()
+            throws CertPathValidatorException
+        {
+            entry = store(key, fetch(lookup));
+        }
     }
 }
@@ -34,6 +34,7 @@ public static Test suite()
         suite.addTestSuite(BouncyCastleProviderTest.class);
         suite.addTestSuite(PQCSignatureTest.class);
         suite.addTestSuite(SecretKeyUtilTest.class);
+        suite.addTestSuite(PKIXCRLCacheTest.class);
 
         return new BCTestSetup(suite);
     }
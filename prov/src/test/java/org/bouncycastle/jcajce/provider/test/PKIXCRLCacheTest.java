@@ -0,0 +1,288 @@
+package org.bouncycastle.jcajce.provider.test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.CRL;
+import java.security.cert.CRLException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509CRL;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jcajce.PKIXCRLCache;
+import org.bouncycastle.jcajce.PKIXCRLFetcher;
+import org.bouncycastle.jcajce.PKIXCRLStore;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.provider.test.TestCertificateGen;
+
+public class PKIXCRLCacheTest
+    extends TestCase
+{
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private static final Executor DIRECT = new Executor()
+    {
+        public void execute(Runnable runnable)
+        {
+            runnable.run();
+        }
+    };
+
+    private CertificateFactory certFact;
+    private X509Certificate caCert;
+    private KeyPair caKp;
+    private URI dp1;
+    private URI dp2;
+
+    public void setUp()
+        throws Exception
+    {
+        if (Security.getProvider("BC") == null)
+        {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+
+        KeyPairGenerator kpGen = KeyPairGenerator.getInstance("RSA", "BC");
+        kpGen.initialize(1024);
+        caKp = kpGen.generateKeyPair();
+        caCert = TestCertificateGen.createSelfSignedCert("CN=CRL CA", "SHA256withRSA", caKp);
+        certFact = CertificateFactory.getInstance("X.509", "BC");
+        dp1 = new URI("http://localhost/ca1.crl");
+        dp2 = new URI("http://localhost/ca2.crl");
+    }
+
+    public void testCachedUntilNextUpdate()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        QueueFetcher fetcher = new QueueFetcher();
+        fetcher.add(crl(now - HOUR, now + 3 * HOUR));
+        fetcher.add(crl(now, now + 4 * HOUR));
+
+        PKIXCRLCache cache = new PKIXCRLCache(fetcher, DIRECT, 10);
+
+        PKIXCRLStore store = cache.getCrl(certFact, new Date(now), dp1);
+        assertEquals(1, store.getMatches(null).size());
+        assertSame(store, cache.getCrl(certFact, new Date(now), dp1));
+        assertEquals(1, fetcher.calls.get());
+
+        // validating at a date past the nextUpdate of the held CRL forces a fetch
+        PKIXCRLStore later = cache.getCrl(certFact, new Date(now + 3 * HOUR + 1000), dp1);
+        assertNotSame(store, later);
+        assertEquals(2, fetcher.calls.get());
+
+        cache.clear();
+        try
+        {
+            cache.getCrl(certFact, new Date(now), dp1);
+            fail("no exception");
+        }
+        catch (IOException e)
+        {
+            assertEquals("nothing to fetch", e.getMessage());
+        }
+    }
+
+    public void testBackgroundRefresh()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        QueueFetcher fetcher = new QueueFetcher();
+        // three quarters of the way through its validity period
+        fetcher.add(crl(now - 3 * HOUR, now + HOUR));
+        fetcher.add(crl(now, now + 4 * HOUR));
+
+        PKIXCRLCache cache = new PKIXCRLCache(fetcher, DIRECT, 10);
+
+        PKIXCRLStore first = cache.getCrl(certFact, new Date(now), dp1);
+        assertEquals(1, fetcher.calls.get());
+
+        // the held CRLs are returned while the refresh happens
+        assertSame(first, cache.getCrl(certFact, new Date(now), dp1));
+        assertEquals(2, fetcher.calls.get());
+
+        PKIXCRLStore refreshed = cache.getCrl(certFact, new Date(now), dp1);
+        assertNotSame(first, refreshed);
+        assertSame(refreshed, cache.getCrl(certFact, new Date(now), dp1));
+        assertEquals(2, fetcher.calls.get());
+    }
+
+    public void testFailedRefresh()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        QueueFetcher fetcher = new QueueFetcher();
+        fetcher.add(crl(now - 3 * HOUR, now + HOUR));
+        fetcher.add(new IOException("distribution point down"));
+
+        PKIXCRLCache cache = new PKIXCRLCache(fetcher, DIRECT, 10);
+
+        PKIXCRLStore first = cache.getCrl(certFact, new Date(now), dp1);
+        assertSame(first, cache.getCrl(certFact, new Date(now), dp1));
+        assertEquals(2, fetcher.calls.get());
+
+        // the failure is not retried straight away, and the held CRLs are still returned
+        assertSame(first, cache.getCrl(certFact, new Date(now), dp1));
+        assertEquals(2, fetcher.calls.get());
+    }
+
+    public void testSingleFetch()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final QueueFetcher fetcher = new QueueFetcher()
+        {
+            public Collection<? extends CRL> fetchCRLs(CertificateFactory certFact, URI distributionPoint)
+                throws IOException, CRLException
+            {
+                if (distributionPoint.equals(dp1))
+                {
+                    started.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        throw new IOException("interrupted");
+                    }
+                }
+                return super.fetchCRLs(certFact, distributionPoint);
+            }
+        };
+        fetcher.add(crl(now, now + HOUR));
+        fetcher.add(crl(now, now + HOUR));
+
+        final PKIXCRLCache cache = new PKIXCRLCache(fetcher, DIRECT, 10);
+        final Date validDate = new Date(now);
+        final List<PKIXCRLStore> stores = Collections.synchronizedList(new ArrayList<PKIXCRLStore>());
+        final List<Exception> failures = Collections.synchronizedList(new ArrayList<Exception>());
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        stores.add(cache.getCrl(CertificateFactory.getInstance("X.509", "BC"), validDate, dp1));
+                    }
+                    catch (Exception e)
+                    {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        // a slow distribution point does not hold up another one
+        started.await();
+        assertEquals(1, cache.getCrl(certFact, validDate, dp2).getMatches(null).size());
+
+        release.countDown();
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+
+        assertTrue(failures.isEmpty());
+        assertEquals(2, fetcher.calls.get());
+        assertEquals(4, stores.size());
+        for (int i = 1; i != stores.size(); i++)
+        {
+            assertSame(stores.get(0), stores.get(i));
+        }
+    }
+
+    public void testEviction()
+        throws Exception
+    {
+        long now = System.currentTimeMillis();
+        QueueFetcher fetcher = new QueueFetcher();
+        for (int i = 0; i != 4; i++)
+        {
+            fetcher.add(crl(now, now + HOUR));
+        }
+
+        PKIXCRLCache cache = new PKIXCRLCache(fetcher, DIRECT, 1);
+        Date validDate = new Date(now);
+
+        cache.getCrl(certFact, validDate, dp1);
+        cache.getCrl(certFact, validDate, dp1);
+        cache.getCrl(certFact, validDate, dp2);
+        assertEquals(2, fetcher.calls.get());
+
+        cache.getCrl(certFact, validDate, dp1);
+        assertEquals(3, fetcher.calls.get());
+
+        try
+        {
+            new PKIXCRLCache(fetcher, DIRECT, 0);
+            fail("no exception");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertEquals("maxEntries must be at least 1", e.getMessage());
+        }
+    }
+
+    private X509CRL crl(long thisUpdate, long nextUpdate)
+        throws Exception
+    {
+        return TestCertificateGen.createCRL(caCert, caKp.getPrivate(), BigInteger.valueOf(2),
+            new Date(thisUpdate), new Date(nextUpdate));
+    }
+
+    private static class QueueFetcher
+        implements PKIXCRLFetcher
+    {
+        final AtomicInteger calls = new AtomicInteger();
+        final LinkedList<Object> results = new LinkedList<Object>();
+
+        synchronized void add(Object result)
+        {
+            results.add(result);
+        }
+
+        public Collection<? extends CRL> fetchCRLs(CertificateFactory certFact, URI distributionPoint)
+            throws IOException, CRLException
+        {
+            calls.incrementAndGet();
+
+            Object result;
+            synchronized (this)
+            {
+                if (results.isEmpty())
+                {
+                    throw new IOException("nothing to fetch");
+                }
+                result = results.removeFirst();
+            }
+
+            if (result instanceof IOException)
+            {
+                throw (IOException)result;
+            }
+
+            return Collections.singletonList((X509CRL)result);
+        }
+    }
+}
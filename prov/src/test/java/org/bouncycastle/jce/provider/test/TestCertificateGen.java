@@ -187,17 +187,29 @@ public static X509CRL createCRL(
         BigInteger revokedSerialNumber)
         throws Exception
     {
-        V2TBSCertListGenerator crlGen = new V2TBSCertListGenerator();
         Date now = new Date();
 
+        return createCRL(caCert, caKey, revokedSerialNumber, now, new Date(now.getTime() + 100000));
+    }
+
+    public static X509CRL createCRL(
+        X509Certificate caCert,
+        PrivateKey caKey,
+        BigInteger revokedSerialNumber,
+        Date thisUpdate,
+        Date nextUpdate)
+        throws Exception
+    {
+        V2TBSCertListGenerator crlGen = new V2TBSCertListGenerator();
+
         X500Name issuer = new X500Name(caCert.getSubjectDN().getName());
         crlGen.setIssuer(issuer);
 
-        crlGen.setThisUpdate(new Time(now));
-        crlGen.setNextUpdate(new Time(new Date(now.getTime() + 100000)));
+        crlGen.setThisUpdate(new Time(thisUpdate));
+        crlGen.setNextUpdate(new Time(nextUpdate));
         crlGen.setSignature((AlgorithmIdentifier)algIds.get("SHA256withRSA"));
 
-        crlGen.addCRLEntry(new ASN1Integer(revokedSerialNumber), new Time(now), CRLReason.privilegeWithdrawn);
+        crlGen.addCRLEntry(new ASN1Integer(revokedSerialNumber), new Time(thisUpdate), CRLReason.privilegeWithdrawn);
 
         ExtensionsGenerator extGen = new ExtensionsGenerator();
 
@@ -0,0 +1,48 @@
+package org.bouncycastle.jsse;
+
+/**
+ * A BCJSSE-specific interface providing access to session cache statistics for an
+ * {@link javax.net.ssl.SSLSessionContext}.
+ */
+public interface BCSSLSessionContext
+{
+    /**
+     * Returns the number of session lookups (by session ID or by peer) that found a valid cached session.
+     *
+     * @return The number of cache hits since the context was created.
+     */
+    long getSessionCacheHits();
+
+    /**
+     * Returns the number of session lookups (by session ID or by peer) that did not find a valid cached
+     * session, including lookups that found an expired or invalidated one.
+     *
+     * @return The number of cache misses since the context was created.
+     */
+    long getSessionCacheMisses();
+
+    /**
+     * Returns the number of sessions removed from the cache to keep it within the session cache size.
+     * Sessions removed because they expired or were invalidated are not included.
+     *
+     * @return The number of cache evictions since the context was created.
+     */
+    long getSessionCacheEvictions();
+
+    /**
+     * Returns the provider of keys for RFC 5077 session tickets.
+     *
+     * @return The {@link BCSessionTicketKeyProvider}, or null if session tickets are disabled.
+     */
+    BCSessionTicketKeyProvider getSessionTicketKeyProvider();
+
+    /**
+     * Sets the provider of keys for RFC 5077 session tickets. When set on a server session context,
+     * the server issues a ticket to each TLS 1.2 (or earlier) client that supports them and resumes
+     * sessions from the tickets such clients present. Sessions issued a ticket are not held in the
+     * cache. This setting is ignored by client session contexts.
+     *
+     * @param keyProvider The {@link BCSessionTicketKeyProvider} to use, or null to disable session tickets.
+     */
+    void setSessionTicketKeyProvider(BCSessionTicketKeyProvider keyProvider);
+}
@@ -0,0 +1,70 @@
+package org.bouncycastle.jsse;
+
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A key used to protect RFC 5077 session tickets, following the construction recommended in section
+ * 4 of RFC 5077: the session state is encrypted with AES-CBC and authenticated with HMAC-SHA-256, and
+ * the ticket is labelled with the key name so that the key can be found again when the ticket is
+ * presented.
+ */
+public final class BCSessionTicketKey
+{
+    public static final int KEY_NAME_LENGTH = 16;
+    public static final int MAC_KEY_LENGTH = 32;
+
+    private final byte[] keyName;
+    private final byte[] encryptionKey;
+    private final byte[] macKey;
+
+    /**
+     * @param keyName the 16 byte name identifying this key.
+     * @param encryptionKey a 16 or 32 byte AES key.
+     * @param macKey a 32 byte HMAC-SHA-256 key.
+     */
+    public BCSessionTicketKey(byte[] keyName, byte[] encryptionKey, byte[] macKey)
+    {
+        if (keyName == null || keyName.length != KEY_NAME_LENGTH)
+        {
+            throw new IllegalArgumentException("'keyName' must be " + KEY_NAME_LENGTH + " bytes");
+        }
+        if (encryptionKey == null || (encryptionKey.length != 16 && encryptionKey.length != 32))
+        {
+            throw new IllegalArgumentException("'encryptionKey' must be 16 or 32 bytes");
+        }
+        if (macKey == null || macKey.length != MAC_KEY_LENGTH)
+        {
+            throw new IllegalArgumentException("'macKey' must be " + MAC_KEY_LENGTH + " bytes");
+        }
+
+        this.keyName = Arrays.clone(keyName);
+        this.encryptionKey = Arrays.clone(encryptionKey);
+        this.macKey = Arrays.clone(macKey);
+    }
+
+    public byte[] getKeyName()
+    {
+        return Arrays.clone(keyName);
+    }
+
+    public byte[] getEncryptionKey()
+    {
+        return Arrays.clone(encryptionKey);
+    }
+
+    public byte[] getMacKey()
+    {
+        return Arrays.clone(macKey);
+    }
+
+    /**
+     * Return true if this key has the passed in name.
+     *
+     * @param keyName the key name from a ticket.
+     * @return true if the names match, false otherwise.
+     */
+    public boolean hasKeyName(byte[] keyName)
+    {
+        return Arrays.constantTimeAreEqual(this.keyName, keyName);
+    }
+}
@@ -0,0 +1,28 @@
+package org.bouncycastle.jsse;
+
+/**
+ * Supplies the keys a server uses to issue and accept RFC 5077 session tickets. Servers sharing a
+ * provider (or providers returning the same keys) can resume each other's sessions without holding
+ * any per-session state.
+ * <p>
+ * Keys are expected to rotate: the current key is used for every new ticket, while older keys stay
+ * available for decryption until tickets issued under them have expired. Implementations must be
+ * safe for concurrent use.
+ */
+public interface BCSessionTicketKeyProvider
+{
+    /**
+     * Return the key to protect new tickets with.
+     *
+     * @return the current {@link BCSessionTicketKey}, or null to stop issuing tickets.
+     */
+    BCSessionTicketKey getEncryptionKey();
+
+    /**
+     * Return the key with the given name, for decrypting a ticket presented by a client.
+     *
+     * @param keyName the key name from the ticket.
+     * @return the matching {@link BCSessionTicketKey}, or null if it is unknown or retired.
+     */
+    BCSessionTicketKey getDecryptionKey(byte[] keyName);
+}
@@ -31,6 +31,7 @@
 import org.bouncycastle.tls.TlsFatalAlert;
 import org.bouncycastle.tls.TlsProtocol;
 import org.bouncycastle.tls.TlsServerProtocol;
+import org.bouncycastle.util.Arrays;
 
 /*
  * TODO[jsse] Known limitations (relative to SSLEngine javadoc): 1. The wrap() and unwrap() methods
@@ -44,6 +45,14 @@
 {
     private static final Logger LOG = Logger.getLogger(ProvSSLEngine.class.getName());
 
+    /*
+     * Scratch space for records and application data that can't be passed to the protocol straight from the
+     * caller's buffers (i.e. direct or read-only buffers, or data gathered from several buffers). A buffer is
+     * taken from here for the duration of a single offerInput/writeApplicationData call, so any nested use on
+     * the same thread just allocates another.
+     */
+    private static final ThreadLocal<byte[]> scratchBuffers = new ThreadLocal<byte[]>();
+
     protected final ContextData contextData;
     protected final ProvSSLParameters sslParameters;
 
@@ -61,6 +70,8 @@
 
     protected SSLException deferredException = null;
 
+    private final byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
+
     protected ProvSSLEngine(ContextData contextData)
     {
         this(contextData, null, -1);
@@ -480,10 +491,8 @@ public synchronized SSLEngineResult unwrap(ByteBuffer src, ByteBuffer[] dsts, in
             }
 
             bytesConsumed = preview.getRecordSize();
-            byte[] record = new byte[bytesConsumed];
-            src.get(record);
 
-            protocol.offerInput(record, 0, record.length);
+            offerInput(src, bytesConsumed);
         }
         catch (IOException e)
         {
@@ -614,22 +623,7 @@ else if (protocol.isConnected())
                         return new SSLEngineResult(Status.BUFFER_OVERFLOW, HandshakeStatus.NOT_HANDSHAKING, 0, 0);
                     }
 
-                    // TODO Support writing application data using ByteBuffer array directly
-
-                    byte[] buffer = new byte[srcLimit];
-
-                    for (int srcIndex = 0; srcIndex < length && bytesConsumed < srcLimit; ++srcIndex)
-                    {
-                        ByteBuffer src = srcs[offset + srcIndex];
-                        int count = Math.min(src.remaining(), srcLimit - bytesConsumed);
-                        if (count > 0)
-                        {
-                            src.get(buffer, bytesConsumed, count);
-                            bytesConsumed += count;
-                        }
-                    }
-
-                    protocol.writeApplicationData(buffer, 0, bytesConsumed);
+                    bytesConsumed = writeApplicationData(srcs, offset, length, srcLimit);
 
                     bytesProduced = protocol.getAvailableOutputBytes();
                     assert bytesProduced <= dstLimit;
@@ -730,8 +724,6 @@ private RecordPreview getRecordPreview(ByteBuffer src)
             return null;
         }
 
-        byte[] recordHeader = new byte[RecordFormat.FRAGMENT_OFFSET];
-
         int position = src.position();
         src.get(recordHeader);
         ((java.nio.Buffer)src).position(position);
@@ -764,4 +756,93 @@ private boolean hasInsufficientSpace(ByteBuffer[] dsts, int off, int len, int am
     {
         return getTotalRemaining(dsts, off, len, amount) < amount;
     }
+
+    private void offerInput(ByteBuffer src, int recordSize)
+        throws IOException
+    {
+        int position = src.position();
+        ((java.nio.Buffer)src).position(position + recordSize);
+
+        /*
+         * A record in a heap buffer is processed directly from the backing array. NOTE: Like other providers,
+         * this means the (consumed) record is decrypted in place in the caller's buffer.
+         */
+        if (src.hasArray())
+        {
+            protocol.offerInput(src.array(), src.arrayOffset() + position, recordSize);
+            return;
+        }
+
+        byte[] record = takeScratchBuffer(recordSize);
+        try
+        {
+            ByteBuffer duplicate = src.duplicate();
+            ((java.nio.Buffer)duplicate).position(position);
+            duplicate.get(record, 0, recordSize);
+
+            protocol.offerInput(record, 0, recordSize);
+        }
+        finally
+        {
+            Arrays.fill(record, 0, recordSize, (byte)0);
+            scratchBuffers.set(record);
+        }
+    }
+
+    private static byte[] takeScratchBuffer(int length)
+    {
+        byte[] buf = scratchBuffers.get();
+        if (null == buf || buf.length < length)
+        {
+            return new byte[length];
+        }
+
+        scratchBuffers.set(null);
+        return buf;
+    }
+
+    private int writeApplicationData(ByteBuffer[] srcs, int offset, int length, int srcLimit)
+        throws IOException
+    {
+        // Skip leading empty buffers; if the data then comes from a single heap buffer, write it directly
+        int srcIndex = 0;
+        while (srcIndex < length && !srcs[offset + srcIndex].hasRemaining())
+        {
+            ++srcIndex;
+        }
+
+        ByteBuffer first = srcs[offset + srcIndex];
+        if (first.hasArray() && first.remaining() >= srcLimit)
+        {
+            int position = first.position();
+            ((java.nio.Buffer)first).position(position + srcLimit);
+
+            protocol.writeApplicationData(first.array(), first.arrayOffset() + position, srcLimit);
+            return srcLimit;
+        }
+
+        byte[] buffer = takeScratchBuffer(srcLimit);
+        int bytesConsumed = 0;
+        try
+        {
+            for (; srcIndex < length && bytesConsumed < srcLimit; ++srcIndex)
+            {
+                ByteBuffer src = srcs[offset + srcIndex];
+                int count = Math.min(src.remaining(), srcLimit - bytesConsumed);
+                if (count > 0)
+                {
+                    src.get(buffer, bytesConsumed, count);
+                    bytesConsumed += count;
+                }
+            }
+
+            protocol.writeApplicationData(buffer, 0, bytesConsumed);
+            return bytesConsumed;
+        }
+        finally
+        {
+            Arrays.fill(buffer, 0, bytesConsumed, (byte)0);
+            scratchBuffers.set(buffer);
+        }
+    }
 }
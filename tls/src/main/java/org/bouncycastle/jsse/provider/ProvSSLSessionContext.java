@@ -5,53 +5,70 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSessionContext;
 
+import org.bouncycastle.jsse.BCSSLSessionContext;
+import org.bouncycastle.jsse.BCSessionTicketKeyProvider;
 import org.bouncycastle.tls.SessionID;
 import org.bouncycastle.tls.TlsSession;
 import org.bouncycastle.tls.TlsUtils;
 
 class ProvSSLSessionContext
-    implements SSLSessionContext
+    implements SSLSessionContext, BCSSLSessionContext
 {
     private static final Logger LOG = Logger.getLogger(ProvSSLSessionContext.class.getName());
 
     private static final int provSessionCacheSize = PropertyUtils
         .getIntegerSystemProperty("javax.net.ssl.sessionCacheSize", 20480, 0, Integer.MAX_VALUE);
 
-    // NOTE: This is configured as a simple LRU cache using the "access order" constructor
-    @SuppressWarnings("serial")
-    protected final Map<SessionID, SessionEntry> sessionsByID = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true)
-    {
-        protected boolean removeEldestEntry(Map.Entry<SessionID, SessionEntry> eldest)
-        {
-            boolean shouldRemove = sessionCacheSize > 0 && size() > sessionCacheSize;
-            if (shouldRemove)
-            {
-                removeSessionByPeer(eldest.getValue());
-            }
-            return shouldRemove;
-        }
-    };
-    protected final Map<String, SessionEntry> sessionsByPeer = new HashMap<String, SessionEntry>();
+    private static final int stripeCount = getStripeCount();
+
+    /*
+     * NOTE: Sessions are spread by ID over independently locked stripes, each a simple LRU cache using the "access
+     * order" constructor, so that lookups of different sessions don't contend. Together the stripes approximate a
+     * single LRU cache; the overall size limit is enforced against a shared count.
+     */
+    private final Stripe[] stripes = new Stripe[stripeCount];
+    protected final ConcurrentMap<String, SessionEntry> sessionsByPeer = new ConcurrentHashMap<String, SessionEntry>();
     protected final ReferenceQueue<ProvSSLSession> sessionsQueue = new ReferenceQueue<ProvSSLSession>();
+    private final ExpiryWheel expiryWheel = new ExpiryWheel();
+
+    protected final AtomicInteger sessionCount = new AtomicInteger();
+    protected final AtomicLong hits = new AtomicLong();
+    protected final AtomicLong misses = new AtomicLong();
+    protected final AtomicLong evictions = new AtomicLong();
 
     protected final ContextData contextData;
 
-    protected int sessionCacheSize = provSessionCacheSize;
-    protected int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+    protected volatile int sessionCacheSize = provSessionCacheSize;
+    protected volatile int sessionTimeoutSeconds = 86400; // 24hrs (in seconds)
+    protected volatile BCSessionTicketKeyProvider sessionTicketKeyProvider = null;
 
     ProvSSLSessionContext(ContextData contextData)
     {
         this.contextData = contextData;
+
+        for (int i = 0; i < stripes.length; ++i)
+        {
+            stripes[i] = new Stripe();
+        }
+
+        expiryWheel.reset(sessionTimeoutSeconds);
     }
 
     ContextData getContextData()
@@ -59,40 +76,51 @@ ContextData getContextData()
         return contextData;
     }
 
-    synchronized ProvSSLSession getSessionImpl(byte[] sessionID)
+    ProvSSLSession getSessionImpl(byte[] sessionID)
     {
         processQueue();
+        expiryWheel.advance();
+
+        SessionID id = makeSessionID(sessionID);
+        SessionEntry sessionEntry = null == id ? null : getStripe(id).get(id);
 
-        return accessSession(mapGet(sessionsByID, makeSessionID(sessionID)));
+        return countLookup(accessSession(sessionEntry));
     }
 
-    synchronized ProvSSLSession getSessionImpl(String hostName, int port)
+    ProvSSLSession getSessionImpl(String hostName, int port)
     {
         processQueue();
+        expiryWheel.advance();
 
         SessionEntry sessionEntry = mapGet(sessionsByPeer, makePeerKey(hostName, port));
         ProvSSLSession session = accessSession(sessionEntry);
         if (session != null)
         {
-            // NOTE: For the current simple cache implementation, need to 'access' the sessionByIDs entry
-            sessionsByID.get(sessionEntry.getSessionID());
+            // NOTE: Keep the LRU order of the stripe up to date with the access
+            getStripe(sessionEntry.getSessionID()).get(sessionEntry.getSessionID());
         }
-        return session;
+        return countLookup(session);
     }
 
-    synchronized void removeSession(byte[] sessionID)
+    void removeSession(byte[] sessionID)
     {
-        SessionEntry sessionEntry = mapRemove(sessionsByID, makeSessionID(sessionID));
-        if (null != sessionEntry)
+        SessionID id = makeSessionID(sessionID);
+        if (null != id)
         {
-            removeSessionByPeer(sessionEntry);
+            SessionEntry sessionEntry = getStripe(id).remove(id);
+            if (null != sessionEntry)
+            {
+                sessionCount.decrementAndGet();
+                unlinkSession(sessionEntry);
+            }
         }
     }
 
-    synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
+    ProvSSLSession reportSession(String peerHost, int peerPort, TlsSession tlsSession,
         JsseSessionParameters jsseSessionParameters, boolean addToCache)
     {
         processQueue();
+        expiryWheel.advance();
 
         if (!addToCache)
         {
@@ -100,36 +128,72 @@ synchronized ProvSSLSession reportSession(String peerHost, int peerPort, TlsSess
         }
 
         SessionID sessionID = makeSessionID(tlsSession.getSessionID());
-        SessionEntry sessionEntry = mapGet(sessionsByID, sessionID);
+        if (null == sessionID)
+        {
+            return new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+        }
 
-        ProvSSLSession session = sessionEntry == null ? null : sessionEntry.get();
-        if (null == session || session.getTlsSession() != tlsSession)
+        Stripe stripe = getStripe(sessionID);
+        SessionEntry sessionEntry, replacedEntry = null;
+        ProvSSLSession session;
+        boolean added = false;
+
+        /*
+         * NOTE: The entry is scheduled and indexed by peer while the stripe lock is held, so that it can't be removed
+         * (and unlinked) from the stripe in between, which would leave it behind in the wheel or the peer index.
+         */
+        synchronized (stripe)
         {
-            session = new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+            sessionEntry = stripe.map.get(sessionID);
 
-            if (null != sessionID)
+            session = sessionEntry == null ? null : sessionEntry.get();
+            if (null == session || session.getTlsSession() != tlsSession)
             {
+                session = new ProvSSLSession(this, peerHost, peerPort, tlsSession, jsseSessionParameters);
+
+                replacedEntry = sessionEntry;
                 sessionEntry = new SessionEntry(sessionID, session, sessionsQueue);
-                sessionsByID.put(sessionID, sessionEntry);
+                stripe.map.put(sessionID, sessionEntry);
+                added = true;
+
+                expiryWheel.schedule(sessionEntry);
             }
+
+            mapAdd(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
         }
 
-        if (null != sessionEntry)
+        if (added)
         {
-            mapAdd(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
+            if (null == replacedEntry)
+            {
+                sessionCount.incrementAndGet();
+            }
+            else
+            {
+                unlinkSession(replacedEntry);
+            }
+
+            evictExcessSessions(stripe, sessionEntry);
         }
 
         return session;
     }
 
-    public synchronized Enumeration<byte[]> getIds()
+    public Enumeration<byte[]> getIds()
     {
         removeAllExpiredSessions();
 
-        ArrayList<byte[]> ids = new ArrayList<byte[]>(sessionsByID.size());
-        for (SessionID sessionID : sessionsByID.keySet())
+        ArrayList<byte[]> ids = new ArrayList<byte[]>(sessionCount.get());
+        for (int i = 0; i < stripes.length; ++i)
         {
-            ids.add(sessionID.getBytes());
+            Stripe stripe = stripes[i];
+            synchronized (stripe)
+            {
+                for (SessionID sessionID : stripe.map.keySet())
+                {
+                    ids.add(sessionID.getBytes());
+                }
+            }
         }
         return Collections.enumeration(ids);
     }
@@ -144,16 +208,41 @@ public SSLSession getSession(byte[] sessionID)
         return getSessionImpl(sessionID);
     }
 
-    public synchronized int getSessionCacheSize()
+    public int getSessionCacheSize()
     {
         return sessionCacheSize;
     }
 
-    public synchronized int getSessionTimeout()
+    public int getSessionTimeout()
     {
         return sessionTimeoutSeconds;
     }
 
+    public long getSessionCacheHits()
+    {
+        return hits.get();
+    }
+
+    public long getSessionCacheMisses()
+    {
+        return misses.get();
+    }
+
+    public long getSessionCacheEvictions()
+    {
+        return evictions.get();
+    }
+
+    public BCSessionTicketKeyProvider getSessionTicketKeyProvider()
+    {
+        return sessionTicketKeyProvider;
+    }
+
+    public void setSessionTicketKeyProvider(BCSessionTicketKeyProvider keyProvider)
+    {
+        this.sessionTicketKeyProvider = keyProvider;
+    }
+
     public synchronized void setSessionCacheSize(int size) throws IllegalArgumentException
     {
         if (sessionCacheSize == size)
@@ -171,21 +260,7 @@ public synchronized void setSessionCacheSize(int size) throws IllegalArgumentExc
         removeAllExpiredSessions();
 
         // Immediately remove LRU sessions in excess of the new limit
-        if (sessionCacheSize > 0)
-        {
-            int currentSize = sessionsByID.size();
-            if (currentSize > sessionCacheSize)
-            {
-                Iterator<SessionEntry> iter = sessionsByID.values().iterator();
-                while (iter.hasNext() && currentSize > sessionCacheSize)
-                {
-                    SessionEntry sessionEntry = iter.next();
-                    iter.remove();
-                    removeSessionByPeer(sessionEntry);
-                    --currentSize;
-                }
-            }
-        }
+        evictExcessSessions(null, null);
     }
 
     public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentException
@@ -203,6 +278,20 @@ public synchronized void setSessionTimeout(int seconds) throws IllegalArgumentEx
         this.sessionTimeoutSeconds = seconds;
 
         removeAllExpiredSessions();
+
+        // The wheel granularity depends on the timeout, so reschedule everything that is left
+        expiryWheel.reset(seconds);
+        for (int i = 0; i < stripes.length; ++i)
+        {
+            Stripe stripe = stripes[i];
+            synchronized (stripe)
+            {
+                for (SessionEntry sessionEntry : stripe.map.values())
+                {
+                    expiryWheel.schedule(sessionEntry);
+                }
+            }
+        }
     }
 
     private ProvSSLSession accessSession(SessionEntry sessionEntry)
@@ -225,11 +314,60 @@ private ProvSSLSession accessSession(SessionEntry sessionEntry)
         return null;
     }
 
+    private ProvSSLSession countLookup(ProvSSLSession session)
+    {
+        (null == session ? misses : hits).incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Evict least recently used sessions until the cache is within its size limit. The stripe an entry was just
+     * added to is tried first, but the new entry itself is never the one evicted.
+     */
+    private void evictExcessSessions(Stripe preferred, SessionEntry added)
+    {
+        int start = 0;
+        if (null != preferred)
+        {
+            while (stripes[start] != preferred)
+            {
+                ++start;
+            }
+        }
+
+        int limit;
+        while ((limit = sessionCacheSize) > 0 && sessionCount.get() > limit)
+        {
+            SessionEntry evicted = null;
+            for (int i = 0; i < stripes.length && null == evicted; ++i)
+            {
+                evicted = stripes[(start + i) & (stripes.length - 1)].removeEldest(added);
+            }
+
+            if (null == evicted)
+            {
+                break;
+            }
+
+            sessionCount.decrementAndGet();
+            evictions.incrementAndGet();
+            unlinkSession(evicted);
+        }
+    }
+
     private long getCreationTimeLimit(long expiryTimeMillis)
     {
         return sessionTimeoutSeconds < 1 ? Long.MIN_VALUE : (expiryTimeMillis - 1000L * sessionTimeoutSeconds);
     }
 
+    private Stripe getStripe(SessionID sessionID)
+    {
+        int h = sessionID.hashCode();
+        h ^= (h >>> 16);
+        h ^= (h >>> 8);
+        return stripes[h & (stripes.length - 1)];
+    }
+
     private boolean invalidateIfCreatedBefore(SessionEntry sessionEntry, long creationTimeLimit)
     {
         ProvSSLSession session = sessionEntry.get();
@@ -267,28 +405,60 @@ private void removeAllExpiredSessions()
 
         long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
 
-        Iterator<SessionEntry> iter = sessionsByID.values().iterator();
-        while (iter.hasNext())
+        for (int i = 0; i < stripes.length; ++i)
         {
-            SessionEntry sessionEntry = iter.next();
-            if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
+            Stripe stripe = stripes[i];
+            synchronized (stripe)
             {
-                iter.remove();
-                removeSessionByPeer(sessionEntry);
+                Iterator<SessionEntry> iter = stripe.map.values().iterator();
+                while (iter.hasNext())
+                {
+                    SessionEntry sessionEntry = iter.next();
+                    if (invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
+                    {
+                        iter.remove();
+                        sessionCount.decrementAndGet();
+                        unlinkSession(sessionEntry);
+                    }
+                }
             }
         }
     }
 
     private void removeSession(SessionEntry sessionEntry)
     {
-        mapRemove(sessionsByID, sessionEntry.getSessionID(), sessionEntry);
+        if (getStripe(sessionEntry.getSessionID()).remove(sessionEntry.getSessionID(), sessionEntry))
+        {
+            sessionCount.decrementAndGet();
+        }
+
+        unlinkSession(sessionEntry);
+    }
+
+    /**
+     * Remove the references to an entry that has been removed from (or never made it into) its stripe.
+     */
+    private void unlinkSession(SessionEntry sessionEntry)
+    {
+        String peerKey = sessionEntry.getPeerKey();
+        if (null != peerKey)
+        {
+            sessionsByPeer.remove(peerKey, sessionEntry);
+        }
 
-        removeSessionByPeer(sessionEntry);
+        expiryWheel.cancel(sessionEntry);
     }
 
-    private boolean removeSessionByPeer(SessionEntry sessionEntry)
+    private static int getStripeCount()
     {
-        return mapRemove(sessionsByPeer, sessionEntry.getPeerKey(), sessionEntry);
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        int count = 1;
+        while (count < 64 && count < 4 * processors)
+        {
+            count <<= 1;
+        }
+        return count;
     }
 
     private static String makePeerKey(ProvSSLSession session)
@@ -327,35 +497,188 @@ private static <K, V> V mapGet(Map<K, V> map, K key)
         return key == null ? null : map.get(key);
     }
 
-    private static <K, V> V mapRemove(Map<K, V> map, K key)
+    private static final class Stripe
     {
-        if (map == null)
+        final LinkedHashMap<SessionID, SessionEntry> map = new LinkedHashMap<SessionID, SessionEntry>(16, 0.75f, true);
+
+        synchronized SessionEntry get(SessionID sessionID)
         {
-            throw new NullPointerException();
+            return map.get(sessionID);
+        }
+
+        synchronized SessionEntry remove(SessionID sessionID)
+        {
+            return map.remove(sessionID);
+        }
+
+        synchronized boolean remove(SessionID sessionID, SessionEntry sessionEntry)
+        {
+            // NOTE: Not a plain get() as that would count as an access for the LRU order
+            if (map.containsKey(sessionID))
+            {
+                SessionEntry removed = map.remove(sessionID);
+                if (removed == sessionEntry)
+                {
+                    return true;
+                }
+                map.put(sessionID, removed);
+            }
+            return false;
+        }
+
+        synchronized SessionEntry removeEldest(SessionEntry exclude)
+        {
+            Iterator<SessionEntry> iter = map.values().iterator();
+            if (iter.hasNext())
+            {
+                SessionEntry eldest = iter.next();
+                if (eldest != exclude)
+                {
+                    iter.remove();
+                    return eldest;
+                }
+            }
+            return null;
         }
-        return key == null ? null : map.remove(key);
     }
 
-    private static <K, V> boolean mapRemove(Map<K, V> map, K key, V value)
+    /*
+     * A timer wheel of session expiry times. Each slot covers a fixed interval chosen so that a full turn of the wheel
+     * spans the session timeout, which lets expired sessions be dropped one slot at a time as time passes rather than
+     * by scanning the whole cache. Sessions found to have expired on access are still removed then.
+     */
+    private final class ExpiryWheel
     {
-        if (map == null || value == null)
+        private static final int SLOT_COUNT = 64;
+
+        private final AtomicBoolean advancing = new AtomicBoolean(false);
+        private final List<Set<SessionEntry>> slots = new ArrayList<Set<SessionEntry>>(SLOT_COUNT);
+
+        private volatile long slotMillis;
+        private volatile long nextTick;
+
+        ExpiryWheel()
         {
-            throw new NullPointerException();
+            for (int i = 0; i < SLOT_COUNT; ++i)
+            {
+                slots.add(new HashSet<SessionEntry>());
+            }
         }
-        if (key != null)
+
+        void reset(int timeoutSeconds)
+        {
+            for (int i = 0; i < SLOT_COUNT; ++i)
+            {
+                Set<SessionEntry> slot = slots.get(i);
+                synchronized (slot)
+                {
+                    slot.clear();
+                }
+            }
+
+            // A zero timeout means sessions never expire, so there is nothing to schedule.
+            this.slotMillis = timeoutSeconds < 1 ? 0 : Math.max(1000L, (1000L * timeoutSeconds) / (SLOT_COUNT / 2));
+            this.nextTick = slotMillis == 0 ? 0 : System.currentTimeMillis() / slotMillis;
+        }
+
+        void schedule(SessionEntry sessionEntry)
         {
-            // TODO[jsse] From 1.8 there is a 2-argument remove method to accomplish this 
-            V removed = map.remove(key);
-            if (removed == value)
+            ProvSSLSession session = sessionEntry.get();
+            long millis = slotMillis, timeoutSeconds = sessionTimeoutSeconds;
+            if (millis == 0 || session == null)
+            {
+                return;
+            }
+
+            long expiryTick = Math.max(nextTick, (session.getCreationTime() + 1000L * timeoutSeconds) / millis);
+            sessionEntry.expiryTick = expiryTick;
+
+            Set<SessionEntry> slot = getSlot(expiryTick);
+            synchronized (slot)
             {
-                return true;
+                slot.add(sessionEntry);
             }
-            if (removed != null)
+        }
+
+        void cancel(SessionEntry sessionEntry)
+        {
+            Set<SessionEntry> slot = getSlot(sessionEntry.expiryTick);
+            synchronized (slot)
             {
-                map.put(key, removed);
+                slot.remove(sessionEntry);
             }
         }
-        return false;
+
+        /**
+         * Expire the sessions in every slot the current time has moved past. Only one thread does this at a time;
+         * others carry on without waiting.
+         */
+        void advance()
+        {
+            long millis = slotMillis;
+            if (millis == 0 || System.currentTimeMillis() / millis < nextTick || !advancing.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            try
+            {
+                long currentTick = System.currentTimeMillis() / millis;
+                long firstTick = Math.max(nextTick, currentTick - (SLOT_COUNT - 1));
+
+                // NOTE: Moved on first, so that entries rescheduled below land in slots that are still to come
+                nextTick = currentTick + 1;
+
+                int count = 0;
+                for (long tick = firstTick; tick <= currentTick; ++tick)
+                {
+                    count += expireSlot(getSlot(tick), currentTick);
+                }
+
+                if (count > 0)
+                {
+                    LOG.fine("Removed " + count + " expired sessions from the session cache");
+                }
+            }
+            finally
+            {
+                advancing.set(false);
+            }
+        }
+
+        private Set<SessionEntry> getSlot(long tick)
+        {
+            return slots.get((int)(tick & (SLOT_COUNT - 1)));
+        }
+
+        private int expireSlot(Set<SessionEntry> slot, long currentTick)
+        {
+            List<SessionEntry> entries;
+            synchronized (slot)
+            {
+                entries = new ArrayList<SessionEntry>(slot);
+                slot.clear();
+            }
+
+            long creationTimeLimit = getCreationTimeLimit(System.currentTimeMillis());
+
+            int count = 0;
+            for (SessionEntry sessionEntry : entries)
+            {
+                if (sessionEntry.expiryTick > currentTick
+                    || !invalidateIfCreatedBefore(sessionEntry, creationTimeLimit))
+                {
+                    // Due on a later turn of the wheel (or the timeout was raised since it was scheduled)
+                    schedule(sessionEntry);
+                    continue;
+                }
+
+                removeSession(sessionEntry);
+                ++count;
+            }
+
+            return count;
+        }
     }
 
     private static final class SessionEntry
@@ -364,6 +687,9 @@ private static <K, V> boolean mapRemove(Map<K, V> map, K key, V value)
         private final SessionID sessionID;
         private final String peerKey;
 
+        // NOTE: The expiry wheel tick the entry is scheduled for
+        volatile long expiryTick;
+
         SessionEntry(SessionID sessionID, ProvSSLSession session, ReferenceQueue<ProvSSLSession> queue)
         {
             super(session, queue);
@@ -21,6 +21,8 @@
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.jsse.BCSNIMatcher;
 import org.bouncycastle.jsse.BCSNIServerName;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeyProvider;
 import org.bouncycastle.jsse.BCX509Key;
 import org.bouncycastle.jsse.provider.SignatureSchemeInfo.PerConnection;
 import org.bouncycastle.tls.AlertDescription;
@@ -32,6 +34,7 @@
 import org.bouncycastle.tls.DefaultTlsServer;
 import org.bouncycastle.tls.KeyExchangeAlgorithm;
 import org.bouncycastle.tls.NamedGroup;
+import org.bouncycastle.tls.NewSessionTicket;
 import org.bouncycastle.tls.ProtocolName;
 import org.bouncycastle.tls.ProtocolVersion;
 import org.bouncycastle.tls.SecurityParameters;
@@ -184,6 +187,7 @@ private static BigInteger parseDHParameter(String s, int beginIndex, int endInde
     protected Set<String> keyManagerMissCache = null;
     protected TlsCredentials credentials = null;
     protected boolean handshakeComplete = false;
+    protected boolean sessionTicketIssued = false;
 
     ProvTlsServer(ProvTlsManager manager, ProvSSLParameters sslParameters)
     {
@@ -698,6 +702,69 @@ public Hashtable<Integer, byte[]> getServerExtensions() throws IOException
         return result;
     }
 
+    @Override
+    public void getServerExtensionsForConnection(@SuppressWarnings("rawtypes") Hashtable serverExtensions)
+        throws IOException
+    {
+        super.getServerExtensionsForConnection(serverExtensions);
+
+        /*
+         * RFC 5077 3.2. The server uses a zero-length SessionTicket extension to indicate to the client
+         * that it will send a new session ticket using the NewSessionTicket handshake message.
+         */
+        if (null != TlsExtensionsUtils.getSessionTicketExtensionClient(clientExtensions) &&
+            null != getSessionTicketKeyProvider())
+        {
+            TlsExtensionsUtils.addSessionTicketExtensionServer(serverExtensions);
+        }
+    }
+
+    @Override
+    public TlsSession getSessionToResumeFromTicket(byte[] sessionID, byte[] sessionTicket)
+    {
+        BCSessionTicketKeyProvider keyProvider = getSessionTicketKeyProvider();
+        if (null == keyProvider)
+        {
+            return null;
+        }
+
+        ContextData contextData = manager.getContextData();
+        SessionTicketUtil.TicketState ticketState = SessionTicketUtil.openTicket(contextData.getCrypto(),
+            keyProvider, sessionTicket);
+        if (null == ticketState)
+        {
+            return null;
+        }
+
+        ProvSSLSessionContext sslSessionContext = contextData.getServerSessionContext();
+
+        long timeoutMillis = sslSessionContext.getSessionTimeout() * 1000L;
+        if (timeoutMillis > 0L && System.currentTimeMillis() - ticketState.creationTime > timeoutMillis)
+        {
+            LOG.finer(serverID + ": Session ticket expired");
+            ticketState.sessionParameters.clear();
+            return null;
+        }
+
+        TlsSession sessionToResume = TlsUtils.importSession(sessionID, ticketState.sessionParameters);
+        ProvSSLSession ticketSSLSession = new ProvSSLSession(sslSessionContext, manager.getPeerHost(),
+            manager.getPeerPort(), sessionToResume, ticketState.jsseSessionParameters, ticketState.creationTime);
+
+        if (!isResumable(ticketSSLSession, sessionToResume))
+        {
+            ticketState.sessionParameters.clear();
+            return null;
+        }
+
+        if (LOG.isLoggable(Level.FINE))
+        {
+            LOG.fine(serverID + " accepted session ticket");
+        }
+
+        this.sslSession = ticketSSLSession;
+        return sessionToResume;
+    }
+
     @Override
     public TlsSession getSessionToResume(byte[] sessionID)
     {
@@ -734,6 +801,51 @@ public byte[] getNewSessionID()
         return context.getNonceGenerator().generateNonce(32);
     }
 
+    @Override
+    public NewSessionTicket getNewSessionTicket(SessionParameters sessionParameters) throws IOException
+    {
+        BCSessionTicketKeyProvider keyProvider = getSessionTicketKeyProvider();
+        BCSessionTicketKey key = (null == keyProvider) ? null : keyProvider.getEncryptionKey();
+
+        if (null != key)
+        {
+            ContextData contextData = manager.getContextData();
+
+            long creationTime;
+            JsseSessionParameters jsseSessionParameters;
+            if (context.getSecurityParametersHandshake().isResumedSession() && null != sslSession)
+            {
+                // A renewed ticket must not extend the lifetime of the session
+                creationTime = sslSession.getCreationTime();
+                jsseSessionParameters = sslSession.getJsseSessionParameters();
+            }
+            else
+            {
+                creationTime = System.currentTimeMillis();
+                jsseSessionParameters = new JsseSessionParameters(sslParameters.getEndpointIdentificationAlgorithm(),
+                    matchedSNIServerName);
+            }
+
+            byte[] ticket = SessionTicketUtil.createTicket(contextData.getCrypto(), key, creationTime,
+                sessionParameters, jsseSessionParameters);
+
+            if (null != ticket)
+            {
+                if (LOG.isLoggable(Level.FINE))
+                {
+                    LOG.fine(serverID + " issued session ticket");
+                }
+
+                this.sessionTicketIssued = true;
+
+                long ticketLifetimeHint = contextData.getServerSessionContext().getSessionTimeout();
+                return new NewSessionTicket(ticketLifetimeHint, ticket);
+            }
+        }
+
+        return super.getNewSessionTicket(sessionParameters);
+    }
+
     @Override
     public void notifySession(TlsSession session)
     {
@@ -901,7 +1013,8 @@ public synchronized void notifyHandshakeComplete() throws IOException
             JsseSessionParameters jsseSessionParameters = new JsseSessionParameters(
                 sslParameters.getEndpointIdentificationAlgorithm(), matchedSNIServerName);
             // TODO[tls13] Resumption/PSK
-            boolean addToCache = provServerEnableSessionResumption && !TlsUtils.isTLSv13(context);
+            boolean addToCache = provServerEnableSessionResumption && !TlsUtils.isTLSv13(context)
+                && !sessionTicketIssued;
 
             this.sslSession = sslSessionContext.reportSession(peerHost, peerPort, connectionTlsSession,
                 jsseSessionParameters, addToCache);
@@ -1005,6 +1118,17 @@ protected boolean isClientAuthEnabled()
         return sslParameters.getNeedClientAuth() || sslParameters.getWantClientAuth();
     }
 
+    protected BCSessionTicketKeyProvider getSessionTicketKeyProvider()
+    {
+        // TODO[tls13] Resumption/PSK
+        if (!provServerEnableSessionResumption || TlsUtils.isTLSv13(context))
+        {
+            return null;
+        }
+
+        return manager.getContextData().getServerSessionContext().getSessionTicketKeyProvider();
+    }
+
     protected boolean isResumable(ProvSSLSession provSSLSession, TlsSession tlsSession)
     {
         if (null == tlsSession || !tlsSession.isResumable())
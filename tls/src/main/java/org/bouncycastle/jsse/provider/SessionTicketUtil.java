@@ -0,0 +1,291 @@
+package org.bouncycastle.jsse.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.jsse.BCSNIServerName;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeyProvider;
+import org.bouncycastle.tls.AlertDescription;
+import org.bouncycastle.tls.MACAlgorithm;
+import org.bouncycastle.tls.ServerName;
+import org.bouncycastle.tls.SessionParameters;
+import org.bouncycastle.tls.TlsFatalAlert;
+import org.bouncycastle.tls.TlsUtils;
+import org.bouncycastle.tls.crypto.TlsHMAC;
+import org.bouncycastle.tls.crypto.impl.jcajce.JcaTlsCrypto;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Strings;
+
+/**
+ * RFC 5077 session tickets, using the construction recommended in section 4:
+ * <pre>
+ *     struct {
+ *         opaque key_name[16];
+ *         opaque iv[16];
+ *         opaque encrypted_state&lt;0..2^16-1&gt;;
+ *         opaque mac[32];
+ *     } ticket;
+ * </pre>
+ * where the state is encrypted with AES-CBC (PKCS#7 padding) and the MAC is HMAC-SHA-256 over the
+ * key_name, iv and encrypted_state (including its length).
+ */
+abstract class SessionTicketUtil
+{
+    private static final Logger LOG = Logger.getLogger(SessionTicketUtil.class.getName());
+
+    private static final short STATE_VERSION = 1;
+    private static final int IV_LENGTH = 16;
+    private static final int MAC_LENGTH = 32;
+    private static final int OVERHEAD = BCSessionTicketKey.KEY_NAME_LENGTH + IV_LENGTH + 2 + MAC_LENGTH;
+
+    static class TicketState
+    {
+        final long creationTime;
+        final SessionParameters sessionParameters;
+        final JsseSessionParameters jsseSessionParameters;
+
+        TicketState(long creationTime, SessionParameters sessionParameters,
+            JsseSessionParameters jsseSessionParameters)
+        {
+            this.creationTime = creationTime;
+            this.sessionParameters = sessionParameters;
+            this.jsseSessionParameters = jsseSessionParameters;
+        }
+    }
+
+    /**
+     * Create a ticket for the given session state.
+     *
+     * @return the ticket, or null if the state is too large to fit in one.
+     */
+    static byte[] createTicket(JcaTlsCrypto crypto, BCSessionTicketKey key, long creationTime,
+        SessionParameters sessionParameters, JsseSessionParameters jsseSessionParameters)
+        throws IOException
+    {
+        byte[] state = encodeState(crypto, creationTime, sessionParameters, jsseSessionParameters);
+
+        byte[] iv = new byte[IV_LENGTH];
+        crypto.getSecureRandom().nextBytes(iv);
+
+        byte[] encryptedState;
+        try
+        {
+            encryptedState = createCipher(crypto, Cipher.ENCRYPT_MODE, key, iv).doFinal(state);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error, "unable to encrypt session ticket", e);
+        }
+        finally
+        {
+            Arrays.fill(state, (byte)0);
+        }
+
+        if (!TlsUtils.isValidUint16(encryptedState.length))
+        {
+            return null;
+        }
+
+        byte[] ticket = new byte[OVERHEAD + encryptedState.length];
+
+        int pos = 0;
+        System.arraycopy(key.getKeyName(), 0, ticket, pos, BCSessionTicketKey.KEY_NAME_LENGTH);
+        pos += BCSessionTicketKey.KEY_NAME_LENGTH;
+        System.arraycopy(iv, 0, ticket, pos, IV_LENGTH);
+        pos += IV_LENGTH;
+        TlsUtils.writeUint16(encryptedState.length, ticket, pos);
+        pos += 2;
+        System.arraycopy(encryptedState, 0, ticket, pos, encryptedState.length);
+        pos += encryptedState.length;
+
+        calculateMAC(crypto, key, ticket, pos, ticket, pos);
+
+        return ticket;
+    }
+
+    /**
+     * Recover the session state from a ticket.
+     *
+     * @return the state, or null if the ticket was not issued under a key the provider still has, or is
+     * otherwise unusable.
+     */
+    static TicketState openTicket(JcaTlsCrypto crypto, BCSessionTicketKeyProvider keyProvider, byte[] ticket)
+    {
+        if (ticket.length < OVERHEAD)
+        {
+            return null;
+        }
+
+        int encryptedLength = TlsUtils.readUint16(ticket, BCSessionTicketKey.KEY_NAME_LENGTH + IV_LENGTH);
+        if (ticket.length != OVERHEAD + encryptedLength)
+        {
+            return null;
+        }
+
+        BCSessionTicketKey key = keyProvider.getDecryptionKey(
+            Arrays.copyOfRange(ticket, 0, BCSessionTicketKey.KEY_NAME_LENGTH));
+        if (null == key)
+        {
+            LOG.finer("Session ticket key not available");
+            return null;
+        }
+
+        int macPos = ticket.length - MAC_LENGTH;
+        byte[] expectedMAC = new byte[MAC_LENGTH];
+        calculateMAC(crypto, key, ticket, macPos, expectedMAC, 0);
+
+        if (!Arrays.constantTimeAreEqual(MAC_LENGTH, expectedMAC, 0, ticket, macPos))
+        {
+            LOG.finer("Session ticket failed MAC check");
+            return null;
+        }
+
+        byte[] state = null;
+        try
+        {
+            byte[] iv = Arrays.copyOfRange(ticket, BCSessionTicketKey.KEY_NAME_LENGTH,
+                BCSessionTicketKey.KEY_NAME_LENGTH + IV_LENGTH);
+
+            state = createCipher(crypto, Cipher.DECRYPT_MODE, key, iv).doFinal(ticket, OVERHEAD - MAC_LENGTH,
+                encryptedLength);
+
+            return decodeState(crypto, state);
+        }
+        catch (Exception e)
+        {
+            if (LOG.isLoggable(Level.FINER))
+            {
+                LOG.log(Level.FINER, "Unable to recover session from ticket", e);
+            }
+            return null;
+        }
+        finally
+        {
+            if (null != state)
+            {
+                Arrays.fill(state, (byte)0);
+            }
+        }
+    }
+
+    private static void calculateMAC(JcaTlsCrypto crypto, BCSessionTicketKey key, byte[] buf, int len,
+        byte[] output, int outOff)
+    {
+        byte[] macKey = key.getMacKey();
+
+        TlsHMAC hmac = crypto.createHMAC(MACAlgorithm.hmac_sha256);
+        hmac.setKey(macKey, 0, macKey.length);
+        hmac.update(buf, 0, len);
+        hmac.calculateMAC(output, outOff);
+
+        Arrays.fill(macKey, (byte)0);
+    }
+
+    private static Cipher createCipher(JcaTlsCrypto crypto, int mode, BCSessionTicketKey key, byte[] iv)
+        throws GeneralSecurityException
+    {
+        byte[] encryptionKey = key.getEncryptionKey();
+
+        Cipher cipher = crypto.getHelper().createCipher("AES/CBC/PKCS5Padding");
+        cipher.init(mode, new SecretKeySpec(encryptionKey, "AES"), new IvParameterSpec(iv));
+
+        Arrays.fill(encryptionKey, (byte)0);
+
+        return cipher;
+    }
+
+    private static byte[] encodeState(JcaTlsCrypto crypto, long creationTime, SessionParameters sessionParameters,
+        JsseSessionParameters jsseSessionParameters) throws IOException
+    {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+
+        TlsUtils.writeUint8(STATE_VERSION, buf);
+        TlsUtils.writeUint48(creationTime, buf);
+
+        sessionParameters.encode(crypto, buf);
+
+        String endpointIDAlgorithm = jsseSessionParameters.getEndpointIDAlgorithm();
+        if (null == endpointIDAlgorithm)
+        {
+            TlsUtils.writeUint8(0, buf);
+        }
+        else
+        {
+            TlsUtils.writeUint8(1, buf);
+            TlsUtils.writeOpaque16(Strings.toUTF8ByteArray(endpointIDAlgorithm), buf);
+        }
+
+        BCSNIServerName matchedSNIServerName = jsseSessionParameters.getMatchedSNIServerName();
+        if (null == matchedSNIServerName)
+        {
+            TlsUtils.writeUint8(0, buf);
+        }
+        else
+        {
+            TlsUtils.writeUint8(1, buf);
+            writeServerName(matchedSNIServerName, buf);
+        }
+
+        return buf.toByteArray();
+    }
+
+    private static TicketState decodeState(JcaTlsCrypto crypto, byte[] state) throws IOException
+    {
+        ByteArrayInputStream buf = new ByteArrayInputStream(state);
+
+        if (TlsUtils.readUint8(buf) != STATE_VERSION)
+        {
+            return null;
+        }
+
+        long creationTime = TlsUtils.readUint48(buf);
+
+        SessionParameters sessionParameters = SessionParameters.parse(crypto, buf);
+
+        String endpointIDAlgorithm = null;
+        if (TlsUtils.readUint8(buf) != 0)
+        {
+            endpointIDAlgorithm = Strings.fromUTF8ByteArray(TlsUtils.readOpaque16(buf));
+        }
+
+        BCSNIServerName matchedSNIServerName = null;
+        if (TlsUtils.readUint8(buf) != 0)
+        {
+            matchedSNIServerName = readServerName(buf);
+        }
+
+        if (buf.available() != 0)
+        {
+            sessionParameters.clear();
+            return null;
+        }
+
+        return new TicketState(creationTime, sessionParameters,
+            new JsseSessionParameters(endpointIDAlgorithm, matchedSNIServerName));
+    }
+
+    private static BCSNIServerName readServerName(InputStream input) throws IOException
+    {
+        short nameType = TlsUtils.readUint8(input);
+        byte[] nameData = TlsUtils.readOpaque16(input, 1);
+
+        return JsseUtils.convertSNIServerName(new ServerName(nameType, nameData));
+    }
+
+    private static void writeServerName(BCSNIServerName serverName, OutputStream output) throws IOException
+    {
+        TlsUtils.writeUint8(serverName.getType(), output);
+        TlsUtils.writeOpaque16(serverName.getEncoded(), output);
+    }
+}
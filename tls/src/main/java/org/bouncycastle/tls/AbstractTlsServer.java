@@ -14,7 +14,7 @@
  */
 public abstract class AbstractTlsServer
     extends AbstractTlsPeer
-    implements TlsServer
+    implements TlsSessionTicketServer
 {
     protected TlsServerContext context;
     protected ProtocolVersion[] protocolVersions;
@@ -335,6 +335,12 @@ public TlsSession getSessionToResume(byte[] sessionID)
         return null;
     }
 
+    public TlsSession getSessionToResumeFromTicket(byte[] sessionID, byte[] sessionTicket)
+        throws IOException
+    {
+        return null;
+    }
+
     public byte[] getNewSessionID()
     {
         return null;
@@ -777,4 +783,10 @@ public NewSessionTicket getNewSessionTicket()
          */
         return new NewSessionTicket(0L, TlsUtils.EMPTY_BYTES);
     }
+
+    public NewSessionTicket getNewSessionTicket(SessionParameters sessionParameters)
+        throws IOException
+    {
+        return getNewSessionTicket();
+    }
 }
@@ -3,8 +3,12 @@
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Hashtable;
 
+import org.bouncycastle.tls.crypto.TlsCertificate;
+import org.bouncycastle.tls.crypto.TlsCrypto;
 import org.bouncycastle.tls.crypto.TlsSecret;
 import org.bouncycastle.util.Arrays;
 
@@ -195,4 +199,148 @@ public Hashtable readServerExtensions() throws IOException
         ByteArrayInputStream buf = new ByteArrayInputStream(encodedServerExtensions);
         return TlsProtocol.readExtensions(buf);
     }
+
+    /**
+     * Encode these {@link SessionParameters}, including the master secret, to an {@link OutputStream}. This
+     * is intended for session state that leaves the process, e.g. in an RFC 5077 session ticket, so the
+     * output MUST be protected accordingly.
+     *
+     * @param crypto the {@link TlsCrypto} used to copy the master secret.
+     * @param output the {@link OutputStream} to encode to.
+     * @throws IOException if the master secret is no longer available.
+     */
+    public void encode(TlsCrypto crypto, OutputStream output)
+        throws IOException
+    {
+        TlsSecret sessionMasterSecret = TlsUtils.getSessionMasterSecret(crypto, masterSecret);
+        if (null == sessionMasterSecret)
+        {
+            throw new TlsFatalAlert(AlertDescription.internal_error, "session master secret unavailable");
+        }
+
+        byte[] masterSecretBytes = sessionMasterSecret.extract();
+        try
+        {
+            TlsUtils.writeUint16(cipherSuite, output);
+            TlsUtils.writeVersion(negotiatedVersion, output);
+            TlsUtils.writeUint8(extendedMasterSecret ? 1 : 0, output);
+            TlsUtils.writeOpaque8(masterSecretBytes, output);
+            writeCertificate(localCertificate, output);
+            writeCertificate(peerCertificate, output);
+            writeOptionalOpaque16(pskIdentity, output);
+            writeOptionalOpaque16(srpIdentity, output);
+            TlsUtils.writeOpaque24(encodedServerExtensions == null ? TlsUtils.EMPTY_BYTES : encodedServerExtensions,
+                output);
+        }
+        finally
+        {
+            Arrays.fill(masterSecretBytes, (byte)0);
+        }
+    }
+
+    /**
+     * Parse {@link SessionParameters} previously written by {@link #encode(TlsCrypto, OutputStream)}.
+     *
+     * @param crypto the {@link TlsCrypto} to create the master secret and certificates with.
+     * @param input the {@link InputStream} to parse from.
+     * @return a {@link SessionParameters} object.
+     * @throws IOException if the encoding is malformed.
+     */
+    public static SessionParameters parse(TlsCrypto crypto, InputStream input)
+        throws IOException
+    {
+        int cipherSuite = TlsUtils.readUint16(input);
+        ProtocolVersion negotiatedVersion = TlsUtils.readVersion(input);
+        boolean extendedMasterSecret = readBoolean(input);
+
+        byte[] masterSecretBytes = TlsUtils.readOpaque8(input, 1);
+        TlsSecret masterSecret = crypto.createSecret(masterSecretBytes);
+        Arrays.fill(masterSecretBytes, (byte)0);
+
+        Certificate localCertificate = readCertificate(crypto, input);
+        Certificate peerCertificate = readCertificate(crypto, input);
+        byte[] pskIdentity = readOptionalOpaque16(input);
+        byte[] srpIdentity = readOptionalOpaque16(input);
+
+        byte[] encodedServerExtensions = TlsUtils.readOpaque24(input);
+        if (encodedServerExtensions.length == 0)
+        {
+            encodedServerExtensions = null;
+        }
+
+        return new SessionParameters(cipherSuite, localCertificate, masterSecret, negotiatedVersion,
+            peerCertificate, pskIdentity, srpIdentity, encodedServerExtensions, extendedMasterSecret);
+    }
+
+    private static boolean readBoolean(InputStream input)
+        throws IOException
+    {
+        short b = TlsUtils.readUint8(input);
+        if (b > 1)
+        {
+            throw new TlsFatalAlert(AlertDescription.decode_error);
+        }
+        return b == 1;
+    }
+
+    private static Certificate readCertificate(TlsCrypto crypto, InputStream input)
+        throws IOException
+    {
+        if (!readBoolean(input))
+        {
+            return null;
+        }
+
+        short certificateType = TlsUtils.readUint8(input);
+        int count = TlsUtils.readUint16(input);
+
+        CertificateEntry[] certificateEntryList = new CertificateEntry[count];
+        for (int i = 0; i < count; ++i)
+        {
+            TlsCertificate certificate = crypto.createCertificate(certificateType, TlsUtils.readOpaque24(input, 1));
+            certificateEntryList[i] = new CertificateEntry(certificate, null);
+        }
+
+        return new Certificate(certificateType, null, certificateEntryList);
+    }
+
+    private static byte[] readOptionalOpaque16(InputStream input)
+        throws IOException
+    {
+        return readBoolean(input) ? TlsUtils.readOpaque16(input) : null;
+    }
+
+    private static void writeCertificate(Certificate certificate, OutputStream output)
+        throws IOException
+    {
+        if (null == certificate)
+        {
+            TlsUtils.writeUint8(0, output);
+            return;
+        }
+
+        TlsUtils.writeUint8(1, output);
+        TlsUtils.writeUint8(certificate.getCertificateType(), output);
+
+        TlsCertificate[] certificateList = certificate.getCertificateList();
+        TlsUtils.writeUint16(certificateList.length, output);
+        for (int i = 0; i < certificateList.length; ++i)
+        {
+            TlsUtils.writeOpaque24(certificateList[i].getEncoded(), output);
+        }
+    }
+
+    private static void writeOptionalOpaque16(byte[] data, OutputStream output)
+        throws IOException
+    {
+        if (null == data)
+        {
+            TlsUtils.writeUint8(0, output);
+        }
+        else
+        {
+            TlsUtils.writeUint8(1, output);
+            TlsUtils.writeOpaque16(data, output);
+        }
+    }
 }
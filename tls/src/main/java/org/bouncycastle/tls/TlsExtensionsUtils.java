@@ -38,6 +38,7 @@
     public static final Integer EXT_record_size_limit = Integers.valueOf(ExtensionType.record_size_limit);
     public static final Integer EXT_server_certificate_type = Integers.valueOf(ExtensionType.server_certificate_type);
     public static final Integer EXT_server_name = Integers.valueOf(ExtensionType.server_name);
+    public static final Integer EXT_session_ticket = Integers.valueOf(ExtensionType.session_ticket);
     public static final Integer EXT_signature_algorithms = Integers.valueOf(ExtensionType.signature_algorithms);
     public static final Integer EXT_signature_algorithms_cert = Integers.valueOf(ExtensionType.signature_algorithms_cert);
     public static final Integer EXT_status_request = Integers.valueOf(ExtensionType.status_request);
@@ -221,6 +222,11 @@ public static void addServerNameExtensionServer(Hashtable extensions)
         extensions.put(EXT_server_name, createServerNameExtensionServer());
     }
 
+    public static void addSessionTicketExtensionServer(Hashtable extensions)
+    {
+        extensions.put(EXT_session_ticket, createEmptyExtensionData());
+    }
+
     public static void addSignatureAlgorithmsExtension(Hashtable extensions, Vector supportedSignatureAlgorithms)
         throws IOException
     {
@@ -461,6 +467,14 @@ public static Vector getServerNameExtensionClient(Hashtable extensions)
         return extensionData == null ? null : readServerNameExtensionClient(extensionData);
     }
 
+    /**
+     * RFC 5077 3.2. The ticket is carried directly as the extension data, and may be empty.
+     */
+    public static byte[] getSessionTicketExtensionClient(Hashtable extensions)
+    {
+        return TlsUtils.getExtensionData(extensions, EXT_session_ticket);
+    }
+
     public static Vector getSignatureAlgorithmsExtension(Hashtable extensions)
         throws IOException
     {
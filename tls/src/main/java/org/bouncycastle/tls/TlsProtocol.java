@@ -516,22 +516,7 @@ protected void completeHandshake()
 
             if (this.sessionParameters == null)
             {
-                this.sessionMasterSecret = securityParameters.getMasterSecret();
-
-                this.sessionParameters = new SessionParameters.Builder()
-                    .setCipherSuite(securityParameters.getCipherSuite())
-                    .setExtendedMasterSecret(securityParameters.isExtendedMasterSecret())
-                    .setLocalCertificate(securityParameters.getLocalCertificate())
-                    .setMasterSecret(context.getCrypto().adoptSecret(this.sessionMasterSecret))
-                    .setNegotiatedVersion(securityParameters.getNegotiatedVersion())
-                    .setPeerCertificate(securityParameters.getPeerCertificate())
-                    .setPSKIdentity(securityParameters.getPSKIdentity())
-                    .setSRPIdentity(securityParameters.getSRPIdentity())
-                    // TODO Consider filtering extensions that aren't relevant to resumed sessions
-                    .setServerExtensions(this.serverExtensions)
-                    .build();
-
-                this.tlsSession = TlsUtils.importSession(securityParameters.getSessionID(), this.sessionParameters);
+                establishNewSession();
             }
             else
             {
@@ -549,6 +534,35 @@ protected void completeHandshake()
         }
     }
 
+    /**
+     * Create the parameters and session for a full handshake from the handshake security parameters.
+     * Normally called on completion of the handshake, but the server needs them earlier to issue an
+     * RFC 5077 session ticket.
+     */
+    protected void establishNewSession()
+        throws IOException
+    {
+        AbstractTlsContext context = getContextAdmin();
+        SecurityParameters securityParameters = context.getSecurityParametersHandshake();
+
+        this.sessionMasterSecret = securityParameters.getMasterSecret();
+
+        this.sessionParameters = new SessionParameters.Builder()
+            .setCipherSuite(securityParameters.getCipherSuite())
+            .setExtendedMasterSecret(securityParameters.isExtendedMasterSecret())
+            .setLocalCertificate(securityParameters.getLocalCertificate())
+            .setMasterSecret(context.getCrypto().adoptSecret(this.sessionMasterSecret))
+            .setNegotiatedVersion(securityParameters.getNegotiatedVersion())
+            .setPeerCertificate(securityParameters.getPeerCertificate())
+            .setPSKIdentity(securityParameters.getPSKIdentity())
+            .setSRPIdentity(securityParameters.getSRPIdentity())
+            // TODO Consider filtering extensions that aren't relevant to resumed sessions
+            .setServerExtensions(this.serverExtensions)
+            .build();
+
+        this.tlsSession = TlsUtils.importSession(securityParameters.getSessionID(), this.sessionParameters);
+    }
+
     protected void processRecord(short protocol, byte[] buf, int off, int len)
         throws IOException
     {
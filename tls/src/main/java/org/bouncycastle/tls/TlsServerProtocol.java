@@ -660,7 +660,20 @@ protected ServerHello generateServerHello(ClientHello clientHello, HandshakeMess
             tlsServer.processClientExtensions(clientExtensions);
         }
 
-        TlsSession sessionToResume = tlsServer.getSessionToResume(clientHello.getSessionID());
+        TlsSession sessionToResume = null;
+        if (tlsServer instanceof TlsSessionTicketServer)
+        {
+            byte[] sessionTicket = TlsExtensionsUtils.getSessionTicketExtensionClient(clientExtensions);
+            if (!TlsUtils.isNullOrEmpty(sessionTicket))
+            {
+                sessionToResume = ((TlsSessionTicketServer)tlsServer).getSessionToResumeFromTicket(
+                    clientHello.getSessionID(), sessionTicket);
+            }
+        }
+        if (null == sessionToResume)
+        {
+            sessionToResume = tlsServer.getSessionToResume(clientHello.getSessionID());
+        }
 
         boolean resumedSession = establishSession(sessionToResume);
 
@@ -753,6 +766,15 @@ else if (resumedSession)
                 :   tlsServer.getServerExtensions();
 
             this.serverExtensions = TlsExtensionsUtils.ensureExtensionsInitialised(sessionServerExtensions);
+
+            /*
+             * RFC 5077 3.2. Whether a new ticket is issued is decided for each handshake, so the server
+             * adds the SessionTicket extension per connection when resuming.
+             */
+            if (resumedSession)
+            {
+                this.serverExtensions.remove(EXT_SessionTicket);
+            }
         }
 
         tlsServer.getServerExtensionsForConnection(serverExtensions);
@@ -840,12 +862,12 @@ else if (TlsUtils.hasExpectedEmptyExtensionData(serverExtensions, TlsExtensionsU
                     clientExtensions, serverExtensions, AlertDescription.internal_error);
                 securityParameters.serverCertificateType = TlsUtils.processServerCertificateTypeExtension(
                     clientExtensions, serverExtensions, AlertDescription.internal_error);
-
-                this.expectSessionTicket = TlsUtils.hasExpectedEmptyExtensionData(serverExtensions,
-                    TlsProtocol.EXT_SessionTicket, AlertDescription.internal_error);
             }
         }
 
+        this.expectSessionTicket = TlsUtils.hasExpectedEmptyExtensionData(serverExtensions,
+            TlsProtocol.EXT_SessionTicket, AlertDescription.internal_error);
+
         applyMaxFragmentLengthExtension(securityParameters.getMaxFragmentLength());
 
         return new ServerHello(serverVersion, securityParameters.getServerRandom(), securityParameters.getSessionID(),
@@ -1102,6 +1124,13 @@ protected void handleHandshakeMessage(short type, HandshakeMessageInput buf)
                     securityParameters.masterSecret = sessionMasterSecret;
                     recordStream.setPendingCipher(TlsUtils.initCipher(tlsServerContext));
 
+                    if (this.expectSessionTicket)
+                    {
+                        // RFC 5077 3.1. A resumed session may be given a new ticket.
+                        sendNewSessionTicketMessage(getNewSessionTicket());
+                        this.connection_state = CS_SERVER_SESSION_TICKET;
+                    }
+
                     sendChangeCipherSpec();
                     sendFinishedMessage();
                     this.connection_state = CS_SERVER_FINISHED;
@@ -1369,7 +1398,9 @@ else if (TlsUtils.isSSL(tlsServerContext))
                      * new_session_ticket message.
                      */
 
-                    sendNewSessionTicketMessage(tlsServer.getNewSessionTicket());
+                    establishNewSession();
+
+                    sendNewSessionTicketMessage(getNewSessionTicket());
                     this.connection_state = CS_SERVER_SESSION_TICKET;
                 }
 
@@ -1672,6 +1703,17 @@ protected void sendHelloRequestMessage()
         HandshakeMessageOutput.send(this, HandshakeType.hello_request, TlsUtils.EMPTY_BYTES);
     }
 
+    private NewSessionTicket getNewSessionTicket()
+        throws IOException
+    {
+        if (tlsServer instanceof TlsSessionTicketServer)
+        {
+            return ((TlsSessionTicketServer)tlsServer).getNewSessionTicket(sessionParameters);
+        }
+
+        return tlsServer.getNewSessionTicket();
+    }
+
     protected void sendNewSessionTicketMessage(NewSessionTicket newSessionTicket)
         throws IOException
     {
@@ -0,0 +1,43 @@
+package org.bouncycastle.tls;
+
+import java.io.IOException;
+
+/**
+ * Optional interface for a {@link TlsServer} that issues and accepts RFC 5077 session tickets based on the
+ * state of the session. {@link TlsServerProtocol} uses these methods in preference to
+ * {@link TlsServer#getNewSessionTicket()} when the server implements this interface.
+ */
+public interface TlsSessionTicketServer
+    extends TlsServer
+{
+    /**
+     * RFC 5077 3.4. Interaction with TLS Session ID.
+     * <p>
+     * This method will be called (only) if the client sent a non-empty SessionTicket extension in
+     * its ClientHello, and before {@link #getSessionToResume(byte[])}. If the server accepts the
+     * ticket, the returned session should have the session ID the client sent, which the server then
+     * echoes in its ServerHello. Note that a ticket offered with an empty session ID can't be resumed.
+     *
+     * @param sessionID the session ID from the ClientHello (may be empty).
+     * @param sessionTicket the ticket from the SessionTicket extension.
+     * @return A {@link TlsSession} recovered from the ticket, or null to ignore the ticket.
+     * @throws IOException
+     */
+    TlsSession getSessionToResumeFromTicket(byte[] sessionID, byte[] sessionTicket)
+        throws IOException;
+
+    /**
+     * RFC 5077 3.3. NewSessionTicket Handshake Message.
+     * <p>
+     * This method will be called (only) if a SessionTicket extension was sent by the server, for both
+     * full and abbreviated handshakes. The passed parameters describe the session the ticket is for and
+     * can be recovered later via {@link SessionParameters#parse(org.bouncycastle.tls.crypto.TlsCrypto,
+     * java.io.InputStream)}.
+     *
+     * @param sessionParameters the parameters of the session being established or resumed.
+     * @return The ticket.
+     * @throws IOException
+     */
+    NewSessionTicket getNewSessionTicket(SessionParameters sessionParameters)
+        throws IOException;
+}
@@ -0,0 +1,219 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.TrustManagerFactory;
+
+import junit.framework.TestCase;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * Check application data passes through SSLEngine wrap/unwrap intact for the various kinds of ByteBuffer.
+ */
+public class SSLEngineBufferTest
+    extends TestCase
+{
+    private static final String HOST = "localhost";
+    private static final int PORT = 9050;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SSLEngine clientEngine;
+    private SSLEngine serverEngine;
+
+    protected void setUp()
+        throws Exception
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        char[] keyPass = "keyPassword".toCharArray();
+
+        KeyPair caKeyPair = TestUtils.generateECKeyPair();
+        X509Certificate caCert = TestUtils.generateRootCert(caKeyPair);
+
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        ks.setKeyEntry("server", caKeyPair.getPrivate(), keyPass, new X509Certificate[]{ caCert });
+
+        KeyStore ts = KeyStore.getInstance("JKS");
+        ts.load(null, null);
+        ts.setCertificateEntry("ca", caCert);
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(ks, keyPass);
+
+        SSLContext serverContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        serverContext.init(kmf.getKeyManagers(), null, SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        tmf.init(ts);
+
+        SSLContext clientContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        clientContext.init(null, tmf.getTrustManagers(), SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        clientEngine = clientContext.createSSLEngine(HOST, PORT);
+        clientEngine.setUseClientMode(true);
+
+        serverEngine = serverContext.createSSLEngine();
+        serverEngine.setUseClientMode(false);
+
+        handshake();
+    }
+
+    public void testHeapBuffers()
+        throws Exception
+    {
+        byte[] data = randomData(20000);
+
+        checkTransfer(data, new ByteBuffer[]{ ByteBuffer.wrap(data) }, false);
+    }
+
+    public void testHeapBufferWithOffset()
+        throws Exception
+    {
+        byte[] data = randomData(5000);
+
+        byte[] padded = new byte[data.length + 17];
+        System.arraycopy(data, 0, padded, 11, data.length);
+
+        checkTransfer(data, new ByteBuffer[]{ ByteBuffer.wrap(padded, 11, data.length).slice() }, false);
+    }
+
+    public void testDirectBuffers()
+        throws Exception
+    {
+        byte[] data = randomData(20000);
+
+        ByteBuffer src = ByteBuffer.allocateDirect(data.length);
+        src.put(data);
+        ((java.nio.Buffer)src).flip();
+
+        checkTransfer(data, new ByteBuffer[]{ src }, true);
+    }
+
+    public void testReadOnlyBuffers()
+        throws Exception
+    {
+        byte[] data = randomData(3000);
+
+        checkTransfer(data, new ByteBuffer[]{ ByteBuffer.wrap(data).asReadOnlyBuffer() }, true);
+    }
+
+    public void testGatheredBuffers()
+        throws Exception
+    {
+        byte[] data = randomData(18000);
+
+        ByteBuffer[] srcs = new ByteBuffer[]{ ByteBuffer.allocate(0), ByteBuffer.wrap(data, 0, 100).slice(),
+            ByteBuffer.allocate(0), ByteBuffer.wrap(data, 100, 7000).slice(), ByteBuffer.allocateDirect(10900) };
+        srcs[4].put(data, 7100, 10900);
+        ((java.nio.Buffer)srcs[4]).flip();
+
+        checkTransfer(data, srcs, false);
+    }
+
+    private void checkTransfer(byte[] data, ByteBuffer[] srcs, boolean directPackets)
+        throws Exception
+    {
+        int packetSize = clientEngine.getSession().getPacketBufferSize();
+        ByteBuffer packet = directPackets ? ByteBuffer.allocateDirect(packetSize) : ByteBuffer.allocate(packetSize);
+        ByteBuffer received = ByteBuffer.allocate(data.length + serverEngine.getSession().getApplicationBufferSize());
+
+        for (int i = 0; i < 100 && hasRemaining(srcs); ++i)
+        {
+            ((java.nio.Buffer)packet).clear();
+            SSLEngineResult wrapResult = clientEngine.wrap(srcs, packet);
+            assertEquals(SSLEngineResult.Status.OK, wrapResult.getStatus());
+
+            ((java.nio.Buffer)packet).flip();
+            while (packet.hasRemaining())
+            {
+                SSLEngineResult unwrapResult = serverEngine.unwrap(packet, received);
+                assertEquals(SSLEngineResult.Status.OK, unwrapResult.getStatus());
+            }
+        }
+
+        assertFalse(hasRemaining(srcs));
+        assertEquals(data.length, received.position());
+        assertTrue(Arrays.areEqual(data, Arrays.copyOf(received.array(), data.length)));
+    }
+
+    private void handshake()
+        throws Exception
+    {
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientIn = ByteBuffer.allocate(clientEngine.getSession().getApplicationBufferSize());
+        ByteBuffer serverIn = ByteBuffer.allocate(serverEngine.getSession().getApplicationBufferSize());
+        ByteBuffer clientToServer = ByteBuffer.allocate(clientEngine.getSession().getPacketBufferSize());
+        ByteBuffer serverToClient = ByteBuffer.allocate(serverEngine.getSession().getPacketBufferSize());
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        for (int i = 0; i < 100 && (isHandshaking(clientEngine) || isHandshaking(serverEngine)); ++i)
+        {
+            runDelegatedTasks(clientEngine, clientEngine.wrap(empty, clientToServer));
+            runDelegatedTasks(serverEngine, serverEngine.wrap(empty, serverToClient));
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            runDelegatedTasks(clientEngine, clientEngine.unwrap(serverToClient, clientIn));
+            runDelegatedTasks(serverEngine, serverEngine.unwrap(clientToServer, serverIn));
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        assertFalse(isHandshaking(clientEngine));
+        assertFalse(isHandshaking(serverEngine));
+    }
+
+    private static boolean hasRemaining(ByteBuffer[] bufs)
+    {
+        for (int i = 0; i < bufs.length; ++i)
+        {
+            if (bufs[i].hasRemaining())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHandshaking(SSLEngine engine)
+    {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return HandshakeStatus.NOT_HANDSHAKING != status && HandshakeStatus.FINISHED != status;
+    }
+
+    private static byte[] randomData(int length)
+    {
+        byte[] data = new byte[length];
+        RANDOM.nextBytes(data);
+        return data;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine, SSLEngineResult result)
+    {
+        if (HandshakeStatus.NEED_TASK != result.getHandshakeStatus())
+        {
+            return;
+        }
+
+        Runnable runnable;
+        while ((runnable = engine.getDelegatedTask()) != null)
+        {
+            runnable.run();
+        }
+    }
+}
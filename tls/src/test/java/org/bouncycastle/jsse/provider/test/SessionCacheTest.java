@@ -0,0 +1,188 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManagerFactory;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jsse.BCSSLSessionContext;
+import org.bouncycastle.util.Arrays;
+
+public class SessionCacheTest
+    extends TestCase
+{
+    private static final String HOST = "localhost";
+
+    private SSLContext clientContext;
+    private SSLContext serverContext;
+
+    protected void setUp()
+        throws Exception
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        char[] keyPass = "keyPassword".toCharArray();
+
+        KeyPair caKeyPair = TestUtils.generateECKeyPair();
+        X509Certificate caCert = TestUtils.generateRootCert(caKeyPair);
+
+        KeyStore ks = KeyStore.getInstance("JKS");
+        ks.load(null, null);
+        ks.setKeyEntry("server", caKeyPair.getPrivate(), keyPass, new X509Certificate[]{ caCert });
+
+        KeyStore ts = KeyStore.getInstance("JKS");
+        ts.load(null, null);
+        ts.setCertificateEntry("ca", caCert);
+
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(ks, keyPass);
+
+        serverContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        serverContext.init(kmf.getKeyManagers(), null, SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        tmf.init(ts);
+
+        clientContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        clientContext.init(null, tmf.getTrustManagers(), SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+    }
+
+    public void testResumptionCounters()
+        throws Exception
+    {
+        BCSSLSessionContext clientSessions = (BCSSLSessionContext)clientContext.getClientSessionContext();
+        BCSSLSessionContext serverSessions = (BCSSLSessionContext)serverContext.getServerSessionContext();
+
+        SSLSession first = connect(9021);
+        SSLSession second = connect(9021);
+
+        assertTrue(Arrays.areEqual(first.getId(), second.getId()));
+
+        assertEquals(1, clientSessions.getSessionCacheMisses());
+        assertEquals(1, clientSessions.getSessionCacheHits());
+        assertEquals(1, serverSessions.getSessionCacheHits());
+        assertEquals(0, clientSessions.getSessionCacheEvictions());
+
+        assertNotNull(clientContext.getClientSessionContext().getSession(first.getId()));
+        assertNotNull(serverContext.getServerSessionContext().getSession(first.getId()));
+    }
+
+    public void testEviction()
+        throws Exception
+    {
+        BCSSLSessionContext clientSessions = (BCSSLSessionContext)clientContext.getClientSessionContext();
+        clientContext.getClientSessionContext().setSessionCacheSize(2);
+
+        SSLSession[] sessions = new SSLSession[4];
+        for (int i = 0; i < sessions.length; ++i)
+        {
+            sessions[i] = connect(9030 + i);
+        }
+
+        assertEquals(2, clientSessions.getSessionCacheEvictions());
+        assertEquals(2, countIds(clientContext.getClientSessionContext().getIds()));
+
+        // shrinking the cache evicts straight away
+        clientContext.getClientSessionContext().setSessionCacheSize(1);
+
+        assertEquals(3, clientSessions.getSessionCacheEvictions());
+        assertEquals(1, countIds(clientContext.getClientSessionContext().getIds()));
+    }
+
+    public void testTimeout()
+        throws Exception
+    {
+        SSLSession session = connect(9040);
+
+        assertNotNull(clientContext.getClientSessionContext().getSession(session.getId()));
+
+        clientContext.getClientSessionContext().setSessionTimeout(1);
+        Thread.sleep(2100);
+
+        assertNull(clientContext.getClientSessionContext().getSession(session.getId()));
+        assertEquals(0, countIds(clientContext.getClientSessionContext().getIds()));
+        assertFalse(session.isValid());
+    }
+
+    private SSLSession connect(int port)
+        throws Exception
+    {
+        SSLEngine clientEngine = clientContext.createSSLEngine(HOST, port);
+        clientEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        clientEngine.setUseClientMode(true);
+
+        SSLEngine serverEngine = serverContext.createSSLEngine();
+        serverEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        serverEngine.setUseClientMode(false);
+
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientIn = ByteBuffer.allocate(clientEngine.getSession().getApplicationBufferSize());
+        ByteBuffer serverIn = ByteBuffer.allocate(serverEngine.getSession().getApplicationBufferSize());
+        ByteBuffer clientToServer = ByteBuffer.allocate(clientEngine.getSession().getPacketBufferSize());
+        ByteBuffer serverToClient = ByteBuffer.allocate(serverEngine.getSession().getPacketBufferSize());
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        for (int i = 0; i < 100 && (isHandshaking(clientEngine) || isHandshaking(serverEngine)); ++i)
+        {
+            runDelegatedTasks(clientEngine, clientEngine.wrap(empty, clientToServer));
+            runDelegatedTasks(serverEngine, serverEngine.wrap(empty, serverToClient));
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            runDelegatedTasks(clientEngine, clientEngine.unwrap(serverToClient, clientIn));
+            runDelegatedTasks(serverEngine, serverEngine.unwrap(clientToServer, serverIn));
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        assertFalse(isHandshaking(clientEngine));
+        assertFalse(isHandshaking(serverEngine));
+
+        return clientEngine.getSession();
+    }
+
+    private static int countIds(java.util.Enumeration<byte[]> ids)
+    {
+        int count = 0;
+        while (ids.hasMoreElements())
+        {
+            ids.nextElement();
+            ++count;
+        }
+        return count;
+    }
+
+    private static boolean isHandshaking(SSLEngine engine)
+    {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return HandshakeStatus.NOT_HANDSHAKING != status && HandshakeStatus.FINISHED != status;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine, SSLEngineResult result)
+    {
+        if (HandshakeStatus.NEED_TASK != result.getHandshakeStatus())
+        {
+            return;
+        }
+
+        Runnable runnable;
+        while ((runnable = engine.getDelegatedTask()) != null)
+        {
+            runnable.run();
+        }
+    }
+}
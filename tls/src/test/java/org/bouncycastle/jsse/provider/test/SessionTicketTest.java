@@ -0,0 +1,259 @@
+package org.bouncycastle.jsse.provider.test;
+
+import java.nio.ByteBuffer;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManagerFactory;
+
+import junit.framework.TestCase;
+import org.bouncycastle.jsse.BCSSLSessionContext;
+import org.bouncycastle.jsse.BCSessionTicketKey;
+import org.bouncycastle.jsse.BCSessionTicketKeyProvider;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * RFC 5077 session tickets issued by the BCJSSE server, presented by the SunJSSE client.
+ */
+public class SessionTicketTest
+    extends TestCase
+{
+    private static final String HOST = "localhost";
+
+    private KeyStore serverKeyStore;
+    private KeyStore trustStore;
+    private char[] keyPass = "keyPassword".toCharArray();
+
+    protected void setUp()
+        throws Exception
+    {
+        ProviderUtils.setupLowPriority(false);
+
+        KeyPair caKeyPair = TestUtils.generateECKeyPair();
+        X509Certificate caCert = TestUtils.generateRootCert(caKeyPair);
+
+        serverKeyStore = KeyStore.getInstance("JKS");
+        serverKeyStore.load(null, null);
+        serverKeyStore.setKeyEntry("server", caKeyPair.getPrivate(), keyPass, new X509Certificate[]{ caCert });
+
+        trustStore = KeyStore.getInstance("JKS");
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("ca", caCert);
+    }
+
+    public void testResumption()
+        throws Exception
+    {
+        RotatingKeyProvider keyProvider = new RotatingKeyProvider();
+
+        SSLContext serverContext = createServerContext(keyProvider);
+        SSLContext clientContext = createClientContext();
+
+        SSLSession first = connect(clientContext, serverContext, 9051);
+        SSLSession second = connect(clientContext, serverContext, 9051);
+
+        assertTrue(Arrays.areEqual(first.getId(), second.getId()));
+
+        // nothing is held by the server for ticket sessions
+        assertFalse(serverContext.getServerSessionContext().getIds().hasMoreElements());
+    }
+
+    public void testSharedKeys()
+        throws Exception
+    {
+        RotatingKeyProvider keyProvider = new RotatingKeyProvider();
+
+        SSLContext serverContext1 = createServerContext(keyProvider);
+        SSLContext serverContext2 = createServerContext(keyProvider);
+        SSLContext clientContext = createClientContext();
+
+        SSLSession first = connect(clientContext, serverContext1, 9052);
+        SSLSession second = connect(clientContext, serverContext2, 9052);
+
+        assertTrue(Arrays.areEqual(first.getId(), second.getId()));
+    }
+
+    public void testKeyRotation()
+        throws Exception
+    {
+        RotatingKeyProvider keyProvider = new RotatingKeyProvider();
+
+        SSLContext serverContext = createServerContext(keyProvider);
+        SSLContext clientContext = createClientContext();
+
+        SSLSession first = connect(clientContext, serverContext, 9053);
+
+        // tickets under a retired, but still known, key are accepted
+        keyProvider.rotate();
+        SSLSession second = connect(clientContext, serverContext, 9053);
+        assertTrue(Arrays.areEqual(first.getId(), second.getId()));
+
+        // ... until the key is dropped; the renewed ticket from the last connection is under the second key
+        keyProvider.rotate();
+        keyProvider.rotate();
+        keyProvider.rotate();
+        SSLSession third = connect(clientContext, serverContext, 9053);
+        assertFalse(Arrays.areEqual(first.getId(), third.getId()));
+    }
+
+    public void testDisabled()
+        throws Exception
+    {
+        SSLContext serverContext = createServerContext(null);
+        SSLContext clientContext = createClientContext();
+
+        SSLSession first = connect(clientContext, serverContext, 9054);
+        SSLSession second = connect(clientContext, serverContext, 9054);
+
+        // falls back to the session ID cache
+        assertTrue(Arrays.areEqual(first.getId(), second.getId()));
+        assertTrue(serverContext.getServerSessionContext().getIds().hasMoreElements());
+    }
+
+    private SSLContext createClientContext()
+        throws Exception
+    {
+        TrustManagerFactory tmf = TrustManagerFactory.getInstance("PKIX", "SunJSSE");
+        tmf.init(trustStore);
+
+        SSLContext clientContext = SSLContext.getInstance("TLS", "SunJSSE");
+        clientContext.init(null, tmf.getTrustManagers(), new SecureRandom());
+        return clientContext;
+    }
+
+    private SSLContext createServerContext(BCSessionTicketKeyProvider keyProvider)
+        throws Exception
+    {
+        KeyManagerFactory kmf = KeyManagerFactory.getInstance("PKIX", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        kmf.init(serverKeyStore, keyPass);
+
+        SSLContext serverContext = SSLContext.getInstance("TLS", ProviderUtils.PROVIDER_NAME_BCJSSE);
+        serverContext.init(kmf.getKeyManagers(), null,
+            SecureRandom.getInstance("DEFAULT", ProviderUtils.PROVIDER_NAME_BC));
+
+        ((BCSSLSessionContext)serverContext.getServerSessionContext()).setSessionTicketKeyProvider(keyProvider);
+
+        return serverContext;
+    }
+
+    private static SSLSession connect(SSLContext clientContext, SSLContext serverContext, int port)
+        throws Exception
+    {
+        SSLEngine clientEngine = clientContext.createSSLEngine(HOST, port);
+        clientEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        clientEngine.setUseClientMode(true);
+
+        SSLEngine serverEngine = serverContext.createSSLEngine();
+        serverEngine.setEnabledProtocols(new String[]{ "TLSv1.2" });
+        serverEngine.setUseClientMode(false);
+
+        ByteBuffer empty = ByteBuffer.allocate(0);
+        ByteBuffer clientIn = ByteBuffer.allocate(clientEngine.getSession().getApplicationBufferSize());
+        ByteBuffer serverIn = ByteBuffer.allocate(serverEngine.getSession().getApplicationBufferSize());
+        ByteBuffer clientToServer = ByteBuffer.allocate(clientEngine.getSession().getPacketBufferSize());
+        ByteBuffer serverToClient = ByteBuffer.allocate(serverEngine.getSession().getPacketBufferSize());
+
+        clientEngine.beginHandshake();
+        serverEngine.beginHandshake();
+
+        for (int i = 0; i < 100 && (isHandshaking(clientEngine) || isHandshaking(serverEngine)); ++i)
+        {
+            runDelegatedTasks(clientEngine, clientEngine.wrap(empty, clientToServer));
+            runDelegatedTasks(serverEngine, serverEngine.wrap(empty, serverToClient));
+
+            ((java.nio.Buffer)clientToServer).flip();
+            ((java.nio.Buffer)serverToClient).flip();
+
+            runDelegatedTasks(clientEngine, clientEngine.unwrap(serverToClient, clientIn));
+            runDelegatedTasks(serverEngine, serverEngine.unwrap(clientToServer, serverIn));
+
+            clientToServer.compact();
+            serverToClient.compact();
+        }
+
+        assertFalse(isHandshaking(clientEngine));
+        assertFalse(isHandshaking(serverEngine));
+
+        return clientEngine.getSession();
+    }
+
+    private static boolean isHandshaking(SSLEngine engine)
+    {
+        HandshakeStatus status = engine.getHandshakeStatus();
+        return HandshakeStatus.NOT_HANDSHAKING != status && HandshakeStatus.FINISHED != status;
+    }
+
+    private static void runDelegatedTasks(SSLEngine engine, SSLEngineResult result)
+    {
+        if (HandshakeStatus.NEED_TASK != result.getHandshakeStatus())
+        {
+            return;
+        }
+
+        Runnable runnable;
+        while ((runnable = engine.getDelegatedTask()) != null)
+        {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Keeps the current key and the two before it available for decryption.
+     */
+    private static class RotatingKeyProvider
+        implements BCSessionTicketKeyProvider
+    {
+        private final SecureRandom random = new SecureRandom();
+        private final Map<String, BCSessionTicketKey> keys = new ConcurrentHashMap<String, BCSessionTicketKey>();
+        private final BCSessionTicketKey[] generations = new BCSessionTicketKey[3];
+
+        RotatingKeyProvider()
+        {
+            rotate();
+        }
+
+        synchronized void rotate()
+        {
+            BCSessionTicketKey retired = generations[generations.length - 1];
+            if (null != retired)
+            {
+                keys.remove(Hex.toHexString(retired.getKeyName()));
+            }
+
+            System.arraycopy(generations, 0, generations, 1, generations.length - 1);
+
+            BCSessionTicketKey key = new BCSessionTicketKey(randomBytes(16), randomBytes(16), randomBytes(32));
+            generations[0] = key;
+            keys.put(Hex.toHexString(key.getKeyName()), key);
+        }
+
+        public synchronized BCSessionTicketKey getEncryptionKey()
+        {
+            return generations[0];
+        }
+
+        public BCSessionTicketKey getDecryptionKey(byte[] keyName)
+        {
+            return keys.get(Hex.toHexString(keyName));
+        }
+
+        private byte[] randomBytes(int length)
+        {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            return bytes;
+        }
+    }
+}